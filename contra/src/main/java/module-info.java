@@ -5,6 +5,12 @@ module se233.contra {
     requires javafx.graphics;
     requires javafx.media;
 
+    // Audio output (javax.sound.sampled)
+    requires java.desktop;
+
+    // SIMD batch kernels, when started with --add-modules jdk.incubator.vector
+    requires static jdk.incubator.vector;
+
     // Logging modules
     requires org.slf4j;
     requires ch.qos.logback.classic;
@@ -22,4 +28,8 @@ module se233.contra {
     exports se233.contra.view;
     exports se233.contra.util;
     exports se233.contra.exception;
+    exports se233.contra.audio;
+    exports se233.contra.net;
+    exports se233.contra.ai;
+    exports se233.contra.script;
 }
\ No newline at end of file
@@ -8,13 +8,28 @@ import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.audio.SoundManager;
+import se233.contra.controller.FlightRecorder;
+import se233.contra.controller.FlightReplay;
 import se233.contra.controller.GameController;
 import se233.contra.controller.InputHandler;
+import se233.contra.controller.PlayerInput;
 import se233.contra.exception.GameException;
+import se233.contra.net.GameClient;
+import se233.contra.net.LinkSimulator;
+import se233.contra.net.RollbackSession;
+import se233.contra.net.SpectatorBroadcaster;
+import se233.contra.net.SpectatorClient;
+import se233.contra.net.UdpTransport;
+import se233.contra.net.WorldSnapshot;
 import se233.contra.util.Constants;
 import se233.contra.view.GameView;
 import se233.contra.view.SpriteLoader;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.Map;
+
 public class
 Main extends Application {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
@@ -22,6 +37,12 @@ Main extends Application {
     private GameController gameController;
     private GameView gameView;
     private GameLoop gameLoop;
+    private RollbackSession netplay;
+    private GameClient remote;
+    private SpectatorBroadcaster spectators;
+    private SpectatorClient spectating;
+    private FlightReplay replay;
+    private final WorldSnapshot remoteWorld = new WorldSnapshot();
 
 
     @Override
@@ -32,8 +53,33 @@ Main extends Application {
             // Initialize sprite loader
             SpriteLoader.initialize();
 
-            // Create game controller
-            gameController = new GameController();
+            // Decode sound effects and start the audio mixer
+            SoundManager.initialize();
+
+            // Create game controller (netplay skips the menu and starts two players)
+            Map<String, String> options = getParameters().getNamed();
+            if (options.containsKey("netplay")) {
+                startNetplay(options);
+            } else if (options.containsKey("connect")) {
+                startRemote(options);
+            } else if (options.containsKey("spectate")) {
+                String[] parts = options.get("spectate").split(":");
+                spectating = new SpectatorClient(new InetSocketAddress(parts[0], Integer.parseInt(parts[1])));
+                gameController = new GameController();
+            } else if (options.containsKey("replay")) {
+                // --replay=logs/flight-....cflt steps through a flight recorder dump
+                replay = FlightReplay.load(Paths.get(options.get("replay")));
+                gameController = replay.getGame();
+            } else {
+                gameController = new GameController();
+                gameController.setFlightRecorder(new FlightRecorder());
+            }
+
+            // --broadcast=port streams local play to spectators
+            if (options.containsKey("broadcast")) {
+                spectators = new SpectatorBroadcaster(Integer.parseInt(options.get("broadcast")));
+                gameController.addTickListener(spectators);
+            }
 
             // Create game view
             gameView = new GameView(gameController);
@@ -64,6 +110,52 @@ Main extends Application {
         }
     }
 
+    /**
+     * --netplay=localPort:peerHost:peerPort:player (player 1 or 2)
+     * [--seed=n] [--versus=true] [--latency=ms] [--loss=0.05]
+     * Both peers must use the same seed.
+     */
+    private void startNetplay(Map<String, String> options) {
+        String[] parts = options.get("netplay").split(":");
+        if (parts.length != 4) {
+            throw new GameException("Expected --netplay=localPort:peerHost:peerPort:player",
+                    GameException.ErrorType.NETWORK_ERROR);
+        }
+
+        int localPort = Integer.parseInt(parts[0]);
+        InetSocketAddress peer = new InetSocketAddress(parts[1], Integer.parseInt(parts[2]));
+        int localPlayer = Integer.parseInt(parts[3]) - 1;
+        LinkSimulator link = new LinkSimulator(
+                Integer.parseInt(options.getOrDefault("latency", "0")),
+                Double.parseDouble(options.getOrDefault("loss", "0")),
+                localPort);
+
+        gameController = new GameController(Long.parseLong(options.getOrDefault("seed", "1")));
+        gameController.startGame(2, Boolean.parseBoolean(options.getOrDefault("versus", "false")));
+        netplay = new RollbackSession(gameController, localPlayer,
+                new UdpTransport(localPort, peer, link), Constants.ROLLBACK_MAX_FRAMES);
+    }
+
+    /**
+     * --connect=serverHost:serverPort [--port=localPort] [--latency=ms] [--loss=0.05]
+     * Plays on a GameServer; the local controller is never started.
+     */
+    private void startRemote(Map<String, String> options) {
+        String[] parts = options.get("connect").split(":");
+        if (parts.length != 2) {
+            throw new GameException("Expected --connect=host:port", GameException.ErrorType.NETWORK_ERROR);
+        }
+
+        int localPort = Integer.parseInt(options.getOrDefault("port", "0"));
+        LinkSimulator link = new LinkSimulator(
+                Integer.parseInt(options.getOrDefault("latency", "0")),
+                Double.parseDouble(options.getOrDefault("loss", "0")),
+                localPort);
+        remote = new GameClient(localPort,
+                new InetSocketAddress(parts[0], Integer.parseInt(parts[1])), link);
+        gameController = new GameController();
+    }
+
     private void setupInputHandling(Scene scene) {
         InputHandler inputHandler = InputHandler.getInstance();
 
@@ -71,7 +163,7 @@ Main extends Application {
             inputHandler.keyPressed(event.getCode());
 
             // Menu controls
-            if (gameController.getCurrentState() == GameController.GameState.MENU) {
+            if (remote == null && spectating == null && replay == null && gameController.getCurrentState() == GameController.GameState.MENU) {
                 if (event.getCode() == KeyCode.ENTER) {
                     gameController.startGame();
                     logger.info("Game started from menu");
@@ -92,6 +184,22 @@ Main extends Application {
         if (gameLoop != null) {
             gameLoop.stop();
         }
+        if (netplay != null) {
+            netplay.close();
+        }
+        if (remote != null) {
+            remote.close();
+        }
+        if (spectators != null) {
+            spectators.close();
+        }
+        if (spectating != null) {
+            spectating.close();
+        }
+        if (gameController != null) {
+            gameController.shutdown();
+        }
+        SoundManager.shutdown();
         logger.info("Game shutdown complete");
     }
 
@@ -106,6 +214,8 @@ Main extends Application {
         private long frameCount = 0;
         private long lastFpsTime = 0;
         private int fps = 0;
+        private double netplayTime = 0;
+        private boolean replayPaused = false;
 
         @Override
 
@@ -124,16 +234,37 @@ Main extends Application {
             lastUpdate = now;
 
             // Cap delta time to prevent huge jumps
-            if (deltaTime > 0.1) {
-                deltaTime = 0.1;
+            if (deltaTime > Constants.MAX_DELTA_TIME) {
+                deltaTime = Constants.MAX_DELTA_TIME;
             }
 
             try {
                 // Update game
-                gameController.update(deltaTime);
+                if (remote != null) {
+                    remote.update(PlayerInput.fromKeyboard(InputHandler.getInstance()));
+                    InputHandler.getInstance().update();
+                } else if (spectating != null) {
+                    spectating.poll();
+                } else if (replay != null) {
+                    updateReplay();
+                } else if (netplay != null) {
+                    updateNetplay(deltaTime);
+                } else {
+                    gameController.update(deltaTime);
+                }
 
                 // Render
-                gameView.render();
+                if (remote != null) {
+                    if (remote.interpolate(remoteWorld, now)) {
+                        gameView.render(remoteWorld);
+                    }
+                } else if (spectating != null) {
+                    if (spectating.hasSnapshot()) {
+                        gameView.render(spectating.getSnapshot());
+                    }
+                } else {
+                    gameView.render();
+                }
 
                 // FPS counter
                 frameCount++;
@@ -142,6 +273,9 @@ Main extends Application {
                     frameCount = 0;
                     lastFpsTime = now;
                     logger.trace("FPS: {}", fps);
+                    if (netplay != null) {
+                        logger.debug("Netplay: {}", netplay.getMetrics());
+                    }
                 }
 
             } catch (Exception e) {
@@ -150,6 +284,44 @@ Main extends Application {
                 throw e;
             }
         }
+
+        /**
+         * One recorded tick per frame; pause holds it, the step key advances one tick
+         */
+        private void updateReplay() {
+            InputHandler input = InputHandler.getInstance();
+            if (input.isKeyJustPressed(Constants.KEY_PAUSE)) {
+                replayPaused = !replayPaused;
+            }
+            if (!replayPaused || input.isKeyJustPressed(Constants.KEY_REPLAY_STEP)) {
+                if (!replay.step()) {
+                    replayPaused = true;
+                    if (replay.getFailure() != null) {
+                        logger.error("Replay reproduced the recorded failure at tick {}",
+                                replay.getTick(), replay.getFailure());
+                    } else if (replay.isFinished()) {
+                        logger.info("Replay finished at tick {}", replay.getTick());
+                    }
+                }
+            }
+            input.update();
+        }
+
+        /**
+         * Netplay runs fixed ticks; a stalled tick is retried next frame
+         */
+        private void updateNetplay(double deltaTime) {
+            InputHandler input = InputHandler.getInstance();
+            netplayTime += deltaTime;
+            while (netplayTime >= Constants.NET_TICK_TIME) {
+                if (!netplay.advance(PlayerInput.fromKeyboard(input))) {
+                    netplayTime = 0;
+                    break;
+                }
+                input.update();
+                netplayTime -= Constants.NET_TICK_TIME;
+            }
+        }
     }
 
     public static void main(String[] args) {
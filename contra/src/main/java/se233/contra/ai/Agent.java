@@ -0,0 +1,8 @@
+package se233.contra.ai;
+
+/**
+ * Something ticked by a {@link BehaviorBatch}: it only has to hand over its blackboard
+ */
+public interface Agent {
+    Blackboard getBlackboard();
+}
@@ -0,0 +1,144 @@
+package se233.contra.ai;
+
+import java.util.Arrays;
+
+/**
+ * Ticks one {@link BehaviorTree} for many agents at once, a node at a time
+ * rather than an agent at a time.
+ *
+ * Every agent walks down to its next leaf; the agents are then grouped by leaf
+ * (a stable counting sort, so each group stays in agent order) and each leaf
+ * runs over its whole group before any agent moves on. The same few leaves run
+ * back to back over many agents instead of the whole tree once per agent.
+ *
+ * A batch gives each agent exactly the statuses a plain {@link BehaviorTree#tick}
+ * would, and is deterministic. Leaves that touch shared state (the world's
+ * random generator) see the agents in list order among those reaching that
+ * leaf on the same pass.
+ */
+public class BehaviorBatch<A extends Agent> {
+    private static final int DONE = -1;
+
+    private final BehaviorTree<A> tree;
+
+    // Per agent: the leaf it waits at (DONE when finished) and its final status
+    private int[] at = new int[64];
+    private byte[] status = new byte[64];
+
+    // Agents grouped by leaf, and the group sizes / offsets
+    private int[] order = new int[64];
+    private final int[] counts;
+
+    private int passes;
+
+    public BehaviorBatch(BehaviorTree<A> tree) {
+        this.tree = tree;
+        this.counts = new int[tree.size() + 1];
+    }
+
+    /**
+     * Tick the tree once for agents[0 .. count)
+     */
+    public void tick(A[] agents, int count) {
+        if (at.length < count) {
+            int size = Math.max(count, at.length * 2);
+            at = new int[size];
+            status = new byte[size];
+            order = new int[size];
+        }
+
+        int waiting = count;
+        for (int i = 0; i < count; i++) {
+            at[i] = descend(0);
+        }
+
+        passes = 0;
+        while (waiting > 0) {
+            group(count);
+            for (int k = 0; k < waiting; k++) {
+                int i = order[k];
+                int leaf = at[i];
+                A agent = agents[i];
+                byte result = tree.leaves[leaf].tick(agent, agent.getBlackboard());
+                at[i] = ascend(i, leaf, result);
+            }
+
+            waiting = 0;
+            for (int i = 0; i < count; i++) {
+                if (at[i] != DONE) {
+                    waiting++;
+                }
+            }
+            passes++;
+        }
+    }
+
+    /**
+     * Stable counting sort of the waiting agents by leaf, into order[]
+     */
+    private void group(int count) {
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < count; i++) {
+            if (at[i] != DONE) {
+                counts[at[i] + 1]++;
+            }
+        }
+        for (int n = 1; n < counts.length; n++) {
+            counts[n] += counts[n - 1];
+        }
+        for (int i = 0; i < count; i++) {
+            if (at[i] != DONE) {
+                order[counts[at[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * The first leaf under a node
+     */
+    private int descend(int node) {
+        while (tree.type[node] != BehaviorTree.LEAF) {
+            node = tree.firstChild[node];
+        }
+        return node;
+    }
+
+    /**
+     * Carry a leaf's result up the tree to the next leaf to run, or DONE
+     */
+    private int ascend(int agent, int node, byte result) {
+        while (true) {
+            int parent = tree.parent[node];
+            if (parent < 0) {
+                status[agent] = result;
+                return DONE;
+            }
+            int sibling = tree.nextSibling[node];
+            switch (tree.type[parent]) {
+                case BehaviorTree.SEQUENCE -> {
+                    if (result == BehaviorTree.SUCCESS && sibling >= 0) {
+                        return descend(sibling);
+                    }
+                }
+                case BehaviorTree.SELECTOR -> {
+                    if (result == BehaviorTree.FAILURE && sibling >= 0) {
+                        return descend(sibling);
+                    }
+                }
+                case BehaviorTree.SUCCEED -> result = BehaviorTree.SUCCESS;
+                default -> result = BehaviorTree.invert(result);
+            }
+            node = parent;
+        }
+    }
+
+    /**
+     * The root status of agent i from the last tick
+     */
+    public byte getStatus(int i) { return status[i]; }
+
+    /**
+     * Leaf passes the last tick took, which depends on the tree and not on the number of agents
+     */
+    public int getPasses() { return passes; }
+}
@@ -0,0 +1,224 @@
+package se233.contra.ai;
+
+import se233.contra.exception.GameException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable behavior tree, built once and shared by every agent that runs it.
+ *
+ * Nodes live in flat arrays (type, parent, first child, next sibling, leaf);
+ * everything an agent remembers between ticks is in its own
+ * {@link Blackboard}. Trees are reactive: each tick starts again at the root.
+ *
+ * Node types: a sequence runs its children until one does not succeed, a
+ * selector until one does not fail, succeed reports success whatever its child
+ * did, invert swaps success and failure, and leaves are conditions or actions.
+ */
+public class BehaviorTree<A> {
+    public static final byte SUCCESS = 0;
+    public static final byte FAILURE = 1;
+    public static final byte RUNNING = 2;
+
+    static final byte SEQUENCE = 0;
+    static final byte SELECTOR = 1;
+    static final byte SUCCEED = 2;
+    static final byte INVERT = 3;
+    static final byte LEAF = 4;
+
+    final byte[] type;
+    final int[] parent;
+    final int[] firstChild;
+    final int[] nextSibling;
+    final Leaf<A>[] leaves;
+
+    private final int numberSlots;
+    private final int intSlots;
+
+    @SuppressWarnings("unchecked")
+    private BehaviorTree(Builder<A> builder) {
+        int size = builder.type.size();
+        this.type = new byte[size];
+        this.parent = new int[size];
+        this.firstChild = new int[size];
+        this.nextSibling = new int[size];
+        this.leaves = (Leaf<A>[]) new Leaf[size];
+        for (int n = 0; n < size; n++) {
+            type[n] = builder.type.get(n);
+            parent[n] = builder.parent.get(n);
+            firstChild[n] = builder.firstChild.get(n);
+            nextSibling[n] = builder.nextSibling.get(n);
+            leaves[n] = builder.leaves.get(n);
+        }
+        this.numberSlots = builder.numberSlots;
+        this.intSlots = builder.intSlots;
+    }
+
+    public static <A> Builder<A> builder(int numberSlots, int intSlots) {
+        return new Builder<>(numberSlots, intSlots);
+    }
+
+    /**
+     * A blank blackboard with the slots this tree uses
+     */
+    public Blackboard newBlackboard() {
+        return new Blackboard(numberSlots, intSlots);
+    }
+
+    /**
+     * Run the tree once for a single agent
+     */
+    public byte tick(A agent, Blackboard board) {
+        return tick(0, agent, board);
+    }
+
+    private byte tick(int node, A agent, Blackboard board) {
+        switch (type[node]) {
+            case SEQUENCE -> {
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    byte status = tick(child, agent, board);
+                    if (status != SUCCESS) return status;
+                }
+                return SUCCESS;
+            }
+            case SELECTOR -> {
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    byte status = tick(child, agent, board);
+                    if (status != FAILURE) return status;
+                }
+                return FAILURE;
+            }
+            case SUCCEED -> {
+                tick(firstChild[node], agent, board);
+                return SUCCESS;
+            }
+            case INVERT -> {
+                return invert(tick(firstChild[node], agent, board));
+            }
+            default -> {
+                return leaves[node].tick(agent, board);
+            }
+        }
+    }
+
+    static byte invert(byte status) {
+        return status == SUCCESS ? FAILURE : status == FAILURE ? SUCCESS : status;
+    }
+
+    public int size() { return type.length; }
+
+    /**
+     * Builds a tree depth-first: open a composite, add its children, end it.
+     */
+    public static class Builder<A> {
+        private final int numberSlots;
+        private final int intSlots;
+
+        private final List<Byte> type = new ArrayList<>();
+        private final List<Integer> parent = new ArrayList<>();
+        private final List<Integer> firstChild = new ArrayList<>();
+        private final List<Integer> nextSibling = new ArrayList<>();
+        private final List<Leaf<A>> leaves = new ArrayList<>();
+
+        // Open composites, and the last child added to each
+        private final List<Integer> open = new ArrayList<>();
+        private final List<Integer> lastChild = new ArrayList<>();
+
+        private Builder(int numberSlots, int intSlots) {
+            this.numberSlots = numberSlots;
+            this.intSlots = intSlots;
+        }
+
+        public Builder<A> sequence() { return open(SEQUENCE); }
+        public Builder<A> selector() { return open(SELECTOR); }
+
+        /**
+         * Report success whatever the next node (one child) does
+         */
+        public Builder<A> succeed() { return open(SUCCEED); }
+
+        /**
+         * Swap success and failure of the next node (one child)
+         */
+        public Builder<A> invert() { return open(INVERT); }
+
+        public Builder<A> leaf(Leaf<A> leaf) {
+            add(LEAF, leaf);
+            closeDecorators();
+            return this;
+        }
+
+        /**
+         * Close the innermost sequence or selector
+         */
+        public Builder<A> end() {
+            if (open.isEmpty()) {
+                throw new GameException("Behavior tree end() without an open node",
+                        GameException.ErrorType.INVALID_GAME_STATE);
+            }
+            int node = open.remove(open.size() - 1);
+            lastChild.remove(lastChild.size() - 1);
+            if (firstChild.get(node) < 0) {
+                throw new GameException("Behavior tree composite without children",
+                        GameException.ErrorType.INVALID_GAME_STATE);
+            }
+            closeDecorators();
+            return this;
+        }
+
+        public BehaviorTree<A> build() {
+            if (type.isEmpty() || !open.isEmpty()) {
+                throw new GameException("Behavior tree is empty or has unclosed nodes",
+                        GameException.ErrorType.INVALID_GAME_STATE);
+            }
+            return new BehaviorTree<>(this);
+        }
+
+        private Builder<A> open(byte nodeType) {
+            int node = add(nodeType, null);
+            open.add(node);
+            lastChild.add(-1);
+            return this;
+        }
+
+        private int add(byte nodeType, Leaf<A> leaf) {
+            int node = type.size();
+            if (node > 0 && open.isEmpty()) {
+                throw new GameException("Behavior tree has more than one root",
+                        GameException.ErrorType.INVALID_GAME_STATE);
+            }
+            int owner = open.isEmpty() ? -1 : open.get(open.size() - 1);
+            type.add(nodeType);
+            parent.add(owner);
+            firstChild.add(-1);
+            nextSibling.add(-1);
+            leaves.add(leaf);
+
+            if (owner >= 0) {
+                int previous = lastChild.get(lastChild.size() - 1);
+                if (previous < 0) {
+                    firstChild.set(owner, node);
+                } else {
+                    nextSibling.set(previous, node);
+                }
+                lastChild.set(lastChild.size() - 1, node);
+            }
+            return node;
+        }
+
+        /**
+         * Decorators take exactly one child, so they close as soon as it is complete
+         */
+        private void closeDecorators() {
+            while (!open.isEmpty()) {
+                int node = open.get(open.size() - 1);
+                if (type.get(node) != SUCCEED && type.get(node) != INVERT) {
+                    return;
+                }
+                open.remove(open.size() - 1);
+                lastChild.remove(lastChild.size() - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package se233.contra.ai;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One agent's running state for a {@link BehaviorTree}: a few numbered
+ * double and int slots, declared by the tree, in plain arrays.
+ * The delta time of the current tick is passed alongside and never saved.
+ */
+public class Blackboard {
+    private final double[] numbers;
+    private final int[] ints;
+    private double deltaTime;
+
+    Blackboard(int numberSlots, int intSlots) {
+        this.numbers = new double[numberSlots];
+        this.ints = new int[intSlots];
+    }
+
+    public double get(int slot) { return numbers[slot]; }
+    public void set(int slot, double value) { numbers[slot] = value; }
+    public void add(int slot, double value) { numbers[slot] += value; }
+
+    public int getInt(int slot) { return ints[slot]; }
+    public void setInt(int slot, int value) { ints[slot] = value; }
+
+    public double getDeltaTime() { return deltaTime; }
+    public void setDeltaTime(double deltaTime) { this.deltaTime = deltaTime; }
+
+    public void clear() {
+        Arrays.fill(numbers, 0);
+        Arrays.fill(ints, 0);
+    }
+
+    public void writeState(ByteBuffer buffer) {
+        for (double number : numbers) {
+            buffer.putDouble(number);
+        }
+        for (int value : ints) {
+            buffer.putInt(value);
+        }
+    }
+
+    public void readState(ByteBuffer buffer) {
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = buffer.getDouble();
+        }
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = buffer.getInt();
+        }
+    }
+}
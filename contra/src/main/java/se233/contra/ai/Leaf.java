@@ -0,0 +1,12 @@
+package se233.contra.ai;
+
+/**
+ * A condition or action at the bottom of a {@link BehaviorTree}
+ */
+@FunctionalInterface
+public interface Leaf<A> {
+    /**
+     * @return BehaviorTree.SUCCESS, FAILURE or RUNNING
+     */
+    byte tick(A agent, Blackboard board);
+}
@@ -0,0 +1,196 @@
+package se233.contra.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.util.Constants;
+
+import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Software mixer running on its own high-priority thread.
+ *
+ * A fixed pool of voices is mixed into a small block that is written to the
+ * {@link SourceDataLine}; the blocking write paces the thread. The game loop
+ * only posts effect ids into a single-producer ring, so triggering a sound
+ * never allocates and never waits on the audio device. Music from the
+ * {@link MusicStreamer} is added on top of the effect voices.
+ */
+public class AudioMixer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(AudioMixer.class);
+
+    private static final int TRIGGER_QUEUE_SIZE = 64; // power of two
+    private static final int NO_EFFECT = -1;
+
+    private final SoundBank bank;
+    private final SourceDataLine line;
+    private final MusicStreamer music;
+    private final SoundEffect[] effects = SoundEffect.values();
+
+    // ---- Voice pool (struct of arrays) ----
+    private final int[] voiceEffect = new int[Constants.AUDIO_VOICES];
+    private final int[] voicePosition = new int[Constants.AUDIO_VOICES];
+    private final long[] voiceStarted = new long[Constants.AUDIO_VOICES];
+    private long triggerSequence;
+
+    // ---- Trigger ring: written by the game loop, drained by the mixer ----
+    private final int[] triggerQueue = new int[TRIGGER_QUEUE_SIZE];
+    private final AtomicInteger triggerHead = new AtomicInteger();
+    private final AtomicInteger triggerTail = new AtomicInteger();
+
+    // ---- Mix buffers ----
+    private final int[] mixBuffer = new int[Constants.AUDIO_MIX_FRAMES * 2];
+    private final byte[] outputBuffer = new byte[Constants.AUDIO_MIX_FRAMES * 4];
+
+    private volatile boolean running;
+
+    public AudioMixer(SoundBank bank, SourceDataLine line, MusicStreamer music) {
+        this.bank = bank;
+        this.line = line;
+        this.music = music;
+        for (int v = 0; v < voiceEffect.length; v++) {
+            voiceEffect[v] = NO_EFFECT;
+        }
+    }
+
+    /**
+     * Queue an effect for playback. Called from the game loop thread only.
+     * If the ring is full the trigger is dropped rather than blocking.
+     */
+    public void trigger(SoundEffect effect) {
+        int tail = triggerTail.get();
+        if (tail - triggerHead.get() >= TRIGGER_QUEUE_SIZE) {
+            return;
+        }
+        triggerQueue[tail & (TRIGGER_QUEUE_SIZE - 1)] = effect.ordinal();
+        triggerTail.lazySet(tail + 1);
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        line.start();
+        logger.info("Audio mixer started ({} voices, {} frame blocks)",
+                Constants.AUDIO_VOICES, Constants.AUDIO_MIX_FRAMES);
+
+        while (running) {
+            drainTriggers();
+            mixBlock();
+            line.write(outputBuffer, 0, outputBuffer.length);
+        }
+
+        line.drain();
+        line.stop();
+        line.close();
+        logger.info("Audio mixer stopped");
+    }
+
+    // ------------------------------------------------------------------------
+    // Voice allocation
+    // ------------------------------------------------------------------------
+    private void drainTriggers() {
+        int head = triggerHead.get();
+        int tail = triggerTail.get();
+
+        while (head != tail) {
+            startVoice(triggerQueue[head & (TRIGGER_QUEUE_SIZE - 1)]);
+            head++;
+        }
+        triggerHead.lazySet(head);
+    }
+
+    private void startVoice(int effect) {
+        int voice = pickVoice(effect);
+        voiceEffect[voice] = effect;
+        voicePosition[voice] = 0;
+        voiceStarted[voice] = ++triggerSequence;
+    }
+
+    /**
+     * Free voice if possible. When the effect is already at its voice cap, the
+     * oldest voice of that effect is restarted; otherwise, if the whole pool is
+     * busy, the oldest voice overall is stolen.
+     */
+    private int pickVoice(int effect) {
+        int sameCount = 0;
+        int oldestSame = -1;
+        int oldestAny = 0;
+        int free = -1;
+
+        for (int v = 0; v < voiceEffect.length; v++) {
+            int current = voiceEffect[v];
+            if (current == NO_EFFECT) {
+                if (free < 0) free = v;
+                continue;
+            }
+            if (current == effect) {
+                sameCount++;
+                if (oldestSame < 0 || voiceStarted[v] < voiceStarted[oldestSame]) {
+                    oldestSame = v;
+                }
+            }
+            if (voiceStarted[v] < voiceStarted[oldestAny]) {
+                oldestAny = v;
+            }
+        }
+
+        if (sameCount >= effects[effect].getMaxVoices()) {
+            return oldestSame;
+        }
+        return free >= 0 ? free : oldestAny;
+    }
+
+    // ------------------------------------------------------------------------
+    // Mixing
+    // ------------------------------------------------------------------------
+    private void mixBlock() {
+        Arrays.fill(mixBuffer, 0);
+
+        for (int v = 0; v < voiceEffect.length; v++) {
+            int effect = voiceEffect[v];
+            if (effect == NO_EFFECT) continue;
+
+            short[] pcm = bank.getSamples(effects[effect]);
+            int gain = (int) (effects[effect].getGain() * 256);
+            int position = voicePosition[v];
+            int count = Math.min(mixBuffer.length, pcm.length - position);
+
+            for (int i = 0; i < count; i++) {
+                mixBuffer[i] += (pcm[position + i] * gain) >> 8;
+            }
+
+            position += count;
+            if (position >= pcm.length) {
+                voiceEffect[v] = NO_EFFECT;
+            } else {
+                voicePosition[v] = position;
+            }
+        }
+
+        music.mixInto(mixBuffer);
+
+        for (int i = 0; i < mixBuffer.length; i++) {
+            int sample = mixBuffer[i];
+            if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+            outputBuffer[i * 2] = (byte) sample;
+            outputBuffer[i * 2 + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    /**
+     * Number of voices currently playing (for debugging/tests)
+     */
+    public int getActiveVoiceCount() {
+        int count = 0;
+        for (int effect : voiceEffect) {
+            if (effect != NO_EFFECT) count++;
+        }
+        return count;
+    }
+}
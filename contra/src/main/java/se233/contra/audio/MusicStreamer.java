@@ -0,0 +1,288 @@
+package se233.contra.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.util.Constants;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streaming music channel with crossfading.
+ *
+ * A background thread reads the current track in small chunks into one of two
+ * ring buffers ("decks"); the mixer thread consumes the rings and ramps each
+ * deck's gain. Switching tracks loads the idle deck and fades the other out.
+ * The game loop only writes the requested track, so it never waits on I/O.
+ */
+public class MusicStreamer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(MusicStreamer.class);
+
+    private static final long IDLE_PARK_NANOS = 5_000_000L;
+
+    private final MusicDeck[] decks = {new MusicDeck(), new MusicDeck()};
+    private final float fadeStep;
+
+    private volatile MusicTrack requestedTrack;
+    private volatile boolean running;
+
+    // Owned by the streamer thread
+    private MusicTrack currentTrack;
+    private int activeDeck;
+    private final byte[] chunk = new byte[Constants.MUSIC_CHUNK_BYTES];
+
+    public MusicStreamer() {
+        this.fadeStep = (float) (1.0 / (Constants.MUSIC_CROSSFADE_TIME * Constants.AUDIO_SAMPLE_RATE));
+    }
+
+    /**
+     * Request a track (or null for silence). Safe to call from the game loop.
+     */
+    public void request(MusicTrack track) {
+        requestedTrack = track;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        running = true;
+        logger.info("Music streamer started");
+
+        while (running) {
+            MusicTrack wanted = requestedTrack;
+            if (wanted != currentTrack) {
+                switchTo(wanted);
+            }
+
+            boolean filled = false;
+            for (MusicDeck deck : decks) {
+                filled |= fill(deck);
+            }
+            if (!filled) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        for (MusicDeck deck : decks) {
+            deck.closeStream();
+        }
+        logger.info("Music streamer stopped");
+    }
+
+    // ------------------------------------------------------------------------
+    // Streamer thread
+    // ------------------------------------------------------------------------
+    private void switchTo(MusicTrack track) {
+        logger.debug("Music: {} -> {}", currentTrack, track);
+        decks[activeDeck].targetGain = 0f;
+
+        activeDeck = 1 - activeDeck;
+        MusicDeck next = decks[activeDeck];
+        next.flush();
+        next.closeStream();
+
+        currentTrack = track;
+        if (track != null) {
+            next.open(track);
+            next.targetGain = Constants.MUSIC_GAIN;
+        }
+    }
+
+    /**
+     * Read chunks until the deck's ring is nearly full or the stream ends.
+     * @return true if any data was read
+     */
+    private boolean fill(MusicDeck deck) {
+        boolean readAny = false;
+
+        // Faded all the way out: stop decoding audio the mixer would only discard
+        if (deck.silent && deck.targetGain == 0f) {
+            deck.closeStream();
+            return false;
+        }
+
+        while (deck.stream != null && deck.freeFrames() >= deck.maxFramesPerChunk(chunk.length)) {
+            int read;
+            try {
+                read = deck.stream.read(chunk, 0, chunk.length);
+            } catch (IOException e) {
+                logger.error("Music stream failed: {}", deck.track, e);
+                deck.closeStream();
+                break;
+            }
+
+            if (read < 0) {
+                if (deck.track.isLoop()) {
+                    MusicTrack track = deck.track;
+                    deck.closeStream();
+                    deck.open(track);
+                } else {
+                    deck.closeStream();
+                }
+                break;
+            }
+
+            deck.push(chunk, read);
+            readAny = true;
+        }
+        return readAny;
+    }
+
+    // ------------------------------------------------------------------------
+    // Mixer thread
+    // ------------------------------------------------------------------------
+    /**
+     * Add both decks into the mix buffer (interleaved stereo). Underruns are
+     * played as silence rather than stalling the mixer.
+     */
+    public void mixInto(int[] mix) {
+        for (MusicDeck deck : decks) {
+            deck.mixInto(mix, fadeStep);
+        }
+    }
+
+    /**
+     * One side of the crossfade: a single-producer/single-consumer ring of
+     * stereo frames plus the source stream feeding it.
+     */
+    private static class MusicDeck {
+        private static final int RING_MASK = Constants.MUSIC_RING_FRAMES - 1;
+
+        private final short[] ring = new short[Constants.MUSIC_RING_FRAMES * 2];
+        private final AtomicInteger writeIndex = new AtomicInteger();
+        private final AtomicInteger readIndex = new AtomicInteger();
+        private volatile int flushIndex;   // frames before this are stale
+        private volatile int flushes;      // written after flushIndex; the streamer is the only writer
+        private volatile float targetGain;
+        private volatile boolean silent;   // the mixer saw gain and target both at 0
+
+        // Mixer thread only
+        private float gain;
+        private int seenFlushes;
+
+        // Streamer thread only
+        private MusicTrack track;
+        private AudioInputStream stream;
+        private int channels;
+        private double step;
+        private double phase;
+        private int prevLeft;
+        private int prevRight;
+
+        void open(MusicTrack track) {
+            this.track = track;
+            this.stream = SoundBank.openPcm16(track.getPath());
+            this.channels = stream.getFormat().getChannels();
+            this.step = stream.getFormat().getSampleRate() / Constants.AUDIO_SAMPLE_RATE;
+            this.phase = 0;
+            this.prevLeft = 0;
+            this.prevRight = 0;
+        }
+
+        void closeStream() {
+            if (stream == null) return;
+            try {
+                stream.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close music stream: {}", track, e);
+            }
+            stream = null;
+        }
+
+        /**
+         * Mark everything buffered so far as stale (streamer thread only).
+         * Never waits: the mixer skips past the mark on its next block, and
+         * until then the stale frames still count as used, so nothing new
+         * overwrites a frame the mixer may be reading.
+         */
+        void flush() {
+            flushIndex = writeIndex.get();
+            flushes = flushes + 1;
+        }
+
+        int freeFrames() {
+            return Constants.MUSIC_RING_FRAMES - (writeIndex.get() - readIndex.get());
+        }
+
+        int maxFramesPerChunk(int bytes) {
+            return (int) Math.ceil(bytes / (channels * 2.0) / step) + 1;
+        }
+
+        /**
+         * Convert 16-bit little-endian PCM to stereo at the mixer rate using a
+         * streaming linear resampler, writing straight into the ring.
+         */
+        void push(byte[] bytes, int length) {
+            int write = writeIndex.get();
+            int frameBytes = channels * 2;
+
+            for (int base = 0; base + frameBytes <= length; base += frameBytes) {
+                int left = (short) ((bytes[base] & 0xFF) | (bytes[base + 1] << 8));
+                int right = left;
+                if (channels > 1) {
+                    right = (short) ((bytes[base + 2] & 0xFF) | (bytes[base + 3] << 8));
+                }
+
+                while (phase < 1.0) {
+                    int slot = (write & RING_MASK) * 2;
+                    ring[slot] = (short) (prevLeft + (left - prevLeft) * phase);
+                    ring[slot + 1] = (short) (prevRight + (right - prevRight) * phase);
+                    write++;
+                    phase += step;
+                }
+                phase -= 1.0;
+                prevLeft = left;
+                prevRight = right;
+            }
+            writeIndex.lazySet(write);
+        }
+
+        void mixInto(int[] mix, float fadeStep) {
+            int read = readIndex.get();
+            int flushed = flushes;
+            if (flushed != seenFlushes) {
+                // Read after flushes, so at least as new as the flush we saw;
+                // never step back over new frames already played
+                seenFlushes = flushed;
+                int mark = flushIndex;
+                if (mark - read > 0) {
+                    read = mark;
+                    readIndex.lazySet(read);
+                }
+                gain = 0f;
+            }
+
+            float target = targetGain;
+            silent = gain == 0f && target == 0f;
+            if (silent) {
+                // Silent: discard anything still buffered so the streamer is not blocked
+                readIndex.lazySet(writeIndex.get());
+                return;
+            }
+
+            int available = writeIndex.get() - read;
+            int frames = mix.length / 2;
+
+            for (int f = 0; f < frames; f++) {
+                if (gain < target) {
+                    gain = Math.min(target, gain + fadeStep);
+                } else if (gain > target) {
+                    gain = Math.max(target, gain - fadeStep);
+                }
+
+                if (f < available) {
+                    int slot = (read & RING_MASK) * 2;
+                    mix[f * 2] += (int) (ring[slot] * gain);
+                    mix[f * 2 + 1] += (int) (ring[slot + 1] * gain);
+                    read++;
+                }
+            }
+            readIndex.lazySet(read);
+        }
+    }
+}
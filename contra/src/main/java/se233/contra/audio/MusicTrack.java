@@ -0,0 +1,24 @@
+package se233.contra.audio;
+
+import se233.contra.util.Constants;
+
+/**
+ * Long music tracks. Unlike {@link SoundEffect}s these are never decoded
+ * fully into memory; {@link MusicStreamer} reads them in small chunks.
+ */
+public enum MusicTrack {
+    TITLE(Constants.MUSIC_TITLE, true),
+    STAGE_CLEAR(Constants.MUSIC_STAGE_CLEAR, false),
+    GAME_OVER(Constants.MUSIC_GAME_OVER, false);
+
+    private final String path;
+    private final boolean loop;
+
+    MusicTrack(String path, boolean loop) {
+        this.path = path;
+        this.loop = loop;
+    }
+
+    public String getPath() { return path; }
+    public boolean isLoop() { return loop; }
+}
@@ -0,0 +1,149 @@
+package se233.contra.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+
+/**
+ * Holds every {@link SoundEffect} decoded to interleaved 16-bit PCM at the
+ * mixer's output format. Decoding and resampling happen once at startup so
+ * the mixer thread only ever reads from these arrays.
+ */
+public class SoundBank {
+    private static final Logger logger = LoggerFactory.getLogger(SoundBank.class);
+
+    private final short[][] samples;
+
+    private SoundBank(short[][] samples) {
+        this.samples = samples;
+    }
+
+    public static SoundBank load() {
+        SoundEffect[] effects = SoundEffect.values();
+        short[][] samples = new short[effects.length][];
+        long totalBytes = 0;
+
+        for (SoundEffect effect : effects) {
+            samples[effect.ordinal()] = decode(effect.getPath());
+            totalBytes += samples[effect.ordinal()].length * 2L;
+        }
+
+        logger.info("Sound bank loaded: {} effects, {} KB PCM", effects.length, totalBytes / 1024);
+        return new SoundBank(samples);
+    }
+
+    /**
+     * Interleaved stereo samples for the given effect
+     */
+    public short[] getSamples(SoundEffect effect) {
+        return samples[effect.ordinal()];
+    }
+
+    /**
+     * Target format used by the mixer: signed 16-bit little-endian stereo
+     */
+    public static AudioFormat outputFormat() {
+        return new AudioFormat(Constants.AUDIO_SAMPLE_RATE, 16, Constants.AUDIO_CHANNELS, true, false);
+    }
+
+    /**
+     * Open a WAV resource as a 16-bit signed little-endian stream in its own
+     * sample rate and channel count.
+     */
+    static AudioInputStream openPcm16(String path) {
+        InputStream is = SoundBank.class.getResourceAsStream(path);
+        if (is == null) {
+            throw new GameException("Sound not found: " + path,
+                    GameException.ErrorType.RESOURCE_NOT_FOUND);
+        }
+
+        try {
+            AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(is));
+            AudioFormat sourceFormat = source.getFormat();
+            AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                    sourceFormat.getSampleRate(), 16, sourceFormat.getChannels(),
+                    sourceFormat.getChannels() * 2, sourceFormat.getSampleRate(), false);
+
+            if (sourceFormat.matches(pcm16)) {
+                return source;
+            }
+            return AudioSystem.getAudioInputStream(pcm16, source);
+        } catch (Exception e) {
+            throw new GameException("Failed to open sound: " + path,
+                    GameException.ErrorType.SOUND_LOAD_ERROR, e);
+        }
+    }
+
+    private static short[] decode(String path) {
+        try (AudioInputStream stream = openPcm16(path)) {
+            AudioFormat format = stream.getFormat();
+            byte[] bytes = stream.readAllBytes();
+
+            short[] stereo = toStereo(bytes, format.getChannels());
+            short[] resampled = resample(stereo, format.getSampleRate(), Constants.AUDIO_SAMPLE_RATE);
+
+            logger.debug("Decoded {} ({} Hz, {} ch) -> {} frames",
+                    path, format.getSampleRate(), format.getChannels(), resampled.length / 2);
+            return resampled;
+        } catch (GameException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to decode sound: {}", path, e);
+            throw new GameException("Failed to decode: " + path,
+                    GameException.ErrorType.SOUND_LOAD_ERROR, e);
+        }
+    }
+
+    /**
+     * Convert little-endian 16-bit PCM bytes to interleaved stereo samples
+     */
+    static short[] toStereo(byte[] bytes, int channels) {
+        int frames = bytes.length / (channels * 2);
+        short[] out = new short[frames * 2];
+
+        for (int f = 0; f < frames; f++) {
+            int base = f * channels * 2;
+            short left = (short) ((bytes[base] & 0xFF) | (bytes[base + 1] << 8));
+            short right = left;
+            if (channels > 1) {
+                right = (short) ((bytes[base + 2] & 0xFF) | (bytes[base + 3] << 8));
+            }
+            out[f * 2] = left;
+            out[f * 2 + 1] = right;
+        }
+        return out;
+    }
+
+    /**
+     * Linear-interpolation resampler for interleaved stereo. Only used at load
+     * time, so quality beats speed here.
+     */
+    static short[] resample(short[] stereo, float fromRate, float toRate) {
+        if (fromRate == toRate) {
+            return stereo;
+        }
+
+        int inFrames = stereo.length / 2;
+        int outFrames = (int) ((long) inFrames * toRate / fromRate);
+        short[] out = new short[outFrames * 2];
+        double step = fromRate / toRate;
+
+        for (int f = 0; f < outFrames; f++) {
+            double src = f * step;
+            int i = (int) src;
+            double frac = src - i;
+            int next = Math.min(i + 1, inFrames - 1);
+
+            out[f * 2] = (short) (stereo[i * 2] + (stereo[next * 2] - stereo[i * 2]) * frac);
+            out[f * 2 + 1] = (short) (stereo[i * 2 + 1] + (stereo[next * 2 + 1] - stereo[i * 2 + 1]) * frac);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,36 @@
+package se233.contra.audio;
+
+import se233.contra.util.Constants;
+
+/**
+ * Short sound effects that are decoded once into the {@link SoundBank}.
+ * Each effect carries its own rate limit and voice cap so that rapid-fire
+ * weapons cannot flood the mixer.
+ */
+public enum SoundEffect {
+    //           path                          gain   minInterval  maxVoices
+    RIFLE       (Constants.SOUND_RIFLE,        0.45f, 0.05,        3),
+    SPREAD_GUN  (Constants.SOUND_SPREAD_GUN,   0.45f, 0.08,        3),
+    ENEMY_HIT   (Constants.SOUND_ENEMY_HIT,    0.60f, 0.04,        4),
+    ENEMY_DEATH (Constants.SOUND_ENEMY_DEATH,  0.70f, 0.05,        4),
+    EXPLOSION   (Constants.SOUND_EXPLOSION,    0.80f, 0.10,        3),
+    PLAYER_DEATH(Constants.SOUND_DEATH,        0.90f, 0.25,        1),
+    PAUSE       (Constants.SOUND_PAUSE,        0.70f, 0.20,        1);
+
+    private final String path;
+    private final float gain;
+    private final long minIntervalNanos;
+    private final int maxVoices;
+
+    SoundEffect(String path, float gain, double minIntervalSeconds, int maxVoices) {
+        this.path = path;
+        this.gain = gain;
+        this.minIntervalNanos = (long) (minIntervalSeconds * 1_000_000_000L);
+        this.maxVoices = maxVoices;
+    }
+
+    public String getPath() { return path; }
+    public float getGain() { return gain; }
+    public long getMinIntervalNanos() { return minIntervalNanos; }
+    public int getMaxVoices() { return maxVoices; }
+}
@@ -0,0 +1,119 @@
+package se233.contra.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.util.Constants;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Static entry point for game audio, mirroring {@link se233.contra.view.SpriteLoader}.
+ *
+ * Until {@link #initialize()} succeeds every call is a no-op, so headless
+ * code (tests, servers) can trigger sounds freely.
+ */
+public class SoundManager {
+    private static final Logger logger = LoggerFactory.getLogger(SoundManager.class);
+
+    private static final long[] lastPlayed = new long[SoundEffect.values().length];
+
+    private static AudioMixer mixer;
+    private static MusicStreamer music;
+    private static Thread mixerThread;
+    private static Thread musicThread;
+    private static boolean initialized = false;
+    private static boolean suppressed = false;
+
+    private SoundManager() {
+    }
+
+    public static void initialize() {
+        if (initialized) {
+            logger.warn("SoundManager already initialized");
+            return;
+        }
+
+        logger.info("Loading sound bank...");
+        SoundBank bank = SoundBank.load();
+
+        SourceDataLine line;
+        try {
+            AudioFormat format = SoundBank.outputFormat();
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, Constants.AUDIO_LINE_BUFFER_FRAMES * format.getFrameSize());
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            // No audio device is not fatal: keep playing without sound
+            logger.warn("Audio output unavailable, sound disabled: {}", e.getMessage());
+            return;
+        }
+
+        music = new MusicStreamer();
+        mixer = new AudioMixer(bank, line, music);
+
+        mixerThread = new Thread(mixer, "audio-mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY);
+        mixerThread.start();
+
+        musicThread = new Thread(music, "music-streamer");
+        musicThread.setDaemon(true);
+        musicThread.start();
+
+        initialized = true;
+        logger.info("SoundManager initialized");
+    }
+
+    /**
+     * Play an effect, subject to its per-effect rate limit
+     */
+    public static void play(SoundEffect effect) {
+        if (!initialized || suppressed) return;
+
+        long now = System.nanoTime();
+        int index = effect.ordinal();
+        if (now - lastPlayed[index] < effect.getMinIntervalNanos()) {
+            return;
+        }
+        lastPlayed[index] = now;
+        mixer.trigger(effect);
+    }
+
+    /**
+     * Crossfade to a music track (null fades to silence). Never blocks:
+     * the streamer thread opens and buffers the track in the background.
+     */
+    public static void playMusic(MusicTrack track) {
+        if (!initialized) return;
+        music.request(track);
+    }
+
+    /**
+     * Drop effect triggers while set, e.g. while re-simulating ticks that
+     * were already heard once
+     */
+    public static void setSuppressed(boolean suppressed) {
+        SoundManager.suppressed = suppressed;
+    }
+
+    public static void shutdown() {
+        if (!initialized) return;
+
+        music.stop();
+        mixer.stop();
+        try {
+            musicThread.join(500);
+            mixerThread.join(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        initialized = false;
+        logger.info("SoundManager shut down");
+    }
+
+    public static boolean isInitialized() {
+        return initialized;
+    }
+}
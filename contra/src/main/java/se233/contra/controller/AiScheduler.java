@@ -0,0 +1,166 @@
+package se233.contra.controller;
+
+import se233.contra.ai.BehaviorBatch;
+import se233.contra.model.LineOfSight;
+import se233.contra.model.Player;
+import se233.contra.model.Soldier;
+import se233.contra.util.Constants;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Level-of-detail scheduling for soldier AI.
+ *
+ * Soldiers within AI_NEAR_DISTANCE of a player think every tick. The rest
+ * think every AI_MID_PERIOD ticks on screen and every AI_FAR_PERIOD ticks off
+ * it, over all the time banked since their last run, so their timers catch up
+ * exactly. Waves spawn with staggered phases. When there are more reduced-rate
+ * soldiers than AI_THINK_BUDGET per tick can cover, their period stretches to
+ * fit, and the budget is a hard cap (the excess goes first on the next tick),
+ * so the AI cost per tick stays flat however large a wave gets.
+ *
+ * Soldiers about to fire get their line-of-sight queries answered in one
+ * batch before any of them runs, and the selected soldiers then run their
+ * shared behavior tree together as one {@link BehaviorBatch}.
+ *
+ * The schedule itself lives in the soldiers and is saved with them, so
+ * rollback and replay see the same one.
+ */
+public class AiScheduler {
+    private final LineOfSight sight;   // null: soldiers fire blind
+
+    // Soldiers whose AI runs this tick (indices into the list) and their next period
+    private int[] selected = new int[64];
+    private int[] periods = new int[64];
+    private int selectedCount;
+
+    private final BehaviorBatch<Soldier> brains = new BehaviorBatch<>(Soldier.BRAIN);
+    private Soldier[] batch = new Soldier[64];
+
+    private int thinksLastTick;
+    private int deferredLastTick;
+    private int minPeriod;      // reduced-rate period that keeps them within budget
+
+    public AiScheduler() {
+        this(null);
+    }
+
+    public AiScheduler(LineOfSight sight) {
+        this.sight = sight;
+    }
+
+    /**
+     * Run the AI of every soldier that is due this tick
+     */
+    public void update(List<Soldier> soldiers, Player player1, Player player2, double deltaTime) {
+        int budget = Constants.AI_THINK_BUDGET;
+        selectedCount = 0;
+        deferredLastTick = 0;
+
+        int reduced = 0;
+        for (int i = 0; i < soldiers.size(); i++) {
+            Soldier soldier = soldiers.get(i);
+            if (!soldier.isDead() && periodFor(soldier, player1, player2) > 1) {
+                reduced++;
+            }
+        }
+        minPeriod = (reduced + Constants.AI_THINK_BUDGET - 1) / Constants.AI_THINK_BUDGET;
+
+        for (int i = 0; i < soldiers.size(); i++) {
+            Soldier soldier = soldiers.get(i);
+            if (!soldier.isDead()) {
+                soldier.bankAiTime(deltaTime, scheduledPeriod(soldier, player1, player2));
+            }
+        }
+
+        // Overdue soldiers first, so a deferred one cannot be starved
+        for (int i = 0; i < soldiers.size(); i++) {
+            Soldier soldier = soldiers.get(i);
+            if (!soldier.isDead() && soldier.isAiOverdue()) {
+                budget = select(i, soldier, player1, player2, budget);
+            }
+        }
+        for (int i = 0; i < soldiers.size(); i++) {
+            Soldier soldier = soldiers.get(i);
+            if (!soldier.isDead() && soldier.isAiDue() && !soldier.isAiOverdue()) {
+                budget = select(i, soldier, player1, player2, budget);
+            }
+        }
+
+        if (sight != null) {
+            sight.begin();
+            for (int i = 0; i < selectedCount; i++) {
+                Soldier soldier = soldiers.get(selected[i]);
+                if (soldier.isReadyToShoot()) {
+                    soldier.requestSight(sight);
+                }
+            }
+            sight.resolve(player1, player2);
+        }
+
+        if (batch.length < selectedCount) {
+            batch = Arrays.copyOf(batch, selected.length);
+        }
+        for (int i = 0; i < selectedCount; i++) {
+            batch[i] = soldiers.get(selected[i]);
+            batch[i].beginThink();
+        }
+        brains.tick(batch, selectedCount);
+        for (int i = 0; i < selectedCount; i++) {
+            batch[i].endThink(periods[i]);
+            batch[i] = null;
+        }
+        thinksLastTick = selectedCount;
+    }
+
+    private int select(int index, Soldier soldier, Player player1, Player player2, int budget) {
+        int period = scheduledPeriod(soldier, player1, player2);
+        if (period > 1) {
+            if (budget == 0) {
+                deferredLastTick++;
+                return budget;
+            }
+            budget--;
+        }
+        if (selectedCount == selected.length) {
+            selected = Arrays.copyOf(selected, selectedCount * 2);
+            periods = Arrays.copyOf(periods, selectedCount * 2);
+        }
+        selected[selectedCount] = index;
+        periods[selectedCount] = period;
+        selectedCount++;
+        return budget;
+    }
+
+    private int scheduledPeriod(Soldier soldier, Player player1, Player player2) {
+        int period = periodFor(soldier, player1, player2);
+        return period == 1 ? 1 : Math.max(period, minPeriod);
+    }
+
+    /**
+     * Ticks between AI runs for this soldier's distance from the action
+     */
+    static int periodFor(Soldier soldier, Player player1, Player player2) {
+        if (!soldier.isOnScreen()) {
+            return Constants.AI_FAR_PERIOD;
+        }
+        double near = Constants.AI_NEAR_DISTANCE * Constants.AI_NEAR_DISTANCE;
+        if (distanceSquared(soldier, player1) <= near || distanceSquared(soldier, player2) <= near) {
+            return 1;
+        }
+        return Constants.AI_MID_PERIOD;
+    }
+
+    private static double distanceSquared(Soldier soldier, Player player) {
+        if (player == null) {
+            return Double.MAX_VALUE;
+        }
+        double dx = soldier.getX() - player.getX();
+        double dy = soldier.getY() - player.getY();
+        return dx * dx + dy * dy;
+    }
+
+    public int getThinksLastTick() { return thinksLastTick; }
+    public int getDeferredLastTick() { return deferredLastTick; }
+}
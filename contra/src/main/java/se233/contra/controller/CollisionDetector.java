@@ -2,34 +2,51 @@ package se233.contra.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.audio.SoundEffect;
+import se233.contra.audio.SoundManager;
 import se233.contra.model.Boss1;
+import se233.contra.model.Boss1Cannon;
 import se233.contra.model.Bullet;
+import se233.contra.model.CollisionMatrix;
+import se233.contra.model.GameObject;
 import se233.contra.model.Player;
 import se233.contra.model.Soldier;
 import se233.contra.exception.GameException;
 import se233.contra.util.Constants;
+import se233.contra.util.Rectangle;
 
 import java.util.List;
 
+/**
+ * Bullet hit detection. Bullets are tested along their whole move this tick
+ * ({@link Bullet#timeOfImpact}), so even a long frame cannot carry a fast
+ * bullet through a thin target, and a bullet that hits is moved back to the
+ * point of impact before it explodes.
+ *
+ * Which bullets can hit what is decided by collision layers
+ * ({@link CollisionMatrix}): each pair is filtered with a single AND before
+ * any geometry is tested. Bullet-heavy checks find their hits with the
+ * caller's {@link NarrowPhase}, then apply them here in bullet order.
+ */
 public class CollisionDetector {
     private static final Logger logger = LoggerFactory.getLogger(CollisionDetector.class);
 
     // Player vs Enemy bullets
-    public static void checkPlayerBulletCollisions(Player player, List<Bullet> enemyBullets) {
+    public static void checkPlayerBulletCollisions(NarrowPhase narrowPhase, Player player,
+                                                   List<Bullet> enemyBullets) {
         if (!player.isActive() || player.isInvincible()) {
             return;
         }
 
         try {
-            for (Bullet bullet : enemyBullets) {
+            narrowPhase.resolve(enemyBullets, player);
+            for (int i = 0; i < enemyBullets.size(); i++) {
                 // ✅ FIX: เช็คว่ากระสุนยังไม่เคย hit และเป็นกระสุนของศัตรู
-                if (!bullet.isActive() || bullet.isPlayerBullet() || bullet.hasHit()) {
-                    continue;
-                }
-
-                if (player.collidesWith(bullet)) {
+                if (narrowPhase.firstTarget(i) != NarrowPhase.NO_TARGET) {
+                    Bullet bullet = enemyBullets.get(i);
+                    impact(bullet, player);
                     player.hit();
-                    bullet.onHit();
+                    SoundManager.play(SoundEffect.PLAYER_DEATH);
                     logger.info("Player hit by enemy bullet");
                     break; // Only one hit per frame
                 }
@@ -41,28 +58,37 @@ public class CollisionDetector {
     }
 
     // Player bullets vs Soldiers
-    public static void checkPlayerBulletsVsSoldiers(List<Bullet> playerBullets,
+    public static void checkPlayerBulletsVsSoldiers(NarrowPhase narrowPhase,
+                                                    List<Bullet> playerBullets,
                                                     List<Soldier> soldiers,
                                                     Player player) {
         try {
-            for (Bullet bullet : playerBullets) {
+            narrowPhase.resolve(playerBullets, soldiers);
+            for (int i = 0; i < playerBullets.size(); i++) {
                 // ✅ FIX: เช็คว่ากระสุนยังไม่เคย hit
-                if (!bullet.isActive() || !bullet.isPlayerBullet() || bullet.hasHit()) {
+                int hit = narrowPhase.firstTarget(i);
+                if (hit == NarrowPhase.NO_TARGET) {
                     continue;
                 }
 
-                for (Soldier soldier : soldiers) {
-                    if (!soldier.isActive() || soldier.isDead()) continue;
-
-                    if (bullet.collidesWith(soldier)) {
-                        soldier.hit(bullet.getDamage());
-                        bullet.onHit();
-
-                        if (soldier.isDead()) {
-                            player.addScore(Constants.SCORE_MINION_KILL);
-                            logger.info("Soldier killed! Score: +{}", Constants.SCORE_MINION_KILL);
-                        }
-                        break; // Bullet hit, stop checking other soldiers
+                // Found against this tick's starting state: if an earlier bullet
+                // killed the soldier (dead soldiers leave their layer), look again
+                // as a one-by-one pass would have, so the outcome is the same
+                Bullet bullet = playerBullets.get(i);
+                Soldier target = soldiers.get(hit);
+                if (!bullet.canCollideWith(target)) {
+                    target = firstHit(bullet, soldiers);
+                }
+                if (target != null) {
+                    impact(bullet, target);
+                    target.hit(bullet.getDamage());
+
+                    if (target.isDead()) {
+                        player.addScore(Constants.SCORE_MINION_KILL);
+                        SoundManager.play(SoundEffect.ENEMY_DEATH);
+                        logger.info("Soldier killed! Score: +{}", Constants.SCORE_MINION_KILL);
+                    } else {
+                        SoundManager.play(SoundEffect.ENEMY_HIT);
                     }
                 }
             }
@@ -79,68 +105,124 @@ public class CollisionDetector {
         if (!boss.isActive()) return;
 
         try {
-            for (Bullet bullet : playerBullets) {
+            for (int i = 0; i < playerBullets.size(); i++) {
+                Bullet bullet = playerBullets.get(i);
                 // ✅ FIX: เช็คว่ากระสุนยังไม่เคย hit
-                if (!bullet.isActive() || !bullet.isPlayerBullet() || bullet.hasHit()) {
+                if (!bullet.isActive() || !bullet.canCollideWith(boss) || bullet.hasHit()) {
                     continue;
                 }
 
-                // Check door collision (only when vulnerable)
-                if (boss.getCurrentState() == Boss1.State.VULNERABLE) {
-                    if (bullet.collidesWith(boss.getDoor())) {
+                // One descent through the boss's part volumes, confirmed by the
+                // sprite masks; the door only counts while vulnerable and wins
+                // over the cannons
+                switch (boss.hitTest(bullet)) {
+                    case Boss1.PART_DOOR -> {
+                        impact(bullet, boss.getDoor());
                         boss.hitDoor(bullet.getDamage());
-                        bullet.onHit();
 
                         if (boss.isBossDefeated()) {
                             player.addScore(Constants.SCORE_BOSS_DEFEAT);
                             logger.info("Boss 1 defeated! Score: +{}", Constants.SCORE_BOSS_DEFEAT);
                         }
-                        continue;
+                    }
+                    case Boss1.PART_LEFT_CANNON -> hitCannon(boss, true, bullet, player);
+                    case Boss1.PART_RIGHT_CANNON -> hitCannon(boss, false, bullet, player);
+                    default -> {
+                        // Missed the boss
                     }
                 }
+            }
+        } catch (Exception e) {
+            throw new GameException("Error in player bullets vs boss collision",
+                    GameException.ErrorType.COLLISION_ERROR, e);
+        }
+    }
 
-                // Check left cannon collision
-                if (boss.getLeftCannon().isActive() &&
-                        bullet.collidesWith(boss.getLeftCannon())) {
-                    boss.hitCannon(true, bullet.getDamage());
-                    bullet.onHit();
+    private static void hitCannon(Boss1 boss, boolean isLeft, Bullet bullet, Player player) {
+        Boss1Cannon cannon = isLeft ? boss.getLeftCannon() : boss.getRightCannon();
+        impact(bullet, cannon);
+        boss.hitCannon(isLeft, bullet.getDamage());
 
-                    if (!boss.getLeftCannon().isActive()) {
-                        player.addScore(Constants.SCORE_CANNON_DESTROY);
-                        logger.info("Left cannon destroyed! Score: +{}",
-                                Constants.SCORE_CANNON_DESTROY);
-                    }
+        if (!cannon.isActive()) {
+            player.addScore(Constants.SCORE_CANNON_DESTROY);
+            logger.info("{} cannon destroyed! Score: +{}", isLeft ? "Left" : "Right",
+                    Constants.SCORE_CANNON_DESTROY);
+        }
+    }
+
+    /**
+     * The target a bullet hits first along its move this tick, or null.
+     * Works for any kind of target on any layer, so a new entity type
+     * needs a collision layer rather than a check method of its own.
+     */
+    public static <T extends GameObject> T firstHit(Bullet bullet, List<T> targets) {
+        T first = null;
+        double firstTime = Rectangle.NO_IMPACT;
+        for (int i = 0; i < targets.size(); i++) {
+            T target = targets.get(i);
+            if (!bullet.canCollideWith(target)) continue;
+
+            double time = bullet.timeOfImpact(target);
+            if (time < firstTime) {
+                first = target;
+                firstTime = time;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Stop a bullet where it struck target and start its hit animation
+     */
+    private static void impact(Bullet bullet, GameObject target) {
+        double time = bullet.timeOfImpact(target);
+        if (time != Rectangle.NO_IMPACT) {
+            bullet.rewindTo(time);
+        }
+        bullet.onHit();
+    }
+
+    // Player bullets vs the other player (versus mode)
+    public static void checkPlayerBulletsVsPlayer(List<Bullet> attackerBullets, Player target) {
+        if (!target.isActive() || !target.isAlive() || target.isInvincible()) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < attackerBullets.size(); i++) {
+                Bullet bullet = attackerBullets.get(i);
+                if (!bullet.isActive() || !bullet.canCollideWith(target) || bullet.hasHit()) {
                     continue;
                 }
 
-                // Check right cannon collision
-                if (boss.getRightCannon().isActive() &&
-                        bullet.collidesWith(boss.getRightCannon())) {
-                    boss.hitCannon(false, bullet.getDamage());
-                    bullet.onHit();
-
-                    if (!boss.getRightCannon().isActive()) {
-                        player.addScore(Constants.SCORE_CANNON_DESTROY);
-                        logger.info("Right cannon destroyed! Score: +{}",
-                                Constants.SCORE_CANNON_DESTROY);
-                    }
+                if (bullet.timeOfImpact(target) != Rectangle.NO_IMPACT) {
+                    impact(bullet, target);
+                    target.hit();
+                    SoundManager.play(SoundEffect.PLAYER_DEATH);
+                    logger.info("Player hit by the other player");
+                    break; // Only one hit per frame
                 }
             }
         } catch (Exception e) {
-            throw new GameException("Error in player bullets vs boss collision",
+            throw new GameException("Error in player vs player collision detection",
                     GameException.ErrorType.COLLISION_ERROR, e);
         }
     }
 
     // Boss bullets vs Player
-    public static void checkBossBulletsVsPlayer(Boss1 boss, Player player) {
+    public static void checkBossBulletsVsPlayer(NarrowPhase narrowPhase, Boss1 boss, Player player) {
         if (!boss.isActive() || !player.isActive() || player.isInvincible()) {
             return;
         }
 
         try {
-            List<Bullet> bossBullets = boss.getAllBullets();
-            checkPlayerBulletCollisions(player, bossBullets);
+            // Check each cannon's list directly instead of copying into getAllBullets()
+            checkPlayerBulletCollisions(narrowPhase, player, boss.getLeftCannon().getBullets());
+            checkPlayerBulletCollisions(narrowPhase, player, boss.getRightCannon().getBullets());
+            // Swarm prefilter: one SIMD pass over the pattern's arrays
+            if (boss.getPatterns().anyNear(player.getBounds())) {
+                checkPlayerBulletCollisions(narrowPhase, player, boss.getPatternBullets());
+            }
         } catch (Exception e) {
             throw new GameException("Error in boss bullets vs player collision",
                     GameException.ErrorType.COLLISION_ERROR, e);
@@ -148,15 +230,17 @@ public class CollisionDetector {
     }
 
     // Soldier bullets vs Player
-    public static void checkSoldierBulletsVsPlayer(List<Soldier> soldiers, Player player) {
+    public static void checkSoldierBulletsVsPlayer(NarrowPhase narrowPhase, List<Soldier> soldiers,
+                                                   Player player) {
         if (!player.isActive() || player.isInvincible()) {
             return;
         }
 
         try {
-            for (Soldier soldier : soldiers) {
+            for (int i = 0; i < soldiers.size(); i++) {
+                Soldier soldier = soldiers.get(i);
                 if (!soldier.isActive()) continue;
-                checkPlayerBulletCollisions(player, soldier.getBullets());
+                checkPlayerBulletCollisions(narrowPhase, player, soldier.getBullets());
             }
         } catch (Exception e) {
             throw new GameException("Error in soldier bullets vs player collision",
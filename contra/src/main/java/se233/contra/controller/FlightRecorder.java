@@ -0,0 +1,189 @@
+package se233.contra.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Always-on record of the last few seconds of play, for reproducing crashes.
+ *
+ * Since a tick is fully determined by the world before it, its delta time and
+ * its input, the recorder keeps a save-state keyframe every
+ * FLIGHT_RECORDER_KEYFRAME_TICKS ticks plus the delta time and input masks of
+ * every tick, all in preallocated rings. Per tick that is two array stores;
+ * a keyframe is one save-state capture. Jumps the inputs cannot explain
+ * (new game, quick-load) force an extra keyframe.
+ *
+ * {@link #dump} copies the window and writes it to disk on its own thread;
+ * {@link FlightReplay} loads the file and steps through it.
+ */
+public class FlightRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorder.class);
+
+    static final int MAGIC = 0x43464C54; // "CFLT"
+    static final short VERSION = 1;
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Per tick, indexed by tick % capacity
+    private final int capacity;
+    private final double[] deltaTimes;
+    private final int[] inputs;
+
+    // Keyframes: the world before the tick, indexed by keyframe number % length
+    private final StateArena keyframes;
+    private final long[] keyframeTicks;
+    private final long[] keyframeChecksums;
+    private final boolean[] keyframeForced;
+    private long keyframeCount;
+
+    private long tick;              // ticks recorded so far
+    private long lastKeyframeTick = -1;
+    private int lastTimeline = -1;
+
+    public FlightRecorder() {
+        this(Constants.FLIGHT_RECORDER_SECONDS * 60);
+    }
+
+    /**
+     * @param capacity ticks kept
+     */
+    public FlightRecorder(int capacity) {
+        this.capacity = capacity;
+        this.deltaTimes = new double[capacity];
+        this.inputs = new int[capacity];
+
+        int keyframeSlots = capacity / Constants.FLIGHT_RECORDER_KEYFRAME_TICKS + 2;
+        this.keyframes = new StateArena(keyframeSlots, Constants.SAVE_STATE_CAPACITY);
+        this.keyframeTicks = new long[keyframeSlots];
+        this.keyframeChecksums = new long[keyframeSlots];
+        this.keyframeForced = new boolean[keyframeSlots];
+    }
+
+    /**
+     * Record a tick that is about to run; called just before GameController.step
+     */
+    void record(GameController game, double deltaTime, int player1Input, int player2Input) {
+        boolean jumped = game.getTimeline() != lastTimeline;
+        if (jumped || lastKeyframeTick < 0
+                || tick - lastKeyframeTick >= Constants.FLIGHT_RECORDER_KEYFRAME_TICKS) {
+            int slot = (int) (keyframeCount % keyframes.size());
+            keyframes.get(slot).capture(game);
+            keyframeTicks[slot] = tick;
+            keyframeChecksums[slot] = keyframes.get(slot).checksum();
+            keyframeForced[slot] = jumped;
+            keyframeCount++;
+            lastKeyframeTick = tick;
+            lastTimeline = game.getTimeline();
+        }
+
+        int slot = (int) (tick % capacity);
+        deltaTimes[slot] = deltaTime;
+        inputs[slot] = (player1Input & 0xFFFF) | (player2Input << 16);
+        tick++;
+    }
+
+    /**
+     * Write the recorded window to logs/flight-<time>.cflt in the background
+     */
+    public CompletableFuture<Path> dump(String reason) {
+        String name = "flight-" + LocalDateTime.now().format(FILE_TIME) + ".cflt";
+        return dump(Paths.get(Constants.FLIGHT_RECORDER_DIR, name), reason);
+    }
+
+    /**
+     * Copy the window now and write it to {@code file} on a separate thread,
+     * so a crash or hotkey never stalls the game loop on disk I/O
+     */
+    public CompletableFuture<Path> dump(Path file, String reason) {
+        CompletableFuture<Path> done = new CompletableFuture<>();
+        if (keyframeCount == 0) {
+            done.completeExceptionally(new GameException("Flight recorder is empty",
+                    GameException.ErrorType.INVALID_GAME_STATE));
+            return done;
+        }
+
+        ByteBuffer data = serialize(reason);
+        Thread writer = new Thread(() -> {
+            try {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Files.write(file, data.array());
+                logger.info("Flight recorder dumped {} ({} bytes): {}", file, data.limit(), reason);
+                done.complete(file);
+            } catch (IOException e) {
+                logger.error("Failed to write flight recorder dump {}", file, e);
+                done.completeExceptionally(e);
+            }
+        }, "flight-recorder-dump");
+        writer.start();
+        return done;
+    }
+
+    /**
+     * File layout (little-endian): magic, version, reason (short length +
+     * UTF-8), first tick, tick count, keyframe count, keyframes (tick,
+     * checksum, forced, size, bytes), then per tick delta time and inputs.
+     */
+    private ByteBuffer serialize(String reason) {
+        // Keyframes still inside the tick window; replay starts at the oldest
+        long windowStart = Math.max(0, tick - capacity);
+        long oldest = Math.max(0, keyframeCount - keyframes.size());
+        while (oldest < keyframeCount && keyframeTicks[(int) (oldest % keyframes.size())] < windowStart) {
+            oldest++;
+        }
+        long firstTick = keyframeTicks[(int) (oldest % keyframes.size())];
+        int tickCount = (int) (tick - firstTick);
+
+        byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        int size = Integer.BYTES + Short.BYTES + Short.BYTES + reasonBytes.length
+                + Long.BYTES + Integer.BYTES + Integer.BYTES
+                + tickCount * (Double.BYTES + Integer.BYTES);
+        for (long k = oldest; k < keyframeCount; k++) {
+            size += Long.BYTES * 2 + 1 + Integer.BYTES + keyframes.get((int) (k % keyframes.size())).size();
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putShort((short) reasonBytes.length);
+        out.put(reasonBytes);
+        out.putLong(firstTick);
+        out.putInt(tickCount);
+
+        out.putInt((int) (keyframeCount - oldest));
+        for (long k = oldest; k < keyframeCount; k++) {
+            int slot = (int) (k % keyframes.size());
+            out.putLong(keyframeTicks[slot]);
+            out.putLong(keyframeChecksums[slot]);
+            out.put((byte) (keyframeForced[slot] ? 1 : 0));
+            out.putInt(keyframes.get(slot).size());
+            out.put(keyframes.get(slot).getBuffer());
+        }
+
+        for (long t = firstTick; t < tick; t++) {
+            int slot = (int) (t % capacity);
+            out.putDouble(deltaTimes[slot]);
+            out.putInt(inputs[slot]);
+        }
+        out.flip();
+        return out;
+    }
+
+    public long getTicksRecorded() { return tick; }
+    public int getCapacity() { return capacity; }
+}
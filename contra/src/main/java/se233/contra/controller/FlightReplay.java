@@ -0,0 +1,167 @@
+package se233.contra.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Steps through a {@link FlightRecorder} dump in a fresh GameController.
+ *
+ * Replay starts at the oldest keyframe and re-runs every recorded tick. At
+ * each later keyframe the re-simulated world is checked against the recorded
+ * checksum (a mismatch means the simulation is not deterministic) and then
+ * reset to the keyframe, so the replay always follows the recording.
+ */
+public class FlightReplay {
+    private static final Logger logger = LoggerFactory.getLogger(FlightReplay.class);
+
+    private final String reason;
+    private final long firstTick;
+    private final double[] deltaTimes;
+    private final int[] inputs;
+
+    private final long[] keyframeTicks;
+    private final long[] keyframeChecksums;
+    private final boolean[] keyframeForced;
+    private final SaveState[] keyframes;
+
+    private final GameController game;
+    private long tick;
+    private int nextKeyframe;
+    private long mismatchTick = -1;
+    private GameException failure;
+
+    private FlightReplay(ByteBuffer in) {
+        if (in.getInt() != FlightRecorder.MAGIC || in.getShort() != FlightRecorder.VERSION) {
+            throw new GameException("Not a flight recorder dump of this version",
+                    GameException.ErrorType.INVALID_GAME_STATE);
+        }
+        byte[] reasonBytes = new byte[in.getShort() & 0xFFFF];
+        in.get(reasonBytes);
+        reason = new String(reasonBytes, StandardCharsets.UTF_8);
+        firstTick = in.getLong();
+        int tickCount = in.getInt();
+
+        int keyframeCount = in.getInt();
+        if (keyframeCount < 1 || tickCount < 0) {
+            throw new GameException("Flight recorder dump has no keyframe",
+                    GameException.ErrorType.INVALID_GAME_STATE);
+        }
+        keyframeTicks = new long[keyframeCount];
+        keyframeChecksums = new long[keyframeCount];
+        keyframeForced = new boolean[keyframeCount];
+        keyframes = new SaveState[keyframeCount];
+        for (int k = 0; k < keyframeCount; k++) {
+            keyframeTicks[k] = in.getLong();
+            keyframeChecksums[k] = in.getLong();
+            keyframeForced[k] = in.get() != 0;
+            int size = in.getInt();
+            ByteBuffer bytes = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+            bytes.limit(size);
+            keyframes[k] = new SaveState(Math.max(size, 1));
+            keyframes[k].load(bytes);
+            in.position(in.position() + size);
+        }
+
+        deltaTimes = new double[tickCount];
+        inputs = new int[tickCount];
+        for (int i = 0; i < tickCount; i++) {
+            deltaTimes[i] = in.getDouble();
+            inputs[i] = in.getInt();
+        }
+
+        game = new GameController(0);
+        restart();
+    }
+
+    public static FlightReplay load(Path file) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            FlightReplay replay = new FlightReplay(in);
+            logger.info("Loaded flight recording {}: ticks {}..{} ({})",
+                    file, replay.firstTick, replay.getEndTick(), replay.reason);
+            return replay;
+        } catch (IOException e) {
+            throw new GameException("Cannot read flight recording " + file,
+                    GameException.ErrorType.RESOURCE_NOT_FOUND, e);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new GameException("Corrupt flight recording " + file,
+                    GameException.ErrorType.INVALID_GAME_STATE, e);
+        }
+    }
+
+    /**
+     * Back to the first recorded tick
+     */
+    public void restart() {
+        keyframes[0].restore(game);
+        tick = firstTick;
+        nextKeyframe = 1;
+        mismatchTick = -1;
+        failure = null;
+    }
+
+    /**
+     * Run the next recorded tick.
+     * @return false at the end of the recording or once the recorded crash
+     *         has been reproduced (see {@link #getFailure()})
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+
+        if (nextKeyframe < keyframes.length && keyframeTicks[nextKeyframe] == tick) {
+            checkKeyframe(nextKeyframe);
+            nextKeyframe++;
+        }
+
+        int index = (int) (tick - firstTick);
+        int buttons = inputs[index];
+        try {
+            game.step(deltaTimes[index], buttons & 0xFFFF, buttons >>> 16);
+        } catch (GameException e) {
+            failure = e;
+            logger.info("Reproduced failure at tick {}: {}", tick, e.getMessage());
+            return false;
+        }
+        tick++;
+        return true;
+    }
+
+    private void checkKeyframe(int k) {
+        if (!keyframeForced[k] && mismatchTick < 0 && game.checksum() != keyframeChecksums[k]) {
+            mismatchTick = tick;
+            logger.warn("Replay diverged from the recording before tick {}", tick);
+        }
+        keyframes[k].restore(game);
+    }
+
+    public boolean isFinished() {
+        return failure != null || tick >= getEndTick();
+    }
+
+    public GameController getGame() { return game; }
+    public String getReason() { return reason; }
+    public long getTick() { return tick; }
+    public long getFirstTick() { return firstTick; }
+    public long getEndTick() { return firstTick + deltaTimes.length; }
+
+    /**
+     * First keyframe tick where re-simulation disagreed with the recording, or -1
+     */
+    public long getMismatchTick() { return mismatchTick; }
+
+    /**
+     * The exception the recorded tick threw when replayed, if any
+     */
+    public GameException getFailure() { return failure; }
+}
@@ -2,16 +2,28 @@ package se233.contra.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.audio.MusicTrack;
+import se233.contra.audio.SoundEffect;
+import se233.contra.audio.SoundManager;
 import se233.contra.model.Boss1;
+import se233.contra.model.Bullet;
+import se233.contra.model.CollisionMatrix;
+import se233.contra.model.EntityPool;
 import se233.contra.model.Explosion;
+import se233.contra.model.FlowField;
+import se233.contra.model.KinematicSolver;
+import se233.contra.model.LineOfSight;
 import se233.contra.model.Player;
 import se233.contra.model.Soldier;
+import se233.contra.model.Terrain;
 import se233.contra.exception.GameException;
 import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.util.RecordArena;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 public class GameController {
     private static final Logger logger = LoggerFactory.getLogger(GameController.class);
@@ -24,12 +36,32 @@ public class GameController {
         VICTORY
     }
 
+    private static final GameState[] STATES = GameState.values();
+
     private GameState currentState;
     private Player player;
+    private Player player2;     // null unless a two-player game was started
+    private boolean versus;     // two-player: player bullets also hit the other player
+    private CollisionMatrix collisionRules = CollisionMatrix.standard();
     private List<Soldier> soldiers;
     private Boss1 boss;
     private List<Explosion> explosions;
 
+    // Pools: everything spawned during play is created up front in MENU, with
+    // its position, velocity and bounds in the off-heap records (and those of
+    // its bullets and parts)
+    private final RecordArena records = new RecordArena(Constants.ENTITY_RECORDS);
+    private final EntityPool<Player> playerPool;
+    private final EntityPool<Soldier> soldierPool;
+    private final Terrain terrain = Terrain.flat();
+    private final FlowField navigation = new FlowField(terrain);
+    private final LineOfSight sight = new LineOfSight(terrain);
+    private final AiScheduler aiScheduler = new AiScheduler(sight);
+    private final KinematicSolver physics = new KinematicSolver(terrain);
+    private final NarrowPhase narrowPhase = new NarrowPhase();
+    private final EntityPool<Explosion> explosionPool;
+    private final EntityPool<Boss1> bossPool;
+
     // Wave management
     private int currentWave;
     private int minionsKilled;
@@ -39,24 +71,80 @@ public class GameController {
     // Pause
     private boolean paused;
 
-    private final Random random;
+    // All gameplay randomness comes from here so it is part of the save state
+    private final GameRandom random;
+
+    // Quick-save slot (F5 / F9)
+    private final SaveState quickSave;
+
+    // Scratch capture for checksum(); never restored
+    private final SaveState checksumState;
+
+    // Observers of finished ticks (e.g. spectator broadcast)
+    private final List<TickListener> tickListeners = new ArrayList<>();
+
+    // Crash recorder (optional) and a counter of jumps input cannot explain
+    private FlightRecorder flightRecorder;
+    private int timeline;
 
     public GameController() {
-        this.currentState = GameState.MENU;
+        this(System.nanoTime());
+    }
+
+    public GameController(long seed) {
+        changeState(GameState.MENU);
         this.soldiers = new ArrayList<>();
         this.explosions = new ArrayList<>();
-        this.random = new Random();
+        this.random = new GameRandom(seed);
+        this.quickSave = new SaveState();
+        this.checksumState = new SaveState();
         this.paused = false;
 
+        this.playerPool = new EntityPool<>("Player",
+                () -> new Player(100, Constants.GROUND_Y, physics), records);
+        this.soldierPool = new EntityPool<>("Soldier",
+                () -> new Soldier(0, Constants.GROUND_Y, random, navigation, physics), records);
+        this.explosionPool = new EntityPool<>("Explosion", () -> new Explosion(0, 0), records);
+        this.bossPool = new EntityPool<>("Boss1", () -> new Boss1(Constants.BOSS1_X, Constants.BOSS1_Y), records);
+        playerPool.prewarm(2);
+        soldierPool.prewarm(Constants.MINIONS_PER_WAVE);
+        explosionPool.prewarm(Constants.EXPLOSION_POOL_SIZE);
+        bossPool.prewarm(1);
+
         logger.info("GameController initialized");
     }
 
     public void startGame() {
-        try {
-            logger.info("Starting new game...");
+        startGame(1, false);
+    }
 
-            // Initialize player
-            player = new Player(100, Constants.GROUND_Y);
+    /**
+     * @param playerCount 1, or 2 for co-op / versus
+     * @param versus with two players, whether their bullets hit each other
+     */
+    public void startGame(int playerCount, boolean versus) {
+        try {
+            logger.info("Starting new game ({} player(s){})...", playerCount, versus ? ", versus" : "");
+
+            timeline++;
+
+            this.versus = versus && playerCount > 1;
+            collisionRules = this.versus ? CollisionMatrix.versus() : CollisionMatrix.standard();
+
+            // Initialize players
+            releasePlayers();
+            player = spawnPlayer(100);
+            player2 = playerCount > 1 ? spawnPlayer(160) : null;
+            applyCollisionRules(player);
+            applyCollisionRules(player2);
+
+            // Return anything left over from the previous run
+            soldierPool.releaseAll(soldiers);
+            explosionPool.releaseAll(explosions);
+            if (boss != null) {
+                bossPool.release(boss);
+                boss = null;
+            }
 
             // Start with minion waves
             currentWave = 0;
@@ -64,7 +152,7 @@ public class GameController {
             waveTimer = 0;
             waveComplete = false;
 
-            currentState = GameState.MINION_WAVE;
+            changeState(GameState.MINION_WAVE);
             spawnMinionWave();
 
             logger.info("Game started successfully");
@@ -74,24 +162,36 @@ public class GameController {
         }
     }
 
+    /**
+     * Release what the controller holds outside the game state (the collision
+     * workers); call once it is no longer stepped
+     */
+    public void shutdown() {
+        narrowPhase.shutdown();
+    }
+
     private void spawnMinionWave() {
         currentWave++;
         logger.info("Spawning minion wave {}/{}", currentWave,
                 Constants.MINION_WAVES_BEFORE_BOSS);
 
-        soldiers.clear();
+        soldierPool.releaseAll(soldiers);
 
         for (int i = 0; i < Constants.MINIONS_PER_WAVE; i++) {
             double spawnX = Constants.SCREEN_WIDTH + 50 + (i * 100);
             double spawnY = Constants.GROUND_Y;
-            soldiers.add(new Soldier(spawnX, spawnY));
+            Soldier soldier = soldierPool.obtain();
+            soldier.reset(spawnX, spawnY);
+            soldier.setAiPhase(i % Constants.AI_FAR_PERIOD);
+            soldiers.add(soldier);
         }
     }
 
     private void spawnBoss() {
         logger.info("Spawning Boss 1!");
-        boss = new Boss1(Constants.BOSS1_X, Constants.BOSS1_Y);
-        currentState = GameState.BOSS_FIGHT;
+        boss = bossPool.obtain();
+        boss.reset(Constants.BOSS1_X, Constants.BOSS1_Y);
+        changeState(GameState.BOSS_FIGHT);
     }
 
     public void update(double deltaTime) {
@@ -99,8 +199,51 @@ public class GameController {
             return;
         }
 
+        InputHandler input = InputHandler.getInstance();
+        handleInput();
+        int buttons = PlayerInput.fromKeyboard(input);
+        if (flightRecorder != null) {
+            flightRecorder.record(this, deltaTime, buttons, PlayerInput.NONE);
+        }
+        try {
+            step(deltaTime, buttons, PlayerInput.NONE);
+        } catch (GameException e) {
+            if (flightRecorder != null) {
+                flightRecorder.dump("Crash: " + e);
+            }
+            throw e;
+        }
+        input.update();
+
+        for (int i = 0; i < tickListeners.size(); i++) {
+            tickListeners.get(i).onTick(this);
+        }
+    }
+
+    public void addTickListener(TickListener listener) {
+        tickListeners.add(listener);
+    }
+
+    public void removeTickListener(TickListener listener) {
+        tickListeners.remove(listener);
+    }
+
+    /**
+     * Advance the world one tick with explicit inputs ({@link PlayerInput}
+     * masks). Reads neither the keyboard nor the clock, so the same state and
+     * inputs always produce the same next state; netplay and replays call this
+     * directly.
+     */
+    public void step(double deltaTime, int player1Input, int player2Input) {
+        if (currentState == GameState.MENU) {
+            return;
+        }
+
         try {
-            handleInput();
+            player.setInput(player1Input);
+            if (player2 != null) {
+                player2.setInput(player2Input);
+            }
 
             switch (currentState) {
                 case MINION_WAVE -> updateMinionWave(deltaTime);
@@ -110,13 +253,11 @@ public class GameController {
             }
 
             // Update explosions
-            explosions.removeIf(e -> !e.isActive());
-            for (Explosion explosion : explosions) {
-                explosion.update(deltaTime);
+            explosionPool.releaseInactive(explosions);
+            for (int i = 0; i < explosions.size(); i++) {
+                explosions.get(i).update(deltaTime);
             }
 
-            InputHandler.getInstance().update();
-
         } catch (Exception e) {
             logger.error("Error in game update", e);
             throw new GameException("Game update failed",
@@ -129,8 +270,7 @@ public class GameController {
 
         // Pause
         if (input.isKeyJustPressed(Constants.KEY_PAUSE)) {
-            paused = !paused;
-            logger.info("Game {}", paused ? "paused" : "resumed");
+            togglePause();
         }
 
         // Restart
@@ -140,16 +280,46 @@ public class GameController {
                 startGame();
             }
         }
+
+        // Quick-save / quick-load
+        if (input.isKeyJustPressed(Constants.KEY_QUICK_SAVE)) {
+            quickSave.capture(this);
+            logger.info("Quick-saved ({} bytes)", quickSave.size());
+        }
+        if (input.isKeyJustPressed(Constants.KEY_QUICK_LOAD) && !quickSave.isEmpty()) {
+            quickSave.restore(this);
+            logger.info("Quick-loaded");
+        }
+
+        if (input.isKeyJustPressed(Constants.KEY_FLIGHT_DUMP) && flightRecorder != null) {
+            flightRecorder.dump("Hotkey");
+        }
     }
 
     private void updateMinionWave(double deltaTime) {
-        // Update player
-        player.update(deltaTime);
-
-        // Update soldiers
-        soldiers.removeIf(s -> !s.isActive());
-        for (Soldier soldier : soldiers) {
-            soldier.update(deltaTime);
+        // Soldier AI, toward where the players stood at the end of last tick
+        soldierPool.releaseInactive(soldiers);
+        navigation.update(player, player2);
+        aiScheduler.update(soldiers, player, player2, deltaTime);
+
+        // Everyone moves in one physics batch
+        physics.begin();
+        beginMove(player, deltaTime);
+        beginMove(player2, deltaTime);
+        for (int i = 0; i < soldiers.size(); i++) {
+            if (soldiers.get(i).beginMove(deltaTime)) {
+                physics.add(soldiers.get(i));
+            }
+        }
+        physics.solve(deltaTime);
+        endMove(player, deltaTime);
+        endMove(player2, deltaTime);
+
+        for (int i = 0; i < soldiers.size(); i++) {
+            Soldier soldier = soldiers.get(i);
+            if (!soldier.isDead()) {
+                soldier.endMove(deltaTime);
+            }
 
             if (soldier.isDead() && !soldier.isActive()) {
                 minionsKilled++;
@@ -158,11 +328,18 @@ public class GameController {
         }
 
         // Check collisions
-        CollisionDetector.checkPlayerBulletsVsSoldiers(player.getBullets(), soldiers, player);
-        CollisionDetector.checkSoldierBulletsVsPlayer(soldiers, player);
+        CollisionDetector.checkPlayerBulletsVsSoldiers(narrowPhase, player.getBullets(), soldiers, player);
+        CollisionDetector.checkSoldierBulletsVsPlayer(narrowPhase, soldiers, player);
+        if (player2 != null) {
+            CollisionDetector.checkPlayerBulletsVsSoldiers(narrowPhase, player2.getBullets(), soldiers, player2);
+            CollisionDetector.checkSoldierBulletsVsPlayer(narrowPhase, soldiers, player2);
+        }
+        checkVersusCollisions();
 
         // Check wave completion
         if (soldiers.isEmpty()) {
+            // Between waves: top the pool up before the next spawn needs it
+            soldierPool.prewarm(Constants.MINIONS_PER_WAVE);
             waveTimer += deltaTime;
 
             if (waveTimer > 2.0) { // 2 second delay between waves
@@ -176,39 +353,104 @@ public class GameController {
         }
 
         // Check game over
-        if (!player.isAlive()) {
-            currentState = GameState.GAME_OVER;
+        if (!isAnyPlayerAlive()) {
+            changeState(GameState.GAME_OVER);
             logger.info("Game Over! Final Score: {}", player.getScore());
         }
     }
 
+    private void updatePlayers(double deltaTime) {
+        physics.begin();
+        beginMove(player, deltaTime);
+        beginMove(player2, deltaTime);
+        physics.solve(deltaTime);
+        endMove(player, deltaTime);
+        endMove(player2, deltaTime);
+    }
+
+    private void beginMove(Player player, double deltaTime) {
+        if (player != null && player.beginMove(deltaTime)) {
+            physics.add(player);
+        }
+    }
+
+    private void endMove(Player player, double deltaTime) {
+        if (player != null && player.isAlive()) {
+            player.endMove(deltaTime);
+        }
+    }
+
+    /**
+     * Give a player and their shots this game's masks; versus mode only
+     * changes what players and their shots collide with
+     */
+    private void applyCollisionRules(Player player) {
+        if (player == null) return;
+        player.refreshCollisionMask(collisionRules);
+        List<Bullet> bullets = player.getBullets();
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).refreshCollisionMask(collisionRules);
+        }
+    }
+
+    private void checkVersusCollisions() {
+        if (!versus) return;
+        CollisionDetector.checkPlayerBulletsVsPlayer(player.getBullets(), player2);
+        CollisionDetector.checkPlayerBulletsVsPlayer(player2.getBullets(), player);
+    }
+
+    private boolean isAnyPlayerAlive() {
+        return player.isAlive() || (player2 != null && player2.isAlive());
+    }
+
     private void updateBossFight(double deltaTime) {
-        // Update player
-        player.update(deltaTime);
+        updatePlayers(deltaTime);
 
         // Update boss
         if (boss != null && boss.isActive()) {
+            sight.begin();
+            boss.requestSight(sight);
+            boss.setTargets(player, player2);
+            sight.resolve(player, player2);
             boss.update(deltaTime);
 
             // Check collisions
             CollisionDetector.checkPlayerBulletsVsBoss1(player.getBullets(), boss, player);
-            CollisionDetector.checkBossBulletsVsPlayer(boss, player);
+            CollisionDetector.checkBossBulletsVsPlayer(narrowPhase, boss, player);
+            if (player2 != null) {
+                CollisionDetector.checkPlayerBulletsVsBoss1(player2.getBullets(), boss, player2);
+                CollisionDetector.checkBossBulletsVsPlayer(narrowPhase, boss, player2);
+            }
 
             // Check boss defeat
             if (boss.isBossDefeated()) {
-                currentState = GameState.VICTORY;
+                changeState(GameState.VICTORY);
                 addExplosion(boss.getPosition().getX() + 100, boss.getPosition().getY() + 100);
                 logger.info("Victory! Final Score: {}", player.getScore());
             }
         }
+        checkVersusCollisions();
 
         // Check game over
-        if (!player.isAlive()) {
-            currentState = GameState.GAME_OVER;
+        if (!isAnyPlayerAlive()) {
+            changeState(GameState.GAME_OVER);
             logger.info("Game Over! Final Score: {}", player.getScore());
         }
     }
 
+    private void changeState(GameState newState) {
+        currentState = newState;
+        SoundManager.playMusic(musicFor(newState));
+    }
+
+    private static MusicTrack musicFor(GameState state) {
+        return switch (state) {
+            case MENU, MINION_WAVE, BOSS_FIGHT -> MusicTrack.TITLE;
+            case VICTORY -> MusicTrack.STAGE_CLEAR;
+            case GAME_OVER -> MusicTrack.GAME_OVER;
+        };
+    }
+
     private void updateGameOver(double deltaTime) {
         // Show game over screen
     }
@@ -218,18 +460,178 @@ public class GameController {
     }
 
     private void addExplosion(double x, double y) {
-        explosions.add(new Explosion(x, y));
+        Explosion explosion = explosionPool.obtain();
+        explosion.reset(x, y);
+        explosions.add(explosion);
+    }
+
+    private Player spawnPlayer(double x) {
+        Player spawned = playerPool.obtain();
+        spawned.reset(x, Constants.GROUND_Y);
+        return spawned;
+    }
+
+    private void releasePlayers() {
+        if (player != null) {
+            playerPool.release(player);
+            player = null;
+        }
+        if (player2 != null) {
+            playerPool.release(player2);
+            player2 = null;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Save state (see SaveState for the header and buffer handling)
+    // ------------------------------------------------------------------------
+    void writeState(ByteBuffer buffer) {
+        buffer.put((byte) currentState.ordinal());
+        buffer.putInt(currentWave);
+        buffer.putInt(minionsKilled);
+        buffer.putDouble(waveTimer);
+        buffer.put((byte) ((waveComplete ? 1 : 0) | (paused ? 2 : 0)));
+        buffer.putLong(random.getState());
+
+        buffer.put((byte) (player != null ? 1 : 0));
+        if (player != null) {
+            player.writeState(buffer);
+        }
+
+        buffer.put((byte) ((player2 != null ? 1 : 0) | (versus ? 2 : 0)));
+        if (player2 != null) {
+            player2.writeState(buffer);
+        }
+
+        buffer.putShort((short) soldiers.size());
+        for (int i = 0; i < soldiers.size(); i++) {
+            soldiers.get(i).writeState(buffer);
+        }
+
+        buffer.put((byte) (boss != null ? 1 : 0));
+        if (boss != null) {
+            boss.writeState(buffer);
+        }
+
+        buffer.putShort((short) explosions.size());
+        for (int i = 0; i < explosions.size(); i++) {
+            explosions.get(i).writeState(buffer);
+        }
+    }
+
+    void readState(ByteBuffer buffer) {
+        timeline++;
+        GameState state = STATES[buffer.get()];
+        currentWave = buffer.getInt();
+        minionsKilled = buffer.getInt();
+        waveTimer = buffer.getDouble();
+        byte flags = buffer.get();
+        waveComplete = (flags & 1) != 0;
+        paused = (flags & 2) != 0;
+        random.setState(buffer.getLong());
+
+        if (buffer.get() != 0) {
+            if (player == null) {
+                player = spawnPlayer(100);
+            }
+            player.readState(buffer);
+        } else if (player != null) {
+            playerPool.release(player);
+            player = null;
+        }
+
+        byte player2Flags = buffer.get();
+        versus = (player2Flags & 2) != 0;
+        if ((player2Flags & 1) != 0) {
+            if (player2 == null) {
+                player2 = spawnPlayer(160);
+            }
+            player2.readState(buffer);
+        } else if (player2 != null) {
+            playerPool.release(player2);
+            player2 = null;
+        }
+        collisionRules = versus ? CollisionMatrix.versus() : CollisionMatrix.standard();
+        applyCollisionRules(player);
+        applyCollisionRules(player2);
+
+        soldierPool.releaseAll(soldiers);
+        int soldierCount = buffer.getShort();
+        for (int i = 0; i < soldierCount; i++) {
+            Soldier soldier = soldierPool.obtain();
+            soldier.readState(buffer);
+            soldiers.add(soldier);
+        }
+
+        if (buffer.get() != 0) {
+            if (boss == null) {
+                boss = bossPool.obtain();
+            }
+            boss.readState(buffer);
+        } else if (boss != null) {
+            bossPool.release(boss);
+            boss = null;
+        }
+
+        explosionPool.releaseAll(explosions);
+        int explosionCount = buffer.getShort();
+        for (int i = 0; i < explosionCount; i++) {
+            Explosion explosion = explosionPool.obtain();
+            explosion.readState(buffer);
+            explosions.add(explosion);
+        }
+
+        if (state != currentState) {
+            changeState(state);
+        }
+    }
+
+    /**
+     * Hash of the whole simulation state, for desync and determinism checks.
+     * Costs one save-state capture plus a pass over its bytes.
+     */
+    public long checksum() {
+        checksumState.capture(this);
+        return checksumState.checksum();
+    }
+
+    /**
+     * Keep the last seconds of play for crash dumps (null to turn off)
+     */
+    public void setFlightRecorder(FlightRecorder flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    /**
+     * Bumped whenever the world jumps rather than steps (new game, restore)
+     */
+    int getTimeline() {
+        return timeline;
     }
 
     public void togglePause() {
         paused = !paused;
+        SoundManager.play(SoundEffect.PAUSE);
         logger.info("Game {}", paused ? "paused" : "resumed");
     }
 
     // Getters
     public GameState getCurrentState() { return currentState; }
     public Player getPlayer() { return player; }
+    public Player getPlayer2() { return player2; }
+    public boolean isVersus() { return versus; }
+    public CollisionMatrix getCollisionRules() { return collisionRules; }
     public List<Soldier> getSoldiers() { return soldiers; }
+    public AiScheduler getAiScheduler() { return aiScheduler; }
+    public FlowField getNavigation() { return navigation; }
+    public LineOfSight getSight() { return sight; }
+    public KinematicSolver getPhysics() { return physics; }
+    public NarrowPhase getNarrowPhase() { return narrowPhase; }
+    public RecordArena getRecords() { return records; }
     public Boss1 getBoss() { return boss; }
     public List<Explosion> getExplosions() { return explosions; }
     public boolean isPaused() { return paused; }
@@ -4,23 +4,19 @@ import javafx.scene.input.KeyCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 public class InputHandler {
     private static final Logger logger = LoggerFactory.getLogger(InputHandler.class);
     private static InputHandler instance;
 
-    private final Set<KeyCode> pressedKeys;
-    private final Map<KeyCode, Boolean> justPressedKeys;
-    private final Map<KeyCode, Boolean> previousFrameKeys;
+    // Indexed by KeyCode.ordinal(): lookups and the per-frame copy never allocate
+    private final boolean[] pressedKeys;
+    private final boolean[] previousFrameKeys;
 
     private InputHandler() {
-        pressedKeys = new HashSet<>();
-        justPressedKeys = new HashMap<>();
-        previousFrameKeys = new HashMap<>();
+        pressedKeys = new boolean[KeyCode.values().length];
+        previousFrameKeys = new boolean[pressedKeys.length];
     }
 
     public static InputHandler getInstance() {
@@ -31,44 +27,33 @@ public class InputHandler {
     }
 
     public void keyPressed(KeyCode key) {
-        if (!pressedKeys.contains(key)) {
-            pressedKeys.add(key);
-            justPressedKeys.put(key, true);
+        if (!pressedKeys[key.ordinal()]) {
+            pressedKeys[key.ordinal()] = true;
             logger.trace("Key pressed: {}", key);
         }
     }
 
     public void keyReleased(KeyCode key) {
-        pressedKeys.remove(key);
-        justPressedKeys.put(key, false);
+        pressedKeys[key.ordinal()] = false;
         logger.trace("Key released: {}", key);
     }
 
     public boolean isKeyPressed(KeyCode key) {
-        return pressedKeys.contains(key);
+        return pressedKeys[key.ordinal()];
     }
 
     public boolean isKeyJustPressed(KeyCode key) {
-        boolean currentlyPressed = pressedKeys.contains(key);
-        boolean wasPressed = previousFrameKeys.getOrDefault(key, false);
-        return currentlyPressed && !wasPressed;
+        return pressedKeys[key.ordinal()] && !previousFrameKeys[key.ordinal()];
     }
 
     public void update() {
         // Update previous frame state
-        previousFrameKeys.clear();
-        for (KeyCode key : pressedKeys) {
-            previousFrameKeys.put(key, true);
-        }
-
-        // Clear just pressed flags
-        justPressedKeys.clear();
+        System.arraycopy(pressedKeys, 0, previousFrameKeys, 0, pressedKeys.length);
     }
 
     public void reset() {
-        pressedKeys.clear();
-        justPressedKeys.clear();
-        previousFrameKeys.clear();
+        Arrays.fill(pressedKeys, false);
+        Arrays.fill(previousFrameKeys, false);
         logger.debug("InputHandler reset");
     }
-}
\ No newline at end of file
+}
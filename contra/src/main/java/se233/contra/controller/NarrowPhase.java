@@ -0,0 +1,279 @@
+package se233.contra.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+import se233.contra.model.Bullet;
+import se233.contra.model.GameObject;
+import se233.contra.util.AbstractRectangle;
+import se233.contra.util.Constants;
+import se233.contra.util.Rectangle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds, for every bullet, the target it would hit first this tick, with
+ * the work split over worker threads by vertical screen strip.
+ *
+ * Each strip tests only the bullets whose swept box reaches into it against
+ * the targets that do, and writes its candidates (bullet, target, time) to
+ * its own buffer; nothing is shared while the workers run, and only reads
+ * happen. The buffers are then merged on the calling thread, per bullet
+ * keeping the earliest time and, on a tie, the lowest target index: exactly
+ * what one thread walking the target list would pick, whatever order the
+ * strips finished in. Side effects (hits, scores) are left to the caller,
+ * which applies them in bullet order.
+ *
+ * Small workloads are not worth a thread hand-off and run as a single strip
+ * on the calling thread, through the same code.
+ */
+public class NarrowPhase {
+    private static final Logger logger = LoggerFactory.getLogger(NarrowPhase.class);
+
+    public static final int NO_TARGET = -1;
+
+    private final Strip[] strips;
+    private final List<Strip> tasks;
+    private final int parallelPairs;
+    private ExecutorService workers;   // started on first parallel use
+
+    // Merged result, by bullet index
+    private int[] firstTarget = new int[64];
+    private double[] firstTime = new double[64];
+
+    // Target list for resolve(bullets, target)
+    private final List<GameObject> single = new ArrayList<>(1);
+
+    private long parallelRuns;
+
+    public NarrowPhase() {
+        this(Constants.COLLISION_STRIPS, Constants.COLLISION_PARALLEL_PAIRS);
+    }
+
+    /**
+     * @param strips how many strips (and worker threads) to split the screen into
+     * @param parallelPairs bullets x targets below which everything runs on the calling thread
+     */
+    public NarrowPhase(int strips, int parallelPairs) {
+        this.strips = new Strip[Math.max(strips, 1)];
+        for (int i = 0; i < this.strips.length; i++) {
+            this.strips[i] = new Strip();
+        }
+        this.tasks = List.of(this.strips);
+        this.parallelPairs = parallelPairs;
+    }
+
+    /**
+     * Find the first target of every bullet in one target
+     */
+    public void resolve(List<Bullet> bullets, GameObject target) {
+        single.add(target);
+        try {
+            resolve(bullets, single);
+        } finally {
+            single.clear();
+        }
+    }
+
+    /**
+     * Find the first target of every bullet, read back with {@link #firstTarget}
+     */
+    public void resolve(List<Bullet> bullets, List<? extends GameObject> targets) {
+        int count = bullets.size();
+        if (firstTarget.length < count) {
+            firstTarget = new int[Math.max(count, firstTarget.length * 2)];
+            firstTime = new double[firstTarget.length];
+        }
+        Arrays.fill(firstTarget, 0, count, NO_TARGET);
+        Arrays.fill(firstTime, 0, count, Rectangle.NO_IMPACT);
+        if (count == 0 || targets.isEmpty()) {
+            return;
+        }
+
+        boolean parallel = strips.length > 1 && (long) count * targets.size() >= parallelPairs;
+        int used = parallel ? strips.length : 1;
+        partition(bullets, targets, used);
+
+        if (parallel) {
+            runWorkers();
+            parallelRuns++;
+        } else {
+            strips[0].call();
+        }
+
+        for (int s = 0; s < used; s++) {
+            Strip strip = strips[s];
+            for (int k = 0; k < strip.hitCount; k++) {
+                int bullet = strip.hitBullet[k];
+                int target = strip.hitTarget[k];
+                double time = strip.hitTime[k];
+                if (time < firstTime[bullet] || (time == firstTime[bullet] && target < firstTarget[bullet])) {
+                    firstTarget[bullet] = target;
+                    firstTime[bullet] = time;
+                }
+            }
+        }
+    }
+
+    /**
+     * Index of the target a bullet hits first, or NO_TARGET, as of the last resolve
+     */
+    public int firstTarget(int bullet) {
+        return firstTarget[bullet];
+    }
+
+    /**
+     * Hand every live bullet and target to each strip its box reaches into
+     */
+    private void partition(List<Bullet> bullets, List<? extends GameObject> targets, int used) {
+        double width = (double) Constants.SCREEN_WIDTH / used;
+        for (int s = 0; s < used; s++) {
+            strips[s].clear();
+            strips[s].bullets = bullets;
+            strips[s].targets = targets;
+        }
+        for (int j = 0; j < targets.size(); j++) {
+            GameObject target = targets.get(j);
+            if (!target.isActive()) continue;
+            AbstractRectangle box = target.getHitBox();
+            int from = stripAt(box.getLeft(), width, used);
+            int to = stripAt(box.getRight(), width, used);
+            for (int s = from; s <= to; s++) {
+                strips[s].addTarget(j);
+            }
+        }
+        for (int i = 0; i < bullets.size(); i++) {
+            Bullet bullet = bullets.get(i);
+            if (!bullet.isActive() || bullet.hasHit()) continue;
+            Rectangle swept = bullet.getSweptBounds();
+            int from = stripAt(swept.getLeft(), width, used);
+            int to = stripAt(swept.getRight(), width, used);
+            for (int s = from; s <= to; s++) {
+                strips[s].addBullet(i);
+            }
+        }
+    }
+
+    private static int stripAt(double x, double width, int used) {
+        return Math.max(0, Math.min(used - 1, (int) Math.floor(x / width)));
+    }
+
+    private void runWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(strips.length, runnable -> {
+                Thread thread = new Thread(runnable, "collision-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            logger.info("Started {} collision workers", strips.length);
+        }
+        try {
+            for (var done : workers.invokeAll(tasks)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GameException("Interrupted during collision detection",
+                    GameException.ErrorType.COLLISION_ERROR, e);
+        } catch (ExecutionException e) {
+            throw new GameException("Collision worker failed",
+                    GameException.ErrorType.COLLISION_ERROR, e.getCause());
+        }
+    }
+
+    /**
+     * Stop the worker threads, if any were started
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * Calls that ran on the worker threads
+     */
+    public long getParallelRuns() { return parallelRuns; }
+
+    /**
+     * One strip's share of the work and its candidate buffer; touched only
+     * by the worker running it until the merge
+     */
+    private static final class Strip implements Callable<Void> {
+        List<Bullet> bullets;
+        List<? extends GameObject> targets;
+
+        int[] bulletIndex = new int[64];
+        int bulletCount;
+        int[] targetIndex = new int[64];
+        int targetCount;
+
+        int[] hitBullet = new int[64];
+        int[] hitTarget = new int[64];
+        double[] hitTime = new double[64];
+        int hitCount;
+
+        void clear() {
+            bulletCount = 0;
+            targetCount = 0;
+            hitCount = 0;
+        }
+
+        void addBullet(int index) {
+            if (bulletCount == bulletIndex.length) {
+                bulletIndex = Arrays.copyOf(bulletIndex, bulletCount * 2);
+            }
+            bulletIndex[bulletCount++] = index;
+        }
+
+        void addTarget(int index) {
+            if (targetCount == targetIndex.length) {
+                targetIndex = Arrays.copyOf(targetIndex, targetCount * 2);
+            }
+            targetIndex[targetCount++] = index;
+        }
+
+        @Override
+        public Void call() {
+            for (int b = 0; b < bulletCount; b++) {
+                Bullet bullet = bullets.get(bulletIndex[b]);
+                int first = NO_TARGET;
+                double firstTime = Rectangle.NO_IMPACT;
+                // Targets are in list order, so the strict < keeps the lowest index on ties
+                for (int t = 0; t < targetCount; t++) {
+                    GameObject target = targets.get(targetIndex[t]);
+                    if (!bullet.canCollideWith(target)) continue;
+
+                    double time = bullet.timeOfImpact(target);
+                    if (time < firstTime) {
+                        first = targetIndex[t];
+                        firstTime = time;
+                    }
+                }
+                if (first != NO_TARGET) {
+                    addHit(bulletIndex[b], first, firstTime);
+                }
+            }
+            return null;
+        }
+
+        private void addHit(int bullet, int target, double time) {
+            if (hitCount == hitBullet.length) {
+                hitBullet = Arrays.copyOf(hitBullet, hitCount * 2);
+                hitTarget = Arrays.copyOf(hitTarget, hitCount * 2);
+                hitTime = Arrays.copyOf(hitTime, hitCount * 2);
+            }
+            hitBullet[hitCount] = bullet;
+            hitTarget[hitCount] = target;
+            hitTime[hitCount] = time;
+            hitCount++;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package se233.contra.controller;
+
+import se233.contra.util.Constants;
+
+/**
+ * One tick of player input packed into a bitmask.
+ *
+ * The simulation only ever sees these masks, never the keyboard, so a tick can
+ * be replayed from recorded or networked input. Masks fit in a short on the wire.
+ */
+public final class PlayerInput {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int UP = 1 << 2;
+    public static final int DOWN = 1 << 3;
+    public static final int JUMP = 1 << 4;
+    public static final int SHOOT = 1 << 5;
+    public static final int RIFLE = 1 << 6;
+    public static final int SPREAD_GUN = 1 << 7;
+
+    public static final int NONE = 0;
+
+    private PlayerInput() {
+    }
+
+    /**
+     * Sample the local keyboard
+     */
+    public static int fromKeyboard(InputHandler input) {
+        int buttons = NONE;
+        if (input.isKeyPressed(Constants.KEY_LEFT)) buttons |= LEFT;
+        if (input.isKeyPressed(Constants.KEY_RIGHT)) buttons |= RIGHT;
+        if (input.isKeyPressed(Constants.KEY_UP)) buttons |= UP;
+        if (input.isKeyPressed(Constants.KEY_DOWN)) buttons |= DOWN;
+        if (input.isKeyPressed(Constants.KEY_JUMP)) buttons |= JUMP;
+        if (input.isKeyPressed(Constants.KEY_SHOOT)) buttons |= SHOOT;
+        if (input.isKeyPressed(Constants.KEY_RIFLE)) buttons |= RIFLE;
+        if (input.isKeyPressed(Constants.KEY_SPREAD_GUN)) buttons |= SPREAD_GUN;
+        return buttons;
+    }
+}
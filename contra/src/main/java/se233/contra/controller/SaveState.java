@@ -0,0 +1,117 @@
+package se233.contra.controller;
+
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Binary snapshot of the whole game world.
+ *
+ * Every entity writes its own fields in a fixed order (writeState/readState),
+ * so capturing and restoring is a straight walk over the world with no
+ * reflection; each entity's position, velocity and bounds are not written
+ * field by field but copied in bulk from its off-heap record (see RecordArena).
+ * The buffer is allocated once and reused for every capture; snapshots kept
+ * by the dozen come out of a {@link StateArena}, off the heap.
+ */
+public class SaveState {
+    private static final int MAGIC = 0x43534156; // "CSAV"
+    private static final short VERSION = 6;
+
+    private final ByteBuffer buffer;
+    private boolean empty;
+
+    public SaveState() {
+        this(Constants.SAVE_STATE_CAPACITY);
+    }
+
+    public SaveState(int capacity) {
+        this(ByteBuffer.allocate(capacity));
+    }
+
+    /**
+     * Capture into {@code storage}, e.g. a slot of a StateArena
+     */
+    SaveState(ByteBuffer storage) {
+        this.buffer = storage.order(ByteOrder.LITTLE_ENDIAN);
+        this.empty = true;
+    }
+
+    /**
+     * Overwrite this slot with the current state of the game
+     */
+    public void capture(GameController game) {
+        buffer.clear();
+        try {
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            game.writeState(buffer);
+        } catch (BufferOverflowException e) {
+            empty = true;
+            throw new GameException("Save state exceeds " + buffer.capacity() + " bytes",
+                    GameException.ErrorType.INVALID_GAME_STATE, e);
+        }
+        buffer.flip();
+        empty = false;
+    }
+
+    /**
+     * Put the game back into the captured state
+     */
+    public void restore(GameController game) {
+        if (empty) {
+            throw new GameException("Nothing captured in this save state",
+                    GameException.ErrorType.INVALID_GAME_STATE);
+        }
+
+        buffer.rewind();
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new GameException("Not a save state of this version",
+                        GameException.ErrorType.INVALID_GAME_STATE);
+            }
+            game.readState(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new GameException("Corrupt save state",
+                    GameException.ErrorType.INVALID_GAME_STATE, e);
+        }
+    }
+
+    /**
+     * Load bytes produced by an earlier capture (e.g. read back from disk)
+     */
+    public void load(ByteBuffer source) {
+        buffer.clear();
+        buffer.put(source);
+        buffer.flip();
+        empty = false;
+    }
+
+    /**
+     * Read-only view of the captured bytes, from position 0 to {@link #size()}
+     */
+    public ByteBuffer getBuffer() {
+        ByteBuffer view = buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        view.position(0).limit(size());
+        return view;
+    }
+
+    /**
+     * Checksum of the captured world (see {@link StateChecksum})
+     */
+    public long checksum() {
+        return StateChecksum.of(buffer, 0, size());
+    }
+
+    public int size() {
+        return empty ? 0 : buffer.limit();
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+}
@@ -0,0 +1,38 @@
+package se233.contra.controller;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A ring's worth of save states in one contiguous off-heap region.
+ *
+ * Rollback and the flight recorder each keep many snapshots alive at once;
+ * carving them out of a single direct allocation keeps them off the heap,
+ * next to each other in memory, and freed together with their owner.
+ */
+public final class StateArena {
+    private final ByteBuffer region;
+    private final SaveState[] slots;
+
+    public StateArena(int slotCount, int slotBytes) {
+        this.region = ByteBuffer.allocateDirect(slotCount * slotBytes);
+        this.slots = new SaveState[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new SaveState(region.slice(i * slotBytes, slotBytes));
+        }
+    }
+
+    public SaveState get(int index) {
+        return slots[index];
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Off-heap bytes held by this arena
+     */
+    public int capacity() {
+        return region.capacity();
+    }
+}
@@ -0,0 +1,67 @@
+package se233.contra.controller;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 64-bit hash of a serialized world (xxHash64-style rounds).
+ *
+ * The world is hashed through its save state bytes, so anything a save state
+ * restores (positions, velocities, health, state enums, timers, RNG state) is
+ * covered without keeping a second list of fields in sync. Two machines that
+ * agree on the checksum of a tick agree on the whole world at that tick.
+ * Words are read little-endian through a VarHandle, so the hash is the same
+ * for heap and off-heap buffers on any platform.
+ */
+public final class StateChecksum {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private StateChecksum() {
+    }
+
+    /**
+     * Hash the bytes from position to limit without moving the position
+     */
+    public static long of(ByteBuffer bytes) {
+        return of(bytes, bytes.position(), bytes.remaining());
+    }
+
+    /**
+     * Hash {@code length} bytes from {@code offset}, ignoring position and limit
+     */
+    public static long of(ByteBuffer bytes, int offset, int length) {
+        int end = offset + length;
+        long hash = PRIME5 + length;
+
+        int i = offset;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            hash ^= round((long) LONGS.get(bytes, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        for (; i < end; i++) {
+            hash ^= (bytes.get(i) & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        // Avalanche
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long input) {
+        return Long.rotateLeft(input * PRIME2, 31) * PRIME1;
+    }
+}
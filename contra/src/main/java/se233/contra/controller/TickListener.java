@@ -0,0 +1,11 @@
+package se233.contra.controller;
+
+/**
+ * Called at the end of every {@link GameController#update}, after the world has
+ * advanced one tick. Rollback re-simulation goes through step() directly and
+ * does not fire listeners.
+ */
+@FunctionalInterface
+public interface TickListener {
+    void onTick(GameController game);
+}
@@ -8,7 +8,8 @@ public class GameException extends RuntimeException {
         SOUND_LOAD_ERROR,
         INVALID_GAME_STATE,
         COLLISION_ERROR,
-        RESOURCE_NOT_FOUND
+        RESOURCE_NOT_FOUND,
+        NETWORK_ERROR
     }
 
     public GameException(String message, ErrorType errorType) {
@@ -3,7 +3,9 @@ package se233.contra.model;
 import javafx.scene.canvas.GraphicsContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.util.RecordArena;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -18,6 +20,11 @@ public abstract class Boss extends GameObject {
     protected boolean defeated;
     protected double stateTimer;
 
+    // Bullet-pattern phases, and who aimed patterns fire at
+    protected final BulletPatternEngine patterns = new BulletPatternEngine();
+    protected Player target1;
+    protected Player target2;
+
     /**
      * Constructor for Boss
      * @param x X position
@@ -28,6 +35,7 @@ public abstract class Boss extends GameObject {
      */
     public Boss(double x, double y, double width, double height, int maxHealth) {
         super(x, y, width, height);
+        setLayer(CollisionMatrix.BOSS_PART);
         this.maxHealth = maxHealth;
         this.health = maxHealth;
         this.defeated = false;
@@ -37,6 +45,45 @@ public abstract class Boss extends GameObject {
                 getClass().getSimpleName(), maxHealth, x, y);
     }
 
+    /**
+     * Restore full health so a pooled boss can fight again
+     */
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, y);
+        this.health = maxHealth;
+        this.defeated = false;
+        this.stateTimer = 0;
+        patterns.reset();
+    }
+
+    /**
+     * The pattern bullets move along with the boss
+     */
+    @Override
+    public void moveToRecord(RecordArena arena) {
+        super.moveToRecord(arena);
+        patterns.moveToRecords(arena);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putInt(health);
+        buffer.put((byte) (defeated ? 1 : 0));
+        buffer.putDouble(stateTimer);
+        patterns.writeState(buffer);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        health = buffer.getInt();
+        defeated = buffer.get() != 0;
+        stateTimer = buffer.getDouble();
+        patterns.readState(buffer);
+    }
+
     /**
      * Abstract method: Each boss has different attack patterns
      */
@@ -64,6 +111,15 @@ public abstract class Boss extends GameObject {
         stateTimer += deltaTime;
         updateBehavior(deltaTime);
         updateComponents(deltaTime);
+        patterns.update(deltaTime, position.getX(), position.getY(), target1, target2);
+    }
+
+    /**
+     * The players aimed bullet patterns fire at this tick (either may be null)
+     */
+    public void setTargets(Player player1, Player player2) {
+        this.target1 = player1;
+        this.target2 = player2;
     }
 
     /**
@@ -126,4 +182,15 @@ public abstract class Boss extends GameObject {
     public double getStateTimer() {
         return stateTimer;
     }
+
+    /**
+     * Bullets fired by this boss's bullet patterns
+     */
+    public List<Bullet> getPatternBullets() {
+        return patterns.getBullets();
+    }
+
+    public BulletPatternEngine getPatterns() {
+        return patterns;
+    }
 }
\ No newline at end of file
@@ -3,8 +3,17 @@ package se233.contra.model;
 import javafx.scene.canvas.GraphicsContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.audio.SoundEffect;
+import se233.contra.audio.SoundManager;
+import se233.contra.exception.GameException;
+import se233.contra.script.BossScript;
 import se233.contra.util.Constants;
+import se233.contra.util.RecordArena;
+import se233.contra.util.AbstractRectangle;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +34,22 @@ public class Boss1 extends Boss {
         EXPLODING
     }
 
+    private static final State[] STATES = State.values();
+
+    // Parts bullets can hit, in the order a hit is given to them when several overlap
+    public static final int PART_DOOR = 0;
+    public static final int PART_LEFT_CANNON = 1;
+    public static final int PART_RIGHT_CANNON = 2;
+
+    /**
+     * The attack cycle, from scripts/boss1.boss, compiled once for all Boss1s
+     */
+    private static final MethodHandle SCRIPT =
+            BossScript.load(Constants.BOSS1_SCRIPT, MethodHandles.lookup(), STATES);
+
+    // Once both cannons are down the core keeps up the pressure with aimed fans
+    private static final BulletPattern CORE_FAN = BulletPattern.aimedFan(5, 40, 1.2, 220);
+
     private State currentState;
 
     // Boss components - demonstrates COMPOSITION
@@ -32,6 +57,12 @@ public class Boss1 extends Boss {
     private Boss1Cannon leftCannon;
     private Boss1Cannon rightCannon;
     private List<Boss1Core> cores;
+    private BulletEmitter coreFan;
+
+    // Where the parts sit (the boss at the root) and what bullets test against
+    private BossPart root;
+    private BossPart doorPart;
+    private BossPartBvh hitVolumes;
 
     public Boss1(double x, double y) {
         super(x, y, 200, 236, Constants.BOSS1_DOOR_HP);
@@ -41,70 +72,132 @@ public class Boss1 extends Boss {
     }
 
     private void initializeComponents() {
-        // Create door
-        door = new Boss1Door(position.getX() + 60, position.getY() + 28);
-
-        // ✅ แก้ไข: ปรับตำแหน่ง cannon ให้อยู่บนพื้นที่เหมาะสม
-        // Cannon อยู่ส่วนล่างของ boss
-        leftCannon = new Boss1Cannon(
-                position.getX() + 20,
-                position.getY() + 180,  // ใกล้พื้นมากขึ้น
-                true
-        );
-        rightCannon = new Boss1Cannon(
-                position.getX() + 140,
-                position.getY() + 180,  // ใกล้พื้นมากขึ้น
-                false
-        );
+        door = new Boss1Door(0, 0);
+        leftCannon = new Boss1Cannon(0, 0, true);
+        rightCannon = new Boss1Cannon(0, 0, false);
 
         // Create cores (visual only)
         cores = new ArrayList<>();
-        cores.add(new Boss1Core(position.getX() + 40, position.getY() + 80));
-        cores.add(new Boss1Core(position.getX() + 80, position.getY() + 80));
-        cores.add(new Boss1Core(position.getX() + 120, position.getY() + 80));
+        for (int i = 0; i < 3; i++) {
+            cores.add(new Boss1Core(0, 0));
+        }
+
+        // Part layout, relative to the boss; cannons sit low, near the ground
+        root = BossPart.group(position.getX(), position.getY());
+        doorPart = root.add(new BossPart(door, PART_DOOR, 60, 28));
+        root.add(new BossPart(leftCannon, PART_LEFT_CANNON, 20, 180));
+        root.add(new BossPart(rightCannon, PART_RIGHT_CANNON, 140, 180));
+        BossPart coreRack = root.add(BossPart.group(40, 80));
+        for (int i = 0; i < cores.size(); i++) {
+            coreRack.add(new BossPart(cores.get(i), BossPart.NOT_HITTABLE, i * 40, 0));
+        }
+        hitVolumes = new BossPartBvh(root);
+        refreshHitVolumes();
+
+        coreFan = patterns.add(new BulletEmitter(CORE_FAN, 100, 96));
+        patterns.prewarm(32);
+    }
+
+    /**
+     * Re-arm a pooled boss: parts are reset in place rather than rebuilt
+     */
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, y);
+        this.currentState = State.IDLE;
+
+        door.reset(x, y);
+        leftCannon.reset(x, y);
+        rightCannon.reset(x, y);
+        for (int i = 0; i < cores.size(); i++) {
+            cores.get(i).reset(x, y);
+        }
+        root.setLocal(x, y);
+        root.invalidate();
+        root.updateWorld();
+        refreshHitVolumes();
+        logger.debug("Boss 1 reset at ({}, {})", x, y);
+    }
+
+    /**
+     * Every part moves along with the boss
+     */
+    @Override
+    public void moveToRecord(RecordArena arena) {
+        super.moveToRecord(arena);
+        door.moveToRecord(arena);
+        leftCannon.moveToRecord(arena);
+        rightCannon.moveToRecord(arena);
+        for (int i = 0; i < cores.size(); i++) {
+            cores.get(i).moveToRecord(arena);
+        }
+    }
+
+    /**
+     * Parts are written in a fixed order after the boss itself
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) currentState.ordinal());
+        door.writeState(buffer);
+        leftCannon.writeState(buffer);
+        rightCannon.writeState(buffer);
+        for (int i = 0; i < cores.size(); i++) {
+            cores.get(i).writeState(buffer);
+        }
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        currentState = STATES[buffer.get()];
+        door.readState(buffer);
+        leftCannon.readState(buffer);
+        rightCannon.readState(buffer);
+        for (int i = 0; i < cores.size(); i++) {
+            cores.get(i).readState(buffer);
+        }
+        root.setLocal(position.getX(), position.getY());
+        refreshHitVolumes();
     }
 
     @Override
     protected void updateBehavior(double deltaTime) {
-        switch (currentState) {
-            case IDLE -> {
-                if (stateTimer > 2.0) {
-                    changeState(State.ATTACKING);
-                }
-            }
-            case ATTACKING -> {
-                attack(deltaTime);
-                if (stateTimer > 5.0) {
-                    changeState(State.DOOR_OPENING);
-                }
-            }
-            case DOOR_OPENING -> {
-                door.open();
-                if (stateTimer > Constants.BOSS1_DOOR_ANIMATION_TIME) {
-                    changeState(State.VULNERABLE);
-                }
-            }
-            case VULNERABLE -> {
-                if (stateTimer > Constants.BOSS1_VULNERABLE_TIME) {
-                    changeState(State.DOOR_CLOSING);
-                }
-            }
-            case DOOR_CLOSING -> {
-                door.close();
-                if (stateTimer > Constants.BOSS1_DOOR_ANIMATION_TIME) {
-                    changeState(State.ATTACKING);
-                }
-            }
-            case EXPLODING -> {
-                if (stateTimer > 4.0) {
-                    onDefeated();
-                }
-            }
+        try {
+            SCRIPT.invokeExact(this, deltaTime);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new GameException("Boss 1 script failed", GameException.ErrorType.INVALID_GAME_STATE, e);
         }
+        patterns.setEnabled(coreFan, currentState == State.ATTACKING
+                && !leftCannon.isActive() && !rightCannon.isActive());
+    }
+
+    // ===== Script hooks =====
+
+    private int stateIndex() {
+        return currentState.ordinal();
+    }
+
+    private void enterState(int index) {
+        changeState(STATES[index]);
+    }
+
+    private void openDoor() {
+        door.open();
+    }
+
+    private void closeDoor() {
+        door.close();
     }
 
     @Override
     protected void updateComponents(double deltaTime) {
+        root.setLocal(position.getX(), position.getY());
+        root.updateWorld();
+
         door.update(deltaTime);
 
         if (leftCannon.isActive()) {
@@ -115,11 +208,50 @@ public class Boss1 extends Boss {
             rightCannon.update(deltaTime);
         }
 
-        for (Boss1Core core : cores) {
+        for (int i = 0; i < cores.size(); i++) {
+            Boss1Core core = cores.get(i);
             if (core.isActive()) {
                 core.update(deltaTime);
             }
         }
+        refreshHitVolumes();
+    }
+
+    /**
+     * Refit the hit volumes to the parts: the door only takes hits while open
+     * for it, and destroyed cannons none
+     */
+    private void refreshHitVolumes() {
+        doorPart.setHittable(currentState == State.VULNERABLE);
+        hitVolumes.refit();
+    }
+
+    /**
+     * Which part a bullet's bounds hit, or BossPart.NOT_HITTABLE: tested
+     * against the whole boss's volume first, then only the parts' volumes it overlaps
+     */
+    public int hitTest(AbstractRectangle box) {
+        return hitVolumes.hitTest(box);
+    }
+
+    /**
+     * Which part a bullet hits first this tick, down to the pixel where
+     * sprite masks are loaded
+     */
+    public int hitTest(Bullet bullet) {
+        return hitVolumes.hitTest(bullet);
+    }
+
+    /**
+     * Post line-of-sight queries for the cannons, resolved before this tick's update
+     */
+    public void requestSight(LineOfSight sight) {
+        if (leftCannon.isActive()) {
+            leftCannon.requestSight(sight);
+        }
+        if (rightCannon.isActive()) {
+            rightCannon.requestSight(sight);
+        }
     }
 
     @Override
@@ -134,22 +266,25 @@ public class Boss1 extends Boss {
         List<Bullet> bullets = new ArrayList<>();
         bullets.addAll(leftCannon.getBullets());
         bullets.addAll(rightCannon.getBullets());
+        bullets.addAll(patterns.getBullets());
         return bullets;
     }
 
     @Override
     public void takeDamage(int damage) {
         if (currentState != State.VULNERABLE) {
-            logger.debug("Boss door is closed, damage blocked");
+            logger.trace("Boss door is closed, damage blocked");
             return;
         }
 
         hit(damage);
+        SoundManager.play(defeated ? SoundEffect.EXPLOSION : SoundEffect.ENEMY_HIT);
 
         if (health <= 0 && !defeated) {
             currentState = State.EXPLODING;
             stateTimer = 0;
         }
+        refreshHitVolumes();
     }
 
     private void changeState(State newState) {
@@ -171,9 +306,13 @@ public class Boss1 extends Boss {
     public void hitCannon(boolean isLeft, int damage) {
         Boss1Cannon cannon = isLeft ? leftCannon : rightCannon;
         cannon.hit(damage);
+        refreshHitVolumes();
 
         if (!cannon.isActive()) {
+            SoundManager.play(SoundEffect.EXPLOSION);
             logger.info("{} cannon destroyed!", isLeft ? "Left" : "Right");
+        } else {
+            SoundManager.play(SoundEffect.ENEMY_HIT);
         }
     }
 
@@ -198,6 +337,11 @@ public class Boss1 extends Boss {
         // Render door (foreground layer)
         door.render(gc);
 
+        List<Bullet> patternBullets = patterns.getBullets();
+        for (int i = 0; i < patternBullets.size(); i++) {
+            patternBullets.get(i).render(gc);
+        }
+
         // Debug: Draw hitbox
         if (false) {
             gc.setStroke(javafx.scene.paint.Color.RED);
@@ -223,6 +367,18 @@ public class Boss1 extends Boss {
         return rightCannon;
     }
 
+    public List<Boss1Core> getCores() {
+        return cores;
+    }
+
+    public BossPart getPartRoot() {
+        return root;
+    }
+
+    public BossPartBvh getHitVolumes() {
+        return hitVolumes;
+    }
+
     public boolean isBossDefeated() {
         return defeated;
     }
@@ -1,49 +1,111 @@
 package se233.contra.model;
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import se233.contra.util.Constants;
-import se233.contra.util.Vector2D;
-import se233.contra.view.SpriteLoader;
+import se233.contra.util.RecordArena;
+import se233.contra.view.AnimationClip;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 public class Boss1Cannon extends GameObject {
-    private final Image cannonSprite;
     private final boolean isLeft;
     private int health;
     private double shootTimer;
     private final List<Bullet> bullets;
+    private final EntityPool<Bullet> bulletPool =
+            new EntityPool<>("Cannon bullet", () -> new Bullet(0, 0, -1, 0, false));
+
+    // Line of sight posted for this tick; -1 to fire blind
+    private LineOfSight sight;
+    private int sightQuery = -1;
+    private int sightKey;   // this shooter's key in sight
 
     public Boss1Cannon(double x, double y, boolean isLeft) {
         super(x, y, 24, 16);
-        this.cannonSprite = SpriteLoader.getBoss1Cannon();
+        setLayer(CollisionMatrix.BOSS_PART);
         this.isLeft = isLeft;
+        this.bullets = new ArrayList<>();
+        bulletPool.prewarm(Constants.ENEMY_BULLET_POOL_SIZE);
+        reset(x, y);
+    }
+
+    /**
+     * The cannon's bullets, waiting and in flight, move along with it
+     */
+    @Override
+    public void moveToRecord(RecordArena arena) {
+        super.moveToRecord(arena);
+        bulletPool.moveToRecords(arena);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).moveToRecord(arena);
+        }
+    }
+
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, y);
+        playClip(AnimationClip.BOSS1_CANNON);
         this.health = Constants.BOSS1_CANNON_HP;
         this.shootTimer = 0;
-        this.bullets = new ArrayList<>();
+        bulletPool.releaseAll(bullets);
         this.facingRight = !isLeft; // Left cannon faces right, right cannon faces left
     }
 
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putInt(health);
+        buffer.putDouble(shootTimer);
+        Bullet.writeList(buffer, bullets);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        health = buffer.getInt();
+        shootTimer = buffer.getDouble();
+        Bullet.readList(buffer, bullets, bulletPool);
+    }
+
+    /**
+     * Post a line-of-sight query from the muzzle for this tick's tryShoot
+     */
+    public void requestSight(LineOfSight sight) {
+        if (sight != this.sight) {
+            this.sight = sight;
+            this.sightKey = sight.register();
+        }
+        this.sightQuery = sight.query(sightKey, position.getX() + bounds.getWidth() / 2,
+                position.getY() + bounds.getHeight() / 2);
+    }
+
     public void tryShoot(double deltaTime) {
+        int query = sightQuery;
+        sightQuery = -1;
         if (!active) return;
 
         shootTimer += deltaTime;
         if (shootTimer >= Constants.BOSS1_ATTACK_INTERVAL) {
-            shoot();
+            if (query < 0) {
+                shoot(facingRight, facingRight ? -1 : 1, 0); // Shoot toward player
+            } else if (sight.isVisible(query)) {
+                shoot(sight.getAimX(query) >= 0, sight.getAimX(query), sight.getAimY(query));
+            } else {
+                // Nobody in sight: hold fire until someone is
+                shootTimer = Constants.BOSS1_ATTACK_INTERVAL;
+                return;
+            }
             shootTimer = 0;
         }
     }
 
-    private void shoot() {
-        Vector2D bulletPos = new Vector2D(
-                position.getX() + (facingRight ? bounds.getWidth() : -8),
-                position.getY() + bounds.getHeight() / 2
-        );
-
-        Vector2D direction = new Vector2D(facingRight ? -1 : 1, 0); // Shoot toward player
-        Bullet bullet = new Bullet(bulletPos.getX(), bulletPos.getY(), direction, false);
+    private void shoot(boolean fromRightSide, double dirX, double dirY) {
+        double bulletX = position.getX() + (fromRightSide ? bounds.getWidth() : -8);
+        double bulletY = position.getY() + bounds.getHeight() / 2;
+        Bullet bullet = bulletPool.obtain();
+        bullet.fire(bulletX, bulletY, dirX, dirY, false);
         bullets.add(bullet);
     }
 
@@ -56,9 +118,9 @@ public class Boss1Cannon extends GameObject {
 
     @Override
     public void update(double deltaTime) {
-        bullets.removeIf(b -> !b.isActive());
-        for (Bullet bullet : bullets) {
-            bullet.update(deltaTime);
+        bulletPool.releaseInactive(bullets);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).update(deltaTime);
         }
     }
 
@@ -72,7 +134,7 @@ public class Boss1Cannon extends GameObject {
         }
 
         // Render cannon
-        renderSprite(gc, cannonSprite);
+        renderSprite(gc, currentFrame());
     }
 
     public List<Bullet> getBullets() {
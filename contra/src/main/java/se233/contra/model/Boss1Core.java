@@ -1,26 +1,30 @@
 package se233.contra.model;
 
 import javafx.scene.canvas.GraphicsContext;
-import se233.contra.view.Animation;
-import se233.contra.view.SpriteLoader;
+import se233.contra.view.AnimationClip;
 
 public class Boss1Core extends GameObject {
-    private final Animation glowAnimation;
 
     public Boss1Core(double x, double y) {
         super(x, y, 32, 32);
-        this.glowAnimation = new Animation(SpriteLoader.getBoss1Core(), 0.2);
-        this.currentAnimation = glowAnimation;
+        setLayer(CollisionMatrix.BOSS_PART);
+        playClip(AnimationClip.BOSS1_CORE);
+    }
+
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, y);
+        playClip(AnimationClip.BOSS1_CORE);
     }
 
     @Override
     public void update(double deltaTime) {
-        glowAnimation.update(deltaTime);
+        advanceTime(deltaTime);
     }
 
     @Override
     public void render(GraphicsContext gc) {
         if (!active) return;
-        renderSprite(gc, glowAnimation.getCurrentFrame());
+        renderSprite(gc, currentFrame());
     }
-}
\ No newline at end of file
+}
@@ -2,19 +2,40 @@ package se233.contra.model;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import se233.contra.util.Rectangle;
-import se233.contra.view.SpriteLoader;
+import se233.contra.util.AbstractRectangle;
+import se233.contra.view.AnimationClip;
+
+import java.nio.ByteBuffer;
 
 public class Boss1Door extends GameObject {
-    private final Image doorSprite;
     private boolean isOpen;
 
     public Boss1Door(double x, double y) {
         super(x, y, 80, 180);
-        this.doorSprite = SpriteLoader.getBoss1Door();
+        setLayer(CollisionMatrix.BOSS_PART);
+        playClip(AnimationClip.BOSS1_DOOR);
+        this.isOpen = false;
+    }
+
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, y);
+        playClip(AnimationClip.BOSS1_DOOR);
         this.isOpen = false;
     }
 
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) (isOpen ? 1 : 0));
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        isOpen = buffer.get() != 0;
+    }
+
     public void open() {
         isOpen = true;
     }
@@ -35,10 +56,12 @@ public class Boss1Door extends GameObject {
     @Override
     public void render(GraphicsContext gc) {
         if (!active) return;
+        Image doorSprite = currentFrame();
+        if (doorSprite == null) return;
         gc.drawImage(doorSprite, position.getX(), position.getY());
     }
 
-    public Rectangle getHitbox() {
+    public AbstractRectangle getHitbox() {
         return bounds;
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package se233.contra.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node in a boss's part hierarchy: an offset from its parent and,
+ * optionally, the part object placed there.
+ *
+ * Moving a node moves everything under it. World positions are cached and
+ * only recomputed below a node that moved, and are written straight into the
+ * part objects, so their bounds are the cached world bounds. Parts with a hit
+ * id can be hit by bullets, through a {@link BossPartBvh} over the hierarchy.
+ */
+public class BossPart {
+    public static final int NOT_HITTABLE = -1;
+
+    private final GameObject object;   // null for a pure grouping node
+    private final int hitId;
+    private final List<BossPart> children = new ArrayList<>();
+    private BossPart parent;
+
+    private double localX, localY;
+    private double worldX, worldY;
+    private boolean dirty = true;
+    private boolean hittable = true;
+
+    /**
+     * @param object the part at this node, or null to only group children
+     * @param hitId what a hit on this part reports (lower ids win when
+     *              several overlap), or NOT_HITTABLE
+     */
+    public BossPart(GameObject object, int hitId, double localX, double localY) {
+        this.object = object;
+        this.hitId = hitId;
+        this.localX = localX;
+        this.localY = localY;
+    }
+
+    /**
+     * A grouping node with no part of its own
+     */
+    public static BossPart group(double localX, double localY) {
+        return new BossPart(null, NOT_HITTABLE, localX, localY);
+    }
+
+    public BossPart add(BossPart child) {
+        child.parent = this;
+        children.add(child);
+        return child;
+    }
+
+    public void setLocal(double x, double y) {
+        if (x != localX || y != localY) {
+            localX = x;
+            localY = y;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Bring world positions up to date, as the root of a hierarchy
+     */
+    public void updateWorld() {
+        updateWorld(0, 0, false);
+    }
+
+    private void updateWorld(double parentX, double parentY, boolean parentMoved) {
+        boolean moved = dirty || parentMoved;
+        if (moved) {
+            worldX = parentX + localX;
+            worldY = parentY + localY;
+            if (object != null) {
+                object.setPosition(worldX, worldY);
+            }
+            dirty = false;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).updateWorld(worldX, worldY, moved);
+        }
+    }
+
+    /**
+     * Force every world position to be recomputed, e.g. after a state restore
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Whether bullets can hit this part right now
+     */
+    public boolean canBeHit() {
+        return hitId != NOT_HITTABLE && hittable && object != null && object.isActive();
+    }
+
+    /**
+     * Switch hits on or off for this part, e.g. a door that is only open some of the time
+     */
+    public void setHittable(boolean hittable) {
+        this.hittable = hittable;
+    }
+
+    /**
+     * Add this node and everything under it to parts, depth first
+     */
+    void collect(List<BossPart> parts) {
+        parts.add(this);
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).collect(parts);
+        }
+    }
+
+    public GameObject getObject() { return object; }
+    public int getHitId() { return hitId; }
+    public BossPart getParent() { return parent; }
+    public List<BossPart> getChildren() { return children; }
+    public double getWorldX() { return worldX; }
+    public double getWorldY() { return worldY; }
+}
@@ -0,0 +1,217 @@
+package se233.contra.model;
+
+import se233.contra.util.AbstractRectangle;
+import se233.contra.util.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounding-volume hierarchy over the hittable parts of a {@link BossPart}
+ * tree, for bullet hit tests.
+ *
+ * The tree is built once, by splitting the parts at the median of their
+ * centres along the wider axis, so a hit test descends only into boxes the
+ * bullet overlaps and costs about log(parts) box checks when it hits one part
+ * and a single check (the root box) when it misses the boss. Parts move
+ * within their boss, so each tick the boxes are refit bottom-up to the parts'
+ * current hit boxes rather than rebuilt; parts that cannot be hit get an empty box.
+ */
+public class BossPartBvh {
+    private final BossPart[] parts;
+
+    // Nodes, parents before children; a leaf has part >= 0 and no children
+    private final double[] minX, minY, maxX, maxY;
+    private final int[] left, right, part;
+    private int nodeCount;
+
+    private final int[] stack;
+    private long boxTests;
+
+    public BossPartBvh(BossPart root) {
+        root.updateWorld();
+        List<BossPart> all = new ArrayList<>();
+        root.collect(all);
+        List<BossPart> hittable = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            if (all.get(i).getHitId() != BossPart.NOT_HITTABLE && all.get(i).getObject() != null) {
+                hittable.add(all.get(i));
+            }
+        }
+        this.parts = hittable.toArray(new BossPart[0]);
+
+        int capacity = Math.max(2 * parts.length - 1, 1);
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        part = new int[capacity];
+        stack = new int[capacity];
+
+        int[] order = new int[parts.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (parts.length > 0) {
+            build(order, 0, order.length);
+        } else {
+            nodeCount = 1;
+            part[0] = -1;
+            left[0] = -1;
+        }
+        refit();
+    }
+
+    private int build(int[] order, int from, int to) {
+        int node = nodeCount++;
+        if (to - from == 1) {
+            part[node] = order[from];
+            left[node] = -1;
+            right[node] = -1;
+            return node;
+        }
+        part[node] = -1;
+
+        // Split along the axis the centres are most spread out on
+        double loX = Double.MAX_VALUE, hiX = -Double.MAX_VALUE, loY = Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            AbstractRectangle bounds = parts[order[i]].getObject().getBounds();
+            loX = Math.min(loX, bounds.getCenterX());
+            hiX = Math.max(hiX, bounds.getCenterX());
+            loY = Math.min(loY, bounds.getCenterY());
+            hiY = Math.max(hiY, bounds.getCenterY());
+        }
+        boolean alongX = hiX - loX >= hiY - loY;
+        sortByCentre(order, from, to, alongX);
+
+        int middle = (from + to) >>> 1;
+        left[node] = build(order, from, middle);
+        right[node] = build(order, middle, to);
+        return node;
+    }
+
+    private void sortByCentre(int[] order, int from, int to, boolean alongX) {
+        // Insertion sort: a boss has dozens of parts at most, and this runs once
+        for (int i = from + 1; i < to; i++) {
+            int value = order[i];
+            double key = centre(value, alongX);
+            int j = i - 1;
+            while (j >= from && centre(order[j], alongX) > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = value;
+        }
+    }
+
+    private double centre(int index, boolean alongX) {
+        AbstractRectangle bounds = parts[index].getObject().getBounds();
+        return alongX ? bounds.getCenterX() : bounds.getCenterY();
+    }
+
+    /**
+     * Fit every box to the parts' current hit boxes and hittability
+     */
+    public void refit() {
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (part[node] >= 0 || left[node] < 0) {
+                BossPart leaf = part[node] >= 0 ? parts[part[node]] : null;
+                if (leaf != null && leaf.canBeHit()) {
+                    AbstractRectangle box = leaf.getObject().getHitBox();
+                    minX[node] = box.getLeft();
+                    minY[node] = box.getTop();
+                    maxX[node] = box.getRight();
+                    maxY[node] = box.getBottom();
+                } else {
+                    minX[node] = minY[node] = Double.MAX_VALUE;
+                    maxX[node] = maxY[node] = -Double.MAX_VALUE;
+                }
+            } else {
+                int a = left[node];
+                int b = right[node];
+                minX[node] = Math.min(minX[a], minX[b]);
+                minY[node] = Math.min(minY[a], minY[b]);
+                maxX[node] = Math.max(maxX[a], maxX[b]);
+                maxY[node] = Math.max(maxY[a], maxY[b]);
+            }
+        }
+    }
+
+    /**
+     * The hittable part overlapping the box with the lowest hit id, or
+     * BossPart.NOT_HITTABLE if none. Overlap is strict, as in
+     * {@link AbstractRectangle#intersects}.
+     */
+    public int hitTest(AbstractRectangle box) {
+        double x0 = box.getLeft(), y0 = box.getTop(), x1 = box.getRight(), y1 = box.getBottom();
+        int best = BossPart.NOT_HITTABLE;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            boxTests++;
+            if (!(minX[node] < x1 && maxX[node] > x0 && minY[node] < y1 && maxY[node] > y0)) {
+                continue;
+            }
+            if (part[node] >= 0) {
+                int id = parts[part[node]].getHitId();
+                if (best == BossPart.NOT_HITTABLE || id < best) {
+                    best = id;
+                }
+            } else if (left[node] >= 0) {
+                stack[top++] = left[node];
+                stack[top++] = right[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The hittable part a bullet hits first along this tick's move (see
+     * {@link Bullet#timeOfImpact}), or BossPart.NOT_HITTABLE. Descends with
+     * the box the bullet swept; parts hit at the same moment go to the lowest id.
+     */
+    public int hitTest(Bullet bullet) {
+        Rectangle swept = bullet.getSweptBounds();
+        double x0 = swept.getLeft(), y0 = swept.getTop(), x1 = swept.getRight(), y1 = swept.getBottom();
+        int best = BossPart.NOT_HITTABLE;
+        double bestTime = Rectangle.NO_IMPACT;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            boxTests++;
+            if (!(minX[node] < x1 && maxX[node] > x0 && minY[node] < y1 && maxY[node] > y0)) {
+                continue;
+            }
+            if (part[node] >= 0) {
+                BossPart leaf = parts[part[node]];
+                double time = bullet.timeOfImpact(leaf.getObject());
+                if (time < bestTime || (time == bestTime && time != Rectangle.NO_IMPACT && leaf.getHitId() < best)) {
+                    best = leaf.getHitId();
+                    bestTime = time;
+                }
+            } else if (left[node] >= 0) {
+                stack[top++] = left[node];
+                stack[top++] = right[node];
+            }
+        }
+        return best;
+    }
+
+    // The root volume: every part that can be hit right now lies inside it
+    public boolean isEmpty() { return minX[0] > maxX[0]; }
+    public double getMinX() { return minX[0]; }
+    public double getMinY() { return minY[0]; }
+    public double getMaxX() { return maxX[0]; }
+    public double getMaxY() { return maxY[0]; }
+
+    public int getPartCount() { return parts.length; }
+
+    /**
+     * Boxes checked by hit tests so far
+     */
+    public long getBoxTests() { return boxTests; }
+}
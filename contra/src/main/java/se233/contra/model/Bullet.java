@@ -4,10 +4,14 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.util.CollisionMask;
 import se233.contra.util.Constants;
+import se233.contra.util.Rectangle;
 import se233.contra.util.Vector2D;
-import se233.contra.view.Animation;
-import se233.contra.view.SpriteLoader;
+import se233.contra.view.AnimationClip;
+
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * Bullet class with hit animation effect
@@ -16,43 +20,77 @@ import se233.contra.view.SpriteLoader;
 public class Bullet extends GameObject {
     private static final Logger logger = LoggerFactory.getLogger(Bullet.class);
 
-    private final boolean isPlayerBullet;
-    private final Image sprite;
+    // Bullets further off screen than this are gone
+    public static final double MIN_X = -50;
+    public static final double MIN_Y = -50;
+    public static final double MAX_X = Constants.SCREEN_WIDTH + 50;
+    public static final double MAX_Y = Constants.SCREEN_HEIGHT + 50;
+
+    private boolean isPlayerBullet;
     private final int damage;
 
     // Hit animation
     private boolean isHit;
-    private Animation hitAnimation;
+
+    // Where this tick's move started, for swept hit tests
+    private double fromX, fromY;
+    private final Rectangle sweptBounds = new Rectangle(0, 0, 0, 0);
 
     public Bullet(double x, double y, Vector2D direction, boolean isPlayerBullet) {
+        this(x, y, direction.getX(), direction.getY(), isPlayerBullet);
+    }
+
+    public Bullet(double x, double y, double dirX, double dirY, boolean isPlayerBullet) {
         super(x, y, Constants.BULLET_SIZE, Constants.BULLET_SIZE);
-        this.isPlayerBullet = isPlayerBullet;
         this.damage = 1;
-        this.sprite = SpriteLoader.getBullet();
-        this.isHit = false;
+        fire(x, y, dirX, dirY, isPlayerBullet);
+    }
 
-        // Create hit animation (small explosion)
-        this.hitAnimation = new Animation(
-                SpriteLoader.getExplosion(),
-                0.05,  // Fast animation (0.05s per frame)
-                false  // Don't loop
-        );
+    /**
+     * Fire a pooled bullet again from (x, y) along (dirX, dirY) at bullet
+     * speed, as if newly constructed
+     */
+    public void fire(double x, double y, double dirX, double dirY, boolean isPlayerBullet) {
+        reset(x, y);
+        this.isPlayerBullet = isPlayerBullet;
+        setLayer(isPlayerBullet ? CollisionMatrix.PLAYER_PROJECTILE : CollisionMatrix.ENEMY_PROJECTILE);
+        this.isHit = false;
+        this.fromX = x;
+        this.fromY = y;
+        playClip(AnimationClip.BULLET);
 
         // Set velocity based on direction
-        Vector2D normalized = direction.normalize();
-        double speed = Constants.BULLET_SPEED;
-        velocity.set(normalized.getX() * speed, normalized.getY() * speed);
+        velocity.set(dirX, dirY);
+        velocity.normalizeLocal().multiplyLocal(Constants.BULLET_SPEED);
+
+        // Three arguments take the varargs overload, which allocates even when disabled
+        if (logger.isTraceEnabled()) {
+            logger.trace("Bullet fired at ({}, {}) player: {}", x, y, isPlayerBullet);
+        }
+    }
 
-        logger.debug("Bullet created at ({}, {}) direction: {} player: {}",
-                x, y, direction, isPlayerBullet);
+    /**
+     * Fire a pooled enemy bullet again from (x, y) with velocity (vx, vy),
+     * as if newly constructed
+     */
+    public void launch(double x, double y, double vx, double vy) {
+        reset(x, y);
+        isPlayerBullet = false;
+        setLayer(CollisionMatrix.ENEMY_PROJECTILE);
+        isHit = false;
+        fromX = x;
+        fromY = y;
+        playClip(AnimationClip.BULLET);
+        velocity.set(vx, vy);
     }
 
     @Override
     public void update(double deltaTime) {
+        advanceTime(deltaTime);
+
         // If bullet hit something, play explosion animation
         if (isHit) {
-            hitAnimation.update(deltaTime);
-            if (hitAnimation.isFinished()) {
+            if (isClipFinished()) {
                 active = false;
                 logger.trace("Bullet explosion animation finished");
             }
@@ -60,11 +98,13 @@ public class Bullet extends GameObject {
         }
 
         // Normal bullet movement
+        fromX = position.getX();
+        fromY = position.getY();
         updatePosition(deltaTime);
 
         // Deactivate if out of screen bounds
-        if (position.getX() < -50 || position.getX() > Constants.SCREEN_WIDTH + 50 ||
-                position.getY() < -50 || position.getY() > Constants.SCREEN_HEIGHT + 50) {
+        if (position.getX() < MIN_X || position.getX() > MAX_X ||
+                position.getY() < MIN_Y || position.getY() > MAX_Y) {
             active = false;
             logger.trace("Bullet out of bounds, deactivated");
         }
@@ -74,18 +114,158 @@ public class Bullet extends GameObject {
     public void render(GraphicsContext gc) {
         if (!active) return;
 
+        Image frame = currentFrame();
+        if (frame == null) return;
+
         // If bullet hit, show explosion animation
         if (isHit) {
-            Image frame = hitAnimation.getCurrentFrame();
-            if (frame != null) {
-                // Draw explosion centered on bullet position
-                double explosionX = position.getX() - 12;
-                double explosionY = position.getY() - 12;
-                gc.drawImage(frame, explosionX, explosionY);
-            }
-        } else if (sprite != null) {
+            // Draw explosion centered on bullet position
+            double explosionX = position.getX() - 12;
+            double explosionY = position.getY() - 12;
+            gc.drawImage(frame, explosionX, explosionY);
+        } else {
             // Draw normal bullet sprite
-            gc.drawImage(sprite, position.getX(), position.getY());
+            gc.drawImage(frame, position.getX(), position.getY());
+        }
+    }
+
+    /**
+     * This tick's update for a bullet moved by a batch kernel: (x, y) is
+     * where {@link #update} would have put it, and outside whether that is
+     * off screen. Hit bullets ignore both and just play out their explosion.
+     */
+    public void moveTo(double deltaTime, double x, double y, boolean outside) {
+        if (isHit) {
+            update(deltaTime);
+            return;
+        }
+        advanceTime(deltaTime);
+        fromX = position.getX();
+        fromY = position.getY();
+        setPosition(x, y);
+        if (outside) {
+            active = false;
+        }
+    }
+
+    /**
+     * Earliest fraction (0-1) of this tick's move at which the bullet hits
+     * target, or Rectangle.NO_IMPACT.
+     *
+     * However far the bullet moved, it sweeps its mask along the whole move,
+     * so it neither tunnels through thin targets nor hits on empty corners
+     * of its box: the trimmed boxes say when the two can first touch, and
+     * from there the masks are compared a pixel of travel at a time. Objects
+     * without a clip sweep their bounds instead.
+     */
+    public double timeOfImpact(GameObject target) {
+        if (!active || !target.isActive()) {
+            return Rectangle.NO_IMPACT;
+        }
+        double dx = position.getX() - fromX;
+        double dy = position.getY() - fromY;
+        CollisionMask mask = currentMask();
+        CollisionMask targetMask = target.currentMask();
+        if (mask == null || targetMask == null) {
+            return target.getBounds().timeOfImpact(fromX, fromY,
+                    bounds.getWidth(), bounds.getHeight(), dx, dy);
+        }
+        if (mask.isEmpty() || targetMask.isEmpty()) {
+            return Rectangle.NO_IMPACT;
+        }
+
+        // Trimmed boxes, the bullet's widened by a pixel for the flooring along the way
+        double enter = Rectangle.timeOfImpact(
+                Math.floor(target.getX()) + targetMask.getOffsetX(),
+                Math.floor(target.getY()) + targetMask.getOffsetY(),
+                targetMask.getWidth(), targetMask.getHeight(),
+                fromX + mask.getOffsetX() - 1, fromY + mask.getOffsetY() - 1,
+                mask.getWidth() + 1, mask.getHeight() + 1, dx, dy);
+        if (enter == Rectangle.NO_IMPACT) {
+            return Rectangle.NO_IMPACT;
+        }
+
+        int steps = (int) Math.ceil(Math.max(1, Math.max(Math.abs(dx), Math.abs(dy))));
+        for (int i = (int) (enter * steps); i <= steps; i++) {
+            double time = (double) i / steps;
+            if (mask.overlaps(fromX + dx * time, fromY + dy * time,
+                    targetMask, target.getX(), target.getY())) {
+                return time;
+            }
+        }
+        return Rectangle.NO_IMPACT;
+    }
+
+    /**
+     * Box covering the whole of this tick's move: the hit box at both ends
+     * (see {@link #getHitBox()}), widened by a pixel for the flooring in between
+     */
+    public Rectangle getSweptBounds() {
+        CollisionMask mask = currentMask();
+        double offsetX = mask == null ? 0 : mask.getOffsetX() - 1;
+        double offsetY = mask == null ? 0 : mask.getOffsetY() - 1;
+        double width = mask == null ? bounds.getWidth() : mask.getWidth() + 1;
+        double height = mask == null ? bounds.getHeight() : mask.getHeight() + 1;
+        double left = Math.min(fromX, position.getX());
+        double top = Math.min(fromY, position.getY());
+        sweptBounds.set(left + offsetX, top + offsetY,
+                Math.max(fromX, position.getX()) - left + width,
+                Math.max(fromY, position.getY()) - top + height);
+        return sweptBounds;
+    }
+
+    /**
+     * Move back to the given fraction of this tick's move, e.g. to the
+     * point of impact before {@link #onHit()}
+     */
+    public void rewindTo(double time) {
+        setPosition(fromX + (position.getX() - fromX) * time,
+                fromY + (position.getY() - fromY) * time);
+    }
+
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) ((isPlayerBullet ? 1 : 0) | (isHit ? 2 : 0)));
+        buffer.putDouble(fromX);
+        buffer.putDouble(fromY);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        byte flags = buffer.get();
+        isPlayerBullet = (flags & 1) != 0;
+        setLayer(isPlayerBullet ? CollisionMatrix.PLAYER_PROJECTILE : CollisionMatrix.ENEMY_PROJECTILE);
+        isHit = (flags & 2) != 0;
+        fromX = buffer.getDouble();
+        fromY = buffer.getDouble();
+    }
+
+    /**
+     * Write a bullet list as a count followed by each bullet
+     */
+    public static void writeList(ByteBuffer buffer, List<Bullet> bullets) {
+        buffer.putShort((short) bullets.size());
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).writeState(buffer);
+        }
+    }
+
+    /**
+     * Read a list written by {@link #writeList}, reusing the Bullet objects
+     * already in the list and taking the missing ones from pool
+     */
+    public static void readList(ByteBuffer buffer, List<Bullet> bullets, EntityPool<Bullet> pool) {
+        int count = buffer.getShort();
+        while (bullets.size() > count) {
+            pool.release(bullets.remove(bullets.size() - 1));
+        }
+        while (bullets.size() < count) {
+            bullets.add(pool.obtain());
+        }
+        for (int i = 0; i < count; i++) {
+            bullets.get(i).readState(buffer);
         }
     }
 
@@ -114,8 +294,10 @@ public class Bullet extends GameObject {
 
         isHit = true;
         velocity.set(0, 0);  // Stop moving
-        hitAnimation.reset();
-        logger.debug("Bullet hit target at ({}, {}), playing explosion",
-                position.getX(), position.getY());
+        restartClip(AnimationClip.BULLET_HIT);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Bullet hit target at ({}, {}), playing explosion",
+                    position.getX(), position.getY());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package se233.contra.model;
+
+/**
+ * One {@link BulletPattern} mounted on a boss at an offset from its position.
+ * Volley k fires at start + k * interval on the owning
+ * {@link BulletPatternEngine}'s clock, so emitters stay in step with each
+ * other and catch up exactly after a long tick.
+ */
+public class BulletEmitter {
+    private final BulletPattern pattern;
+    private final double offsetX;
+    private final double offsetY;
+
+    private boolean enabled;
+    private double start;
+    private long volley;
+
+    public BulletEmitter(BulletPattern pattern, double offsetX, double offsetY) {
+        this.pattern = pattern;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+
+    /**
+     * Switch on (first volley right away) or off; no change if already so
+     */
+    void setEnabled(boolean enabled, double clock) {
+        if (enabled && !this.enabled) {
+            start = clock;
+            volley = 0;
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * When the next volley is due on the engine clock
+     */
+    double nextVolleyTime() {
+        return start + volley * pattern.getInterval();
+    }
+
+    long takeVolley() {
+        return volley++;
+    }
+
+    void restore(boolean enabled, double start, long volley) {
+        this.enabled = enabled;
+        this.start = start;
+        this.volley = volley;
+    }
+
+    public BulletPattern getPattern() { return pattern; }
+    public double getOffsetX() { return offsetX; }
+    public double getOffsetY() { return offsetY; }
+    public boolean isEnabled() { return enabled; }
+    double getStart() { return start; }
+    long getVolley() { return volley; }
+}
@@ -0,0 +1,142 @@
+package se233.contra.model;
+
+import se233.contra.exception.GameException;
+
+/**
+ * A boss bullet pattern as plain data: what one volley looks like and how the
+ * volleys change over time. Run by a {@link BulletEmitter}.
+ *
+ * Directions are indices into a fixed table of ANGLE_STEPS angles (0 points
+ * right, indices grow clockwise on screen), worked out once here, so firing a
+ * bullet is two table lookups rather than a rotation. Volley k is fired around
+ * heading + k * spin + sweep[k % sweep.length]; bullet i of it adds offsets[i].
+ * Aimed patterns take the heading from the target at each volley.
+ */
+public class BulletPattern {
+    public static final int ANGLE_STEPS = 1024;
+
+    private static final double[] COS = new double[ANGLE_STEPS];
+    private static final double[] SIN = new double[ANGLE_STEPS];
+
+    static {
+        for (int i = 0; i < ANGLE_STEPS; i++) {
+            double angle = 2 * Math.PI * i / ANGLE_STEPS;
+            COS[i] = Math.cos(angle);
+            SIN[i] = Math.sin(angle);
+        }
+    }
+
+    private final int[] offsets;
+    private final int[] sweep;
+    private final int heading;
+    private final int spin;
+    private final boolean aimed;
+    private final double interval;
+    private final double speed;
+
+    private BulletPattern(int[] offsets, int[] sweep, int heading, int spin,
+                          boolean aimed, double interval, double speed) {
+        if (offsets.length == 0 || interval <= 0 || speed <= 0) {
+            throw new GameException("Bullet pattern needs bullets, an interval and a speed",
+                    GameException.ErrorType.INVALID_GAME_STATE);
+        }
+        this.offsets = offsets;
+        this.sweep = sweep;
+        this.heading = heading;
+        this.spin = spin;
+        this.aimed = aimed;
+        this.interval = interval;
+        this.speed = speed;
+    }
+
+    /**
+     * A ring of bullets evenly spaced all the way round
+     */
+    public static BulletPattern radial(int count, double interval, double speed) {
+        return new BulletPattern(ring(count), new int[] {0}, 0, 0, false, interval, speed);
+    }
+
+    /**
+     * A ring that turns by spinDegrees every volley
+     */
+    public static BulletPattern spiral(int arms, double spinDegrees, double interval, double speed) {
+        return new BulletPattern(ring(arms), new int[] {0}, 0, toIndex(Math.toRadians(spinDegrees)),
+                false, interval, speed);
+    }
+
+    /**
+     * A fan of count bullets spread over spreadDegrees, centred on the target
+     */
+    public static BulletPattern aimedFan(int count, double spreadDegrees, double interval, double speed) {
+        return new BulletPattern(fan(count, spreadDegrees), new int[] {0}, 0, 0, true, interval, speed);
+    }
+
+    /**
+     * A fan around headingDegrees that sways amplitudeDegrees either side,
+     * over a full cycle of periodVolleys volleys
+     */
+    public static BulletPattern wave(int count, double spreadDegrees, double headingDegrees,
+                                     double amplitudeDegrees, int periodVolleys,
+                                     double interval, double speed) {
+        int[] sweep = new int[Math.max(periodVolleys, 1)];
+        for (int k = 0; k < sweep.length; k++) {
+            sweep[k] = toIndex(Math.toRadians(amplitudeDegrees) * Math.sin(2 * Math.PI * k / sweep.length));
+        }
+        return new BulletPattern(fan(count, spreadDegrees), sweep, toIndex(Math.toRadians(headingDegrees)),
+                0, false, interval, speed);
+    }
+
+    private static int[] ring(int count) {
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = (int) Math.round((double) i * ANGLE_STEPS / count);
+        }
+        return offsets;
+    }
+
+    private static int[] fan(int count, double spreadDegrees) {
+        int[] offsets = new int[count];
+        double spread = Math.toRadians(spreadDegrees);
+        for (int i = 0; i < count; i++) {
+            double t = count == 1 ? 0 : (double) i / (count - 1) - 0.5;
+            offsets[i] = toIndex(t * spread);
+        }
+        return offsets;
+    }
+
+    /**
+     * The table index nearest an angle in radians (any sign)
+     */
+    public static int toIndex(double radians) {
+        return (int) Math.round(radians * ANGLE_STEPS / (2 * Math.PI));
+    }
+
+    /**
+     * The table index nearest the direction (dx, dy)
+     */
+    public static int indexOf(double dx, double dy) {
+        return toIndex(Math.atan2(dy, dx));
+    }
+
+    public static double cos(int index) { return COS[index & (ANGLE_STEPS - 1)]; }
+    public static double sin(int index) { return SIN[index & (ANGLE_STEPS - 1)]; }
+
+    /**
+     * Base direction of volley k, before aiming
+     */
+    int volleyHeading(long volley) {
+        return (int) (heading + volley * spin + sweep[(int) (volley % sweep.length)]);
+    }
+
+    int getOffset(int bullet) { return offsets[bullet]; }
+
+    public int getCount() { return offsets.length; }
+    public double getInterval() { return interval; }
+    public double getSpeed() { return speed; }
+    public boolean isAimed() { return aimed; }
+
+    /**
+     * Bullets per second at full rate
+     */
+    public double getRate() { return offsets.length / interval; }
+}
@@ -0,0 +1,265 @@
+package se233.contra.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.util.AbstractRectangle;
+import se233.contra.util.BatchKernels;
+import se233.contra.util.Constants;
+import se233.contra.util.RecordArena;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a boss's {@link BulletEmitter}s on one shared clock and owns the
+ * bullets they fire.
+ *
+ * Bullets come from an {@link EntityPool} and go back to it when they leave
+ * the screen, so once the pool has grown to the pattern's steady state a
+ * volley costs no allocation at all: a pooled bullet is re-launched with a
+ * velocity read from the pattern's angle table. A volley that fell due part
+ * way through a tick is moved on by the time since it was due, so the pattern
+ * looks the same at any frame rate.
+ *
+ * The bullets' positions and velocities are also kept in flat arrays, by
+ * index in the bullet list, so moving and culling the swarm each tick are
+ * {@link BatchKernels} passes over primitive arrays; the bullets then just
+ * take their new positions. The same arrays answer "is any bullet near this
+ * box" in one pass, before collision detection looks at bullet objects.
+ */
+public class BulletPatternEngine {
+    private static final Logger logger = LoggerFactory.getLogger(BulletPatternEngine.class);
+
+    private final List<BulletEmitter> emitters = new ArrayList<>();
+    private final EntityPool<Bullet> pool = new EntityPool<>("Pattern bullet", () -> new Bullet(0, 0, 1, 0, false));
+    private final List<Bullet> bullets = new ArrayList<>();
+
+    private final BatchKernels kernels;
+
+    // Flight state by bullet index, moved by the kernels
+    private double[] posX = new double[256];
+    private double[] posY = new double[256];
+    private double[] velX = new double[256];
+    private double[] velY = new double[256];
+    private long[] culled = new long[4];
+    private double maxSpeed;
+
+    private double clock;
+    private long fired;
+
+    public BulletPatternEngine() {
+        this(BatchKernels.get());
+    }
+
+    public BulletPatternEngine(BatchKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    /**
+     * Mount an emitter (switched off); done once, when the boss is built
+     */
+    public BulletEmitter add(BulletEmitter emitter) {
+        emitters.add(emitter);
+        maxSpeed = Math.max(maxSpeed, emitter.getPattern().getSpeed());
+        return emitter;
+    }
+
+    /**
+     * Create bullets up front, for patterns with this many on screen at once
+     */
+    public void prewarm(int count) {
+        pool.prewarm(count);
+    }
+
+    public void setEnabled(BulletEmitter emitter, boolean enabled) {
+        emitter.setEnabled(enabled, clock);
+    }
+
+    /**
+     * Switch every emitter off and return all bullets to the pool
+     */
+    public void reset() {
+        for (int i = 0; i < emitters.size(); i++) {
+            emitters.get(i).setEnabled(false, clock);
+        }
+        pool.releaseAll(bullets);
+        clock = 0;
+    }
+
+    /**
+     * Move the bullets, then fire every volley that fell due this tick
+     * @param originX boss position the emitter offsets are from
+     * @param player1 aimed patterns aim at the nearest living player; with
+     *                none they fire along their heading
+     */
+    public void update(double deltaTime, double originX, double originY, Player player1, Player player2) {
+        int count = bullets.size();
+        kernels.integrate(posX, posY, velX, velY, count, deltaTime);
+        kernels.outside(posX, posY, count, Bullet.MIN_X, Bullet.MIN_Y, Bullet.MAX_X, Bullet.MAX_Y, culled);
+        for (int i = 0; i < count; i++) {
+            bullets.get(i).moveTo(deltaTime, posX[i], posY[i], (culled[i >>> 6] & (1L << (i & 63))) != 0);
+        }
+        compactFlightState();
+        pool.releaseInactive(bullets);
+
+        clock += deltaTime;
+        for (int e = 0; e < emitters.size(); e++) {
+            BulletEmitter emitter = emitters.get(e);
+            if (!emitter.isEnabled()) continue;
+
+            double x = originX + emitter.getOffsetX();
+            double y = originY + emitter.getOffsetY();
+            while (emitter.nextVolleyTime() <= clock) {
+                double late = clock - emitter.nextVolleyTime();
+                fireVolley(emitter.getPattern(), emitter.takeVolley(), x, y, late, player1, player2);
+            }
+        }
+    }
+
+    private void fireVolley(BulletPattern pattern, long volley, double x, double y, double late,
+                            Player player1, Player player2) {
+        int heading = pattern.volleyHeading(volley);
+        if (pattern.isAimed()) {
+            Player target = nearest(x, y, player1, player2);
+            if (target != null) {
+                heading += BulletPattern.indexOf(
+                        target.getX() + target.getBounds().getWidth() / 2 - x,
+                        target.getY() + target.getBounds().getHeight() / 2 - y);
+            }
+        }
+
+        double speed = pattern.getSpeed();
+        double half = Constants.BULLET_SIZE / 2.0;
+        for (int i = 0; i < pattern.getCount(); i++) {
+            int angle = heading + pattern.getOffset(i);
+            double vx = BulletPattern.cos(angle) * speed;
+            double vy = BulletPattern.sin(angle) * speed;
+            Bullet bullet = pool.obtain();
+            bullet.launch(x - half + vx * late, y - half + vy * late, vx, vy);
+            bullets.add(bullet);
+            track(bullets.size() - 1, bullet);
+        }
+        fired += pattern.getCount();
+    }
+
+    /**
+     * Copy a bullet's flight state into the arrays at index
+     */
+    private void track(int index, Bullet bullet) {
+        if (index >= posX.length) {
+            int capacity = posX.length * 2;
+            posX = Arrays.copyOf(posX, capacity);
+            posY = Arrays.copyOf(posY, capacity);
+            velX = Arrays.copyOf(velX, capacity);
+            velY = Arrays.copyOf(velY, capacity);
+            culled = new long[capacity >>> 6];
+        }
+        posX[index] = bullet.getX();
+        posY[index] = bullet.getY();
+        velX[index] = bullet.getVelocityX();
+        velY[index] = bullet.getVelocityY();
+    }
+
+    /**
+     * Drop the flight state of inactive bullets, in the same stable order
+     * the pool compacts the bullet list in
+     */
+    private void compactFlightState() {
+        int kept = 0;
+        for (int i = 0; i < bullets.size(); i++) {
+            if (bullets.get(i).isActive()) {
+                if (kept != i) {
+                    posX[kept] = posX[i];
+                    posY[kept] = posY[i];
+                    velX[kept] = velX[i];
+                    velY[kept] = velY[i];
+                }
+                kept++;
+            }
+        }
+    }
+
+    /**
+     * Whether any bullet might have touched the box during the last tick:
+     * a single kernel pass over the arrays, with the box grown by the
+     * furthest a bullet can move in the longest tick. It never misses a
+     * hit, so when it says no, collision detection can skip every bullet.
+     */
+    public boolean anyNear(AbstractRectangle box) {
+        double reach = maxSpeed * Constants.MAX_DELTA_TIME + 1;
+        return kernels.overlapping(posX, posY, bullets.size(), Constants.BULLET_SIZE, Constants.BULLET_SIZE,
+                box.getLeft() - reach, box.getTop() - reach,
+                box.getRight() + reach, box.getBottom() + reach) > 0;
+    }
+
+    private static Player nearest(double x, double y, Player player1, Player player2) {
+        boolean alive1 = player1 != null && player1.isAlive();
+        boolean alive2 = player2 != null && player2.isAlive();
+        if (alive1 && alive2) {
+            double d1 = Math.hypot(player1.getX() - x, player1.getY() - y);
+            double d2 = Math.hypot(player2.getX() - x, player2.getY() - y);
+            return d2 < d1 ? player2 : player1;
+        }
+        return alive1 ? player1 : alive2 ? player2 : null;
+    }
+
+    /**
+     * Clock, each emitter's schedule, then the live bullets
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putDouble(clock);
+        for (int i = 0; i < emitters.size(); i++) {
+            BulletEmitter emitter = emitters.get(i);
+            buffer.put((byte) (emitter.isEnabled() ? 1 : 0));
+            buffer.putDouble(emitter.getStart());
+            buffer.putLong(emitter.getVolley());
+        }
+        buffer.putInt(bullets.size());
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).writeState(buffer);
+        }
+    }
+
+    public void readState(ByteBuffer buffer) {
+        clock = buffer.getDouble();
+        for (int i = 0; i < emitters.size(); i++) {
+            boolean enabled = buffer.get() != 0;
+            emitters.get(i).restore(enabled, buffer.getDouble(), buffer.getLong());
+        }
+        int count = buffer.getInt();
+        while (bullets.size() > count) {
+            pool.release(bullets.remove(bullets.size() - 1));
+        }
+        while (bullets.size() < count) {
+            bullets.add(pool.obtain());
+        }
+        for (int i = 0; i < count; i++) {
+            bullets.get(i).readState(buffer);
+            track(i, bullets.get(i));
+        }
+        logger.trace("Pattern state restored: {} bullets", count);
+    }
+
+    /**
+     * Move the pattern bullets, waiting and in flight, into records of the arena
+     */
+    public void moveToRecords(RecordArena arena) {
+        pool.moveToRecords(arena);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).moveToRecord(arena);
+        }
+    }
+
+    public List<Bullet> getBullets() { return bullets; }
+    public List<BulletEmitter> getEmitters() { return emitters; }
+    public double getClock() { return clock; }
+
+    /**
+     * Bullets fired since the engine was created
+     */
+    public long getFired() { return fired; }
+
+    public int getPoolCreated() { return pool.getCreated(); }
+}
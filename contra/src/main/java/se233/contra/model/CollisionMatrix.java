@@ -0,0 +1,85 @@
+package se233.contra.model;
+
+import se233.contra.exception.GameException;
+
+/**
+ * Which collision layers can touch which.
+ *
+ * Every entity sits on one layer (a single bit) and carries a mask of the
+ * layers it collides with: the standard rules' when its layer is set, and
+ * its game's matrix once the game applies it
+ * ({@link GameObject#refreshCollisionMask}). A pair is worth a narrowphase test only if
+ * {@code (a.layer & b.mask) != 0}, a single AND, so faction rules live
+ * here rather than in isPlayerBullet() checks scattered over the collision
+ * code. The matrix is symmetric: allowing a with b also allows b with a.
+ */
+public final class CollisionMatrix {
+    public static final int PLAYER = 1;
+    public static final int PLAYER_PROJECTILE = 1 << 1;
+    public static final int ENEMY = 1 << 2;
+    public static final int ENEMY_PROJECTILE = 1 << 3;
+    public static final int BOSS_PART = 1 << 4;
+    public static final int TERRAIN = 1 << 5;
+
+    private static final int LAYER_COUNT = 6;
+
+    private final int[] masks = new int[LAYER_COUNT];
+
+    /**
+     * A matrix where nothing collides
+     */
+    public CollisionMatrix() {
+    }
+
+    /**
+     * The campaign rules: each side's shots hit the other side, and bodies
+     * stand on terrain
+     */
+    public static CollisionMatrix standard() {
+        return new CollisionMatrix()
+                .allow(PLAYER_PROJECTILE, ENEMY)
+                .allow(PLAYER_PROJECTILE, BOSS_PART)
+                .allow(ENEMY_PROJECTILE, PLAYER)
+                .allow(PLAYER, TERRAIN)
+                .allow(ENEMY, TERRAIN);
+    }
+
+    /**
+     * Two-player versus: as standard, and player shots also hit players
+     * (a player's own shots are never tested against them)
+     */
+    public static CollisionMatrix versus() {
+        return standard().allow(PLAYER_PROJECTILE, PLAYER);
+    }
+
+    public CollisionMatrix allow(int layerA, int layerB) {
+        masks[index(layerA)] |= layerB;
+        masks[index(layerB)] |= layerA;
+        return this;
+    }
+
+    public CollisionMatrix deny(int layerA, int layerB) {
+        masks[index(layerA)] &= ~layerB;
+        masks[index(layerB)] &= ~layerA;
+        return this;
+    }
+
+    /**
+     * The layers something on the given layer collides with
+     */
+    public int maskOf(int layer) {
+        return masks[index(layer)];
+    }
+
+    public boolean collides(int layerA, int layerB) {
+        return (maskOf(layerA) & layerB) != 0;
+    }
+
+    private static int index(int layer) {
+        if (Integer.bitCount(layer) != 1 || layer >= 1 << LAYER_COUNT) {
+            throw new GameException("Not a single collision layer: " + layer,
+                    GameException.ErrorType.COLLISION_ERROR);
+        }
+        return Integer.numberOfTrailingZeros(layer);
+    }
+}
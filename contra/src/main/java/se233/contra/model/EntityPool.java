@@ -0,0 +1,130 @@
+package se233.contra.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.util.RecordArena;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Free list of reusable entities of one type.
+ *
+ * Entities are created up front by {@link #prewarm(int)} (while the game is in
+ * MENU or between waves) so spawning during play only pops from the free list.
+ * Callers re-initialize what they obtain through the entity's own reset(...).
+ * Given a {@link RecordArena}, each entity's position, velocity and bounds
+ * are moved into a record of it when the entity is created. Pools owned by
+ * an entity (e.g. its bullets) follow their owner into the arena through
+ * {@link #moveToRecords}.
+ */
+public class EntityPool<T extends GameObject> {
+    private static final Logger logger = LoggerFactory.getLogger(EntityPool.class);
+
+    private final String name;
+    private final Supplier<T> factory;
+    private RecordArena records;   // null: entities stay on the heap
+    private final List<T> free;
+    private int created;
+
+    public EntityPool(String name, Supplier<T> factory) {
+        this(name, factory, null);
+    }
+
+    public EntityPool(String name, Supplier<T> factory, RecordArena records) {
+        this.name = name;
+        this.factory = factory;
+        this.records = records;
+        this.free = new ArrayList<>();
+    }
+
+    /**
+     * Make sure at least {@code count} entities are waiting in the pool
+     */
+    public void prewarm(int count) {
+        if (free.size() >= count) return;
+
+        while (free.size() < count) {
+            free.add(create());
+        }
+        logger.debug("{} pool pre-warmed to {} ({} created)", name, count, created);
+    }
+
+    /**
+     * Move the entities waiting in the pool, and every one created from now
+     * on, into records of the arena. Entities handed out already are the
+     * caller's to move.
+     */
+    public void moveToRecords(RecordArena arena) {
+        this.records = arena;
+        for (int i = 0; i < free.size(); i++) {
+            free.get(i).moveToRecord(arena);
+        }
+    }
+
+    /**
+     * Take an entity from the pool, creating one only if the pool ran dry
+     */
+    public T obtain() {
+        int last = free.size() - 1;
+        if (last < 0) {
+            logger.debug("{} pool exhausted, growing", name);
+            return create();
+        }
+        return free.remove(last);
+    }
+
+    public void release(T entity) {
+        entity.setActive(false);
+        free.add(entity);
+    }
+
+    public void releaseAll(List<T> entities) {
+        for (int i = 0; i < entities.size(); i++) {
+            release(entities.get(i));
+        }
+        entities.clear();
+    }
+
+    /**
+     * Like {@link GameObject#removeInactive(List)}, but returns the removed
+     * entities to the pool instead of leaving them for the GC.
+     */
+    public void releaseInactive(List<T> entities) {
+        int kept = 0;
+        int size = entities.size();
+        for (int i = 0; i < size; i++) {
+            T entity = entities.get(i);
+            if (entity.isActive()) {
+                if (kept != i) {
+                    entities.set(kept, entity);
+                }
+                kept++;
+            } else {
+                free.add(entity);
+            }
+        }
+        for (int i = size - 1; i >= kept; i--) {
+            entities.remove(i);
+        }
+    }
+
+    public int getAvailable() {
+        return free.size();
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    private T create() {
+        created++;
+        T entity = factory.get();
+        if (records != null) {
+            entity.moveToRecord(records);
+        }
+        entity.setActive(false);
+        return entity;
+    }
+}
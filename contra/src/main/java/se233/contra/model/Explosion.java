@@ -2,34 +2,33 @@ package se233.contra.model;
 
 import javafx.scene.canvas.GraphicsContext;
 import se233.contra.util.Constants;
-import se233.contra.view.Animation;
-import se233.contra.view.SpriteLoader;
+import se233.contra.view.AnimationClip;
 
 public class Explosion extends GameObject {
-    private final Animation explosionAnimation;
 
     public Explosion(double x, double y) {
         super(x, y, Constants.EXPLOSION_SIZE, Constants.EXPLOSION_SIZE);
-        explosionAnimation = new Animation(
-                SpriteLoader.getExplosion(),
-                Constants.EXPLOSION_ANIMATION_SPEED,
-                false  // Don't loop
-        );
-        currentAnimation = explosionAnimation;
+        playClip(AnimationClip.EXPLOSION);
+    }
+
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, y);
+        playClip(AnimationClip.EXPLOSION);
     }
 
     @Override
     public void update(double deltaTime) {
-        if (explosionAnimation.isFinished()) {
+        if (isClipFinished()) {
             active = false;
             return;
         }
-        explosionAnimation.update(deltaTime);
+        advanceTime(deltaTime);
     }
 
     @Override
     public void render(GraphicsContext gc) {
         if (!active) return;
-        renderSprite(gc, explosionAnimation.getCurrentFrame());
+        renderSprite(gc, currentFrame());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,269 @@
+package se233.contra.model;
+
+import se233.contra.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared navigation toward the players, for any number of enemies.
+ *
+ * The walkable cells of the {@link Terrain} (empty, with headroom, on top of
+ * ground or a platform) and the moves between them (walk, walk off a ledge,
+ * jump up to SOLDIER_JUMP_TILES) are worked out once, each costing the tiles
+ * it covers. Whenever a player moves to another cell, one shortest-path search
+ * backwards from the players stores in every cell the first move of a
+ * cheapest route and its remaining cost. An enemy then finds its way with a
+ * single array lookup, so the cost does not depend on how many enemies there
+ * are.
+ */
+public class FlowField {
+    public static final byte NONE = 0;      // no route from here
+    public static final byte LEFT = 1;
+    public static final byte RIGHT = 2;
+    public static final byte JUMP_LEFT = 3;
+    public static final byte JUMP_RIGHT = 4;
+    public static final byte ARRIVED = 5;   // a player's cell
+
+    private final Terrain terrain;
+    private final int columns;
+
+    // Moves into each cell, as a compressed adjacency list: the edges into
+    // cell c are inFrom/inMove/inCost[inStart[c] .. inStart[c + 1])
+    private final int[] inStart;
+    private final int[] inFrom;
+    private final byte[] inMove;
+    private final byte[] inCost;
+
+    private final byte[] moves;
+    private final int[] distances;
+
+    // Search frontier: a binary min-heap of (distance << 32 | cell)
+    private final long[] heap;
+    private int heapSize;
+
+    private int target1 = Integer.MIN_VALUE;
+    private int target2 = Integer.MIN_VALUE;
+    private int rebuilds;
+
+    public FlowField(Terrain terrain) {
+        this.terrain = terrain;
+        this.columns = terrain.getColumns();
+        int cells = columns * terrain.getRows();
+
+        List<List<int[]>> incoming = new ArrayList<>(cells);
+        for (int cell = 0; cell < cells; cell++) {
+            incoming.add(new ArrayList<>());
+        }
+        int edges = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (isWalkable(cell % columns, cell / columns)) {
+                edges += addMoves(cell % columns, cell / columns, incoming);
+            }
+        }
+
+        this.inStart = new int[cells + 1];
+        this.inFrom = new int[edges];
+        this.inMove = new byte[edges];
+        this.inCost = new byte[edges];
+        int next = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            inStart[cell] = next;
+            for (int[] edge : incoming.get(cell)) {
+                inFrom[next] = edge[0];
+                inMove[next] = (byte) edge[1];
+                inCost[next] = (byte) edge[2];
+                next++;
+            }
+        }
+        inStart[cells] = next;
+
+        this.moves = new byte[cells];
+        this.distances = new int[cells];
+        this.heap = new long[edges + 2];
+    }
+
+    private boolean isWalkable(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < terrain.getRows()
+                && !terrain.isSolid(column, row) && !terrain.isSolid(column, row - 1)
+                && terrain.tileAt(column, row) != Terrain.PLATFORM
+                && terrain.isSupport(column, row + 1);
+    }
+
+    private int addMoves(int column, int row, List<List<int[]>> incoming) {
+        int from = row * columns + column;
+        int added = 0;
+
+        for (int side = -1; side <= 1; side += 2) {
+            byte walk = side < 0 ? LEFT : RIGHT;
+            int next = column + side;
+            if (isWalkable(next, row)) {
+                incoming.get(row * columns + next).add(new int[] {from, walk, 1});
+                added++;
+            } else if (next >= 0 && next < columns
+                    && !terrain.isSolid(next, row) && !terrain.isSolid(next, row - 1)) {
+                // Walk off the ledge and land on whatever is below
+                for (int below = row + 1; below < terrain.getRows() && !terrain.isSolid(next, below); below++) {
+                    if (isWalkable(next, below)) {
+                        int fall = Math.min(below - row, Byte.MAX_VALUE - 1);
+                        incoming.get(below * columns + next).add(new int[] {from, walk, 1 + fall});
+                        added++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Jump up onto anything within reach, if nothing solid is overhead
+        for (int up = 1; up <= Constants.SOLDIER_JUMP_TILES; up++) {
+            if (terrain.isSolid(column, row - up - 1)) {
+                break;
+            }
+            for (int across = -Constants.SOLDIER_JUMP_REACH; across <= Constants.SOLDIER_JUMP_REACH; across++) {
+                if (across != 0 && isWalkable(column + across, row - up)) {
+                    incoming.get((row - up) * columns + column + across)
+                            .add(new int[] {from, across < 0 ? JUMP_LEFT : JUMP_RIGHT, Math.abs(across) + up});
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Re-route toward the living players if either has changed cell
+     */
+    public void update(Player player1, Player player2) {
+        int cell1 = targetCell(player1);
+        int cell2 = targetCell(player2);
+        int first = Math.min(cell1, cell2);
+        int second = Math.max(cell1, cell2);
+        if (first == target1 && second == target2) {
+            return;
+        }
+        target1 = first;
+        target2 = second;
+        rebuild();
+    }
+
+    /**
+     * The walkable cell a player stands in, or lands in if airborne; -1 if none
+     */
+    private int targetCell(Player player) {
+        if (player == null || !player.isAlive()) {
+            return -1;
+        }
+        int column = terrain.columnAt(player.getX() + player.getBounds().getWidth() / 2);
+        int row = Math.max(terrain.rowAt(player.getY() + player.getBounds().getHeight() - 1), 0);
+        for (; row < terrain.getRows(); row++) {
+            if (isWalkable(column, row)) {
+                return row * columns + column;
+            }
+        }
+        return -1;
+    }
+
+    private void rebuild() {
+        Arrays.fill(moves, NONE);
+        Arrays.fill(distances, Integer.MAX_VALUE);
+
+        heapSize = 0;
+        if (target1 >= 0) {
+            seed(target1);
+        }
+        if (target2 >= 0 && target2 != target1) {
+            seed(target2);
+        }
+
+        while (heapSize > 0) {
+            long top = pop();
+            int cell = (int) top;
+            int distance = (int) (top >>> 32);
+            if (distance != distances[cell]) {
+                continue;   // already reached more cheaply
+            }
+            for (int e = inStart[cell]; e < inStart[cell + 1]; e++) {
+                int from = inFrom[e];
+                int through = distance + inCost[e];
+                if (through < distances[from]) {
+                    distances[from] = through;
+                    moves[from] = inMove[e];
+                    push(from, through);
+                }
+            }
+        }
+        rebuilds++;
+    }
+
+    private void seed(int cell) {
+        distances[cell] = 0;
+        moves[cell] = ARRIVED;
+        push(cell, 0);
+    }
+
+    private void push(int cell, int distance) {
+        long entry = (long) distance << 32 | cell;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (heap[parent] <= entry) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+     * The cell an entity with its feet at (x, y) walks in, or -1 if that is
+     * not a walkable cell (airborne, off the grid)
+     */
+    public int cellAt(double x, double y) {
+        int column = terrain.columnAt(x);
+        int row = terrain.rowAt(y - 1);
+        return isWalkable(column, row) ? row * columns + column : -1;
+    }
+
+    public byte moveAt(int cell) {
+        return cell < 0 ? NONE : moves[cell];
+    }
+
+    /**
+     * Cost in tiles of the route to the nearest player, or Integer.MAX_VALUE
+     * without a route
+     */
+    public int distanceAt(int cell) {
+        return cell < 0 ? Integer.MAX_VALUE : distances[cell];
+    }
+
+    public static boolean isRightward(byte move) {
+        return move == RIGHT || move == JUMP_RIGHT;
+    }
+
+    public static boolean isJump(byte move) {
+        return move == JUMP_LEFT || move == JUMP_RIGHT;
+    }
+
+    public Terrain getTerrain() { return terrain; }
+
+    /**
+     * How many times the field has been recomputed
+     */
+    public int getRebuilds() { return rebuilds; }
+}
@@ -2,19 +2,41 @@ package se233.contra.model;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import se233.contra.util.AbstractRectangle;
+import se233.contra.util.AbstractVector2D;
+import se233.contra.util.CollisionMask;
+import se233.contra.util.RecordArena;
 import se233.contra.util.Rectangle;
 import se233.contra.util.Vector2D;
-import se233.contra.view.Animation;
+import se233.contra.view.AnimationClip;
+
+import java.nio.ByteBuffer;
+import java.util.List;
 
 public abstract class GameObject {
-    protected Vector2D position;
-    protected Vector2D velocity;
-    protected Rectangle bounds;
+    // Masks every entity starts with; never modified
+    private static final CollisionMatrix STANDARD_RULES = CollisionMatrix.standard();
+
+    protected AbstractVector2D position;
+    protected AbstractVector2D velocity;
+    protected AbstractRectangle bounds;
     protected boolean active;
     protected boolean facingRight;
 
-    // Animation
-    protected Animation currentAnimation;
+    // Off-heap record behind position, velocity and bounds; null while they are on the heap
+    protected RecordArena.Record record;
+
+    // Collision layer bit, and the layers this collides with (see CollisionMatrix)
+    protected int layer;
+    protected int collisionMask;
+
+    // Animation cursor: shared clip + when it started on this entity's clock
+    protected AnimationClip clip;
+    protected double clipStart;
+    protected double age;
+
+    // Scratch box for getHitBox()
+    private final Rectangle hitBox = new Rectangle(0, 0, 0, 0);
 
     public GameObject(double x, double y, double width, double height) {
         this.position = new Vector2D(x, y);
@@ -24,6 +46,22 @@ public abstract class GameObject {
         this.facingRight = true;
     }
 
+    /**
+     * Move position, velocity and bounds into a record of the arena, keeping
+     * their values. Done once, right after construction (see EntityPool);
+     * entities that own others (bullets, boss parts) move those along.
+     */
+    public void moveToRecord(RecordArena arena) {
+        RecordArena.Record moved = arena.allocate();
+        moved.position.set(position);
+        moved.velocity.set(velocity);
+        moved.bounds.set(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+        record = moved;
+        position = moved.position;
+        velocity = moved.velocity;
+        bounds = moved.bounds;
+    }
+
     // Abstract methods - must be implemented by subclasses
     public abstract void update(double deltaTime);
     public abstract void render(GraphicsContext gc);
@@ -39,18 +77,117 @@ public abstract class GameObject {
         bounds.setPosition(position.getX(), position.getY());
     }
 
-    // Collision detection
+    // Animation helpers
+    protected void advanceTime(double deltaTime) {
+        age += deltaTime;
+    }
+
+    /**
+     * Switch to a clip, keeping the current one running if it is already playing
+     */
+    protected void playClip(AnimationClip next) {
+        if (clip != next) {
+            restartClip(next);
+        }
+    }
+
+    protected void restartClip(AnimationClip next) {
+        clip = next;
+        clipStart = age;
+    }
+
+    protected boolean isClipFinished() {
+        return clip != null && clip.isFinished(age - clipStart);
+    }
+
+    protected Image currentFrame() {
+        return clip == null ? null : clip.frameAt(age - clipStart);
+    }
+
+    /**
+     * Collision mask of the frame being drawn, matching renderSprite's flip,
+     * or null when there is no clip
+     */
+    protected CollisionMask currentMask() {
+        return clip == null ? null : clip.maskAt(age - clipStart, !facingRight);
+    }
+
+    /**
+     * Put this on a collision layer, taking its mask from the standard rules
+     */
+    protected void setLayer(int layer) {
+        this.layer = layer;
+        this.collisionMask = STANDARD_RULES.maskOf(layer);
+    }
+
+    /**
+     * Take this object's mask from the given matrix, e.g. its game's rules
+     */
+    public void refreshCollisionMask(CollisionMatrix matrix) {
+        collisionMask = layer == 0 ? 0 : matrix.maskOf(layer);
+    }
+
+    /**
+     * Take this off every collision layer, e.g. once it is dead but still on screen
+     */
+    protected void leaveLayers() {
+        this.layer = 0;
+        this.collisionMask = 0;
+    }
+
+    /**
+     * Broadphase filter: whether the two layers may touch at all
+     */
+    public boolean canCollideWith(GameObject other) {
+        return (layer & other.collisionMask) != 0;
+    }
+
+    /**
+     * Broadphase box: the current frame's trimmed mask in world coordinates
+     * (see {@link CollisionMask}), or the bounds for objects without a clip.
+     * Overwritten by the next call.
+     */
+    public AbstractRectangle getHitBox() {
+        CollisionMask mask = currentMask();
+        if (mask == null) {
+            return bounds;
+        }
+        hitBox.set(Math.floor(position.getX()) + mask.getOffsetX(),
+                Math.floor(position.getY()) + mask.getOffsetY(),
+                mask.getWidth(), mask.getHeight());
+        return hitBox;
+    }
+
+    // Collision detection: the solid pixels overlap, or for objects without
+    // a clip, the bounds
     public boolean collidesWith(GameObject other) {
-        return this.active && other.active &&
-                this.bounds.intersects(other.bounds);
+        if (!this.active || !other.active) {
+            return false;
+        }
+        CollisionMask mask = currentMask();
+        CollisionMask otherMask = other.currentMask();
+        if (mask == null || otherMask == null) {
+            return getHitBox().intersects(other.getHitBox());
+        }
+        return mask.overlaps(position.getX(), position.getY(),
+                otherMask, other.position.getX(), other.position.getY());
     }
 
     // Getters/Setters
-    public Vector2D getPosition() { return position; }
-    public Vector2D getVelocity() { return velocity; }
-    public Rectangle getBounds() { return bounds; }
+    public double getX() { return position.getX(); }
+    public double getY() { return position.getY(); }
+    public double getVelocityX() { return velocity.getX(); }
+    public double getVelocityY() { return velocity.getY(); }
+    public AbstractVector2D getPosition() { return position; }
+    public AbstractVector2D getVelocity() { return velocity; }
+    public AbstractRectangle getBounds() { return bounds; }
     public boolean isActive() { return active; }
     public boolean isFacingRight() { return facingRight; }
+    public int getLayer() { return layer; }
+    public int getCollisionMask() { return collisionMask; }
+    public RecordArena.Record getRecord() { return record; }
+    public AnimationClip getClip() { return clip; }
+    public int getClipFrameIndex() { return clip == null ? 0 : clip.frameIndex(age - clipStart); }
 
     public void setPosition(double x, double y) {
         position.set(x, y);
@@ -86,8 +223,75 @@ public abstract class GameObject {
         }
     }
 
+    /**
+     * Bring a pooled object back to its freshly-constructed state at (x, y).
+     * Subclasses reset their own fields and then call this.
+     */
+    public void reset(double x, double y) {
+        position.set(x, y);
+        velocity.set(0, 0);
+        updateBounds();
+        active = true;
+        facingRight = true;
+        clip = null;
+        clipStart = 0;
+        age = 0;
+    }
+
+    // Save state: fixed field order, no reflection. Subclasses append their
+    // own fields after calling super, and must read them back in the same order.
+    // Position, velocity and bounds go first, as one 64-byte record copied in
+    // bulk from the object's RecordArena record when it has one.
+    public void writeState(ByteBuffer buffer) {
+        if (record != null) {
+            record.write(buffer);
+        } else {
+            RecordArena.write(buffer, position, velocity, bounds);
+        }
+        buffer.put((byte) ((active ? 1 : 0) | (facingRight ? 2 : 0)));
+        buffer.put((byte) (clip == null ? -1 : clip.ordinal()));
+        buffer.putDouble(clipStart);
+        buffer.putDouble(age);
+    }
+
+    public void readState(ByteBuffer buffer) {
+        if (record != null) {
+            record.read(buffer);
+        } else {
+            RecordArena.read(buffer, position, velocity, bounds);
+        }
+        byte flags = buffer.get();
+        active = (flags & 1) != 0;
+        facingRight = (flags & 2) != 0;
+        byte clipIndex = buffer.get();
+        clip = clipIndex < 0 ? null : AnimationClip.fromOrdinal(clipIndex);
+        clipStart = buffer.getDouble();
+        age = buffer.getDouble();
+    }
+
     // Cleanup
     public void destroy() {
         active = false;
     }
+
+    /**
+     * Drop inactive objects by compacting the list in place.
+     * Unlike removeIf this never allocates, even when something is removed.
+     */
+    public static <T extends GameObject> void removeInactive(List<T> objects) {
+        int kept = 0;
+        int size = objects.size();
+        for (int i = 0; i < size; i++) {
+            T object = objects.get(i);
+            if (object.isActive()) {
+                if (kept != i) {
+                    objects.set(kept, object);
+                }
+                kept++;
+            }
+        }
+        for (int i = size - 1; i >= kept; i--) {
+            objects.remove(i);
+        }
+    }
 }
\ No newline at end of file
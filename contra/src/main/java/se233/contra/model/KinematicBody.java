@@ -0,0 +1,28 @@
+package se233.contra.model;
+
+import se233.contra.util.AbstractRectangle;
+import se233.contra.util.AbstractVector2D;
+
+/**
+ * Something that falls, walks and lands on the terrain, moved by a
+ * {@link KinematicSolver}.
+ *
+ * The body sets its own velocity (input, AI, a jump) before the solver runs;
+ * the solver applies gravity while it is airborne, moves it, stops it at
+ * solid tiles and platforms, and reports whether it ended up standing.
+ */
+public interface KinematicBody {
+    AbstractVector2D getPosition();
+    AbstractVector2D getVelocity();
+
+    /**
+     * The body's current size; its position is {@link #getPosition()}
+     */
+    AbstractRectangle getBounds();
+
+    boolean isOnGround();
+
+    void setPosition(double x, double y);
+    void setVelocity(double vx, double vy);
+    void setOnGround(boolean onGround);
+}
@@ -0,0 +1,209 @@
+package se233.contra.model;
+
+import se233.contra.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Batched physics for everything that walks on the {@link Terrain}: the
+ * players and the soldiers.
+ *
+ * Bodies are posted during a batch ({@link #begin}, {@link #add}) and moved
+ * together by {@link #solve}: one pass applies gravity and integrates the
+ * velocities of all of them, then each body is resolved against the tile
+ * grid, first along x and then along y. Solid tiles stop a body from every
+ * side; one-way platforms only catch a body falling onto them from above, so
+ * it can jump up through them. Every terrain query is a grid lookup of the
+ * tiles the body's edges cross this tick, so a tick costs a few lookups per
+ * body and stays linear in the number of bodies.
+ *
+ * Bodies that walk in from beside the level stand on its edge columns. The
+ * solver keeps nothing between ticks; all physical state lives in the bodies.
+ */
+public class KinematicSolver {
+    private static final double EPSILON = 1e-6;   // rounding slack when a body rests on a tile edge
+
+    private final Terrain terrain;
+    private final double tile = Constants.TILE_SIZE;
+
+    // Current batch, indexed by body
+    private int count;
+    private KinematicBody[] bodies = new KinematicBody[64];
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] vx = new double[64];
+    private double[] vy = new double[64];
+    private boolean[] grounded = new boolean[64];
+
+    private long tileLookups;
+
+    public KinematicSolver(Terrain terrain) {
+        this.terrain = terrain;
+    }
+
+    /**
+     * Start a new batch of bodies
+     */
+    public void begin() {
+        for (int i = 0; i < count; i++) {
+            bodies[i] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Post a body whose velocity is set for this tick
+     */
+    public void add(KinematicBody body) {
+        if (count == x.length) {
+            grow();
+        }
+        bodies[count] = body;
+        x[count] = body.getPosition().getX();
+        y[count] = body.getPosition().getY();
+        vx[count] = body.getVelocity().getX();
+        vy[count] = body.getVelocity().getY();
+        grounded[count] = body.isOnGround();
+        count++;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        bodies = Arrays.copyOf(bodies, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        grounded = Arrays.copyOf(grounded, capacity);
+    }
+
+    /**
+     * Move every body of the batch by one tick and write the results back
+     */
+    public void solve(double deltaTime) {
+        // Gravity for the airborne, capped at terminal speed
+        for (int i = 0; i < count; i++) {
+            if (!grounded[i]) {
+                vy[i] = Math.min(vy[i] + Constants.GRAVITY * deltaTime, Constants.MAX_FALL_SPEED);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            double width = bodies[i].getBounds().getWidth();
+            double height = bodies[i].getBounds().getHeight();
+            moveX(i, x[i] + vx[i] * deltaTime, width, height);
+            moveY(i, y[i] + vy[i] * deltaTime, width, height);
+
+            KinematicBody body = bodies[i];
+            body.setVelocity(vx[i], vy[i]);
+            body.setOnGround(grounded[i]);
+            body.setPosition(x[i], y[i]);
+        }
+    }
+
+    /**
+     * Walk toward targetX, stopping against the first solid column in the way
+     */
+    private void moveX(int i, double targetX, double width, double height) {
+        int top = terrain.rowAt(y[i]);
+        int bottom = lastCell(y[i] + height);
+        if (vx[i] > 0) {
+            for (int column = lastCell(x[i] + width) + 1; column <= lastCell(targetX + width); column++) {
+                if (isSolidColumn(column, top, bottom)) {
+                    targetX = column * tile - width;
+                    vx[i] = 0;
+                    break;
+                }
+            }
+        } else if (vx[i] < 0) {
+            for (int column = terrain.columnAt(x[i]) - 1; column >= terrain.columnAt(targetX); column--) {
+                if (isSolidColumn(column, top, bottom)) {
+                    targetX = (column + 1) * tile;
+                    vx[i] = 0;
+                    break;
+                }
+            }
+        }
+        x[i] = targetX;
+    }
+
+    /**
+     * Fall or rise toward targetY: land on the first support whose top the
+     * feet cross (or rest on), or bump the first solid ceiling
+     */
+    private void moveY(int i, double targetY, double width, double height) {
+        int left = terrain.columnAt(x[i]);
+        int right = lastCell(x[i] + width);
+        grounded[i] = false;
+
+        if (vy[i] >= 0) {
+            double feet = y[i] + height;
+            int last = terrain.rowAt(targetY + height + EPSILON);
+            for (int row = (int) Math.ceil((feet - EPSILON) / tile); row <= last; row++) {
+                if (isSupportRow(row, left, right)) {
+                    targetY = row * tile - height;
+                    vy[i] = 0;
+                    grounded[i] = true;
+                    break;
+                }
+            }
+        } else {
+            for (int row = terrain.rowAt(y[i]) - 1; row >= terrain.rowAt(targetY); row--) {
+                if (isSolidRow(row, left, right)) {
+                    targetY = (row + 1) * tile;
+                    vy[i] = 0;
+                    break;
+                }
+            }
+        }
+        y[i] = targetY;
+    }
+
+    private boolean isSolidColumn(int column, int top, int bottom) {
+        for (int row = top; row <= bottom; row++) {
+            if (tileAt(column, row) == Terrain.SOLID) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSolidRow(int row, int left, int right) {
+        for (int column = left; column <= right; column++) {
+            if (tileAt(column, row) == Terrain.SOLID) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSupportRow(int row, int left, int right) {
+        for (int column = left; column <= right; column++) {
+            if (tileAt(column, row) != Terrain.EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte tileAt(int column, int row) {
+        tileLookups++;
+        int clamped = Math.max(0, Math.min(column, terrain.getColumns() - 1));
+        return terrain.tileAt(clamped, row);
+    }
+
+    /**
+     * The cell holding the last pixel before an edge at this coordinate
+     */
+    private int lastCell(double edge) {
+        return (int) Math.ceil(edge / tile) - 1;
+    }
+
+    public Terrain getTerrain() { return terrain; }
+    public int getBodyCount() { return count; }
+
+    /**
+     * Tiles looked up so far
+     */
+    public long getTileLookups() { return tileLookups; }
+}
@@ -0,0 +1,236 @@
+package se233.contra.model;
+
+import se233.contra.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Batched line-of-sight checks from enemies to the players through the terrain.
+ *
+ * Shooters post a query from their muzzle during a batch ({@link #begin},
+ * {@link #query}), the owner resolves them all in one pass ({@link #resolve})
+ * and the shooters read back whether a player is visible and the direction to
+ * aim in. Each ray walks the terrain grid cell by cell (DDA) and is blocked by
+ * solid tiles; one-way platforms do not block.
+ *
+ * Every shooter registers once for a key ({@link #register}) and results are
+ * cached per key: a shooter whose origin and targets are exactly those of its
+ * last query reuses that result, however many ticks ago it was and whichever
+ * other shooters are in the batch. Results are a pure function of positions,
+ * so reuse never changes what a shooter sees.
+ */
+public class LineOfSight {
+    private final Terrain terrain;
+
+    // Current batch, indexed by query
+    private int count;
+    private int[] shooter = new int[64];
+    private double[] originX = new double[64];
+    private double[] originY = new double[64];
+    private boolean[] visible = new boolean[64];
+    private double[] aimX = new double[64];
+    private double[] aimY = new double[64];
+
+    // Last result of each shooter, the origin it was for, and the targets'
+    // generation (bumped whenever a target moves; 0 means no result yet)
+    private int shooters;
+    private double[] cachedX = new double[64];
+    private double[] cachedY = new double[64];
+    private boolean[] cachedVisible = new boolean[64];
+    private double[] cachedAimX = new double[64];
+    private double[] cachedAimY = new double[64];
+    private int[] cachedGeneration = new int[64];
+    private int generation = 1;
+
+    private double target1X, target1Y, target2X, target2Y;
+    private boolean has1, has2;
+
+    private long raysCast;
+    private long cacheHits;
+
+    public LineOfSight(Terrain terrain) {
+        this.terrain = terrain;
+    }
+
+    /**
+     * A key for a new shooter, to pass with each of its queries
+     */
+    public int register() {
+        if (shooters == cachedX.length) {
+            int size = shooters * 2;
+            cachedX = Arrays.copyOf(cachedX, size);
+            cachedY = Arrays.copyOf(cachedY, size);
+            cachedVisible = Arrays.copyOf(cachedVisible, size);
+            cachedAimX = Arrays.copyOf(cachedAimX, size);
+            cachedAimY = Arrays.copyOf(cachedAimY, size);
+            cachedGeneration = Arrays.copyOf(cachedGeneration, size);
+        }
+        return shooters++;
+    }
+
+    /**
+     * Start a new batch of queries
+     */
+    public void begin() {
+        count = 0;
+    }
+
+    /**
+     * Post a query from (x, y) for a registered shooter
+     * @return its index, for reading the result after {@link #resolve}
+     */
+    public int query(int shooterKey, double x, double y) {
+        if (count == originX.length) {
+            grow();
+        }
+        shooter[count] = shooterKey;
+        originX[count] = x;
+        originY[count] = y;
+        return count++;
+    }
+
+    /**
+     * Answer every query of the batch against the centres of the living players
+     */
+    public void resolve(Player player1, Player player2) {
+        if (setTargets(player1, player2)) {
+            generation++;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int key = shooter[i];
+            if (cachedGeneration[key] == generation && originX[i] == cachedX[key] && originY[i] == cachedY[key]) {
+                cacheHits++;
+                visible[i] = cachedVisible[key];
+                aimX[i] = cachedAimX[key];
+                aimY[i] = cachedAimY[key];
+                continue;
+            }
+            resolveOne(i);
+            cachedGeneration[key] = generation;
+            cachedX[key] = originX[i];
+            cachedY[key] = originY[i];
+            cachedVisible[key] = visible[i];
+            cachedAimX[key] = aimX[i];
+            cachedAimY[key] = aimY[i];
+        }
+    }
+
+    private boolean setTargets(Player player1, Player player2) {
+        boolean alive1 = player1 != null && player1.isAlive();
+        boolean alive2 = player2 != null && player2.isAlive();
+        double x1 = alive1 ? centerX(player1) : 0;
+        double y1 = alive1 ? centerY(player1) : 0;
+        double x2 = alive2 ? centerX(player2) : 0;
+        double y2 = alive2 ? centerY(player2) : 0;
+
+        boolean moved = alive1 != has1 || alive2 != has2
+                || x1 != target1X || y1 != target1Y || x2 != target2X || y2 != target2Y;
+        has1 = alive1;
+        has2 = alive2;
+        target1X = x1;
+        target1Y = y1;
+        target2X = x2;
+        target2Y = y2;
+        return moved;
+    }
+
+    private void resolveOne(int i) {
+        double x = originX[i];
+        double y = originY[i];
+        double best = Double.MAX_VALUE;
+        visible[i] = false;
+
+        if (has1) {
+            raysCast++;
+            if (isClear(x, y, target1X, target1Y)) {
+                best = distanceSquared(x, y, target1X, target1Y);
+                aim(i, target1X - x, target1Y - y);
+            }
+        }
+        if (has2) {
+            raysCast++;
+            double distance = distanceSquared(x, y, target2X, target2Y);
+            if (distance < best && isClear(x, y, target2X, target2Y)) {
+                aim(i, target2X - x, target2Y - y);
+            }
+        }
+    }
+
+    private void aim(int i, double dx, double dy) {
+        double length = Math.sqrt(dx * dx + dy * dy);
+        visible[i] = true;
+        aimX[i] = length == 0 ? 0 : dx / length;
+        aimY[i] = length == 0 ? 0 : dy / length;
+    }
+
+    /**
+     * Walk the grid cells the segment crosses, in order (Amanatides-Woo DDA).
+     * The shooter's own cell is skipped so cannons set into walls can fire.
+     */
+    boolean isClear(double x0, double y0, double x1, double y1) {
+        int column = terrain.columnAt(x0);
+        int row = terrain.rowAt(y0);
+        int endColumn = terrain.columnAt(x1);
+        int endRow = terrain.rowAt(y1);
+
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepColumn = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        double tile = Constants.TILE_SIZE;
+
+        // Ray parameter (0..1) at the next column / row boundary, and per tile
+        double nextColumnT = dx == 0 ? Double.MAX_VALUE
+                : ((stepColumn > 0 ? (column + 1) * tile - x0 : x0 - column * tile) / Math.abs(dx));
+        double nextRowT = dy == 0 ? Double.MAX_VALUE
+                : ((stepRow > 0 ? (row + 1) * tile - y0 : y0 - row * tile) / Math.abs(dy));
+        double columnT = dx == 0 ? Double.MAX_VALUE : tile / Math.abs(dx);
+        double rowT = dy == 0 ? Double.MAX_VALUE : tile / Math.abs(dy);
+
+        int steps = Math.abs(endColumn - column) + Math.abs(endRow - row);
+        for (int i = 0; i < steps; i++) {
+            if (nextColumnT < nextRowT) {
+                column += stepColumn;
+                nextColumnT += columnT;
+            } else {
+                row += stepRow;
+                nextRowT += rowT;
+            }
+            if (terrain.isSolid(column, row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int size = originX.length * 2;
+        shooter = Arrays.copyOf(shooter, size);
+        originX = Arrays.copyOf(originX, size);
+        originY = Arrays.copyOf(originY, size);
+        visible = Arrays.copyOf(visible, size);
+        aimX = Arrays.copyOf(aimX, size);
+        aimY = Arrays.copyOf(aimY, size);
+    }
+
+    private static double centerX(Player player) {
+        return player.getX() + player.getBounds().getWidth() / 2;
+    }
+
+    private static double centerY(Player player) {
+        return player.getY() + player.getBounds().getHeight() / 2;
+    }
+
+    private static double distanceSquared(double x0, double y0, double x1, double y1) {
+        return (x1 - x0) * (x1 - x0) + (y1 - y0) * (y1 - y0);
+    }
+
+    public boolean isVisible(int query) { return visible[query]; }
+    public double getAimX(int query) { return aimX[query]; }
+    public double getAimY(int query) { return aimY[query]; }
+
+    public int getQueryCount() { return count; }
+    public long getRaysCast() { return raysCast; }
+    public long getCacheHits() { return cacheHits; }
+}
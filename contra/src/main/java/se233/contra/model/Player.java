@@ -1,19 +1,18 @@
 package se233.contra.model;
 
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.input.KeyCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import se233.contra.controller.InputHandler;
+import se233.contra.audio.SoundManager;
+import se233.contra.controller.PlayerInput;
 import se233.contra.model.weapon.Rifle;
 import se233.contra.model.weapon.SpreadGun;
 import se233.contra.model.weapon.Weapon;
 import se233.contra.util.Constants;
-import se233.contra.util.Rectangle;
-import se233.contra.util.Vector2D;
-import se233.contra.view.Animation;
-import se233.contra.view.SpriteLoader;
+import se233.contra.util.RecordArena;
+import se233.contra.view.AnimationClip;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,7 +20,7 @@ import java.util.List;
  * Player with ground-hugging PRONE mechanic + Weapon System
  * รองรับทั้ง Rifle และ SpreadGun
  */
-public class Player extends GameObject {
+public class Player extends GameObject implements KinematicBody {
     private static final Logger logger = LoggerFactory.getLogger(Player.class);
 
     // ---- State ----
@@ -29,6 +28,8 @@ public class Player extends GameObject {
         IDLE, RUNNING, JUMPING, FALLING, SHOOTING, PRONE, DEAD
     }
 
+    private static final State[] STATES = State.values();
+
     private State currentState;
 
     // ---- Size / Hitbox ----
@@ -38,75 +39,117 @@ public class Player extends GameObject {
     private static final int PRONE_WIDTH = 31;
 
     // ---- Physics ----
+    private final KinematicSolver physics;   // moves this player when updated on its own
     private boolean onGround;
     private boolean isProne;
 
     // ---- Combat ----
     private final List<Bullet> bullets;
+    private final EntityPool<Bullet> bulletPool =
+            new EntityPool<>("Player bullet", () -> new Bullet(0, 0, 1, 0, true));
     private Weapon currentWeapon;
+    private static final Weapon RIFLE = new Rifle();
+    private static final Weapon SPREAD_GUN = new SpreadGun();
     private double shootCooldown;
     private static final double SHOOT_INTERVAL = 0.15;
 
+    // ---- Input (PlayerInput bitmask for this tick and the previous one) ----
+    private int buttons;
+    private int previousButtons;
+
     // ---- Stats ----
     private int lives;
     private int score;
     private boolean invincible;
     private double invincibleTimer;
 
-    // ---- Animations ----
-    private Animation idleAnim;
-    private Animation runAnim;
-    private Animation jumpAnim;
-    private Animation proneAnim;
-    private Animation shootAnim;
-    private Animation deadAnim;
-
     // ------------------------------------------------------------------------
     // Constructor
     // ------------------------------------------------------------------------
     public Player(double x, double y) {
+        this(x, y, new KinematicSolver(Terrain.flat()));
+    }
+
+    /**
+     * @param physics the game's solver, which {@link #update} steps this player through
+     */
+    public Player(double x, double y, KinematicSolver physics) {
         super(x, Constants.GROUND_Y - NORMAL_HEIGHT, NORMAL_WIDTH, NORMAL_HEIGHT);
+        this.physics = physics;
+        this.bullets = new ArrayList<>();
+        bulletPool.prewarm(Constants.PLAYER_BULLET_POOL_SIZE);
+        reset(x, y);
+
+        logger.info("Player created at ({}, {}) with Rifle",
+                position.getX(), position.getY());
+    }
+
+    /**
+     * Start over at x (standing on the ground) with full lives, no score and
+     * the Rifle, as if newly constructed
+     */
+    @Override
+    public void reset(double x, double y) {
+        isProne = false;
+        super.reset(x, Constants.GROUND_Y - NORMAL_HEIGHT);
+        setLayer(CollisionMatrix.PLAYER);
         this.currentState = State.IDLE;
         this.onGround = true;
-        this.isProne = false;
-        this.bullets = new ArrayList<>();
-        this.currentWeapon = new Rifle(); // เริ่มต้นด้วยปืนธรรมดา
+        bulletPool.releaseAll(bullets);
+        this.currentWeapon = RIFLE; // เริ่มต้นด้วยปืนธรรมดา
         this.shootCooldown = 0;
+        this.buttons = 0;
+        this.previousButtons = 0;
         this.lives = Constants.STARTING_LIVES;
         this.score = 0;
         this.invincible = false;
         this.invincibleTimer = 0;
 
-        initializeAnimations();
-        currentAnimation = idleAnim;
-
-        logger.info("Player created at ({}, {}) with Rifle",
-                position.getX(), position.getY());
+        playClip(AnimationClip.PLAYER_IDLE);
     }
 
-    // ------------------------------------------------------------------------
-    // Initialization
-    // ------------------------------------------------------------------------
-    private void initializeAnimations() {
-        idleAnim = new Animation(SpriteLoader.getPlayerIdle(), Constants.IDLE_ANIMATION_SPEED);
-        runAnim = new Animation(SpriteLoader.getPlayerRun(), Constants.RUN_ANIMATION_SPEED);
-        jumpAnim = new Animation(SpriteLoader.getPlayerJump(), 0.1);
-        proneAnim = new Animation(SpriteLoader.getPlayerProne(), 0.1);
-        shootAnim = new Animation(SpriteLoader.getPlayerShoot(), Constants.SHOOT_ANIMATION_SPEED);
-        deadAnim = new Animation(SpriteLoader.getExplosion(), 0.1, false);
+    /**
+     * The player's bullets, waiting and in flight, move along with it
+     */
+    @Override
+    public void moveToRecord(RecordArena arena) {
+        super.moveToRecord(arena);
+        bulletPool.moveToRecords(arena);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).moveToRecord(arena);
+        }
     }
 
     // ------------------------------------------------------------------------
     // Update
     // ------------------------------------------------------------------------
+    /**
+     * A whole tick on its own, moved by this player's solver; a game batches
+     * its bodies with {@link #beginMove} and {@link #endMove} instead
+     */
     @Override
     public void update(double deltaTime) {
+        if (beginMove(deltaTime)) {
+            physics.begin();
+            physics.add(this);
+            physics.solve(deltaTime);
+            endMove(deltaTime);
+        }
+    }
+
+    /**
+     * First half of a tick: timers and input, which set the velocity
+     * @return whether the player moves this tick; if so, step it through a
+     *         {@link KinematicSolver} and then call {@link #endMove}
+     */
+    public boolean beginMove(double deltaTime) {
+        advanceTime(deltaTime);
+
         if (currentState == State.DEAD) {
-            deadAnim.update(deltaTime);
-            if (deadAnim.isFinished()) {
+            if (isClipFinished()) {
                 active = false;
             }
-            return;
+            return false;
         }
 
         // Update timers
@@ -123,18 +166,18 @@ public class Player extends GameObject {
 
         // Handle input
         handleInput();
+        return true;
+    }
 
-        // Apply physics
-        applyPhysics(deltaTime);
-
-        // Update position
-        updatePosition(deltaTime);
-
-        // Check ground collision
-        checkGroundCollision();
+    /**
+     * Second half of a tick, once the solver has moved the player
+     */
+    public void endMove(double deltaTime) {
+        checkScreenBoundaries();
+        updateMovementState();
 
         // Update animation
-        updateAnimation(deltaTime);
+        updateAnimation();
 
         // Update bullets
         updateBullets(deltaTime);
@@ -143,26 +186,39 @@ public class Player extends GameObject {
     // ------------------------------------------------------------------------
     // Input Handling
     // ------------------------------------------------------------------------
-    private void handleInput() {
-        InputHandler input = InputHandler.getInstance();
+    /**
+     * Set the buttons held this tick (a {@link PlayerInput} mask)
+     */
+    public void setInput(int buttons) {
+        this.buttons = buttons;
+    }
+
+    private boolean isHeld(int button) {
+        return (buttons & button) != 0;
+    }
 
+    private boolean isJustPressed(int button) {
+        return (buttons & button) != 0 && (previousButtons & button) == 0;
+    }
+
+    private void handleInput() {
         if (currentState == State.DEAD) {
             return;
         }
 
         // Movement (LEFT/RIGHT)
         double moveSpeed = 0;
-        if (input.isKeyPressed(Constants.KEY_LEFT)) {
+        if (isHeld(PlayerInput.LEFT)) {
             moveSpeed = -Constants.PLAYER_SPEED;
             facingRight = false;
         }
-        if (input.isKeyPressed(Constants.KEY_RIGHT)) {
+        if (isHeld(PlayerInput.RIGHT)) {
             moveSpeed = Constants.PLAYER_SPEED;
             facingRight = true;
         }
 
         // PRONE MECHANIC
-        boolean downPressed = input.isKeyPressed(Constants.KEY_DOWN);
+        boolean downPressed = isHeld(PlayerInput.DOWN);
 
         if (downPressed && onGround && !isProne) {
             enterProne();
@@ -178,7 +234,7 @@ public class Player extends GameObject {
         velocity.setX(moveSpeed);
 
         // Jump (ห้ามกระโดดตอน prone)
-        if (input.isKeyJustPressed(Constants.KEY_JUMP) && onGround && !isProne) {
+        if (isJustPressed(PlayerInput.JUMP) && onGround && !isProne) {
             velocity.setY(Constants.JUMP_FORCE);
             onGround = false;
             currentState = State.JUMPING;
@@ -186,33 +242,23 @@ public class Player extends GameObject {
         }
 
         // ✅ Shoot - Z key (ยิงด้วยอาวุธปัจจุบัน)
-        if (input.isKeyJustPressed(Constants.KEY_SHOOT) && shootCooldown <= 0) {
+        if (isJustPressed(PlayerInput.SHOOT) && shootCooldown <= 0) {
             shoot();
             shootCooldown = SHOOT_INTERVAL;
         }
 
         // ✅ Switch to SpreadGun - S key (Special Weapon)
-        if (input.isKeyJustPressed(KeyCode.S)) {
-            switchWeapon(new SpreadGun());
+        if (isJustPressed(PlayerInput.SPREAD_GUN)) {
+            switchWeapon(SPREAD_GUN);
         }
 
         // ✅ Switch to Rifle - A key (Normal Weapon)
-        if (input.isKeyJustPressed(KeyCode.A)) {
-            switchWeapon(new Rifle());
+        if (isJustPressed(PlayerInput.RIFLE)) {
+            switchWeapon(RIFLE);
         }
-    }
-    @Override
-    protected void updatePosition(double deltaTime) {
-        // Update position normally
-        position.setX(position.getX() + velocity.getX() * deltaTime);
-        position.setY(position.getY() + velocity.getY() * deltaTime);
 
-        // ✅ เพิ่มส่วนนี้ - จำกัดไม่ให้ออกนอกจอ
-        checkScreenBoundaries();
-
-        updateBounds();
+        previousButtons = buttons;
     }
-
     /**
      * ✅ เพิ่ม method ใหม่ - เช็คขอบจอ
      */
@@ -240,7 +286,7 @@ public class Player extends GameObject {
 
         double heightDiff = NORMAL_HEIGHT - PRONE_HEIGHT;
         position.setY(position.getY() + heightDiff);
-        bounds = new Rectangle(position.getX(), position.getY(), PRONE_WIDTH, PRONE_HEIGHT);
+        bounds.set(position.getX(), position.getY(), PRONE_WIDTH, PRONE_HEIGHT);
 
         logger.debug("Enter PRONE - Y: {} (shifted down by {})", position.getY(), heightDiff);
     }
@@ -250,7 +296,7 @@ public class Player extends GameObject {
 
         double heightDiff = NORMAL_HEIGHT - PRONE_HEIGHT;
         position.setY(position.getY() - heightDiff);
-        bounds = new Rectangle(position.getX(), position.getY(), NORMAL_WIDTH, NORMAL_HEIGHT);
+        bounds.set(position.getX(), position.getY(), NORMAL_WIDTH, NORMAL_HEIGHT);
 
         if (onGround) {
             currentState = Math.abs(velocity.getX()) > 1 ? State.RUNNING : State.IDLE;
@@ -260,27 +306,10 @@ public class Player extends GameObject {
     }
 
     // ------------------------------------------------------------------------
-    // Physics
+    // Physics (gravity and terrain are the KinematicSolver's)
     // ------------------------------------------------------------------------
-    private void applyPhysics(double deltaTime) {
-        if (!onGround) {
-            velocity.setY(velocity.getY() + Constants.GRAVITY * deltaTime);
-
-            if (velocity.getY() > 600) {
-                velocity.setY(600);
-            }
-        }
-    }
-
-    private void checkGroundCollision() {
-        double currentHeight = isProne ? PRONE_HEIGHT : NORMAL_HEIGHT;
-        double playerBottom = position.getY() + currentHeight;
-
-        if (playerBottom >= Constants.GROUND_Y) {
-            position.setY(Constants.GROUND_Y - currentHeight);
-            velocity.setY(0);
-            onGround = true;
-
+    private void updateMovementState() {
+        if (onGround) {
             if (!isProne) {
                 if (Math.abs(velocity.getX()) > 1) {
                     currentState = State.RUNNING;
@@ -288,11 +317,8 @@ public class Player extends GameObject {
                     currentState = State.IDLE;
                 }
             }
-        } else {
-            onGround = false;
-            if (!isProne) {
-                currentState = velocity.getY() < 0 ? State.JUMPING : State.FALLING;
-            }
+        } else if (!isProne) {
+            currentState = velocity.getY() < 0 ? State.JUMPING : State.FALLING;
         }
 
         updateBounds();
@@ -301,9 +327,9 @@ public class Player extends GameObject {
     @Override
     protected void updateBounds() {
         if (isProne) {
-            bounds = new Rectangle(position.getX(), position.getY(), PRONE_WIDTH, PRONE_HEIGHT);
+            bounds.set(position.getX(), position.getY(), PRONE_WIDTH, PRONE_HEIGHT);
         } else {
-            bounds = new Rectangle(position.getX(), position.getY(), NORMAL_WIDTH, NORMAL_HEIGHT);
+            bounds.set(position.getX(), position.getY(), NORMAL_WIDTH, NORMAL_HEIGHT);
         }
     }
 
@@ -326,12 +352,11 @@ public class Player extends GameObject {
         }
 
         // ✅ ใช้ Weapon System
-        Vector2D direction = new Vector2D(facingRight ? 1 : -1, 0);
-        List<Bullet> newBullets = currentWeapon.fire(muzzleX, muzzleY, direction);
-        bullets.addAll(newBullets);
+        int fired = currentWeapon.fire(muzzleX, muzzleY, facingRight ? 1 : -1, 0, bulletPool, bullets);
+        SoundManager.play(currentWeapon.getFireSound());
 
-        logger.debug("Player shot {} bullet(s) with {}",
-                newBullets.size(), currentWeapon.getClass().getSimpleName());
+        logger.trace("Player shot {} bullet(s) with {}",
+                fired, currentWeapon.getClass().getSimpleName());
     }
 
     private void switchWeapon(Weapon newWeapon) {
@@ -340,31 +365,24 @@ public class Player extends GameObject {
     }
 
     private void updateBullets(double deltaTime) {
-        bullets.removeIf(bullet -> !bullet.isActive());
-        for (Bullet bullet : bullets) {
-            bullet.update(deltaTime);
+        bulletPool.releaseInactive(bullets);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).update(deltaTime);
         }
     }
 
     // ------------------------------------------------------------------------
     // Animation
     // ------------------------------------------------------------------------
-    private void updateAnimation(double deltaTime) {
-        Animation targetAnimation = switch (currentState) {
-            case IDLE -> idleAnim;
-            case RUNNING -> runAnim;
-            case JUMPING, FALLING -> jumpAnim;
-            case PRONE -> proneAnim;
-            case SHOOTING -> shootAnim;
-            case DEAD -> deadAnim;
-        };
-
-        if (currentAnimation != targetAnimation) {
-            currentAnimation = targetAnimation;
-            currentAnimation.reset();
-        }
-
-        currentAnimation.update(deltaTime);
+    private void updateAnimation() {
+        playClip(switch (currentState) {
+            case IDLE -> AnimationClip.PLAYER_IDLE;
+            case RUNNING -> AnimationClip.PLAYER_RUN;
+            case JUMPING, FALLING -> AnimationClip.PLAYER_JUMP;
+            case PRONE -> AnimationClip.PLAYER_PRONE;
+            case SHOOTING -> AnimationClip.PLAYER_SHOOT;
+            case DEAD -> AnimationClip.PLAYER_DEATH;
+        });
     }
 
     // ------------------------------------------------------------------------
@@ -380,7 +398,7 @@ public class Player extends GameObject {
         }
 
         // Render player sprite
-        renderSprite(gc, currentAnimation.getCurrentFrame());
+        renderSprite(gc, currentFrame());
 
         // Debug mode
         if (false) {
@@ -412,11 +430,46 @@ public class Player extends GameObject {
     private void die() {
         currentState = State.DEAD;
         velocity.set(0, 0);
-        currentAnimation = deadAnim;
-        deadAnim.reset();
+        restartClip(AnimationClip.PLAYER_DEATH);
         logger.info("Player died! Final score: {}", score);
     }
 
+    // ------------------------------------------------------------------------
+    // Save state
+    // ------------------------------------------------------------------------
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) currentState.ordinal());
+        buffer.put((byte) ((onGround ? 1 : 0) | (isProne ? 2 : 0) | (invincible ? 4 : 0)));
+        buffer.put((byte) (currentWeapon == SPREAD_GUN ? 1 : 0));
+        buffer.putDouble(shootCooldown);
+        buffer.putInt(lives);
+        buffer.putInt(score);
+        buffer.putDouble(invincibleTimer);
+        buffer.putShort((short) buttons);
+        buffer.putShort((short) previousButtons);
+        Bullet.writeList(buffer, bullets);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        currentState = STATES[buffer.get()];
+        byte flags = buffer.get();
+        onGround = (flags & 1) != 0;
+        isProne = (flags & 2) != 0;
+        invincible = (flags & 4) != 0;
+        currentWeapon = buffer.get() == 1 ? SPREAD_GUN : RIFLE;
+        shootCooldown = buffer.getDouble();
+        lives = buffer.getInt();
+        score = buffer.getInt();
+        invincibleTimer = buffer.getDouble();
+        buttons = buffer.getShort() & 0xFFFF;
+        previousButtons = buffer.getShort() & 0xFFFF;
+        Bullet.readList(buffer, bullets, bulletPool);
+    }
+
     // ------------------------------------------------------------------------
     // Getters & Setters
     // ------------------------------------------------------------------------
@@ -449,10 +502,16 @@ public class Player extends GameObject {
         return currentState;
     }
 
+    @Override
     public boolean isOnGround() {
         return onGround;
     }
 
+    @Override
+    public void setOnGround(boolean onGround) {
+        this.onGround = onGround;
+    }
+
     public Weapon getCurrentWeapon() {
         return currentWeapon;
     }
@@ -3,171 +3,426 @@ package se233.contra.model;
 import javafx.scene.canvas.GraphicsContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se233.contra.ai.Agent;
+import se233.contra.ai.BehaviorTree;
+import se233.contra.ai.Blackboard;
 import se233.contra.util.Constants;
-import se233.contra.util.Vector2D;
-import se233.contra.view.Animation;
-import se233.contra.view.SpriteLoader;
+import se233.contra.util.GameRandom;
+import se233.contra.util.RecordArena;
+import se233.contra.view.AnimationClip;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Soldier (Minion) enemy class
  * Implements Enemy interface to demonstrate POLYMORPHISM
  */
-public class Soldier extends GameObject implements Enemy {
+public class Soldier extends GameObject implements Enemy, Agent, KinematicBody {
     private static final Logger logger = LoggerFactory.getLogger(Soldier.class);
 
+    // Blackboard slots
+    private static final int SHOT_CLOCK = 0;    // time toward the next shot
+    private static final int POSE_TIMER = 1;    // time left standing to shoot
+
+    /**
+     * The AI every soldier shares: keep the shot clock running, then either
+     * hold the shooting pose, or move (chase, else patrol) and fire when due
+     */
+    public static final BehaviorTree<Soldier> BRAIN = BehaviorTree.<Soldier>builder(2, 0)
+            .sequence()
+                .leaf(Soldier::advanceClock)
+                .selector()
+                    .sequence()
+                        .leaf(Soldier::isShooting)
+                        .leaf(Soldier::holdPose)
+                    .end()
+                    .sequence()
+                        .leaf(Soldier::move)
+                        .leaf(Soldier::isShotDue)
+                        .leaf(Soldier::fireAtSight)
+                    .end()
+                .end()
+            .end()
+            .build();
+
     public enum State {
         RUNNING,
         SHOOTING,
         DEAD
     }
 
+    private static final State[] STATES = State.values();
+
     private State currentState;
     private int health;
     private boolean onGround;
+    private boolean entered;    // has walked onto the screen; only then is it kept there
 
     // AI properties
-    private double shootTimer;
-    private double shootCooldown;
+    private final Blackboard board = BRAIN.newBlackboard();
     private static final double SHOOT_INTERVAL = 2.0;
     private static final double SHOOT_DURATION = 0.5;
 
+    // AI level of detail (see AiScheduler): time banked since the AI last ran
+    // and ticks until it runs again
+    private double aiPendingTime;
+    private int aiCountdown;
+
     // Movement
     private double patrolSpeed;
     private double targetX;
-    private static final Random random = new Random();
+    private final GameRandom random;
+    private final FlowField navigation;   // null: patrol only
+    private final KinematicSolver physics;  // moves this soldier when updated on its own
 
-    // Animations
-    private Animation runAnim;
-    private Animation shootAnim;
-    private Animation deathAnim;
+    // Line of sight posted for the coming AI run; -1 to fire blind
+    private LineOfSight sight;
+    private int sightQuery = -1;
+    private int sightKey;   // this shooter's key in sight
 
     // Bullets
     private final List<Bullet> bullets;
+    private final EntityPool<Bullet> bulletPool =
+            new EntityPool<>("Soldier bullet", () -> new Bullet(0, 0, -1, 0, false));
 
     public Soldier(double x, double y) {
+        this(x, y, new GameRandom(System.nanoTime()));
+    }
+
+    /**
+     * @param random the world's generator, so patrol choices are part of its saved state
+     */
+    public Soldier(double x, double y, GameRandom random) {
+        this(x, y, random, null);
+    }
+
+    /**
+     * @param navigation shared flow field to chase the players with; null to patrol
+     */
+    public Soldier(double x, double y, GameRandom random, FlowField navigation) {
+        this(x, y, random, navigation,
+                new KinematicSolver(navigation != null ? navigation.getTerrain() : Terrain.flat()));
+    }
+
+    /**
+     * @param physics the game's solver, which {@link #update} and
+     *                {@link #simulate} step this soldier through
+     */
+    public Soldier(double x, double y, GameRandom random, FlowField navigation, KinematicSolver physics) {
         super(x, Constants.GROUND_Y - Constants.SOLDIER_HEIGHT,
                 Constants.SOLDIER_WIDTH, Constants.SOLDIER_HEIGHT);
+        this.random = random;
+        this.physics = physics;
+        this.navigation = navigation;
+        this.bullets = new ArrayList<>();
+        bulletPool.prewarm(Constants.ENEMY_BULLET_POOL_SIZE);
+        reset(x, y);
+    }
+
+    /**
+     * Re-spawn this soldier at x (always on the ground), as if newly constructed
+     */
+    @Override
+    public void reset(double x, double y) {
+        super.reset(x, Constants.GROUND_Y - Constants.SOLDIER_HEIGHT);
 
         this.health = 1;
         this.currentState = State.RUNNING;
+        setLayer(CollisionMatrix.ENEMY);
         this.onGround = true;
-        this.shootTimer = random.nextDouble() * SHOOT_INTERVAL;
-        this.shootCooldown = 0;
+        board.clear();
+        board.set(SHOT_CLOCK, random.nextDouble() * SHOOT_INTERVAL);
         this.patrolSpeed = 50 + random.nextDouble() * 30;
         this.targetX = random.nextDouble() * 400 + 100;
-        this.bullets = new ArrayList<>();
+        this.aiPendingTime = 0;
+        this.aiCountdown = 1;   // due on the first tick
+        bulletPool.releaseAll(bullets);
 
-        initializeAnimations();
+        playClip(AnimationClip.SOLDIER_RUN);
 
         facingRight = random.nextBoolean();
+        entered = isOnScreen();
+        if (!entered) {
+            // Spawned off to one side: walk in
+            facingRight = position.getX() < 0;
+        }
         velocity.setX(facingRight ? patrolSpeed : -patrolSpeed);
 
         logger.debug("Soldier spawned at ({}, {})", position.getX(), position.getY());
     }
 
-    private void initializeAnimations() {
-        runAnim = new Animation(SpriteLoader.getSoldierRun(), 0.15);
-        shootAnim = new Animation(SpriteLoader.getSoldierShoot(), 0.2);
-        deathAnim = new Animation(SpriteLoader.getExplosion(), 0.15, false);
-        currentAnimation = runAnim;
+    /**
+     * The soldier's bullets, waiting and in flight, move along with it
+     */
+    @Override
+    public void moveToRecord(RecordArena arena) {
+        super.moveToRecord(arena);
+        bulletPool.moveToRecords(arena);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).moveToRecord(arena);
+        }
     }
 
+    /**
+     * A whole tick on its own: AI, then {@link #simulate}
+     */
     @Override
     public void update(double deltaTime) {
+        if (currentState != State.DEAD) {
+            updateAI(deltaTime);
+        }
+        simulate(deltaTime);
+    }
+
+    /**
+     * Everything but the AI: physics, animation and bullets. In a game the
+     * AI runs separately, at the rate the AiScheduler gives this soldier, and
+     * the bodies are batched with {@link #beginMove} and {@link #endMove}.
+     */
+    public void simulate(double deltaTime) {
+        if (beginMove(deltaTime)) {
+            physics.begin();
+            physics.add(this);
+            physics.solve(deltaTime);
+            endMove(deltaTime);
+        }
+    }
+
+    /**
+     * First half of {@link #simulate}
+     * @return whether the soldier moves this tick; if so, step it through a
+     *         {@link KinematicSolver} and then call {@link #endMove}
+     */
+    public boolean beginMove(double deltaTime) {
+        advanceTime(deltaTime);
+
         if (currentState == State.DEAD) {
-            updateDeath(deltaTime);
-            return;
+            updateDeath();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Second half of {@link #simulate}, once the solver has moved the soldier
+     */
+    public void endMove(double deltaTime) {
+        // Deactivate if way off screen (not just at edge!). Checked before the
+        // screen clamp, and only once on screen, so a wave spawned off to the
+        // side still gets to walk in.
+        if (entered && (position.getX() < -100 || position.getX() > Constants.SCREEN_WIDTH + 100)) {
+            active = false;
         }
 
-        updateAI(deltaTime);
-        applyGravity(deltaTime);
-        updatePosition(deltaTime);
-        checkGroundCollision();
-        updateAnimation(deltaTime);
+        checkScreenBoundaries();
+        updateBounds();
+        updateAnimation();
         updateBullets(deltaTime);
+    }
 
-        // Deactivate if way off screen (not just at edge!)
-        if (position.getX() < -100 || position.getX() > Constants.SCREEN_WIDTH + 100) {
-            active = false;
+    /**
+     * Bank this tick's time for the AI and count down to its next run
+     * @param period ticks between AI runs at this soldier's level of detail
+     */
+    public void bankAiTime(double deltaTime, int period) {
+        aiPendingTime += deltaTime;
+        aiCountdown = Math.min(aiCountdown - 1, period - 1);
+    }
+
+    /**
+     * Run the AI over all the banked time, so its timers catch up exactly
+     * @param period ticks until it runs again
+     */
+    public void think(int period) {
+        beginThink();
+        BRAIN.tick(this, board);
+        endThink(period);
+    }
+
+    /**
+     * Hand the banked time to the blackboard, for a batched run of {@link #BRAIN}
+     */
+    public void beginThink() {
+        board.setDeltaTime(aiPendingTime);
+    }
+
+    /**
+     * After a run of {@link #BRAIN}: clear the banked time and the sight query
+     * @param period ticks until it runs again
+     */
+    public void endThink(int period) {
+        aiPendingTime = 0;
+        aiCountdown = period;
+        sightQuery = -1;
+    }
+
+    /**
+     * Whether the coming AI run may fire, given the time it will cover
+     */
+    public boolean isReadyToShoot() {
+        return currentState == State.RUNNING && board.get(SHOT_CLOCK) + aiPendingTime >= SHOOT_INTERVAL;
+    }
+
+    /**
+     * Post a line-of-sight query from the muzzle; the next AI run aims along
+     * the result and holds fire if no player is visible
+     */
+    public void requestSight(LineOfSight sight) {
+        if (sight != this.sight) {
+            this.sight = sight;
+            this.sightKey = sight.register();
         }
+        this.sightQuery = sight.query(sightKey, position.getX() + bounds.getWidth() / 2,
+                position.getY() + bounds.getHeight() / 2);
+    }
+
+    /**
+     * Hold off the first AI run for this many ticks, to spread a wave over frames
+     */
+    public void setAiPhase(int ticks) {
+        aiCountdown = ticks + 1;
+    }
+
+    public double getAiPendingTime() { return aiPendingTime; }
+
+    public boolean isAiDue() { return aiCountdown <= 0; }
+
+    /**
+     * Due since an earlier tick, when the AI budget ran out
+     */
+    public boolean isAiOverdue() { return aiCountdown < 0; }
+
+    public boolean isOnScreen() {
+        return position.getX() >= 0 && position.getX() + bounds.getWidth() <= Constants.SCREEN_WIDTH;
     }
 
     private void updateAI(double deltaTime) {
-        shootTimer += deltaTime;
+        board.setDeltaTime(deltaTime);
+        BRAIN.tick(this, board);
+    }
 
-        if (currentState == State.SHOOTING) {
-            velocity.setX(0);
-            shootCooldown -= deltaTime;
+    // ===== Behavior tree leaves =====
 
-            if (shootCooldown <= 0) {
-                currentState = State.RUNNING;
-                velocity.setX(facingRight ? patrolSpeed : -patrolSpeed);
-            }
-        } else {
-            // Patrol behavior
-            if (facingRight && position.getX() >= targetX) {
-                facingRight = false;
-                velocity.setX(-patrolSpeed);
-                targetX = random.nextDouble() * 200;
-            } else if (!facingRight && position.getX() <= targetX) {
-                facingRight = true;
-                velocity.setX(patrolSpeed);
-                targetX = random.nextDouble() * 200 + 300;
-            }
+    private byte advanceClock(Blackboard board) {
+        board.add(SHOT_CLOCK, board.getDeltaTime());
+        return BehaviorTree.SUCCESS;
+    }
 
-            // Shoot periodically
-            if (shootTimer >= SHOOT_INTERVAL) {
-                currentState = State.SHOOTING;
-                shootCooldown = SHOOT_DURATION;
-                shootTimer = 0;
-                shoot();
-            }
+    private byte isShooting(Blackboard board) {
+        return currentState == State.SHOOTING ? BehaviorTree.SUCCESS : BehaviorTree.FAILURE;
+    }
+
+    private byte holdPose(Blackboard board) {
+        velocity.setX(0);
+        board.add(POSE_TIMER, -board.getDeltaTime());
+
+        if (board.get(POSE_TIMER) <= 0) {
+            currentState = State.RUNNING;
+            velocity.setX(facingRight ? patrolSpeed : -patrolSpeed);
         }
+        return BehaviorTree.SUCCESS;
     }
 
-    private void shoot() {
-        Vector2D bulletPos = new Vector2D(
-                position.getX() + (facingRight ? bounds.getWidth() : -8),
-                position.getY() + bounds.getHeight() / 2
-        );
+    private byte move(Blackboard board) {
+        if (!chase()) {
+            patrol();
+        }
+        return BehaviorTree.SUCCESS;
+    }
 
-        Vector2D direction = new Vector2D(facingRight ? 1 : -1, 0);
-        Bullet bullet = new Bullet(bulletPos.getX(), bulletPos.getY(), direction, false);
-        bullets.add(bullet);
+    private byte isShotDue(Blackboard board) {
+        return board.get(SHOT_CLOCK) >= SHOOT_INTERVAL ? BehaviorTree.SUCCESS : BehaviorTree.FAILURE;
+    }
 
-        logger.trace("Soldier shot bullet");
+    /**
+     * Shoot along the line of sight if one was posted, else straight ahead
+     */
+    private byte fireAtSight(Blackboard board) {
+        if (sightQuery < 0) {
+            fire(facingRight ? 1 : -1, 0);
+        } else if (sight.isVisible(sightQuery)) {
+            facingRight = sight.getAimX(sightQuery) >= 0;
+            fire(sight.getAimX(sightQuery), sight.getAimY(sightQuery));
+        } else {
+            // Nobody in sight: hold fire until someone is
+            board.set(SHOT_CLOCK, SHOOT_INTERVAL);
+            return BehaviorTree.FAILURE;
+        }
+        return BehaviorTree.SUCCESS;
     }
 
-    private void applyGravity(double deltaTime) {
-        if (!onGround) {
-            velocity.setY(velocity.getY() + Constants.GRAVITY * deltaTime);
-            if (velocity.getY() > 600) {
-                velocity.setY(600);
-            }
+    private void fire(double dirX, double dirY) {
+        currentState = State.SHOOTING;
+        board.set(POSE_TIMER, SHOOT_DURATION);
+        // Keep the remainder so a late (batched) update does not delay later shots
+        board.set(SHOT_CLOCK, (board.get(SHOT_CLOCK) - SHOOT_INTERVAL) % SHOOT_INTERVAL);
+        shoot(dirX, dirY);
+    }
+
+    private void patrol() {
+        if (facingRight && position.getX() >= targetX) {
+            facingRight = false;
+            velocity.setX(-patrolSpeed);
+            targetX = random.nextDouble() * 200;
+        } else if (!facingRight && position.getX() <= targetX) {
+            facingRight = true;
+            velocity.setX(patrolSpeed);
+            targetX = random.nextDouble() * 200 + 300;
         }
     }
 
-    private void checkGroundCollision() {
-        double soldierBottom = position.getY() + bounds.getHeight();
+    /**
+     * Follow the flow field toward the nearest player, holding position once
+     * within SOLDIER_ENGAGE_TILES of route
+     * @return false if there is no route from here, to patrol instead
+     */
+    private boolean chase() {
+        if (navigation == null || !entered) {
+            return false;
+        }
+        if (!onGround) {
+            return true;   // mid-jump: keep going
+        }
 
-        if (soldierBottom >= Constants.GROUND_Y) {
-            position.setY(Constants.GROUND_Y - bounds.getHeight());
-            velocity.setY(0);
-            onGround = true;
-        } else {
-            onGround = false;
+        int cell = navigation.cellAt(position.getX() + bounds.getWidth() / 2, position.getY() + bounds.getHeight());
+        byte move = navigation.moveAt(cell);
+        if (move == FlowField.NONE) {
+            return false;
+        }
+        if (move != FlowField.ARRIVED) {
+            facingRight = FlowField.isRightward(move);
         }
 
-        checkScreenBoundaries();
-        updateBounds();
+        if (navigation.distanceAt(cell) <= Constants.SOLDIER_ENGAGE_TILES) {
+            velocity.setX(0);
+            return true;
+        }
+        velocity.setX(facingRight ? patrolSpeed : -patrolSpeed);
+        if (FlowField.isJump(move)) {
+            velocity.setY(Constants.JUMP_FORCE);
+            onGround = false;
+        }
+        return true;
     }
 
+    private void shoot(double dirX, double dirY) {
+        double bulletX = position.getX() + (facingRight ? bounds.getWidth() : -8);
+        double bulletY = position.getY() + bounds.getHeight() / 2;
+        Bullet bullet = bulletPool.obtain();
+        bullet.fire(bulletX, bulletY, dirX, dirY, false);
+        bullets.add(bullet);
+
+        logger.trace("Soldier shot bullet");
+    }
 
     private void checkScreenBoundaries() {
+        if (!entered) {
+            entered = isOnScreen();
+            return;
+        }
+
         // ขอบซ้าย
         if (position.getX() < 0) {
             position.setX(0);
@@ -192,30 +447,22 @@ public class Soldier extends GameObject implements Enemy {
     }
 
     private void updateBullets(double deltaTime) {
-        bullets.removeIf(bullet -> !bullet.isActive());
-        for (Bullet bullet : bullets) {
-            bullet.update(deltaTime);
+        bulletPool.releaseInactive(bullets);
+        for (int i = 0; i < bullets.size(); i++) {
+            bullets.get(i).update(deltaTime);
         }
     }
 
-    private void updateAnimation(double deltaTime) {
-        Animation targetAnimation = switch (currentState) {
-            case RUNNING -> runAnim;
-            case SHOOTING -> shootAnim;
-            case DEAD -> deathAnim;
-        };
-
-        if (currentAnimation != targetAnimation) {
-            currentAnimation = targetAnimation;
-            currentAnimation.reset();
-        }
-
-        currentAnimation.update(deltaTime);
+    private void updateAnimation() {
+        playClip(switch (currentState) {
+            case RUNNING -> AnimationClip.SOLDIER_RUN;
+            case SHOOTING -> AnimationClip.SOLDIER_SHOOT;
+            case DEAD -> AnimationClip.SOLDIER_DEATH;
+        });
     }
 
-    private void updateDeath(double deltaTime) {
-        deathAnim.update(deltaTime);
-        if (deathAnim.isFinished()) {
+    private void updateDeath() {
+        if (isClipFinished()) {
             active = false;
         }
     }
@@ -232,6 +479,21 @@ public class Soldier extends GameObject implements Enemy {
         }
     }
 
+    @Override
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    @Override
+    public void setOnGround(boolean onGround) {
+        this.onGround = onGround;
+    }
+
+    @Override
+    public Blackboard getBlackboard() {
+        return board;
+    }
+
     @Override
     public boolean isDead() {
         return currentState == State.DEAD;
@@ -247,10 +509,45 @@ public class Soldier extends GameObject implements Enemy {
         return Constants.SCORE_MINION_KILL;
     }
 
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) currentState.ordinal());
+        buffer.putInt(health);
+        buffer.put((byte) ((onGround ? 1 : 0) | (entered ? 2 : 0)));
+        board.writeState(buffer);
+        buffer.putDouble(aiPendingTime);
+        buffer.putInt(aiCountdown);
+        buffer.putDouble(patrolSpeed);
+        buffer.putDouble(targetX);
+        Bullet.writeList(buffer, bullets);
+    }
+
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        currentState = STATES[buffer.get()];
+        health = buffer.getInt();
+        if (currentState == State.DEAD) {
+            leaveLayers();
+        } else {
+            setLayer(CollisionMatrix.ENEMY);
+        }
+        byte flags = buffer.get();
+        onGround = (flags & 1) != 0;
+        entered = (flags & 2) != 0;
+        board.readState(buffer);
+        aiPendingTime = buffer.getDouble();
+        aiCountdown = buffer.getInt();
+        patrolSpeed = buffer.getDouble();
+        targetX = buffer.getDouble();
+        Bullet.readList(buffer, bullets, bulletPool);
+    }
+
     private void die() {
         currentState = State.DEAD;
-        currentAnimation = deathAnim;
-        deathAnim.reset();
+        leaveLayers();
+        restartClip(AnimationClip.SOLDIER_DEATH);
         velocity.set(0, 0);
         logger.debug("Soldier killed at ({}, {})", position.getX(), position.getY());
     }
@@ -261,7 +558,7 @@ public class Soldier extends GameObject implements Enemy {
             bullet.render(gc);
         }
 
-        renderSprite(gc, currentAnimation.getCurrentFrame());
+        renderSprite(gc, currentFrame());
 
         // Debug hitbox
         if (false) {
@@ -0,0 +1,93 @@
+package se233.contra.model;
+
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+/**
+ * Static level geometry as a grid of TILE_SIZE tiles covering the screen.
+ *
+ * Tiles are empty, solid, or one-way platforms (stood on from above, passed
+ * through from below and the sides). Anything below the grid counts as solid
+ * and anything beside it as empty.
+ */
+public class Terrain {
+    public static final byte EMPTY = 0;
+    public static final byte SOLID = 1;
+    public static final byte PLATFORM = 2;
+
+    private final int columns;
+    private final int rows;
+    private final byte[] tiles;
+
+    private Terrain(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.tiles = new byte[columns * rows];
+    }
+
+    /**
+     * The current stage: open ground at GROUND_Y
+     */
+    public static Terrain flat() {
+        Terrain terrain = new Terrain(
+                (Constants.SCREEN_WIDTH + Constants.TILE_SIZE - 1) / Constants.TILE_SIZE,
+                (Constants.SCREEN_HEIGHT + Constants.TILE_SIZE - 1) / Constants.TILE_SIZE);
+        int groundRow = (int) (Constants.GROUND_Y / Constants.TILE_SIZE);
+        for (int row = groundRow; row < terrain.rows; row++) {
+            for (int column = 0; column < terrain.columns; column++) {
+                terrain.tiles[row * terrain.columns + column] = SOLID;
+            }
+        }
+        return terrain;
+    }
+
+    /**
+     * Build a level from text, one string per row: '#' solid, '=' platform,
+     * anything else empty
+     */
+    public static Terrain parse(String... layout) {
+        if (layout.length == 0) {
+            throw new GameException("Empty terrain layout", GameException.ErrorType.INVALID_GAME_STATE);
+        }
+        Terrain terrain = new Terrain(layout[0].length(), layout.length);
+        for (int row = 0; row < layout.length; row++) {
+            if (layout[row].length() != terrain.columns) {
+                throw new GameException("Terrain row " + row + " is not " + terrain.columns + " tiles wide",
+                        GameException.ErrorType.INVALID_GAME_STATE);
+            }
+            for (int column = 0; column < terrain.columns; column++) {
+                char c = layout[row].charAt(column);
+                terrain.tiles[row * terrain.columns + column] = c == '#' ? SOLID : c == '=' ? PLATFORM : EMPTY;
+            }
+        }
+        return terrain;
+    }
+
+    public byte tileAt(int column, int row) {
+        if (row >= rows) return SOLID;
+        if (row < 0 || column < 0 || column >= columns) return EMPTY;
+        return tiles[row * columns + column];
+    }
+
+    public boolean isSolid(int column, int row) {
+        return tileAt(column, row) == SOLID;
+    }
+
+    /**
+     * Something to stand on: solid ground or a platform
+     */
+    public boolean isSupport(int column, int row) {
+        return tileAt(column, row) != EMPTY;
+    }
+
+    public int columnAt(double x) {
+        return (int) Math.floor(x / Constants.TILE_SIZE);
+    }
+
+    public int rowAt(double y) {
+        return (int) Math.floor(y / Constants.TILE_SIZE);
+    }
+
+    public int getColumns() { return columns; }
+    public int getRows() { return rows; }
+}
@@ -1,15 +1,21 @@
 package se233.contra.model.weapon;
 
+import se233.contra.audio.SoundEffect;
 import se233.contra.model.Bullet;
-import se233.contra.util.Vector2D;
-import java.util.ArrayList;
+import se233.contra.model.EntityPool;
 import java.util.List;
 
 public class Rifle implements Weapon {
     @Override
-    public List<Bullet> fire(double x, double y, Vector2D direction) {
-        List<Bullet> bullets = new ArrayList<>();
-        bullets.add(new Bullet(x, y, direction, true));
-        return bullets;
+    public int fire(double x, double y, double dirX, double dirY, EntityPool<Bullet> magazine, List<Bullet> out) {
+        Bullet bullet = magazine.obtain();
+        bullet.fire(x, y, dirX, dirY, true);
+        out.add(bullet);
+        return 1;
     }
-}
\ No newline at end of file
+
+    @Override
+    public SoundEffect getFireSound() {
+        return SoundEffect.RIFLE;
+    }
+}
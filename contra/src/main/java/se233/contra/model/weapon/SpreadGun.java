@@ -1,18 +1,37 @@
 package se233.contra.model.weapon;
 
+import se233.contra.audio.SoundEffect;
 import se233.contra.model.Bullet;
-import se233.contra.util.Vector2D;
-import java.util.ArrayList;
+import se233.contra.model.EntityPool;
 import java.util.List;
 
 public class SpreadGun implements Weapon {
+    // มุมกระจาย 15 องศา (คำนวณครั้งเดียว)
+    private static final double SPREAD_COS = Math.cos(Math.toRadians(15));
+    private static final double SPREAD_SIN = Math.sin(Math.toRadians(15));
+
     @Override
-    public List<Bullet> fire(double x, double y, Vector2D direction) {
-        List<Bullet> bullets = new ArrayList<>();
+    public int fire(double x, double y, double dirX, double dirY, EntityPool<Bullet> magazine, List<Bullet> out) {
         // สร้างกระสุน 3 นัดในทิศทางต่างกัน
-        bullets.add(new Bullet(x, y, direction.normalize(), true)); // ตรงกลาง
-        bullets.add(new Bullet(x, y, direction.rotate(-15).normalize(), true)); // เฉียงขึ้น
-        bullets.add(new Bullet(x, y, direction.rotate(15).normalize(), true));  // เฉียงลง
-        return bullets;
+        shoot(magazine, out, x, y, dirX, dirY); // ตรงกลาง
+        shoot(magazine, out, x, y,
+                dirX * SPREAD_COS + dirY * SPREAD_SIN,
+                -dirX * SPREAD_SIN + dirY * SPREAD_COS); // เฉียงขึ้น (-15)
+        shoot(magazine, out, x, y,
+                dirX * SPREAD_COS - dirY * SPREAD_SIN,
+                dirX * SPREAD_SIN + dirY * SPREAD_COS);  // เฉียงลง (+15)
+        return 3;
+    }
+
+    private static void shoot(EntityPool<Bullet> magazine, List<Bullet> out,
+                              double x, double y, double dirX, double dirY) {
+        Bullet bullet = magazine.obtain();
+        bullet.fire(x, y, dirX, dirY, true);
+        out.add(bullet);
+    }
+
+    @Override
+    public SoundEffect getFireSound() {
+        return SoundEffect.SPREAD_GUN;
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,17 @@
 package se233.contra.model.weapon;
 
+import se233.contra.audio.SoundEffect;
 import se233.contra.model.Bullet;
-import se233.contra.util.Vector2D;
+import se233.contra.model.EntityPool;
 import java.util.List;
 
 public interface Weapon {
-    List<Bullet> fire(double x, double y, Vector2D direction);
-}
\ No newline at end of file
+    /**
+     * Fire from (x, y) along the unit direction (dirX, dirY), taking the
+     * bullets from {@code magazine} and appending them to {@code out}.
+     * @return number of bullets fired
+     */
+    int fire(double x, double y, double dirX, double dirY, EntityPool<Bullet> magazine, List<Bullet> out);
+
+    SoundEffect getFireSound();
+}
@@ -0,0 +1,97 @@
+package se233.contra.net;
+
+import se233.contra.exception.GameException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Byte-level delta compression against a baseline.
+ *
+ * The encoding is the new length followed by alternating runs: a count of
+ * bytes equal to the baseline, then a count of literal bytes stored XORed
+ * with the baseline. Counts are varints. Bytes past the end of the baseline
+ * count as zero, so encoding against an empty baseline gives a full snapshot.
+ */
+final class DeltaCodec {
+
+    private DeltaCodec() {
+    }
+
+    static void encode(byte[] base, int baseLength, byte[] current, int length, ByteBuffer out) {
+        putVarint(out, length);
+
+        int i = 0;
+        while (i < length) {
+            int runStart = i;
+            while (i < length && current[i] == at(base, baseLength, i)) {
+                i++;
+            }
+            putVarint(out, i - runStart);
+
+            int literalStart = i;
+            // A single unchanged byte inside a literal costs less than two varints
+            while (i < length && (current[i] != at(base, baseLength, i)
+                    || (i + 1 < length && current[i + 1] != at(base, baseLength, i + 1)))) {
+                i++;
+            }
+            putVarint(out, i - literalStart);
+            for (int j = literalStart; j < i; j++) {
+                out.put((byte) (current[j] ^ at(base, baseLength, j)));
+            }
+        }
+    }
+
+    /**
+     * @return length of the decoded data written to {@code out}
+     */
+    static int decode(byte[] base, int baseLength, ByteBuffer in, byte[] out) {
+        int length = getVarint(in);
+        if (length > out.length) {
+            throw new GameException("Delta of " + length + " bytes exceeds " + out.length,
+                    GameException.ErrorType.NETWORK_ERROR);
+        }
+
+        int i = 0;
+        while (i < length) {
+            int run = getVarint(in);
+            if (i + run > length) break;
+            for (int end = i + run; i < end; i++) {
+                out[i] = at(base, baseLength, i);
+            }
+
+            int literal = getVarint(in);
+            if (i + literal > length || (run == 0 && literal == 0)) break;
+            for (int end = i + literal; i < end; i++) {
+                out[i] = (byte) (in.get() ^ at(base, baseLength, i));
+            }
+        }
+        if (i != length) {
+            throw new GameException("Corrupt delta", GameException.ErrorType.NETWORK_ERROR);
+        }
+        return length;
+    }
+
+    private static byte at(byte[] base, int baseLength, int index) {
+        return index < baseLength ? base[index] : 0;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new GameException("Malformed varint", GameException.ErrorType.NETWORK_ERROR);
+    }
+}
@@ -0,0 +1,161 @@
+package se233.contra.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Client side of {@link GameServer}: sends this player's input every tick and
+ * rebuilds the server's snapshots from deltas.
+ *
+ * Rendering runs {@code CLIENT_INTERP_DELAY_TICKS} behind the newest snapshot
+ * and blends the two snapshots around that time, so motion stays smooth even
+ * though snapshots arrive at 30 Hz with jitter and loss.
+ */
+public class GameClient implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GameClient.class);
+
+    private static final int RECENT = 8;
+
+    private final UdpTransport transport;
+
+    // Decoded snapshot bytes by seq % SNAPSHOT_HISTORY, used as delta baselines
+    private final byte[][] history = new byte[Constants.SNAPSHOT_HISTORY][WorldSnapshot.MAX_BYTES];
+    private final int[] historyLength = new int[Constants.SNAPSHOT_HISTORY];
+    private final int[] historySeq = new int[Constants.SNAPSHOT_HISTORY];
+
+    // Newest decoded snapshots for interpolation, by seq % RECENT
+    private final WorldSnapshot[] recent = new WorldSnapshot[RECENT];
+    private final int[] recentSeq = new int[RECENT];
+
+    private final ByteBuffer incoming = ByteBuffer.allocate(GameServer.MAX_PACKET_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer outgoing = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+
+    private int latestSeq = -1;
+    private long latestArrival;
+    private long snapshotsReceived;
+    private long bytesReceived;
+
+    public GameClient(int localPort, InetSocketAddress server, LinkSimulator link) {
+        this.transport = new UdpTransport(localPort, server, link, GameServer.MAX_PACKET_BYTES);
+        for (int i = 0; i < RECENT; i++) {
+            recent[i] = new WorldSnapshot();
+            recentSeq[i] = -1;
+        }
+        Arrays.fill(historySeq, -1);
+    }
+
+    /**
+     * Take in snapshots and send this tick's input (a PlayerInput mask)
+     */
+    public void update(int input) {
+        while (transport.receive(incoming)) {
+            bytesReceived += incoming.remaining();
+            try {
+                readSnapshot(incoming);
+            } catch (GameException | BufferUnderflowException | IndexOutOfBoundsException e) {
+                logger.debug("Dropping bad snapshot: {}", e.getMessage());
+            }
+        }
+
+        outgoing.clear();
+        outgoing.putShort(GameServer.INPUT_MAGIC);
+        outgoing.putInt(latestSeq);
+        outgoing.putShort((short) input);
+        outgoing.flip();
+        transport.send(outgoing);
+    }
+
+    private void readSnapshot(ByteBuffer packet) {
+        if (packet.remaining() < 10 || packet.getShort() != GameServer.SNAPSHOT_MAGIC) {
+            return;
+        }
+        int seq = packet.getInt();
+        int base = packet.getInt();
+        if (seq <= latestSeq) {
+            return;     // late or duplicate
+        }
+
+        byte[] baseline = null;
+        int baselineLength = 0;
+        if (base >= 0) {
+            int baseSlot = base % history.length;
+            if (historySeq[baseSlot] != base) {
+                return; // baseline lost; the server falls back to a full snapshot once we ack
+            }
+            baseline = history[baseSlot];
+            baselineLength = historyLength[baseSlot];
+        }
+
+        int slot = seq % history.length;
+        // Decode into the slot; it cannot be our baseline since seq - base < history length
+        historyLength[slot] = DeltaCodec.decode(baseline, baselineLength, packet, history[slot]);
+        historySeq[slot] = seq;
+
+        WorldSnapshot snapshot = recent[seq % RECENT];
+        snapshot.read(ByteBuffer.wrap(history[slot], 0, historyLength[slot]).order(ByteOrder.LITTLE_ENDIAN));
+        recentSeq[seq % RECENT] = seq;
+
+        latestSeq = seq;
+        latestArrival = System.nanoTime();
+        snapshotsReceived++;
+    }
+
+    /**
+     * Fill {@code out} with the world as it should be drawn now.
+     * @return false until the first snapshot has arrived
+     */
+    public boolean interpolate(WorldSnapshot out, long nowNanos) {
+        if (latestSeq < 0) {
+            return false;
+        }
+
+        WorldSnapshot newest = recent[latestSeq % RECENT];
+        double ticksSinceArrival = (nowNanos - latestArrival) / 1e9 / Constants.NET_TICK_TIME;
+        double renderTick = newest.getTick() - Constants.CLIENT_INTERP_DELAY_TICKS
+                + Math.min(ticksSinceArrival, Constants.CLIENT_INTERP_DELAY_TICKS);
+
+        // Newest snapshot at or before renderTick, and the one after it
+        WorldSnapshot from = null;
+        WorldSnapshot to = null;
+        for (int i = 0; i < RECENT; i++) {
+            int seq = latestSeq - i;
+            if (seq < 0 || recentSeq[seq % RECENT] != seq) continue;
+            WorldSnapshot candidate = recent[seq % RECENT];
+            if (candidate.getTick() <= renderTick) {
+                from = candidate;
+                break;
+            }
+            to = candidate;
+        }
+
+        if (from == null) {
+            out.copyFrom(to != null ? to : newest);
+        } else if (to == null) {
+            out.copyFrom(from);
+        } else {
+            double t = (renderTick - from.getTick()) / (double) (to.getTick() - from.getTick());
+            out.interpolate(from, to, t);
+        }
+        return true;
+    }
+
+    public int getLatestSeq() { return latestSeq; }
+    public long getSnapshotsReceived() { return snapshotsReceived; }
+    public long getBytesReceived() { return bytesReceived; }
+
+    @Override
+    public void close() {
+        transport.close();
+        logger.info("Game client closed ({} snapshots, {} bytes)", snapshotsReceived, bytesReceived);
+    }
+}
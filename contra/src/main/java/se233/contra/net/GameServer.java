@@ -0,0 +1,277 @@
+package se233.contra.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.controller.GameController;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Authoritative headless server: owns the only real {@link GameController},
+ * takes input packets from up to two clients and sends them world snapshots.
+ *
+ * Each snapshot is serialized once per broadcast and kept in a short history.
+ * Every client then gets it delta-encoded against the newest snapshot that
+ * client acknowledged, so a mostly static world costs a few bytes per client.
+ * Nothing here touches JavaFX; run {@link #main} to host a match.
+ */
+public class GameServer implements Runnable, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(GameServer.class);
+
+    static final short SNAPSHOT_MAGIC = 0x534E; // "SN"
+    static final short INPUT_MAGIC = 0x494E;    // "IN"
+    static final int MAX_PACKET_BYTES = 16 + WorldSnapshot.MAX_BYTES * 2;
+
+    private final DatagramChannel channel;
+    private final GameController game;
+    private final int playerCount;
+    private final ClientSlot[] clients;
+
+    // Serialized snapshot history (the delta baselines), indexed by seq % SNAPSHOT_HISTORY
+    private final byte[][] history = new byte[Constants.SNAPSHOT_HISTORY][WorldSnapshot.MAX_BYTES];
+    private final int[] historyLength = new int[Constants.SNAPSHOT_HISTORY];
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+    private final ByteBuffer serializeBuffer = ByteBuffer.allocate(WorldSnapshot.MAX_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer incoming = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer outgoing = ByteBuffer.allocate(MAX_PACKET_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private int tick;
+    private int seq;
+    private boolean started;
+    private volatile boolean running;
+
+    public GameServer(int port, int playerCount, long seed) {
+        this.game = new GameController(seed);
+        this.playerCount = playerCount;
+        this.clients = new ClientSlot[playerCount];
+        try {
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            throw new GameException("Cannot open server port " + port,
+                    GameException.ErrorType.NETWORK_ERROR, e);
+        }
+        logger.info("Game server listening on port {} for {} player(s)", getPort(), playerCount);
+    }
+
+    /**
+     * One server tick: take input, simulate, and broadcast every
+     * SERVER_SNAPSHOT_INTERVAL ticks
+     */
+    public void tick() {
+        long now = System.nanoTime();
+        receiveInputs(now);
+        dropSilentClients(now);
+
+        if (!started && connectedClients() == playerCount) {
+            game.startGame(playerCount, false);
+            started = true;
+            logger.info("All players connected, match started");
+        }
+
+        game.step(Constants.NET_TICK_TIME, inputOf(0), inputOf(1));
+        tick++;
+
+        if (tick % Constants.SERVER_SNAPSHOT_INTERVAL == 0) {
+            broadcast();
+        }
+    }
+
+    private int inputOf(int player) {
+        return player < clients.length && clients[player] != null ? clients[player].input : 0;
+    }
+
+    private void receiveInputs(long now) {
+        while (true) {
+            incoming.clear();
+            SocketAddress from;
+            try {
+                from = channel.receive(incoming);
+            } catch (IOException e) {
+                logger.trace("Server receive failed: {}", e.getMessage());
+                return;
+            }
+            if (from == null) {
+                return;
+            }
+            incoming.flip();
+            if (incoming.remaining() < 8 || incoming.getShort() != INPUT_MAGIC) {
+                continue;
+            }
+
+            ClientSlot client = findOrJoin(from);
+            if (client == null) {
+                continue;   // match full
+            }
+            int ack = incoming.getInt();
+            if (ack > client.ackSeq) {
+                client.ackSeq = ack;
+            }
+            client.input = incoming.getShort() & 0xFFFF;
+            client.lastHeard = now;
+        }
+    }
+
+    private ClientSlot findOrJoin(SocketAddress address) {
+        int free = -1;
+        for (int i = 0; i < clients.length; i++) {
+            if (clients[i] == null) {
+                if (free < 0) free = i;
+            } else if (clients[i].address.equals(address)) {
+                return clients[i];
+            }
+        }
+        if (free < 0) {
+            return null;
+        }
+        clients[free] = new ClientSlot(address);
+        logger.info("Client {} joined as player {}", address, free + 1);
+        return clients[free];
+    }
+
+    private void dropSilentClients(long now) {
+        for (int i = 0; i < clients.length; i++) {
+            ClientSlot client = clients[i];
+            if (client != null && now - client.lastHeard > Constants.CLIENT_TIMEOUT_NANOS) {
+                logger.info("Client {} (player {}) timed out", client.address, i + 1);
+                clients[i] = null;
+            }
+        }
+    }
+
+    private int connectedClients() {
+        int connected = 0;
+        for (ClientSlot client : clients) {
+            if (client != null) connected++;
+        }
+        return connected;
+    }
+
+    private void broadcast() {
+        snapshot.capture(game, tick);
+        serializeBuffer.clear();
+        snapshot.write(serializeBuffer);
+
+        int slot = seq % history.length;
+        historyLength[slot] = serializeBuffer.position();
+        System.arraycopy(serializeBuffer.array(), 0, history[slot], 0, historyLength[slot]);
+
+        for (ClientSlot client : clients) {
+            if (client != null) {
+                send(client, slot);
+            }
+        }
+        seq++;
+    }
+
+    private void send(ClientSlot client, int slot) {
+        // Fall back to a full snapshot if the client's baseline has left the history
+        int base = client.ackSeq;
+        if (base < 0 || seq - base >= history.length) {
+            base = -1;
+        }
+        byte[] baseline = base < 0 ? null : history[base % history.length];
+        int baselineLength = base < 0 ? 0 : historyLength[base % history.length];
+
+        outgoing.clear();
+        outgoing.putShort(SNAPSHOT_MAGIC);
+        outgoing.putInt(seq);
+        outgoing.putInt(base);
+        DeltaCodec.encode(baseline, baselineLength, history[slot], historyLength[slot], outgoing);
+        outgoing.flip();
+
+        client.bytesSent += outgoing.remaining();
+        try {
+            channel.send(outgoing, client.address);
+        } catch (IOException e) {
+            logger.trace("Snapshot send to {} failed: {}", client.address, e.getMessage());
+        }
+    }
+
+    /**
+     * Run ticks at a fixed 60 Hz until {@link #close()}
+     */
+    @Override
+    public void run() {
+        running = true;
+        long tickNanos = (long) (Constants.NET_TICK_TIME * 1_000_000_000L);
+        long next = System.nanoTime();
+        while (running) {
+            tick();
+            next += tickNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -tickNanos * 10) {
+                next = System.nanoTime();   // fell far behind: don't try to catch up
+            }
+        }
+    }
+
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public GameController getGame() { return game; }
+    public int getTick() { return tick; }
+    public boolean isStarted() { return started; }
+
+    /**
+     * Total snapshot bytes sent to a player slot (0 if nobody is connected)
+     */
+    public long getBytesSent(int player) {
+        return clients[player] == null ? 0 : clients[player].bytesSent;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        game.shutdown();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close server channel", e);
+        }
+        logger.info("Game server stopped after {} ticks", tick);
+    }
+
+    private static class ClientSlot {
+        final SocketAddress address;
+        int input;
+        int ackSeq = -1;
+        long lastHeard = System.nanoTime();
+        long bytesSent;
+
+        ClientSlot(SocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * Headless entry point: GameServer [port] [players] [seed]
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        GameServer server = new GameServer(port, players, seed);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.run();
+    }
+}
@@ -0,0 +1,39 @@
+package se233.contra.net;
+
+import se233.contra.util.GameRandom;
+
+/**
+ * Fake network conditions for local testing: a fixed one-way latency and a
+ * random packet loss rate, applied to outgoing packets by {@link UdpTransport}.
+ */
+public class LinkSimulator {
+    public static final LinkSimulator PERFECT = new LinkSimulator(0, 0, 0);
+
+    private final long latencyNanos;
+    private final double lossRate;
+    private final GameRandom random;
+
+    /**
+     * @param latencyMillis one-way delay added to every packet
+     * @param lossRate fraction of packets dropped, 0 to 1
+     * @param seed seed for the loss pattern, so a run can be repeated
+     */
+    public LinkSimulator(int latencyMillis, double lossRate, long seed) {
+        this.latencyNanos = latencyMillis * 1_000_000L;
+        this.lossRate = lossRate;
+        this.random = new GameRandom(seed);
+    }
+
+    boolean shouldDrop() {
+        return lossRate > 0 && random.nextDouble() < lossRate;
+    }
+
+    long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ms, %.0f%% loss", latencyNanos / 1_000_000L, lossRate * 100);
+    }
+}
@@ -0,0 +1,77 @@
+package se233.contra.net;
+
+/**
+ * Counters for a rollback session: how deep rollbacks go and what
+ * re-simulating costs. Times are wall-clock nanoseconds.
+ */
+public class RollbackMetrics {
+    private long ticks;
+    private long stalls;
+    private long rollbacks;
+    private long resimulatedTicks;
+    private int lastDepth;
+    private int maxDepth;
+    private long lastResimNanos;
+    private long maxResimNanos;
+    private long totalResimNanos;
+    private long checksumsCompared;
+    private long desyncs;
+    private int firstDesyncFrame = -1;
+
+    void recordTick() {
+        ticks++;
+    }
+
+    void recordStall() {
+        stalls++;
+    }
+
+    void recordRollback(int depth, long nanos) {
+        rollbacks++;
+        resimulatedTicks += depth;
+        lastDepth = depth;
+        maxDepth = Math.max(maxDepth, depth);
+        lastResimNanos = nanos;
+        maxResimNanos = Math.max(maxResimNanos, nanos);
+        totalResimNanos += nanos;
+    }
+
+    void recordChecksum(int frame, boolean match) {
+        checksumsCompared++;
+        if (!match) {
+            desyncs++;
+            if (firstDesyncFrame < 0) {
+                firstDesyncFrame = frame;
+            }
+        }
+    }
+
+    public long getTicks() { return ticks; }
+    public long getStalls() { return stalls; }
+    public long getRollbacks() { return rollbacks; }
+    public long getResimulatedTicks() { return resimulatedTicks; }
+    public int getLastDepth() { return lastDepth; }
+    public int getMaxDepth() { return maxDepth; }
+    public long getLastResimNanos() { return lastResimNanos; }
+    public long getMaxResimNanos() { return maxResimNanos; }
+    public long getChecksumsCompared() { return checksumsCompared; }
+    public long getDesyncs() { return desyncs; }
+    public int getFirstDesyncFrame() { return firstDesyncFrame; }
+
+    /**
+     * Average cost of one re-simulated tick, including its snapshot
+     */
+    public double getAverageNanosPerResimulatedTick() {
+        return resimulatedTicks == 0 ? 0 : (double) totalResimNanos / resimulatedTicks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ticks=%d stalls=%d rollbacks=%d depth(last/max)=%d/%d " +
+                        "resim(last/max)=%.3f/%.3f ms avg/tick=%.1f us checksums=%d desyncs=%d",
+                ticks, stalls, rollbacks, lastDepth, maxDepth,
+                lastResimNanos / 1e6, maxResimNanos / 1e6,
+                getAverageNanosPerResimulatedTick() / 1e3,
+                checksumsCompared, desyncs);
+    }
+}
@@ -0,0 +1,312 @@
+package se233.contra.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.audio.SoundManager;
+import se233.contra.controller.GameController;
+import se233.contra.controller.StateArena;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Two-player rollback netcode on top of {@link GameController#step}.
+ *
+ * Each tick runs immediately with the local input and a prediction of the
+ * remote one (the last remote input received). The world is saved before
+ * every tick; when real remote input arrives that differs from the
+ * prediction, the session restores the snapshot of that tick and
+ * re-simulates up to the present. The session never runs more than
+ * {@code maxRollback} ticks ahead of the last confirmed remote input, and
+ * stalls instead.
+ *
+ * Both peers must start from the same state (same seed, startGame(2, ...)).
+ * Once a tick can no longer be rolled back its world checksum is sent to the
+ * peer, so a desync shows up in the metrics on the tick it happens.
+ */
+public class RollbackSession implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RollbackSession.class);
+
+    private static final short PACKET_MAGIC = 0x5242; // "RB"
+    private static final int MAX_INPUTS_PER_PACKET = 64;
+    private static final long RESEND_INTERVAL_NANOS = 5_000_000L;
+
+    private final GameController game;
+    private final int localPlayer;
+    private final UdpTransport transport;
+    private final int maxRollback;
+    private final RollbackMetrics metrics = new RollbackMetrics();
+
+    // World state before each of the last maxRollback + 2 ticks
+    private final StateArena snapshots;
+
+    // Input history rings, indexed by frame % INPUT_HISTORY
+    private final int[] localInputs = new int[Constants.ROLLBACK_INPUT_HISTORY];
+    private final int[] remoteInputs = new int[Constants.ROLLBACK_INPUT_HISTORY];
+    private final int[] usedRemoteInputs = new int[Constants.ROLLBACK_INPUT_HISTORY];
+
+    // Checksums of the world before tick f, kept once every input before f is confirmed
+    private final long[] localChecksums = new long[Constants.ROLLBACK_INPUT_HISTORY];
+    private final int[] localChecksumFrames = new int[Constants.ROLLBACK_INPUT_HISTORY];
+    private final long[] remoteChecksums = new long[Constants.ROLLBACK_INPUT_HISTORY];
+    private final int[] remoteChecksumFrames = new int[Constants.ROLLBACK_INPUT_HISTORY];
+    private int lastChecksumFrame = -1;
+
+    private final ByteBuffer outgoing = ByteBuffer.allocate(UdpTransport.MAX_PACKET_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer incoming = ByteBuffer.allocate(UdpTransport.MAX_PACKET_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private int frame;                  // next tick to simulate
+    private int lastRemoteFrame = -1;   // newest contiguous remote input received
+    private int peerAckFrame = -1;      // newest local input the peer confirmed
+    private int rollbackFrom = -1;      // earliest mispredicted tick, or -1
+    private int lastSentFrame = -1;
+    private long lastSendTime;
+
+    /**
+     * @param localPlayer 0 if this machine controls player 1, 1 for player 2
+     */
+    public RollbackSession(GameController game, int localPlayer, UdpTransport transport, int maxRollback) {
+        if (maxRollback < 1 || maxRollback > Constants.ROLLBACK_INPUT_HISTORY / 4) {
+            throw new GameException("Rollback window must be 1.." + Constants.ROLLBACK_INPUT_HISTORY / 4,
+                    GameException.ErrorType.NETWORK_ERROR);
+        }
+        if (game.getPlayer2() == null) {
+            throw new GameException("Rollback needs a two-player game",
+                    GameException.ErrorType.INVALID_GAME_STATE);
+        }
+
+        this.game = game;
+        this.localPlayer = localPlayer;
+        this.transport = transport;
+        this.maxRollback = maxRollback;
+        this.snapshots = new StateArena(maxRollback + 2, Constants.SAVE_STATE_CAPACITY);
+        Arrays.fill(localChecksumFrames, -1);
+        Arrays.fill(remoteChecksumFrames, -1);
+
+        logger.info("Rollback session started as player {} (window {} ticks)", localPlayer + 1, maxRollback);
+    }
+
+    /**
+     * Run one tick with this machine's input.
+     * @return false if the session stalled waiting for the remote player
+     */
+    public boolean advance(int localInput) {
+        receiveAndRollback();
+
+        if (frame - lastRemoteFrame > maxRollback) {
+            metrics.recordStall();
+            sendInputs();
+            return false;
+        }
+
+        localInputs[frame % localInputs.length] = localInput;
+        simulate(frame);
+        frame++;
+        metrics.recordTick();
+
+        sendInputs();
+        return true;
+    }
+
+    /**
+     * Take in remote input, fix up any mispredicted ticks and resend
+     * unacknowledged input, without advancing
+     */
+    public void poll() {
+        receiveAndRollback();
+        sendInputs();
+    }
+
+    private void receiveAndRollback() {
+        while (transport.receive(incoming)) {
+            readInputs(incoming);
+        }
+
+        if (rollbackFrom >= 0) {
+            rollback();
+        }
+        confirmChecksums();
+    }
+
+    /**
+     * Hash every tick that just became final. The world before tick f is final
+     * once all input up to f - 1 is real, and its snapshot is already captured.
+     */
+    private void confirmChecksums() {
+        int newest = Math.min(lastRemoteFrame + 1, frame - 1);
+        for (int f = Math.max(lastChecksumFrame + 1, frame - snapshots.size()); f <= newest; f++) {
+            recordLocalChecksum(f, snapshots.get(f % snapshots.size()).checksum());
+        }
+    }
+
+    private void rollback() {
+        int depth = frame - rollbackFrom;
+        long start = System.nanoTime();
+
+        snapshots.get(rollbackFrom % snapshots.size()).restore(game);
+        SoundManager.setSuppressed(true);
+        try {
+            for (int f = rollbackFrom; f < frame; f++) {
+                simulate(f);
+            }
+        } finally {
+            SoundManager.setSuppressed(false);
+        }
+
+        long nanos = System.nanoTime() - start;
+        metrics.recordRollback(depth, nanos);
+        logger.debug("Rolled back {} tick(s) to frame {} in {} us", depth, rollbackFrom, nanos / 1000);
+        rollbackFrom = -1;
+    }
+
+    private void simulate(int f) {
+        snapshots.get(f % snapshots.size()).capture(game);
+
+        int slot = f % localInputs.length;
+        int remote = predictRemote(f);
+        usedRemoteInputs[slot] = remote;
+
+        if (localPlayer == 0) {
+            game.step(Constants.NET_TICK_TIME, localInputs[slot], remote);
+        } else {
+            game.step(Constants.NET_TICK_TIME, remote, localInputs[slot]);
+        }
+    }
+
+    private void recordLocalChecksum(int f, long checksum) {
+        int slot = f % localChecksums.length;
+        localChecksums[slot] = checksum;
+        localChecksumFrames[slot] = f;
+        lastChecksumFrame = f;
+        if (remoteChecksumFrames[slot] == f) {
+            compareChecksums(f, slot);
+        }
+    }
+
+    private void recordRemoteChecksum(int f, long checksum) {
+        int slot = f % remoteChecksums.length;
+        if (f < 0 || remoteChecksumFrames[slot] == f) {
+            return;     // none yet, or a repeat
+        }
+        remoteChecksums[slot] = checksum;
+        remoteChecksumFrames[slot] = f;
+        if (localChecksumFrames[slot] == f) {
+            compareChecksums(f, slot);
+        }
+    }
+
+    private void compareChecksums(int f, int slot) {
+        boolean match = localChecksums[slot] == remoteChecksums[slot];
+        if (!match && metrics.getDesyncs() == 0) {
+            logger.error("Desync at frame {}: local {} remote {}", f,
+                    Long.toHexString(localChecksums[slot]), Long.toHexString(remoteChecksums[slot]));
+        }
+        metrics.recordChecksum(f, match);
+    }
+
+    /**
+     * Confirmed input if we have it, otherwise assume the remote player is
+     * still holding whatever they held last
+     */
+    private int predictRemote(int f) {
+        if (f <= lastRemoteFrame) {
+            return remoteInputs[f % remoteInputs.length];
+        }
+        return lastRemoteFrame < 0 ? 0 : remoteInputs[lastRemoteFrame % remoteInputs.length];
+    }
+
+    // ------------------------------------------------------------------------
+    // Wire format: magic, ack, first frame, count, then count input masks,
+    // then the newest confirmed checksum (frame int, -1 if none, and long).
+    // Every packet repeats all inputs the peer has not acknowledged yet, so
+    // lost packets need no separate retransmission.
+    // ------------------------------------------------------------------------
+    private void sendInputs() {
+        int first = Math.max(peerAckFrame + 1, frame - localInputs.length + 1);
+        int count = Math.min(frame - first, MAX_INPUTS_PER_PACKET);
+        if (count <= 0 && lastRemoteFrame < 0) {
+            return;
+        }
+
+        // New input goes out at once; repeats are rate-limited for tight poll loops
+        long now = System.nanoTime();
+        if (frame == lastSentFrame && now - lastSendTime < RESEND_INTERVAL_NANOS) {
+            return;
+        }
+        lastSentFrame = frame;
+        lastSendTime = now;
+
+        outgoing.clear();
+        outgoing.putShort(PACKET_MAGIC);
+        outgoing.putInt(lastRemoteFrame);
+        outgoing.putInt(first);
+        outgoing.put((byte) Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            outgoing.putShort((short) localInputs[(first + i) % localInputs.length]);
+        }
+        outgoing.putInt(lastChecksumFrame);
+        outgoing.putLong(lastChecksumFrame < 0 ? 0 : localChecksums[lastChecksumFrame % localChecksums.length]);
+        outgoing.flip();
+        transport.send(outgoing);
+    }
+
+    private void readInputs(ByteBuffer packet) {
+        if (packet.remaining() < 11 || packet.getShort() != PACKET_MAGIC) {
+            logger.debug("Ignoring unknown packet ({} bytes)", packet.limit());
+            return;
+        }
+
+        peerAckFrame = Math.max(peerAckFrame, packet.getInt());
+        int first = packet.getInt();
+        int count = packet.get() & 0xFF;
+        if (packet.remaining() < count * 2 + 12) {
+            return;
+        }
+        int checksumAt = packet.position() + count * 2;
+        recordRemoteChecksum(packet.getInt(checksumAt), packet.getLong(checksumAt + Integer.BYTES));
+
+        for (int i = 0; i < count; i++) {
+            int f = first + i;
+            int input = packet.getShort() & 0xFFFF;
+            if (f <= lastRemoteFrame) {
+                continue;           // already have it
+            }
+            if (f != lastRemoteFrame + 1) {
+                break;              // gap: wait for the resend
+            }
+
+            int slot = f % remoteInputs.length;
+            remoteInputs[slot] = input;
+            lastRemoteFrame = f;
+
+            if (f < frame && usedRemoteInputs[slot] != input) {
+                rollbackFrom = rollbackFrom < 0 ? f : Math.min(rollbackFrom, f);
+            }
+        }
+    }
+
+    // Getters
+    public int getFrame() { return frame; }
+    public int getLastRemoteFrame() { return lastRemoteFrame; }
+    public RollbackMetrics getMetrics() { return metrics; }
+
+    /**
+     * True when every simulated tick used real remote input, i.e. the current
+     * world can no longer be rolled back
+     */
+    public boolean isSynchronized() {
+        return lastRemoteFrame == frame - 1 && rollbackFrom < 0;
+    }
+
+    @Override
+    public void close() {
+        transport.close();
+        logger.info("Rollback session closed: {}", metrics);
+    }
+}
@@ -0,0 +1,294 @@
+package se233.contra.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.controller.GameController;
+import se233.contra.controller.TickListener;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a live match to any number of TCP spectators.
+ *
+ * Each tick is captured and encoded exactly once into a ring of pooled direct
+ * buffers: a full keyframe every SPECTATOR_KEYFRAME_INTERVAL ticks and a delta
+ * against the previous frame otherwise. Subscribers only hold a cursor into
+ * the ring and get the shared frames with one gathering write per tick, so
+ * adding a spectator costs no encoding work.
+ *
+ * A spectator that falls SPECTATOR_MAX_LAG frames behind is not buffered for:
+ * it finishes the frame it is in the middle of, drops the rest of its backlog
+ * and resumes at the next keyframe.
+ */
+public class SpectatorBroadcaster implements TickListener, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorBroadcaster.class);
+
+    // Frame: length int (of what follows), type byte, seq int, delta
+    static final int FRAME_HEADER_BYTES = 9;
+    static final byte FRAME_DELTA = 0;
+    static final byte FRAME_KEY = 1;
+    static final int MAX_FRAME_BYTES = FRAME_HEADER_BYTES + 8 + WorldSnapshot.MAX_BYTES * 2;
+
+    private static final int RING = Constants.SPECTATOR_FRAME_RING;
+
+    private final ServerSocketChannel server;
+    private final int sendBufferBytes;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    // Encoded frames, indexed by seq % RING
+    private final ByteBuffer[] frames = new ByteBuffer[RING];
+
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+    private ByteBuffer previous = ByteBuffer.allocate(WorldSnapshot.MAX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer current = ByteBuffer.allocate(WorldSnapshot.MAX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private int seq;
+    private int latestKeyframe = -1;
+    private long skips;
+    private long dropped;
+
+    public SpectatorBroadcaster(int port) {
+        this(port, 0);
+    }
+
+    /**
+     * @param sendBufferBytes socket send buffer per spectator; 0 keeps the OS default.
+     *                        Smaller buffers make slow spectators skip sooner.
+     */
+    public SpectatorBroadcaster(int port, int sendBufferBytes) {
+        this.sendBufferBytes = sendBufferBytes;
+        for (int i = 0; i < RING; i++) {
+            frames[i] = ByteBuffer.allocateDirect(MAX_FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port), Constants.SPECTATOR_ACCEPT_BACKLOG);
+            server.configureBlocking(false);
+        } catch (IOException e) {
+            throw new GameException("Cannot open spectator port " + port,
+                    GameException.ErrorType.NETWORK_ERROR, e);
+        }
+        logger.info("Spectator broadcast on port {}", getPort());
+    }
+
+    @Override
+    public void onTick(GameController game) {
+        acceptSubscribers();
+        publish(game);
+
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            Subscriber subscriber = subscribers.get(i);
+            if (!subscriber.flush()) {
+                drop(i, "disconnected");
+            }
+        }
+    }
+
+    private void acceptSubscribers() {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (sendBufferBytes > 0) {
+                    channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferBytes);
+                }
+                Subscriber subscriber = new Subscriber(channel);
+                // Start at the newest keyframe if it is recent, otherwise wait for the next one
+                if (latestKeyframe >= 0 && seq - latestKeyframe < Constants.SPECTATOR_MAX_LAG) {
+                    subscriber.nextSeq = latestKeyframe;
+                }
+                subscribers.add(subscriber);
+                logger.info("Spectator {} joined ({} watching)", channel.getRemoteAddress(), subscribers.size());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to accept spectator: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Encode this tick once into the next ring slot
+     */
+    private void publish(GameController game) {
+        boolean key = seq % Constants.SPECTATOR_KEYFRAME_INTERVAL == 0;
+        applyBackpressure();
+
+        snapshot.capture(game, seq);
+        current.clear();
+        snapshot.write(current);
+
+        ByteBuffer frame = frames[seq % RING];
+        frame.clear();
+        frame.putInt(0);
+        frame.put(key ? FRAME_KEY : FRAME_DELTA);
+        frame.putInt(seq);
+        if (key) {
+            DeltaCodec.encode(null, 0, current.array(), current.position(), frame);
+        } else {
+            DeltaCodec.encode(previous.array(), previous.position(), current.array(), current.position(), frame);
+        }
+        frame.putInt(0, frame.position() - Integer.BYTES);
+        frame.flip();
+
+        if (key) {
+            latestKeyframe = seq;
+            for (int i = 0; i < subscribers.size(); i++) {
+                Subscriber subscriber = subscribers.get(i);
+                if (subscriber.nextSeq < 0) {
+                    subscriber.nextSeq = seq;
+                }
+            }
+        }
+
+        ByteBuffer swap = previous;
+        previous = current;
+        current = swap;
+        seq++;
+    }
+
+    /**
+     * Before a slot is overwritten: spectators too far behind give up their
+     * backlog and wait for a keyframe instead of holding frames
+     */
+    private void applyBackpressure() {
+        for (int i = 0; i < subscribers.size(); i++) {
+            Subscriber subscriber = subscribers.get(i);
+            if (subscriber.nextSeq >= 0 && seq - subscriber.nextSeq >= Constants.SPECTATOR_MAX_LAG) {
+                subscriber.skipToKeyframe();
+                skips++;
+            }
+        }
+    }
+
+    private void drop(int index, String reason) {
+        Subscriber subscriber = subscribers.remove(index);
+        try {
+            subscriber.channel.close();
+        } catch (IOException e) {
+            logger.trace("Failed to close spectator: {}", e.getMessage());
+        }
+        dropped++;
+        logger.info("Spectator dropped ({}), {} watching", reason, subscribers.size());
+    }
+
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public int getSubscriberCount() { return subscribers.size(); }
+    public int getFramesPublished() { return seq; }
+    public long getSkips() { return skips; }
+    public long getDropped() { return dropped; }
+
+    @Override
+    public void close() {
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            drop(i, "broadcast closed");
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close spectator port", e);
+        }
+        logger.info("Spectator broadcast stopped after {} frames", seq);
+    }
+
+    /**
+     * One spectator: a cursor into the shared ring plus its own views of the
+     * frames, so gathering writes never copy or touch another spectator's state
+     */
+    private class Subscriber {
+        final SocketChannel channel;
+        final ByteBuffer[] views = new ByteBuffer[RING];
+        final ByteBuffer[] batch = new ByteBuffer[RING + 1];
+        int nextSeq = -1;   // -1 while waiting for a keyframe
+        int offset;         // bytes of nextSeq already written
+        ByteBuffer tail;    // unsent end of a frame we skipped away from mid-write
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+            for (int i = 0; i < RING; i++) {
+                views[i] = frames[i].duplicate();
+            }
+        }
+
+        /**
+         * Drop the backlog. A half-written frame is finished from a private
+         * copy so the stream stays aligned on frame boundaries.
+         */
+        void skipToKeyframe() {
+            if (offset > 0) {
+                if (tail == null) {
+                    tail = ByteBuffer.allocateDirect(MAX_FRAME_BYTES);
+                }
+                ByteBuffer view = views[nextSeq % RING];
+                view.limit(frames[nextSeq % RING].limit());
+                view.position(offset);
+                tail.clear();
+                tail.put(view);
+                tail.flip();
+            }
+            nextSeq = -1;
+            offset = 0;
+        }
+
+        /**
+         * Write as much of the backlog as the socket takes without blocking
+         * @return false if the spectator has gone away
+         */
+        boolean flush() {
+            int count = 0;
+            boolean hasTail = tail != null && tail.hasRemaining();
+            if (hasTail) {
+                batch[count++] = tail;
+            }
+            for (int s = nextSeq; s >= 0 && s < seq && count < batch.length; s++) {
+                ByteBuffer view = views[s % RING];
+                view.limit(frames[s % RING].limit());
+                view.position(s == nextSeq ? offset : 0);
+                batch[count++] = view;
+            }
+            if (count == 0) {
+                return true;
+            }
+
+            try {
+                channel.write(batch, 0, count);
+            } catch (IOException e) {
+                return false;
+            }
+
+            int first = 0;
+            if (hasTail) {
+                if (tail.hasRemaining()) {
+                    return true;
+                }
+                first = 1;
+            }
+            for (int i = first; i < count; i++) {
+                if (batch[i].hasRemaining()) {
+                    offset = batch[i].position();
+                    return true;
+                }
+                nextSeq++;
+                offset = 0;
+            }
+            return true;
+        }
+    }
+}
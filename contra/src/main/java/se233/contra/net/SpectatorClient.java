@@ -0,0 +1,136 @@
+package se233.contra.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Watches a {@link SpectatorBroadcaster} stream. Frames are decoded in order
+ * against the previous one; after a gap the client waits for a keyframe.
+ */
+public class SpectatorClient implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorClient.class);
+
+    private final SocketChannel channel;
+    private final ByteBuffer incoming = ByteBuffer.allocate(SpectatorBroadcaster.MAX_FRAME_BYTES * 4)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private byte[] previous = new byte[WorldSnapshot.MAX_BYTES];
+    private byte[] current = new byte[WorldSnapshot.MAX_BYTES];
+    private int previousLength;
+    private int lastSeq = -1;
+
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+    private long framesDecoded;
+    private long framesSkipped;
+
+    public SpectatorClient(InetSocketAddress broadcaster) {
+        this(connect(broadcaster));
+    }
+
+    /**
+     * Watch over an already connected channel (e.g. one with tuned socket options)
+     */
+    SpectatorClient(SocketChannel channel) {
+        this.channel = channel;
+        try {
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            throw new GameException("Cannot use spectator connection", GameException.ErrorType.NETWORK_ERROR, e);
+        }
+    }
+
+    private static SocketChannel connect(InetSocketAddress broadcaster) {
+        try {
+            return SocketChannel.open(broadcaster);
+        } catch (IOException e) {
+            throw new GameException("Cannot connect to spectator broadcast " + broadcaster,
+                    GameException.ErrorType.NETWORK_ERROR, e);
+        }
+    }
+
+    /**
+     * Read whatever has arrived without blocking
+     * @return number of frames decoded by this call
+     */
+    public int poll() {
+        int decoded = 0;
+        try {
+            int read;
+            while ((read = channel.read(incoming)) > 0 || incoming.position() > 0) {
+                incoming.flip();
+                decoded += decodeFrames();
+                incoming.compact();
+                if (read <= 0) break;
+            }
+            if (read < 0) {
+                throw new GameException("Spectator broadcast ended", GameException.ErrorType.NETWORK_ERROR);
+            }
+        } catch (IOException e) {
+            throw new GameException("Spectator stream failed", GameException.ErrorType.NETWORK_ERROR, e);
+        }
+        return decoded;
+    }
+
+    private int decodeFrames() {
+        int decoded = 0;
+        while (incoming.remaining() >= Integer.BYTES) {
+            int length = incoming.getInt(incoming.position());
+            if (length < SpectatorBroadcaster.FRAME_HEADER_BYTES - Integer.BYTES
+                    || length > SpectatorBroadcaster.MAX_FRAME_BYTES) {
+                throw new GameException("Corrupt spectator frame", GameException.ErrorType.NETWORK_ERROR);
+            }
+            if (incoming.remaining() < Integer.BYTES + length) {
+                break;
+            }
+
+            int end = incoming.position() + Integer.BYTES + length;
+            incoming.getInt();
+            byte type = incoming.get();
+            int seq = incoming.getInt();
+
+            boolean key = type == SpectatorBroadcaster.FRAME_KEY;
+            if (key || (lastSeq >= 0 && seq == lastSeq + 1)) {
+                int size = DeltaCodec.decode(key ? null : previous, key ? 0 : previousLength, incoming, current);
+                snapshot.read(ByteBuffer.wrap(current, 0, size).order(ByteOrder.LITTLE_ENDIAN));
+
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+                previousLength = size;
+                lastSeq = seq;
+                framesDecoded++;
+                decoded++;
+            } else {
+                // The broadcaster skipped us ahead; deltas are useless until the next keyframe
+                lastSeq = -1;
+                framesSkipped++;
+            }
+            incoming.position(end);
+        }
+        return decoded;
+    }
+
+    public boolean hasSnapshot() { return framesDecoded > 0; }
+    public WorldSnapshot getSnapshot() { return snapshot; }
+    public int getLastSeq() { return lastSeq; }
+    public long getFramesDecoded() { return framesDecoded; }
+    public long getFramesSkipped() { return framesSkipped; }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close spectator connection", e);
+        }
+        logger.info("Spectator closed after {} frames", framesDecoded);
+    }
+}
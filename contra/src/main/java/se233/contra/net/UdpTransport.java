@@ -0,0 +1,157 @@
+package se233.contra.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Non-blocking UDP link to a single peer.
+ *
+ * Outgoing packets pass through a {@link LinkSimulator}: they may be dropped, or
+ * held in a queue until their simulated latency has passed. Held packets go
+ * out on the next send or receive call, so the owner only has to poll.
+ */
+public class UdpTransport implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(UdpTransport.class);
+
+    public static final int MAX_PACKET_BYTES = 512;
+
+    private final DatagramChannel channel;
+    private final SocketAddress peer;
+    private final LinkSimulator link;
+    private final int maxPacketBytes;
+
+    // Delayed packets in send order; their buffers are recycled through spare
+    private final ArrayDeque<Pending> delayed = new ArrayDeque<>();
+    private final ArrayDeque<Pending> spare = new ArrayDeque<>();
+
+    private long packetsSent;
+    private long packetsDropped;
+    private long packetsReceived;
+
+    public UdpTransport(int localPort, InetSocketAddress peer, LinkSimulator link) {
+        this(localPort, peer, link, MAX_PACKET_BYTES);
+    }
+
+    public UdpTransport(int localPort, InetSocketAddress peer, LinkSimulator link, int maxPacketBytes) {
+        this.peer = peer;
+        this.link = link;
+        this.maxPacketBytes = maxPacketBytes;
+        try {
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(localPort));
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            throw new GameException("Cannot open UDP port " + localPort,
+                    GameException.ErrorType.NETWORK_ERROR, e);
+        }
+        logger.info("UDP transport on port {} -> {} ({})", getLocalPort(), peer, link);
+    }
+
+    /**
+     * Send the remaining bytes of {@code packet} (subject to the link simulator)
+     */
+    public void send(ByteBuffer packet) {
+        flushDelayed();
+
+        if (link.shouldDrop()) {
+            packetsDropped++;
+            return;
+        }
+
+        if (link.getLatencyNanos() == 0) {
+            write(packet);
+            return;
+        }
+
+        Pending pending = spare.isEmpty() ? new Pending(maxPacketBytes) : spare.poll();
+        pending.data.clear();
+        pending.data.put(packet);
+        pending.data.flip();
+        pending.dueAt = System.nanoTime() + link.getLatencyNanos();
+        delayed.add(pending);
+    }
+
+    /**
+     * Read one waiting packet into {@code into} (cleared first, flipped after).
+     * @return false if nothing has arrived
+     */
+    public boolean receive(ByteBuffer into) {
+        flushDelayed();
+
+        into.clear();
+        SocketAddress from;
+        try {
+            from = channel.receive(into);
+        } catch (IOException e) {
+            // Typically ICMP port unreachable while the peer is not up yet
+            logger.trace("UDP receive failed: {}", e.getMessage());
+            return false;
+        }
+        if (from == null) {
+            return false;
+        }
+        into.flip();
+        packetsReceived++;
+        return true;
+    }
+
+    private void flushDelayed() {
+        long now = System.nanoTime();
+        while (!delayed.isEmpty() && delayed.peek().dueAt <= now) {
+            Pending pending = delayed.poll();
+            write(pending.data);
+            spare.add(pending);
+        }
+    }
+
+    private void write(ByteBuffer packet) {
+        try {
+            channel.send(packet, peer);
+            packetsSent++;
+        } catch (IOException e) {
+            // UDP is lossy anyway; the sender resends until acknowledged
+            logger.trace("UDP send failed: {}", e.getMessage());
+        }
+    }
+
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public long getPacketsSent() { return packetsSent; }
+    public long getPacketsDropped() { return packetsDropped; }
+    public long getPacketsReceived() { return packetsReceived; }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close UDP channel", e);
+        }
+        logger.info("UDP transport closed (sent {}, dropped {}, received {})",
+                packetsSent, packetsDropped, packetsReceived);
+    }
+
+    private static class Pending {
+        final ByteBuffer data;
+        long dueAt;
+
+        Pending(int capacity) {
+            data = ByteBuffer.allocate(capacity);
+        }
+    }
+}
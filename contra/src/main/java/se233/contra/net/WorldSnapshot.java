@@ -0,0 +1,261 @@
+package se233.contra.net;
+
+import se233.contra.controller.GameController;
+import se233.contra.model.Boss1;
+import se233.contra.model.Bullet;
+import se233.contra.model.Explosion;
+import se233.contra.model.GameObject;
+import se233.contra.model.Player;
+import se233.contra.model.Soldier;
+import se233.contra.util.Constants;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * What a client needs to draw one server tick: HUD values plus a flat list
+ * of sprites (clip, frame, position, flags) in draw order.
+ *
+ * Unlike {@link se233.contra.controller.SaveState} this is lossy and small.
+ * Positions are quantized to 1/8 px in a short, and per-entity booleans are
+ * bit-packed after the records. The fixed record layout keeps unchanged entities
+ * byte-identical between ticks, so {@link DeltaCodec} compresses them to almost nothing.
+ */
+public class WorldSnapshot {
+    public static final int FLAG_FACING_RIGHT = 1;
+
+    private static final int QUANT = 8;
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 1 + 1 + 2 * (4 + 1) + 2;
+    private static final int ENTITY_BYTES = 1 + 1 + 2 + 2;
+    public static final int MAX_BYTES = HEADER_BYTES + Constants.SNAPSHOT_MAX_ENTITIES * ENTITY_BYTES
+            + (Constants.SNAPSHOT_MAX_ENTITIES + 7) / 8;
+
+    private static final GameController.GameState[] STATES = GameController.GameState.values();
+
+    // Header
+    private int tick;
+    private int state;
+    private int wave;
+    private int playerCount;
+    private boolean paused;
+    private final int[] score = new int[2];
+    private final int[] lives = new int[2];
+
+    // Entities, struct-of-arrays
+    private int count;
+    private final byte[] clip = new byte[Constants.SNAPSHOT_MAX_ENTITIES];
+    private final byte[] frame = new byte[Constants.SNAPSHOT_MAX_ENTITIES];
+    private final byte[] flags = new byte[Constants.SNAPSHOT_MAX_ENTITIES];
+    private final float[] x = new float[Constants.SNAPSHOT_MAX_ENTITIES];
+    private final float[] y = new float[Constants.SNAPSHOT_MAX_ENTITIES];
+
+    /**
+     * Record the drawable state of the world, in the same order GameView draws it
+     */
+    public void capture(GameController game, int tick) {
+        this.tick = tick;
+        this.state = game.getCurrentState().ordinal();
+        this.wave = game.getCurrentWave();
+        this.paused = game.isPaused();
+        this.count = 0;
+
+        Player player = game.getPlayer();
+        Player player2 = game.getPlayer2();
+        playerCount = player == null ? 0 : (player2 == null ? 1 : 2);
+        capturePlayer(0, player);
+        capturePlayer(1, player2);
+
+        List<Soldier> soldiers = game.getSoldiers();
+        for (int i = 0; i < soldiers.size(); i++) {
+            Soldier soldier = soldiers.get(i);
+            if (!soldier.isActive()) continue;
+            addBullets(soldier.getBullets());
+            add(soldier);
+        }
+
+        Boss1 boss = game.getBoss();
+        if (boss != null && boss.isActive()) {
+            for (int i = 0; i < boss.getCores().size(); i++) {
+                addIfActive(boss.getCores().get(i));
+            }
+            if (boss.getLeftCannon().isActive()) {
+                addBullets(boss.getLeftCannon().getBullets());
+                add(boss.getLeftCannon());
+            }
+            if (boss.getRightCannon().isActive()) {
+                addBullets(boss.getRightCannon().getBullets());
+                add(boss.getRightCannon());
+            }
+            addIfActive(boss.getDoor());
+        }
+
+        List<Explosion> explosions = game.getExplosions();
+        for (int i = 0; i < explosions.size(); i++) {
+            addIfActive(explosions.get(i));
+        }
+    }
+
+    private void capturePlayer(int index, Player player) {
+        if (player == null) {
+            score[index] = 0;
+            lives[index] = 0;
+            return;
+        }
+        score[index] = player.getScore();
+        lives[index] = player.getLives();
+        if (player.isActive()) {
+            addBullets(player.getBullets());
+            add(player);
+        }
+    }
+
+    private void addBullets(List<Bullet> bullets) {
+        for (int i = 0; i < bullets.size(); i++) {
+            Bullet bullet = bullets.get(i);
+            if (!bullet.isActive()) continue;
+            // Hit bullets draw their explosion centered on the impact point
+            double offset = bullet.hasHit() ? -12 : 0;
+            add(bullet, bullet.getX() + offset, bullet.getY() + offset);
+        }
+    }
+
+    private void addIfActive(GameObject object) {
+        if (object.isActive()) {
+            add(object);
+        }
+    }
+
+    private void add(GameObject object) {
+        add(object, object.getX(), object.getY());
+    }
+
+    private void add(GameObject object, double drawX, double drawY) {
+        if (count == Constants.SNAPSHOT_MAX_ENTITIES || object.getClip() == null) {
+            return;
+        }
+        clip[count] = (byte) object.getClip().ordinal();
+        frame[count] = (byte) object.getClipFrameIndex();
+        flags[count] = (byte) (object.isFacingRight() ? FLAG_FACING_RIGHT : 0);
+        x[count] = (float) drawX;
+        y[count] = (float) drawY;
+        count++;
+    }
+
+    // ------------------------------------------------------------------------
+    // Serialization (fixed layout, see class comment)
+    // ------------------------------------------------------------------------
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(tick);
+        buffer.put((byte) state);
+        buffer.put((byte) wave);
+        buffer.put((byte) ((paused ? 1 : 0) | (playerCount << 1)));
+        buffer.put((byte) 0);
+        for (int p = 0; p < 2; p++) {
+            buffer.putInt(score[p]);
+            buffer.put((byte) lives[p]);
+        }
+        buffer.putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            buffer.put(clip[i]);
+            buffer.put(frame[i]);
+            buffer.putShort(quantize(x[i]));
+            buffer.putShort(quantize(y[i]));
+        }
+
+        // One bit per entity
+        for (int base = 0; base < count; base += 8) {
+            int bits = 0;
+            for (int b = 0; b < 8 && base + b < count; b++) {
+                bits |= (flags[base + b] & FLAG_FACING_RIGHT) << b;
+            }
+            buffer.put((byte) bits);
+        }
+    }
+
+    public void read(ByteBuffer buffer) {
+        tick = buffer.getInt();
+        state = buffer.get();
+        wave = buffer.get();
+        byte packed = buffer.get();
+        paused = (packed & 1) != 0;
+        playerCount = (packed >> 1) & 3;
+        buffer.get();
+        for (int p = 0; p < 2; p++) {
+            score[p] = buffer.getInt();
+            lives[p] = buffer.get();
+        }
+        count = Math.min(buffer.getShort(), Constants.SNAPSHOT_MAX_ENTITIES);
+        for (int i = 0; i < count; i++) {
+            clip[i] = buffer.get();
+            frame[i] = buffer.get();
+            x[i] = buffer.getShort() / (float) QUANT;
+            y[i] = buffer.getShort() / (float) QUANT;
+        }
+
+        for (int base = 0; base < count; base += 8) {
+            int bits = buffer.get();
+            for (int b = 0; b < 8 && base + b < count; b++) {
+                flags[base + b] = (byte) ((bits >> b) & FLAG_FACING_RIGHT);
+            }
+        }
+    }
+
+    private static short quantize(float value) {
+        int q = Math.round(value * QUANT);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, q));
+    }
+
+    /**
+     * Blend two snapshots for display: HUD and sprite frames come from
+     * {@code to}, positions are interpolated. Entities are matched by slot;
+     * a slot whose clip changed or that jumped more than
+     * {@link Constants#SNAPSHOT_SNAP_DISTANCE} is not blended (it is a
+     * different entity after list compaction).
+     */
+    public void interpolate(WorldSnapshot from, WorldSnapshot to, double t) {
+        copyFrom(to);
+        int shared = Math.min(from.count, to.count);
+        for (int i = 0; i < shared; i++) {
+            if (from.clip[i] != to.clip[i]) continue;
+            float dx = to.x[i] - from.x[i];
+            float dy = to.y[i] - from.y[i];
+            if (Math.abs(dx) > Constants.SNAPSHOT_SNAP_DISTANCE
+                    || Math.abs(dy) > Constants.SNAPSHOT_SNAP_DISTANCE) {
+                continue;
+            }
+            x[i] = (float) (from.x[i] + dx * t);
+            y[i] = (float) (from.y[i] + dy * t);
+        }
+    }
+
+    public void copyFrom(WorldSnapshot other) {
+        tick = other.tick;
+        state = other.state;
+        wave = other.wave;
+        playerCount = other.playerCount;
+        paused = other.paused;
+        System.arraycopy(other.score, 0, score, 0, 2);
+        System.arraycopy(other.lives, 0, lives, 0, 2);
+        count = other.count;
+        System.arraycopy(other.clip, 0, clip, 0, count);
+        System.arraycopy(other.frame, 0, frame, 0, count);
+        System.arraycopy(other.flags, 0, flags, 0, count);
+        System.arraycopy(other.x, 0, x, 0, count);
+        System.arraycopy(other.y, 0, y, 0, count);
+    }
+
+    // Getters
+    public int getTick() { return tick; }
+    public GameController.GameState getState() { return STATES[state]; }
+    public int getWave() { return wave; }
+    public int getPlayerCount() { return playerCount; }
+    public boolean isPaused() { return paused; }
+    public int getScore(int player) { return score[player]; }
+    public int getLives(int player) { return lives[player]; }
+    public int getEntityCount() { return count; }
+    public int getClip(int i) { return clip[i]; }
+    public int getFrame(int i) { return frame[i]; }
+    public boolean isFacingRight(int i) { return (flags[i] & FLAG_FACING_RIGHT) != 0; }
+    public float getX(int i) { return x[i]; }
+    public float getY(int i) { return y[i]; }
+}
@@ -0,0 +1,246 @@
+package se233.contra.script;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles a boss behavior script into a single MethodHandle.
+ *
+ * A script lists the boss's states and, for each, what it does every tick:
+ * <pre>
+ * state ATTACKING
+ *   do attack
+ *   after 5.0 -> DOOR_OPENING
+ * state EXPLODING
+ *   after 4.0 do onDefeated
+ * </pre>
+ * {@code do m} calls the boss method m(double deltaTime) or m();
+ * {@code after t} runs the rest of the line once the boss has been in the
+ * state longer than t seconds (a number or a Constants field name);
+ * {@code -> S} switches to state S. Lines run in order; # starts a comment.
+ *
+ * The boss class provides {@code int stateIndex()} and
+ * {@code void enterState(int)} (they may be private), and a full-privilege
+ * Lookup from itself. Compiling binds everything up front: the result is a
+ * tree of MethodHandle combinators, a table switch on the state whose cases
+ * are the states' statements folded in sequence, with the method handles and
+ * constants inlined. Held in a static final field it is a constant to the JIT,
+ * which compiles the whole script into the caller like hand-written Java.
+ */
+public final class BossScript {
+    private static final Logger logger = LoggerFactory.getLogger(BossScript.class);
+
+    private static final MethodHandle LONGER_THAN;
+
+    static {
+        try {
+            LONGER_THAN = MethodHandles.lookup().findStatic(BossScript.class, "longerThan",
+                    MethodType.methodType(boolean.class, double.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private BossScript() {
+    }
+
+    /**
+     * Load and compile a script resource
+     * @param lookup a Lookup from the boss class, to reach its (private) methods
+     * @param states the boss's states; state names in the script are these
+     * @return a handle of type (boss, double deltaTime) -> void
+     */
+    public static MethodHandle load(String path, MethodHandles.Lookup lookup, Enum<?>[] states) {
+        try (InputStream is = BossScript.class.getResourceAsStream(path)) {
+            if (is == null) {
+                throw new GameException("Boss script not found: " + path,
+                        GameException.ErrorType.RESOURCE_NOT_FOUND);
+            }
+            MethodHandle program = compile(new String(is.readAllBytes(), StandardCharsets.UTF_8), lookup, states);
+            logger.info("Compiled boss script {}", path);
+            return program;
+        } catch (IOException e) {
+            throw new GameException("Failed to read boss script: " + path,
+                    GameException.ErrorType.RESOURCE_NOT_FOUND, e);
+        }
+    }
+
+    /**
+     * Compile script source for the lookup's class
+     * @return a handle of type (boss, double deltaTime) -> void
+     */
+    public static MethodHandle compile(String source, MethodHandles.Lookup lookup, Enum<?>[] states) {
+        Class<?> boss = lookup.lookupClass();
+        MethodType tick = MethodType.methodType(void.class, boss, double.class);
+        Compiler compiler = new Compiler(lookup, states, tick);
+
+        String[] lines = source.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            try {
+                compiler.line(lines[i]);
+            } catch (GameException e) {
+                throw new GameException("Boss script line " + (i + 1) + ": " + e.getMessage(),
+                        GameException.ErrorType.INVALID_GAME_STATE, e);
+            }
+        }
+        return compiler.finish();
+    }
+
+    private static boolean longerThan(double timer, double seconds) {
+        return timer > seconds;
+    }
+
+    private static final class Compiler {
+        private final MethodHandles.Lookup lookup;
+        private final Class<?> boss;
+        private final Enum<?>[] states;
+        private final MethodType tick;
+        private final MethodHandle stateTimer;
+        private final MethodHandle enterState;
+
+        // Compiled statements of each state, in script order
+        private final List<List<MethodHandle>> bodies = new ArrayList<>();
+        private int current = -1;
+
+        Compiler(MethodHandles.Lookup lookup, Enum<?>[] states, MethodType tick) {
+            this.lookup = lookup;
+            this.boss = lookup.lookupClass();
+            this.states = states;
+            this.tick = tick;
+            for (int i = 0; i < states.length; i++) {
+                bodies.add(new ArrayList<>());
+            }
+            this.stateTimer = find("getStateTimer", MethodType.methodType(double.class));
+            this.enterState = find("enterState", MethodType.methodType(void.class, int.class));
+        }
+
+        void line(String raw) {
+            int comment = raw.indexOf('#');
+            String[] words = (comment >= 0 ? raw.substring(0, comment) : raw).trim().split("\\s+");
+            if (words[0].isEmpty()) {
+                return;
+            }
+
+            if (words[0].equals("state")) {
+                expect(words, 2);
+                current = stateIndex(words[1]);
+                return;
+            }
+            if (current < 0) {
+                throw error("statement before the first state");
+            }
+            bodies.get(current).add(statement(words, 0));
+        }
+
+        /**
+         * One statement from words[at], as a (boss, double) -> void handle
+         */
+        private MethodHandle statement(String[] words, int at) {
+            switch (words[at]) {
+                case "do" -> {
+                    expect(words, at + 2);
+                    return action(words[at + 1]);
+                }
+                case "->" -> {
+                    expect(words, at + 2);
+                    MethodHandle enter = MethodHandles.insertArguments(enterState, 1, stateIndex(words[at + 1]));
+                    return MethodHandles.dropArguments(enter, 1, double.class);
+                }
+                case "after" -> {
+                    if (words.length < at + 3) {
+                        throw error("'after' needs a time and a statement");
+                    }
+                    MethodHandle test = MethodHandles.filterArguments(
+                            MethodHandles.insertArguments(LONGER_THAN, 1, seconds(words[at + 1])), 0, stateTimer);
+                    test = MethodHandles.dropArguments(test, 1, double.class);
+                    return MethodHandles.guardWithTest(test, statement(words, at + 2), MethodHandles.empty(tick));
+                }
+                default -> throw error("unknown statement '" + words[at] + "'");
+            }
+        }
+
+        private MethodHandle action(String name) {
+            try {
+                return lookup.findVirtual(boss, name, MethodType.methodType(void.class, double.class)).asType(tick);
+            } catch (NoSuchMethodException e) {
+                MethodHandle noArgs = find(name, MethodType.methodType(void.class));
+                return MethodHandles.dropArguments(noArgs, 1, double.class);
+            } catch (IllegalAccessException e) {
+                throw error("cannot call " + name);
+            }
+        }
+
+        private MethodHandle find(String name, MethodType type) {
+            try {
+                return lookup.findVirtual(boss, name, type).asType(type.insertParameterTypes(0, boss));
+            } catch (ReflectiveOperationException e) {
+                throw error(boss.getSimpleName() + " has no method " + name + type);
+            }
+        }
+
+        private double seconds(String word) {
+            try {
+                return Double.parseDouble(word);
+            } catch (NumberFormatException e) {
+                try {
+                    return Constants.class.getField(word).getDouble(null);
+                } catch (ReflectiveOperationException | IllegalArgumentException notConstant) {
+                    throw error("'" + word + "' is neither a number nor a Constants field");
+                }
+            }
+        }
+
+        private int stateIndex(String name) {
+            for (Enum<?> state : states) {
+                if (state.name().equals(name)) {
+                    return state.ordinal();
+                }
+            }
+            throw error("unknown state " + name + ", expected one of " + Arrays.toString(states));
+        }
+
+        private void expect(String[] words, int count) {
+            if (words.length != count) {
+                throw error("expected " + count + " words in '" + String.join(" ", words) + "'");
+            }
+        }
+
+        /**
+         * A table switch over stateIndex() whose cases run each state's
+         * statements in order; states without any do nothing
+         */
+        MethodHandle finish() {
+            MethodHandle nothing = MethodHandles.empty(tick);
+            MethodHandle[] cases = new MethodHandle[states.length];
+            for (int s = 0; s < states.length; s++) {
+                List<MethodHandle> body = bodies.get(s);
+                MethodHandle run = nothing;
+                for (int i = body.size() - 1; i >= 0; i--) {
+                    // foldArguments runs the (void) combiner first, then the target
+                    run = run == nothing ? body.get(i) : MethodHandles.foldArguments(run, body.get(i));
+                }
+                cases[s] = MethodHandles.dropArguments(run, 0, int.class);
+            }
+            MethodHandle dispatch = MethodHandles.tableSwitch(
+                    MethodHandles.dropArguments(nothing, 0, int.class), cases);
+            MethodHandle selector = find("stateIndex", MethodType.methodType(int.class));
+            return MethodHandles.foldArguments(dispatch, selector);
+        }
+
+        private GameException error(String message) {
+            return new GameException(message, GameException.ErrorType.INVALID_GAME_STATE);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package se233.contra.util;
+
+/**
+ * Axis-aligned box, wherever its four numbers are kept: {@link Rectangle}
+ * holds them in fields, an entity's {@link RecordArena} record holds them
+ * off the heap. Everything here goes through the accessors.
+ */
+public abstract class AbstractRectangle {
+    public static final double NO_IMPACT = Double.POSITIVE_INFINITY;
+
+    // Getters/Setters
+    public abstract double getX();
+    public abstract double getY();
+    public abstract double getWidth();
+    public abstract double getHeight();
+    public abstract void set(double x, double y, double width, double height);
+
+    public void setX(double x) {
+        set(x, getY(), getWidth(), getHeight());
+    }
+
+    public void setY(double y) {
+        set(getX(), y, getWidth(), getHeight());
+    }
+
+    public void setPosition(double x, double y) {
+        setX(x);
+        setY(y);
+    }
+
+    public void setSize(double width, double height) {
+        set(getX(), getY(), width, height);
+    }
+
+    // Collision detection
+    public boolean intersects(AbstractRectangle other) {
+        return intersects(other.getX(), other.getY(), other.getWidth(), other.getHeight());
+    }
+
+    public boolean intersects(double ox, double oy, double owidth, double oheight) {
+        double x = getX();
+        double y = getY();
+        return x < ox + owidth &&
+                x + getWidth() > ox &&
+                y < oy + oheight &&
+                y + getHeight() > oy;
+    }
+
+    /**
+     * Earliest fraction (0-1) of the move (dx, dy) at which a width x height
+     * box starting at (bx, by) overlaps this rectangle, or NO_IMPACT if it
+     * never does. Swept version of {@link #intersects}: a box that moves
+     * right through this one in a single step still hits it.
+     */
+    public double timeOfImpact(double bx, double by, double bwidth, double bheight, double dx, double dy) {
+        return timeOfImpact(getX(), getY(), getWidth(), getHeight(), bx, by, bwidth, bheight, dx, dy);
+    }
+
+    /**
+     * {@link #timeOfImpact(double, double, double, double, double, double)}
+     * against the box (x, y, width, height), for boxes that are not
+     * held in a Rectangle
+     */
+    public static double timeOfImpact(double x, double y, double width, double height,
+                                      double bx, double by, double bwidth, double bheight,
+                                      double dx, double dy) {
+        // Slab test of the box's corner against this rectangle grown by the box's size
+        double enter = 0;
+        double exit = 1;
+        if (dx == 0) {
+            if (bx <= x - bwidth || bx >= x + width) return NO_IMPACT;
+        } else {
+            double t0 = (x - bwidth - bx) / dx;
+            double t1 = (x + width - bx) / dx;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+        if (dy == 0) {
+            if (by <= y - bheight || by >= y + height) return NO_IMPACT;
+        } else {
+            double t0 = (y - bheight - by) / dy;
+            double t1 = (y + height - by) / dy;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+        return enter < exit ? enter : NO_IMPACT;
+    }
+
+    public boolean contains(double px, double py) {
+        double x = getX();
+        double y = getY();
+        return px >= x && px <= x + getWidth() &&
+                py >= y && py <= y + getHeight();
+    }
+
+    // Boundaries
+    public double getLeft() { return getX(); }
+    public double getRight() { return getX() + getWidth(); }
+    public double getTop() { return getY(); }
+    public double getBottom() { return getY() + getHeight(); }
+    public double getCenterX() { return getX() + getWidth() / 2; }
+    public double getCenterY() { return getY() + getHeight() / 2; }
+
+    @Override
+    public String toString() {
+        return String.format("Rectangle(%.0f, %.0f, %.0f, %.0f)", getX(), getY(), getWidth(), getHeight());
+    }
+}
@@ -0,0 +1,114 @@
+package se233.contra.util;
+
+/**
+ * A 2D vector, wherever its two numbers are kept: {@link Vector2D} holds
+ * them in fields, an entity's {@link RecordArena} record holds them off the
+ * heap. Everything here goes through the accessors.
+ */
+public abstract class AbstractVector2D {
+    // Getters/Setters
+    public abstract double getX();
+    public abstract double getY();
+    public abstract void setX(double x);
+    public abstract void setY(double y);
+
+    public void set(double x, double y) {
+        setX(x);
+        setY(y);
+    }
+
+    public void set(AbstractVector2D other) {
+        set(other.getX(), other.getY());
+    }
+
+    // Vector operations
+    public Vector2D add(AbstractVector2D other) {
+        return new Vector2D(getX() + other.getX(), getY() + other.getY());
+    }
+
+    public Vector2D subtract(AbstractVector2D other) {
+        return new Vector2D(getX() - other.getX(), getY() - other.getY());
+    }
+
+    public Vector2D multiply(double scalar) {
+        return new Vector2D(getX() * scalar, getY() * scalar);
+    }
+
+    public double magnitude() {
+        return Math.sqrt(getX() * getX() + getY() * getY());
+    }
+
+    public Vector2D normalize() {
+        double mag = magnitude();
+        if (mag == 0) return new Vector2D(0, 0);
+        return new Vector2D(getX() / mag, getY() / mag);
+    }
+
+    public double distance(AbstractVector2D other) {
+        double dx = getX() - other.getX();
+        double dy = getY() - other.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // เพิ่ม: เมธอดสำหรับหมุนเวกเตอร์ (เป็นองศา)
+    public Vector2D rotate(double degrees) {
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double x = getX();
+        double y = getY();
+        double newX = x * cos - y * sin;
+        double newY = x * sin + y * cos;
+        return new Vector2D(newX, newY);
+    }
+
+    // In-place variants: mutate this vector and return it, no allocation
+    public AbstractVector2D addLocal(double dx, double dy) {
+        set(getX() + dx, getY() + dy);
+        return this;
+    }
+
+    public AbstractVector2D addLocal(AbstractVector2D other) {
+        return addLocal(other.getX(), other.getY());
+    }
+
+    public AbstractVector2D subtractLocal(AbstractVector2D other) {
+        set(getX() - other.getX(), getY() - other.getY());
+        return this;
+    }
+
+    public AbstractVector2D multiplyLocal(double scalar) {
+        set(getX() * scalar, getY() * scalar);
+        return this;
+    }
+
+    public AbstractVector2D normalizeLocal() {
+        double mag = magnitude();
+        if (mag == 0) {
+            set(0, 0);
+        } else {
+            set(getX() / mag, getY() / mag);
+        }
+        return this;
+    }
+
+    /**
+     * Rotate in place by a precomputed cos/sin pair (avoids trig per call)
+     */
+    public AbstractVector2D rotateLocal(double cos, double sin) {
+        double x = getX();
+        double y = getY();
+        set(x * cos - y * sin, x * sin + y * cos);
+        return this;
+    }
+
+    public AbstractVector2D rotateLocal(double degrees) {
+        double radians = Math.toRadians(degrees);
+        return rotateLocal(Math.cos(radians), Math.sin(radians));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Vector2D(%.2f, %.2f)", getX(), getY());
+    }
+}
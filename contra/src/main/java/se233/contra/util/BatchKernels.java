@@ -0,0 +1,83 @@
+package se233.contra.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loops over primitive arrays (structure-of-arrays) for bullet swarms:
+ * moving, culling and box-testing thousands of bullets at once. They serve
+ * the boss's pattern swarms ({@code BulletPatternEngine}), whose bullets
+ * already live in arrays; the few dozen bullets of players, soldiers and
+ * cannons still move and hit-test one by one in {@code Bullet}.
+ *
+ * Two implementations give bit-identical results: a SIMD one built on the
+ * incubating Vector API, and a plain scalar one. {@link #get()} picks once,
+ * at startup: the vector one when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, unless
+ * {@code -Dcontra.kernels=scalar} asks for the scalar one. Arithmetic is
+ * the same per element in both (no fused multiply-add), so replays and
+ * network peers agree whichever one they run.
+ */
+public abstract class BatchKernels {
+    private static final Logger logger = LoggerFactory.getLogger(BatchKernels.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final BatchKernels SELECTED = select();
+
+    /**
+     * The kernels chosen for this JVM
+     */
+    public static BatchKernels get() {
+        return SELECTED;
+    }
+
+    /**
+     * The scalar kernels, whatever was selected
+     */
+    public static BatchKernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+
+    private static BatchKernels select() {
+        if ("scalar".equals(System.getProperty("contra.kernels"))) {
+            logger.info("Using scalar batch kernels (requested)");
+            return ScalarKernels.INSTANCE;
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            logger.info("Using scalar batch kernels ({} not enabled)", VECTOR_MODULE);
+            return ScalarKernels.INSTANCE;
+        }
+        try {
+            // Loaded by name so the scalar path never links against the incubator module
+            BatchKernels vector = (BatchKernels) Class.forName("se233.contra.util.VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+            logger.info("Using {} batch kernels", vector.getName());
+            return vector;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Vector kernels unavailable, using scalar: {}", e.toString());
+            return ScalarKernels.INSTANCE;
+        }
+    }
+
+    /**
+     * x += vx * dt and y += vy * dt for the first n elements
+     */
+    public abstract void integrate(double[] x, double[] y, double[] vx, double[] vy, int n, double dt);
+
+    /**
+     * Flag the points strictly outside [minX, maxX] x [minY, maxY]: bit
+     * (i &amp; 63) of out[i &gt;&gt; 6] is set for each. out needs (n + 63) / 64 words.
+     * @return how many are outside
+     */
+    public abstract int outside(double[] x, double[] y, int n,
+                                double minX, double minY, double maxX, double maxY, long[] out);
+
+    /**
+     * How many width x height boxes with corners (x[i], y[i]) overlap the box,
+     * by {@link Rectangle#intersects}'s strict test
+     */
+    public abstract int overlapping(double[] x, double[] y, int n, double width, double height,
+                                    double left, double top, double right, double bottom);
+
+    public abstract String getName();
+}
@@ -14,6 +14,8 @@ public class Constants {
     public static final double PLAYER_SPEED = 200.0;
     public static final double JUMP_FORCE = -450.0;
     public static final double BULLET_SPEED = 500.0;
+    public static final double MAX_DELTA_TIME = 0.1;      // longest step a frame may take
+    public static final double MAX_FALL_SPEED = 600.0;
     // ✅ แก้ไข: ปรับระดับพื้นให้ตรงกับพื้นของ background (600px แทน 520px)
     public static final double GROUND_Y = 650.0;
 
@@ -22,6 +24,26 @@ public class Constants {
     public static final int MINION_WAVES_BEFORE_BOSS = 2;
     public static final int MINIONS_PER_WAVE = 1;
     public static final double INVINCIBILITY_TIME = 2.0;
+    public static final int EXPLOSION_POOL_SIZE = 8;
+    public static final int PLAYER_BULLET_POOL_SIZE = 24; // bullets per player, created up front
+    public static final int ENEMY_BULLET_POOL_SIZE = 4;   // bullets per soldier or boss cannon
+    public static final int ENTITY_RECORDS = 256;         // off-heap records reserved for the world's entities
+
+    // Soldier AI level of detail
+    public static final double AI_NEAR_DISTANCE = 400.0;  // full-rate AI this close to a player
+    public static final int AI_MID_PERIOD = 4;            // ticks between AI runs, on screen
+    public static final int AI_FAR_PERIOD = 8;            // ticks between AI runs, off screen
+    public static final int AI_THINK_BUDGET = 16;         // reduced-rate AI runs per tick
+
+    // Collision narrowphase
+    public static final int COLLISION_STRIPS = 4;            // screen strips, one worker thread each
+    public static final int COLLISION_PARALLEL_PAIRS = 8192; // bullets x targets below this stay on one thread
+
+    // Terrain and enemy navigation
+    public static final int TILE_SIZE = 25;               // GROUND_Y falls on a tile edge
+    public static final int SOLDIER_JUMP_TILES = 4;       // JUMP_FORCE clears ~5 tiles
+    public static final int SOLDIER_JUMP_REACH = 3;       // tiles across in one jump
+    public static final int SOLDIER_ENGAGE_TILES = 8;     // stop and hold this far (route tiles) from a player
 
     // Boss 1 (Defense Wall)
     public static final int BOSS1_DOOR_HP = 20;
@@ -39,6 +61,7 @@ public class Constants {
     public static final int SOLDIER_HEIGHT = 32;
     public static final int BULLET_SIZE = 20;
     public static final int EXPLOSION_SIZE = 32;
+    public static final int MASK_ALPHA_THRESHOLD = 128;   // Pixels at least this opaque are solid
 
     // Scoring
     public static final int SCORE_MINION_KILL = 100;
@@ -54,6 +77,39 @@ public class Constants {
     public static final KeyCode KEY_SHOOT = KeyCode.Z;
     public static final KeyCode KEY_PAUSE = KeyCode.P;
     public static final KeyCode KEY_RESTART = KeyCode.R;
+    public static final KeyCode KEY_RIFLE = KeyCode.A;
+    public static final KeyCode KEY_SPREAD_GUN = KeyCode.S;
+    public static final KeyCode KEY_QUICK_SAVE = KeyCode.F5;
+    public static final KeyCode KEY_QUICK_LOAD = KeyCode.F9;
+    public static final KeyCode KEY_FLIGHT_DUMP = KeyCode.F12;
+    public static final KeyCode KEY_REPLAY_STEP = KeyCode.PERIOD;
+
+    // Save state
+    public static final int SAVE_STATE_CAPACITY = 64 * 1024;
+
+    // Flight recorder
+    public static final int FLIGHT_RECORDER_SECONDS = 10;
+    public static final int FLIGHT_RECORDER_KEYFRAME_TICKS = 60;
+    public static final String FLIGHT_RECORDER_DIR = "logs";
+
+    // Rollback netplay
+    public static final double NET_TICK_TIME = 1.0 / 60.0;
+    public static final int ROLLBACK_MAX_FRAMES = 8;
+    public static final int ROLLBACK_INPUT_HISTORY = 128;
+
+    // Authoritative server / snapshot clients
+    public static final int SERVER_SNAPSHOT_INTERVAL = 2;     // ticks per snapshot (30 Hz)
+    public static final int SNAPSHOT_HISTORY = 32;            // baselines kept for delta encoding
+    public static final int SNAPSHOT_MAX_ENTITIES = 512;
+    public static final double SNAPSHOT_SNAP_DISTANCE = 64.0;
+    public static final int CLIENT_INTERP_DELAY_TICKS = 4;    // render two snapshots behind
+    public static final long CLIENT_TIMEOUT_NANOS = 5_000_000_000L;
+
+    // Spectator broadcast
+    public static final int SPECTATOR_FRAME_RING = 64;          // encoded frames kept for slow readers
+    public static final int SPECTATOR_KEYFRAME_INTERVAL = 30;   // ticks between full frames
+    public static final int SPECTATOR_MAX_LAG = 32;             // frames behind before skipping ahead
+    public static final int SPECTATOR_ACCEPT_BACKLOG = 256;     // joins queued between ticks
 
     // Animation
     public static final double IDLE_ANIMATION_SPEED = 0.2;
@@ -68,11 +124,31 @@ public class Constants {
     public static final String UI_SPRITE = "/sprites/ui.png";
     public static final String BACKGROUND = "/sprites/background.png";
 
-    // Sound paths
-    public static final String SOUND_SHOOT = "/sounds/shoot.wav";
+    // Boss behavior scripts
+    public static final String BOSS1_SCRIPT = "/scripts/boss1.boss";
+
+    // Sound paths (copied from ../Sound into /sounds by the build)
+    public static final String SOUND_RIFLE = "/sounds/rifle.wav";
+    public static final String SOUND_SPREAD_GUN = "/sounds/GunSpecial_attack.wav";
+    public static final String SOUND_ENEMY_HIT = "/sounds/enemy_hit.wav";
+    public static final String SOUND_ENEMY_DEATH = "/sounds/enemy_death.wav";
     public static final String SOUND_EXPLOSION = "/sounds/explosion.wav";
-    public static final String SOUND_HIT = "/sounds/hit.wav";
     public static final String SOUND_DEATH = "/sounds/death.wav";
+    public static final String SOUND_PAUSE = "/sounds/pause.wav";
+    public static final String MUSIC_TITLE = "/sounds/title.wav";
+    public static final String MUSIC_STAGE_CLEAR = "/sounds/stage_clear.wav";
+    public static final String MUSIC_GAME_OVER = "/sounds/game_over.wav";
+
+    // Audio mixer
+    public static final float AUDIO_SAMPLE_RATE = 48000f;
+    public static final int AUDIO_CHANNELS = 2;
+    public static final int AUDIO_MIX_FRAMES = 256;      // ~5 ms per mix block
+    public static final int AUDIO_LINE_BUFFER_FRAMES = 1024;
+    public static final int AUDIO_VOICES = 16;
+    public static final int MUSIC_RING_FRAMES = 16384;   // ~0.34 s streamed ahead
+    public static final int MUSIC_CHUNK_BYTES = 4096;
+    public static final double MUSIC_CROSSFADE_TIME = 1.0;
+    public static final float MUSIC_GAIN = 0.5f;
 
     private Constants() {
         // Prevent instantiation
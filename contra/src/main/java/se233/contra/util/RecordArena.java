@@ -0,0 +1,182 @@
+package se233.contra.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Kinematic state of entities in one contiguous off-heap region, as fixed
+ * 64-byte records: position, velocity and bounds, eight little-endian doubles.
+ *
+ * An entity bound to a record ({@link #allocate}) reads and writes it through
+ * the record's {@link AbstractVector2D} and {@link AbstractRectangle} views,
+ * so the rest of the code is unchanged while the numbers themselves stay off
+ * the heap. Records are accessed through a VarHandle over a direct buffer
+ * (the Java 17 stand-in for a MemorySegment).
+ *
+ * Snapshots: a record is copied whole, in one bulk copy, where its entity is
+ * saved ({@link Record#write}) and back again on restore ({@link Record#read}).
+ * Capturing never moves records, so a snapshot or checksum leaves the live
+ * world untouched. Entities on the heap save the same 64 bytes
+ * ({@link #write(ByteBuffer, AbstractVector2D, AbstractVector2D, AbstractRectangle)}),
+ * so either side of a snapshot may be in an arena or not. Slots are never
+ * freed; pooled entities keep theirs for the life of the arena.
+ */
+public final class RecordArena {
+    public static final int RECORD_BYTES = 64;
+
+    private static final int POS_X = 0;
+    private static final int POS_Y = 8;
+    private static final int VEL_X = 16;
+    private static final int VEL_Y = 24;
+    private static final int BOX_X = 32;
+    private static final int BOX_Y = 40;
+    private static final int BOX_W = 48;
+    private static final int BOX_H = 56;
+
+    private static final VarHandle DOUBLE =
+            MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteBuffer region;
+    private int count;
+
+    public RecordArena(int initialRecords) {
+        this.region = ByteBuffer.allocateDirect(Math.max(initialRecords, 1) * RECORD_BYTES);
+    }
+
+    /**
+     * A new record, initially all zero
+     */
+    public Record allocate() {
+        ensureCapacity(count + 1);
+        return new Record(count++);
+    }
+
+    private void ensureCapacity(int records) {
+        int capacity = region.capacity() / RECORD_BYTES;
+        if (records <= capacity) return;
+        ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(records, capacity * 2) * RECORD_BYTES);
+        grown.put(0, region, 0, count * RECORD_BYTES);
+        region = grown;
+    }
+
+    /**
+     * Append the record of an entity kept on the heap, in the layout of
+     * {@link Record#write}
+     */
+    public static void write(ByteBuffer out, AbstractVector2D position, AbstractVector2D velocity,
+                             AbstractRectangle bounds) {
+        int base = out.position();
+        DOUBLE.set(out, base + POS_X, position.getX());
+        DOUBLE.set(out, base + POS_Y, position.getY());
+        DOUBLE.set(out, base + VEL_X, velocity.getX());
+        DOUBLE.set(out, base + VEL_Y, velocity.getY());
+        DOUBLE.set(out, base + BOX_X, bounds.getX());
+        DOUBLE.set(out, base + BOX_Y, bounds.getY());
+        DOUBLE.set(out, base + BOX_W, bounds.getWidth());
+        DOUBLE.set(out, base + BOX_H, bounds.getHeight());
+        out.position(base + RECORD_BYTES);
+    }
+
+    /**
+     * Read a record written by either write into an entity kept on the heap
+     */
+    public static void read(ByteBuffer in, AbstractVector2D position, AbstractVector2D velocity,
+                            AbstractRectangle bounds) {
+        int base = in.position();
+        position.set((double) DOUBLE.get(in, base + POS_X), (double) DOUBLE.get(in, base + POS_Y));
+        velocity.set((double) DOUBLE.get(in, base + VEL_X), (double) DOUBLE.get(in, base + VEL_Y));
+        bounds.set((double) DOUBLE.get(in, base + BOX_X), (double) DOUBLE.get(in, base + BOX_Y),
+                (double) DOUBLE.get(in, base + BOX_W), (double) DOUBLE.get(in, base + BOX_H));
+        in.position(base + RECORD_BYTES);
+    }
+
+    /**
+     * Records allocated so far
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Off-heap bytes held by this arena
+     */
+    public int capacity() {
+        return region.capacity();
+    }
+
+    private double load(int offset) {
+        return (double) DOUBLE.get(region, offset);
+    }
+
+    private void store(int offset, double value) {
+        DOUBLE.set(region, offset, value);
+    }
+
+    /**
+     * One entity's record and the views onto it
+     */
+    public final class Record {
+        private final int slot;
+
+        public final AbstractVector2D position = new Vector(POS_X);
+        public final AbstractVector2D velocity = new Vector(VEL_X);
+        public final AbstractRectangle bounds = new Box();
+
+        private Record(int slot) {
+            this.slot = slot;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        /**
+         * Append this record's 64 bytes to out in one bulk copy
+         */
+        public void write(ByteBuffer out) {
+            out.put(out.position(), region, slot * RECORD_BYTES, RECORD_BYTES);
+            out.position(out.position() + RECORD_BYTES);
+        }
+
+        /**
+         * Overwrite this record with 64 bytes saved by a write
+         */
+        public void read(ByteBuffer in) {
+            region.put(slot * RECORD_BYTES, in, in.position(), RECORD_BYTES);
+            in.position(in.position() + RECORD_BYTES);
+        }
+
+        private final class Vector extends AbstractVector2D {
+            private final int field;
+
+            Vector(int field) {
+                this.field = field;
+            }
+
+            @Override public double getX() { return load(slot * RECORD_BYTES + field); }
+            @Override public double getY() { return load(slot * RECORD_BYTES + field + 8); }
+            @Override public void setX(double x) { store(slot * RECORD_BYTES + field, x); }
+            @Override public void setY(double y) { store(slot * RECORD_BYTES + field + 8, y); }
+        }
+
+        private final class Box extends AbstractRectangle {
+            @Override public double getX() { return load(slot * RECORD_BYTES + BOX_X); }
+            @Override public double getY() { return load(slot * RECORD_BYTES + BOX_Y); }
+            @Override public double getWidth() { return load(slot * RECORD_BYTES + BOX_W); }
+            @Override public double getHeight() { return load(slot * RECORD_BYTES + BOX_H); }
+            @Override public void setX(double x) { store(slot * RECORD_BYTES + BOX_X, x); }
+            @Override public void setY(double y) { store(slot * RECORD_BYTES + BOX_Y, y); }
+
+            @Override
+            public void set(double x, double y, double width, double height) {
+                int base = slot * RECORD_BYTES;
+                store(base + BOX_X, x);
+                store(base + BOX_Y, y);
+                store(base + BOX_W, width);
+                store(base + BOX_H, height);
+            }
+        }
+    }
+}
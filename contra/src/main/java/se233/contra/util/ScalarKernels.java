@@ -0,0 +1,50 @@
+package se233.contra.util;
+
+/**
+ * Plain loop versions of the batch kernels, and the reference the vector
+ * ones must match
+ */
+final class ScalarKernels extends BatchKernels {
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    @Override
+    public void integrate(double[] x, double[] y, double[] vx, double[] vy, int n, double dt) {
+        for (int i = 0; i < n; i++) {
+            x[i] = x[i] + vx[i] * dt;
+            y[i] = y[i] + vy[i] * dt;
+        }
+    }
+
+    @Override
+    public int outside(double[] x, double[] y, int n,
+                       double minX, double minY, double maxX, double maxY, long[] out) {
+        int count = 0;
+        for (int w = 0; w < (n + 63) >>> 6; w++) {
+            out[w] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            if (x[i] < minX || x[i] > maxX || y[i] < minY || y[i] > maxY) {
+                out[i >>> 6] |= 1L << (i & 63);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int overlapping(double[] x, double[] y, int n, double width, double height,
+                           double left, double top, double right, double bottom) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (x[i] < right && x[i] + width > left && y[i] < bottom && y[i] + height > top) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
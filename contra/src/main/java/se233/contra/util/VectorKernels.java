@@ -0,0 +1,99 @@
+package se233.contra.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch kernels on the Vector API, as many doubles per instruction as the
+ * CPU's widest vectors hold. Only loaded when the incubator module is
+ * enabled (see {@link BatchKernels#get()}); the scalar tail of each loop
+ * does exactly what {@link ScalarKernels} does.
+ */
+final class VectorKernels extends BatchKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public void integrate(double[] x, double[] y, double[] vx, double[] vy, int n, double dt) {
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            // mul then add, never fma: must round like the scalar loop
+            DoubleVector.fromArray(SPECIES, vx, i).mul(dt)
+                    .add(DoubleVector.fromArray(SPECIES, x, i)).intoArray(x, i);
+            DoubleVector.fromArray(SPECIES, vy, i).mul(dt)
+                    .add(DoubleVector.fromArray(SPECIES, y, i)).intoArray(y, i);
+        }
+        for (; i < n; i++) {
+            x[i] = x[i] + vx[i] * dt;
+            y[i] = y[i] + vy[i] * dt;
+        }
+    }
+
+    @Override
+    public int outside(double[] x, double[] y, int n,
+                       double minX, double minY, double maxX, double maxY, long[] out) {
+        for (int w = 0; w < (n + 63) >>> 6; w++) {
+            out[w] = 0;
+        }
+        int count = 0;
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector xs = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector ys = DoubleVector.fromArray(SPECIES, y, i);
+            VectorMask<Double> gone = xs.compare(VectorOperators.LT, minX)
+                    .or(xs.compare(VectorOperators.GT, maxX))
+                    .or(ys.compare(VectorOperators.LT, minY))
+                    .or(ys.compare(VectorOperators.GT, maxY));
+            // Most groups have nobody leaving. Reading single lanes (or
+            // toLong()) is not an intrinsic on JDK 17 and would box the mask,
+            // so the rare group that does is redone with scalar compares
+            if (gone.anyTrue()) {
+                for (int j = i; j < i + LANES; j++) {
+                    if (x[j] < minX || x[j] > maxX || y[j] < minY || y[j] > maxY) {
+                        out[j >>> 6] |= 1L << (j & 63);
+                        count++;
+                    }
+                }
+            }
+        }
+        for (; i < n; i++) {
+            if (x[i] < minX || x[i] > maxX || y[i] < minY || y[i] > maxY) {
+                out[i >>> 6] |= 1L << (i & 63);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int overlapping(double[] x, double[] y, int n, double width, double height,
+                           double left, double top, double right, double bottom) {
+        int count = 0;
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            DoubleVector xs = DoubleVector.fromArray(SPECIES, x, i);
+            DoubleVector ys = DoubleVector.fromArray(SPECIES, y, i);
+            VectorMask<Double> hit = xs.compare(VectorOperators.LT, right)
+                    .and(xs.add(width).compare(VectorOperators.GT, left))
+                    .and(ys.compare(VectorOperators.LT, bottom))
+                    .and(ys.add(height).compare(VectorOperators.GT, top));
+            count += hit.trueCount();
+        }
+        for (; i < n; i++) {
+            if (x[i] < right && x[i] + width > left && y[i] < bottom && y[i] + height > top) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.vectorBitSize() + "-bit)";
+    }
+}
@@ -0,0 +1,161 @@
+package se233.contra.view;
+
+import javafx.scene.image.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.util.CollisionMask;
+import se233.contra.util.Constants;
+
+/**
+ * Shared animation clips.
+ *
+ * Each clip is a strip of equally sized frames on a spritesheet, and its
+ * timing (frame count, frame duration, looping) is fixed so the simulation
+ * can ask "which frame / is it finished" without any images loaded. Frames
+ * are extracted once by {@link #loadAll()} and shared by every entity;
+ * entities only keep the clip and the time it started.
+ *
+ * Collision masks, and their mirror images, come straight from the sheets'
+ * pixels the first time any clip is hit-tested, whether or not the view
+ * ever loads: a headless server tests the same pixels a client draws.
+ */
+public enum AnimationClip {
+    PLAYER_IDLE("player", 0, 8, 24, 34, 2, Constants.IDLE_ANIMATION_SPEED, true),
+    PLAYER_RUN("player", 0, 43, 20, 35, 6, Constants.RUN_ANIMATION_SPEED, true),
+    PLAYER_JUMP("player", 122, 52, 20, 20, 3, 0.1, true),
+    PLAYER_PRONE("player", 80, 25, 31, 18, 1, 0.1, true),
+    PLAYER_SHOOT("player", 0, 79, 25, 34, 2, Constants.SHOOT_ANIMATION_SPEED, true),
+    PLAYER_DEATH("enemies", 92, 611, 30, 30, 3, 0.1, false),
+
+    SOLDIER_RUN("enemies", 40, 417, 18, 25, 3, 0.15, true),
+    SOLDIER_SHOOT("enemies", 95, 418, 15, 24, 1, 0.2, true),
+    SOLDIER_DEATH("enemies", 92, 611, 30, 30, 3, 0.15, false),
+
+    BULLET("enemies", 199, 72, 3, 3, 1, 1.0, true),
+    BULLET_HIT("enemies", 92, 611, 30, 30, 3, 0.05, false),
+    EXPLOSION("enemies", 92, 611, 30, 30, 3, Constants.EXPLOSION_ANIMATION_SPEED, false),
+
+    BOSS1_DOOR("boss1", 80, 0, 80, 180, 1, 1.0, true),
+    BOSS1_CANNON("boss1", 10, 100, 24, 16, 1, 1.0, true),
+    BOSS1_CORE("boss1", 10, 80, 32, 32, 3, 0.2, true);
+
+    private static final Logger logger = LoggerFactory.getLogger(AnimationClip.class);
+
+    // values() clones the array on every call
+    private static final AnimationClip[] VALUES = values();
+
+    // Where the strip's first frame sits on its sheet; the rest follow to the right
+    private final String sheet;
+    private final int x, y, width, height;
+    private final int frameCount;
+    private final double frameDuration;
+    private final boolean loop;
+
+    // Written once by loadAll(), read-only afterwards
+    private Image[] frames;
+
+    AnimationClip(String sheet, int x, int y, int width, int height,
+                  int frameCount, double frameDuration, boolean loop) {
+        this.sheet = sheet;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.frameCount = frameCount;
+        this.frameDuration = frameDuration;
+        this.loop = loop;
+    }
+
+    /**
+     * Masks of every clip's frames, built when first needed
+     */
+    private static final class Masks {
+        static final CollisionMask[][] PLAIN = new CollisionMask[VALUES.length][];
+        static final CollisionMask[][] MIRRORED = new CollisionMask[VALUES.length][];
+
+        static {
+            for (AnimationClip clip : VALUES) {
+                CollisionMask[] masks = SpriteLoader.createMasks(clip.sheet,
+                        clip.x, clip.y, clip.width, clip.height, clip.frameCount);
+                CollisionMask[] mirrored = new CollisionMask[masks.length];
+                for (int i = 0; i < masks.length; i++) {
+                    mirrored[i] = masks[i].mirrored();
+                }
+                PLAIN[clip.ordinal()] = masks;
+                MIRRORED[clip.ordinal()] = mirrored;
+            }
+            logger.debug("Built collision masks for {} animation clips", VALUES.length);
+        }
+    }
+
+    /**
+     * Extract the frames of every clip from the spritesheets.
+     * Called by {@link SpriteLoader#initialize()}.
+     */
+    static void loadAll() {
+        for (AnimationClip clip : values()) {
+            Image[] images = new Image[clip.frameCount];
+            for (int i = 0; i < images.length; i++) {
+                images[i] = SpriteLoader.getSprite(clip.sheet,
+                        clip.x + i * clip.width, clip.y, clip.width, clip.height);
+            }
+            clip.frames = images;
+        }
+        logger.debug("Loaded {} animation clips", values().length);
+    }
+
+    /**
+     * Frame index after the given time since the clip started
+     */
+    public int frameIndex(double elapsed) {
+        int index = (int) (elapsed / frameDuration);
+        if (loop) {
+            return index % frameCount;
+        }
+        return Math.min(index, frameCount - 1);
+    }
+
+    /**
+     * Non-looping clips finish once every frame has been shown
+     */
+    public boolean isFinished(double elapsed) {
+        return !loop && elapsed >= frameCount * frameDuration;
+    }
+
+    /**
+     * Frame image to draw, or null when sprites are not loaded (headless)
+     */
+    public Image frameAt(double elapsed) {
+        Image[] loaded = frames;
+        if (loaded == null) return null;
+        return loaded[frameIndex(elapsed)];
+    }
+
+    /**
+     * Collision mask of the frame shown after the given time, mirrored for
+     * sprites drawn flipped. Available headless too.
+     */
+    public CollisionMask maskAt(double elapsed, boolean mirrored) {
+        return (mirrored ? Masks.MIRRORED : Masks.PLAIN)[ordinal()][frameIndex(elapsed)];
+    }
+
+    /**
+     * Look a clip up by ordinal (for save states) without allocating
+     */
+    public static AnimationClip fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Frame image by index, or null when sprites are not loaded (headless)
+     */
+    public Image frame(int index) {
+        Image[] loaded = frames;
+        if (loaded == null) return null;
+        return loaded[Math.min(index, frameCount - 1)];
+    }
+
+    public int getFrameCount() { return frameCount; }
+    public double getFrameDuration() { return frameDuration; }
+    public boolean isLoop() { return loop; }
+}
@@ -14,6 +14,7 @@ import se233.contra.model.Player;
 import se233.contra.model.Soldier;
 import se233.contra.controller.GameController;
 import se233.contra.exception.GameException;
+import se233.contra.net.WorldSnapshot;
 import se233.contra.util.Constants;
 
 public class GameView extends Canvas {
@@ -90,6 +91,10 @@ public class GameView extends Canvas {
         if (player != null && player.isActive()) {
             player.render(gc);
         }
+        Player player2 = gameController.getPlayer2();
+        if (player2 != null && player2.isActive()) {
+            player2.render(gc);
+        }
 
         // Draw soldiers
         for (Soldier soldier : gameController.getSoldiers()) {
@@ -145,6 +150,16 @@ public class GameView extends Canvas {
             gc.fillRect(120 + i * 30, 65, 20, 15);
         }
 
+        Player player2 = gameController.getPlayer2();
+        if (player2 != null) {
+            gc.setFill(Color.WHITE);
+            gc.fillText("P2: " + player2.getScore(), 20, 120);
+            for (int i = 0; i < player2.getLives(); i++) {
+                gc.setFill(Color.DODGERBLUE);
+                gc.fillRect(120 + i * 30, 105, 20, 15);
+            }
+        }
+
         // Wave info
         if (gameController.getCurrentState() == GameController.GameState.MINION_WAVE) {
             gc.setFill(Color.YELLOW);
@@ -159,17 +174,21 @@ public class GameView extends Canvas {
 
     private void renderGameOver() {
         renderGame();
+        Player player = gameController.getPlayer();
+        drawGameOverOverlay(player != null ? player.getScore() : -1);
+    }
+
+    private void drawGameOverOverlay(int finalScore) {
         gc.setFill(Color.rgb(0, 0, 0, 0.7));
         gc.fillRect(0, 0, Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT);
         gc.setFill(Color.RED);
         gc.setFont(titleFont);
         gc.fillText("GAME OVER", Constants.SCREEN_WIDTH / 2 - 150,
                 Constants.SCREEN_HEIGHT / 2 - 50);
-        Player player = gameController.getPlayer();
-        if (player != null) {
+        if (finalScore >= 0) {
             gc.setFill(Color.WHITE);
             gc.setFont(normalFont);
-            gc.fillText("Final Score: " + player.getScore(),
+            gc.fillText("Final Score: " + finalScore,
                     Constants.SCREEN_WIDTH / 2 - 120, Constants.SCREEN_HEIGHT / 2 + 20);
         }
         gc.setFont(smallFont);
@@ -179,17 +198,21 @@ public class GameView extends Canvas {
 
     private void renderVictory() {
         renderGame();
+        Player player = gameController.getPlayer();
+        drawVictoryOverlay(player != null ? player.getScore() : -1);
+    }
+
+    private void drawVictoryOverlay(int finalScore) {
         gc.setFill(Color.rgb(255, 255, 0, 0.3));
         gc.fillRect(0, 0, Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT);
         gc.setFill(Color.YELLOW);
         gc.setFont(titleFont);
         gc.fillText("VICTORY!", Constants.SCREEN_WIDTH / 2 - 120,
                 Constants.SCREEN_HEIGHT / 2 - 50);
-        Player player = gameController.getPlayer();
-        if (player != null) {
+        if (finalScore >= 0) {
             gc.setFill(Color.WHITE);
             gc.setFont(normalFont);
-            gc.fillText("Final Score: " + player.getScore(),
+            gc.fillText("Final Score: " + finalScore,
                     Constants.SCREEN_WIDTH / 2 - 120, Constants.SCREEN_HEIGHT / 2 + 20);
         }
         gc.setFont(smallFont);
@@ -197,6 +220,85 @@ public class GameView extends Canvas {
                 Constants.SCREEN_HEIGHT / 2 + 80);
     }
 
+    // ------------------------------------------------------------------------
+    // Remote rendering: a network client draws server snapshots instead of a
+    // local GameController
+    // ------------------------------------------------------------------------
+    public void render(WorldSnapshot world) {
+        try {
+            gc.setFill(Color.BLACK);
+            gc.fillRect(0, 0, Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT);
+
+            GameController.GameState state = world.getState();
+            if (state == GameController.GameState.MENU) {
+                renderMenu();
+                gc.setFill(Color.WHITE);
+                gc.setFont(normalFont);
+                gc.fillText("Waiting for players...", Constants.SCREEN_WIDTH / 2 - 150,
+                        Constants.SCREEN_HEIGHT - 60);
+                return;
+            }
+
+            drawBackground();
+            drawSnapshotEntities(world);
+            drawSnapshotUI(world, state);
+
+            int score = world.getPlayerCount() > 0 ? world.getScore(0) : -1;
+            if (state == GameController.GameState.GAME_OVER) {
+                drawGameOverOverlay(score);
+            } else if (state == GameController.GameState.VICTORY) {
+                drawVictoryOverlay(score);
+            }
+            if (world.isPaused()) {
+                renderPauseOverlay();
+            }
+        } catch (Exception e) {
+            logger.error("Error rendering snapshot", e);
+            throw new GameException("Render failed",
+                    GameException.ErrorType.INVALID_GAME_STATE, e);
+        }
+    }
+
+    private void drawSnapshotEntities(WorldSnapshot world) {
+        for (int i = 0; i < world.getEntityCount(); i++) {
+            Image sprite = AnimationClip.fromOrdinal(world.getClip(i)).frame(world.getFrame(i));
+            if (sprite == null) continue;
+
+            double x = world.getX(i);
+            double y = world.getY(i);
+            if (world.isFacingRight(i)) {
+                gc.drawImage(sprite, x, y);
+            } else {
+                gc.save();
+                gc.scale(-1, 1);
+                gc.drawImage(sprite, -x - sprite.getWidth(), y);
+                gc.restore();
+            }
+        }
+    }
+
+    private void drawSnapshotUI(WorldSnapshot world, GameController.GameState state) {
+        gc.setFont(normalFont);
+        for (int p = 0; p < world.getPlayerCount(); p++) {
+            int rowY = 40 + p * 80;
+            gc.setFill(Color.WHITE);
+            gc.fillText((p == 0 ? "SCORE: " : "P2: ") + world.getScore(p), 20, rowY);
+            for (int i = 0; i < world.getLives(p); i++) {
+                gc.setFill(p == 0 ? Color.RED : Color.DODGERBLUE);
+                gc.fillRect(120 + i * 30, rowY + 25, 20, 15);
+            }
+        }
+
+        if (state == GameController.GameState.MINION_WAVE) {
+            gc.setFill(Color.YELLOW);
+            gc.fillText("WAVE " + world.getWave() + "/" + Constants.MINION_WAVES_BEFORE_BOSS,
+                    Constants.SCREEN_WIDTH - 200, 40);
+        } else if (state == GameController.GameState.BOSS_FIGHT) {
+            gc.setFill(Color.RED);
+            gc.fillText("BOSS FIGHT!", Constants.SCREEN_WIDTH - 200, 40);
+        }
+    }
+
     private void renderPauseOverlay() {
         gc.setFill(Color.rgb(0, 0, 0, 0.5));
         gc.fillRect(0, 0, Constants.SCREEN_WIDTH, Constants.SCREEN_HEIGHT);
@@ -6,8 +6,12 @@ import javafx.scene.image.WritableImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import se233.contra.exception.GameException;
+import se233.contra.util.CollisionMask;
 import se233.contra.util.Constants;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -19,6 +23,14 @@ public class SpriteLoader {
     private static final Map<String, Image> spritesheets = new HashMap<>();
     private static boolean initialized = false;
 
+    private static final Map<String, String> SHEET_PATHS = Map.of(
+            "player", Constants.PLAYER_SPRITE,
+            "enemies", Constants.ENEMIES_SPRITE,
+            "boss1", Constants.BOSS1_SPRITE,
+            "ui", Constants.UI_SPRITE);
+    // Pixels for collision masks, read without JavaFX
+    private static final Map<String, BufferedImage> maskSheets = new HashMap<>();
+
     public static void initialize() {
         if (initialized) {
             logger.warn("SpriteLoader already initialized");
@@ -32,6 +44,7 @@ public class SpriteLoader {
             loadSpritesheet("boss1", Constants.BOSS1_SPRITE);
             loadSpritesheet("ui", Constants.UI_SPRITE);
             initialized = true;
+            AnimationClip.loadAll();
             logger.info("All spritesheets loaded successfully");
         } catch (Exception e) {
             throw new GameException("Failed to load spritesheets",
@@ -80,6 +93,59 @@ public class SpriteLoader {
         }
     }
 
+    /**
+     * Collision masks of a strip of frames, each width x height, starting
+     * at (x, y) on a spritesheet and following one another to the right.
+     * Reads the sheet's pixels with ImageIO rather than JavaFX, so it works
+     * without {@link #initialize()} (headless servers, tests); hit tests
+     * afterwards only touch the masks.
+     */
+    public static synchronized CollisionMask[] createMasks(String sheetKey, int x, int y,
+                                                           int width, int height, int count) {
+        BufferedImage sheet = maskSheets.get(sheetKey);
+        if (sheet == null) {
+            sheet = readPixels(sheetKey);
+            maskSheets.put(sheetKey, sheet);
+        }
+        CollisionMask[] masks = new CollisionMask[count];
+        int[] argb = new int[width * height];
+        try {
+            for (int i = 0; i < count; i++) {
+                sheet.getRGB(x + i * width, y, width, height, argb, 0, width);
+                masks[i] = CollisionMask.fromArgb(argb, width, height, Constants.MASK_ALPHA_THRESHOLD);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to read mask pixels from {} at ({},{},{}x{})",
+                    sheetKey, x, y, width, height, e);
+            throw new GameException("Failed to read sprite pixels",
+                    GameException.ErrorType.SPRITE_LOAD_ERROR, e);
+        }
+        return masks;
+    }
+
+    private static BufferedImage readPixels(String sheetKey) {
+        String path = SHEET_PATHS.get(sheetKey);
+        if (path == null) {
+            throw new GameException("Spritesheet not found: " + sheetKey,
+                    GameException.ErrorType.RESOURCE_NOT_FOUND);
+        }
+        try (InputStream is = SpriteLoader.class.getResourceAsStream(path)) {
+            if (is == null) {
+                throw new GameException("Spritesheet not found: " + path,
+                        GameException.ErrorType.RESOURCE_NOT_FOUND);
+            }
+            BufferedImage image = ImageIO.read(is);
+            if (image == null) {
+                throw new GameException("Unreadable spritesheet: " + path,
+                        GameException.ErrorType.SPRITE_LOAD_ERROR);
+            }
+            return image;
+        } catch (IOException e) {
+            throw new GameException("Failed to load: " + path,
+                    GameException.ErrorType.SPRITE_LOAD_ERROR, e);
+        }
+    }
+
     // Player animations
     public static List<Image> getPlayerIdle() {
         List<Image> frames = new ArrayList<>();
@@ -0,0 +1,182 @@
+package se233.contra.ai;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.exception.GameException;
+import se233.contra.model.Soldier;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for behavior trees and batched ticking
+ */
+class BehaviorTreeTest {
+    private static final double DT = 1.0 / 60.0;
+
+    /**
+     * Records the leaves it ran, in slot 0 as decimal digits
+     */
+    private static class Probe implements Agent {
+        final Blackboard board;
+        final byte answer;
+
+        Probe(BehaviorTree<Probe> tree, byte answer) {
+            this.board = tree.newBlackboard();
+            this.answer = answer;
+        }
+
+        @Override
+        public Blackboard getBlackboard() { return board; }
+    }
+
+    private static Leaf<Probe> mark(int digit, byte result) {
+        return (probe, board) -> {
+            board.setInt(0, board.getInt(0) * 10 + digit);
+            return result;
+        };
+    }
+
+    private static Leaf<Probe> answer(int digit) {
+        return (probe, board) -> {
+            board.setInt(0, board.getInt(0) * 10 + digit);
+            return probe.answer;
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testSequenceAndSelectorSemantics() {
+        BehaviorTree<Probe> tree = BehaviorTree.<Probe>builder(0, 1)
+                .selector()
+                    .sequence()
+                        .leaf(answer(1))
+                        .leaf(mark(2, BehaviorTree.SUCCESS))
+                    .end()
+                    .invert().leaf(mark(3, BehaviorTree.SUCCESS))
+                    .succeed().leaf(mark(4, BehaviorTree.FAILURE))
+                    .leaf(mark(5, BehaviorTree.SUCCESS))
+                .end()
+                .build();
+
+        Probe pass = new Probe(tree, BehaviorTree.SUCCESS);
+        assertEquals(BehaviorTree.SUCCESS, tree.tick(pass, pass.board));
+        assertEquals(12, pass.board.getInt(0));
+
+        Probe fail = new Probe(tree, BehaviorTree.FAILURE);
+        assertEquals(BehaviorTree.SUCCESS, tree.tick(fail, fail.board));
+        assertEquals(134, fail.board.getInt(0), "Selector should stop at the succeed decorator");
+
+        Probe running = new Probe(tree, BehaviorTree.RUNNING);
+        assertEquals(BehaviorTree.RUNNING, tree.tick(running, running.board));
+        assertEquals(1, running.board.getInt(0));
+    }
+
+    @Test
+    void testBatchMatchesSingleTicks() {
+        BehaviorTree<Probe> tree = BehaviorTree.<Probe>builder(0, 1)
+                .sequence()
+                    .leaf(mark(1, BehaviorTree.SUCCESS))
+                    .selector()
+                        .leaf(answer(2))
+                        .invert().sequence().leaf(answer(3)).leaf(mark(4, BehaviorTree.SUCCESS)).end()
+                    .end()
+                .end()
+                .build();
+        byte[] answers = {BehaviorTree.SUCCESS, BehaviorTree.FAILURE, BehaviorTree.RUNNING};
+
+        Probe[] batched = new Probe[30];
+        BehaviorBatch<Probe> batch = new BehaviorBatch<>(tree);
+        for (int i = 0; i < batched.length; i++) {
+            batched[i] = new Probe(tree, answers[i % 3]);
+        }
+        batch.tick(batched, batched.length);
+
+        for (int i = 0; i < batched.length; i++) {
+            Probe single = new Probe(tree, answers[i % 3]);
+            assertEquals(tree.tick(single, single.board), batch.getStatus(i), "Status of agent " + i);
+            assertEquals(single.board.getInt(0), batched[i].board.getInt(0), "Leaves run by agent " + i);
+        }
+        assertEquals(3, batch.getPasses());
+    }
+
+    @Test
+    void testBatchedSoldiersMatchSoldiersTickedOneByOne() {
+        int count = 200;
+        GameRandom singleRandom = new GameRandom(17);
+        GameRandom batchRandom = new GameRandom(17);
+        Soldier[] single = new Soldier[count];
+        Soldier[] batched = new Soldier[count];
+        for (int i = 0; i < count; i++) {
+            single[i] = new Soldier(i * 6, 0, singleRandom);
+            batched[i] = new Soldier(i * 6, 0, batchRandom);
+        }
+
+        BehaviorBatch<Soldier> batch = new BehaviorBatch<>(Soldier.BRAIN);
+        for (int tick = 0; tick < 60 * 6; tick++) {
+            for (int i = 0; i < count; i++) {
+                single[i].bankAiTime(DT, 1);
+                single[i].think(1);
+                batched[i].bankAiTime(DT, 1);
+                batched[i].beginThink();
+            }
+            batch.tick(batched, count);
+            for (int i = 0; i < count; i++) {
+                batched[i].endThink(1);
+                single[i].simulate(DT);
+                batched[i].simulate(DT);
+            }
+        }
+
+        assertEquals(singleRandom.getState(), batchRandom.getState());
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(state(single[i]), state(batched[i]), "Soldier " + i + " diverged");
+        }
+    }
+
+    @Test
+    void testBlackboardIsSavedWithTheSoldier() {
+        GameRandom random = new GameRandom(5);
+        Soldier soldier = new Soldier(300, 0, random);
+        for (int tick = 0; tick < 150; tick++) {
+            soldier.update(DT);
+        }
+        GameRandom copyRandom = new GameRandom(0);
+        Soldier copy = new Soldier(0, 0, copyRandom);
+        copy.readState(ByteBuffer.wrap(state(soldier)));
+        copyRandom.setState(random.getState());
+
+        for (int tick = 0; tick < 150; tick++) {
+            soldier.update(DT);
+            copy.update(DT);
+        }
+        assertArrayEquals(state(soldier), state(copy));
+    }
+
+    @Test
+    void testMalformedTreesAreRejected() {
+        assertThrows(GameException.class, () -> BehaviorTree.<Probe>builder(0, 0).sequence().build());
+        assertThrows(GameException.class, () -> BehaviorTree.<Probe>builder(0, 0).selector().end());
+        assertThrows(GameException.class, () -> BehaviorTree.<Probe>builder(0, 0)
+                .leaf(mark(1, BehaviorTree.SUCCESS)).leaf(mark(2, BehaviorTree.SUCCESS)));
+    }
+
+    private static byte[] state(Soldier soldier) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        soldier.writeState(buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+}
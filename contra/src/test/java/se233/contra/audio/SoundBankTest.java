@@ -0,0 +1,48 @@
+package se233.contra.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for sound decoding (no audio device required)
+ */
+class SoundBankTest {
+
+    @Test
+    void testAllEffectsDecode() {
+        SoundBank bank = SoundBank.load();
+
+        for (SoundEffect effect : SoundEffect.values()) {
+            short[] samples = bank.getSamples(effect);
+            assertNotNull(samples, effect + " should be decoded");
+            assertTrue(samples.length > 0, effect + " should contain samples");
+            assertEquals(0, samples.length % 2, effect + " should be interleaved stereo");
+        }
+    }
+
+    @Test
+    void testMonoIsDuplicatedToStereo() {
+        byte[] mono = {0x10, 0x00, (byte) 0xF0, (byte) 0xFF};
+
+        short[] stereo = SoundBank.toStereo(mono, 1);
+
+        assertArrayEquals(new short[]{16, 16, -16, -16}, stereo);
+    }
+
+    @Test
+    void testResampleChangesLength() {
+        short[] input = new short[44100 * 2];
+
+        short[] output = SoundBank.resample(input, 44100f, 48000f);
+
+        assertEquals(48000 * 2, output.length,
+                "One second of audio should stay one second after resampling");
+    }
+
+    @Test
+    void testPlayWithoutInitializeIsNoOp() {
+        assertFalse(SoundManager.isInitialized());
+        assertDoesNotThrow(() -> SoundManager.play(SoundEffect.RIFLE));
+    }
+}
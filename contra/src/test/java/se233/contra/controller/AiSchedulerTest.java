@@ -0,0 +1,156 @@
+package se233.contra.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.model.Bullet;
+import se233.contra.model.Player;
+import se233.contra.model.Soldier;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for level-of-detail soldier AI scheduling
+ */
+class AiSchedulerTest {
+    private static final double DT = 1.0 / 60.0;
+
+    private AiScheduler scheduler;
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        scheduler = new AiScheduler();
+        player = new Player(100, Constants.GROUND_Y - Constants.PLAYER_HEIGHT);
+    }
+
+    @Test
+    void testNearSoldierThinksEveryTick() {
+        List<Soldier> soldiers = new ArrayList<>();
+        soldiers.add(new Soldier(200, Constants.GROUND_Y, new GameRandom(1)));
+
+        for (int tick = 0; tick < 30; tick++) {
+            scheduler.update(soldiers, player, null, DT);
+            assertEquals(1, scheduler.getThinksLastTick(), "Near soldier skipped its AI at tick " + tick);
+            assertEquals(0, soldiers.get(0).getAiPendingTime(), 1e-12);
+        }
+    }
+
+    @Test
+    void testDistantSoldiersAreStaggered() {
+        List<Soldier> soldiers = spawnWave(80);
+
+        int[] thinks = new int[Constants.AI_FAR_PERIOD * 4];
+        for (int tick = 0; tick < thinks.length; tick++) {
+            scheduler.update(soldiers, player, null, DT);
+            thinks[tick] = scheduler.getThinksLastTick();
+        }
+
+        int expected = 80 / Constants.AI_FAR_PERIOD;
+        for (int tick = Constants.AI_FAR_PERIOD; tick < thinks.length; tick++) {
+            assertEquals(expected, thinks[tick], "Uneven AI load at tick " + tick);
+        }
+        for (Soldier soldier : soldiers) {
+            assertTrue(soldier.getAiPendingTime() < Constants.AI_FAR_PERIOD * DT + 1e-9,
+                    "A distant soldier went too long without thinking");
+        }
+    }
+
+    @Test
+    void testAiCostStaysFlatAsWavesGrow() {
+        List<Soldier> soldiers = spawnWave(2000);
+
+        double maxPending = 0;
+        for (int tick = 0; tick < 600; tick++) {
+            scheduler.update(soldiers, player, null, DT);
+            assertTrue(scheduler.getThinksLastTick() <= Constants.AI_THINK_BUDGET,
+                    "AI ran for " + scheduler.getThinksLastTick() + " soldiers in one tick");
+            for (Soldier soldier : soldiers) {
+                maxPending = Math.max(maxPending, soldier.getAiPendingTime());
+            }
+        }
+        // Nobody is starved: every soldier thinks once per 2000 / budget ticks
+        double roundTrip = (2000.0 / Constants.AI_THINK_BUDGET + Constants.AI_FAR_PERIOD) * DT;
+        assertTrue(maxPending <= roundTrip + 1e-9, "A soldier was starved for " + maxPending + "s");
+    }
+
+    @Test
+    void testTimersCatchUpAtReducedRate() {
+        // Same spawn, one thinking every tick and one at the mid rate
+        Soldier everyTick = new Soldier(640, Constants.GROUND_Y, new GameRandom(7));
+        Soldier reduced = new Soldier(640, Constants.GROUND_Y, new GameRandom(7));
+        List<Soldier> scheduled = List.of(reduced);
+        assertEquals(Constants.AI_MID_PERIOD, AiScheduler.periodFor(reduced, player, null));
+
+        Set<Bullet> inFlightEveryTick = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Bullet> inFlightReduced = Collections.newSetFromMap(new IdentityHashMap<>());
+        int shotsEveryTick = 0;
+        int shotsReduced = 0;
+        for (int tick = 0; tick < 60 * 20; tick++) {
+            everyTick.update(DT);
+            scheduler.update(scheduled, player, null, DT);
+            reduced.simulate(DT);
+            shotsEveryTick += newShots(everyTick.getBullets(), inFlightEveryTick);
+            shotsReduced += newShots(reduced.getBullets(), inFlightReduced);
+        }
+
+        assertTrue(shotsEveryTick >= 8);
+        assertTrue(Math.abs(shotsEveryTick - shotsReduced) <= 1,
+                "Reduced-rate AI fired " + shotsReduced + " times, full rate " + shotsEveryTick);
+    }
+
+    // Bullets that were not in flight last tick; pooled bullets come back as new shots
+    private static int newShots(List<Bullet> bullets, Set<Bullet> inFlight) {
+        int shots = 0;
+        for (Bullet bullet : bullets) {
+            if (!inFlight.contains(bullet)) {
+                shots++;
+            }
+        }
+        inFlight.clear();
+        inFlight.addAll(bullets);
+        return shots;
+    }
+
+    @Test
+    void testWaveSpawnsOffScreenAndWalksIn() {
+        GameController game = new GameController(5);
+        game.startGame();
+        List<Soldier> soldiers = game.getSoldiers();
+        while (soldiers.isEmpty()) {
+            game.step(DT, PlayerInput.NONE, PlayerInput.NONE);
+        }
+        Soldier soldier = soldiers.get(0);
+        assertFalse(soldier.isOnScreen());
+
+        for (int tick = 0; tick < 120 && !soldier.isOnScreen(); tick++) {
+            game.step(DT, PlayerInput.NONE, PlayerInput.NONE);
+        }
+        assertTrue(soldier.isActive());
+        assertTrue(soldier.isOnScreen(), "Soldier never walked onto the screen");
+    }
+
+    private static List<Soldier> spawnWave(int size) {
+        GameRandom random = new GameRandom(42);
+        List<Soldier> soldiers = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Soldier soldier = new Soldier(Constants.SCREEN_WIDTH + 50 + i * 100, Constants.GROUND_Y, random);
+            soldier.setAiPhase(i % Constants.AI_FAR_PERIOD);
+            soldiers.add(soldier);
+        }
+        return soldiers;
+    }
+}
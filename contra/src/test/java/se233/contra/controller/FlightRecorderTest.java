@@ -0,0 +1,146 @@
+package se233.contra.controller;
+
+import javafx.scene.input.KeyCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+import se233.contra.view.SpriteLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the flight recorder and its replay tool
+ */
+class FlightRecorderTest {
+    private static final int CAPACITY = 600;
+
+    @TempDir
+    Path dir;
+
+    private GameController game;
+    private FlightRecorder recorder;
+    private final InputHandler input = InputHandler.getInstance();
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        input.reset();
+        game = new GameController(9);
+        recorder = new FlightRecorder(CAPACITY);
+        game.setFlightRecorder(recorder);
+        game.startGame();
+    }
+
+    @AfterEach
+    void tearDown() {
+        input.reset();
+    }
+
+    @Test
+    void testReplayReproducesLastSeconds() throws Exception {
+        play(0, 900);
+
+        FlightReplay replay = FlightReplay.load(dump("test"));
+        assertEquals("test", replay.getReason());
+        assertTrue(replay.getFirstTick() >= 900 - CAPACITY, "Only the last window is kept");
+        assertEquals(900, replay.getEndTick());
+
+        while (replay.step()) {
+            // run to the end
+        }
+        assertTrue(replay.isFinished());
+        assertNull(replay.getFailure());
+        assertEquals(-1, replay.getMismatchTick(), "Re-simulation should match every keyframe");
+        assertEquals(game.checksum(), replay.getGame().checksum(), "Replay should end in the recorded world");
+    }
+
+    @Test
+    void testQuickLoadInsideWindowStillReplays() throws Exception {
+        play(0, 200);
+        tapKey(Constants.KEY_QUICK_SAVE);
+        play(200, 300);
+        tapKey(Constants.KEY_QUICK_LOAD);
+        play(300, 400);
+
+        FlightReplay replay = FlightReplay.load(dump("quick-load"));
+        while (replay.step()) {
+            // run to the end
+        }
+        assertEquals(-1, replay.getMismatchTick());
+        assertEquals(game.checksum(), replay.getGame().checksum());
+
+        replay.restart();
+        assertEquals(replay.getFirstTick(), replay.getTick());
+    }
+
+    @Test
+    void testRecordingIsCheap() {
+        GameController other = new GameController(1);
+        other.startGame();
+        FlightRecorder cheap = new FlightRecorder(CAPACITY);
+        for (int i = 0; i < 20_000; i++) {
+            cheap.record(other, 1.0 / 60.0, PlayerInput.RIGHT, PlayerInput.NONE);
+        }
+
+        // Keyframe ticks included: the average must stay far below a frame
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 6000; i++) {
+                cheap.record(other, 1.0 / 60.0, PlayerInput.RIGHT, PlayerInput.NONE);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 6000);
+        }
+        assertTrue(best < 5_000, "Recording took " + best + " ns per tick");
+    }
+
+    @Test
+    void testRejectsForeignFiles() throws Exception {
+        Path file = dir.resolve("junk.cflt");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(GameException.class, () -> FlightReplay.load(file));
+        assertThrows(GameException.class, () -> FlightReplay.load(dir.resolve("missing.cflt")));
+    }
+
+    private Path dump(String reason) throws Exception {
+        return recorder.dump(dir.resolve(reason + ".cflt"), reason).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Drive update() through the keyboard with an uneven frame time
+     */
+    private void play(int from, int to) {
+        for (int tick = from; tick < to; tick++) {
+            if ((tick / 60) % 2 == 0) {
+                input.keyPressed(Constants.KEY_RIGHT);
+                input.keyReleased(Constants.KEY_LEFT);
+            } else {
+                input.keyPressed(Constants.KEY_LEFT);
+                input.keyReleased(Constants.KEY_RIGHT);
+            }
+            if (tick % 15 == 0) {
+                input.keyPressed(Constants.KEY_SHOOT);
+            } else {
+                input.keyReleased(Constants.KEY_SHOOT);
+            }
+            game.update(tick % 3 == 0 ? 1.0 / 50.0 : 1.0 / 60.0);
+        }
+    }
+
+    private void tapKey(KeyCode key) {
+        input.keyPressed(key);
+        game.update(1.0 / 60.0);
+        input.keyReleased(key);
+    }
+}
@@ -0,0 +1,118 @@
+package se233.contra.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.model.Bullet;
+import se233.contra.model.Player;
+import se233.contra.model.Soldier;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the parallel collision narrowphase
+ */
+class NarrowPhaseTest {
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testParallelMatchesOneThread() {
+        List<Soldier> soldiers = soldiers(60);
+        List<Bullet> bullets = bullets(400);
+        NarrowPhase serial = new NarrowPhase(1, 0);
+        NarrowPhase parallel = new NarrowPhase(4, 0);
+        try {
+            serial.resolve(bullets, soldiers);
+            parallel.resolve(bullets, soldiers);
+            assertEquals(1, parallel.getParallelRuns());
+
+            int hits = 0;
+            for (int i = 0; i < bullets.size(); i++) {
+                Soldier first = CollisionDetector.firstHit(bullets.get(i), soldiers);
+                int expected = serial.firstTarget(i);
+                assertEquals(first == null ? NarrowPhase.NO_TARGET : soldiers.indexOf(first), expected);
+                assertEquals(expected, parallel.firstTarget(i), "Bullet " + i);
+                hits += expected == NarrowPhase.NO_TARGET ? 0 : 1;
+            }
+            assertTrue(hits > 50, "Only " + hits + " bullets hit anything");
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void testHitsApplyAsIfOneByOne() {
+        // Enough pairs to run on the workers; several bullets share a soldier
+        List<Soldier> soldiers = soldiers(60);
+        List<Bullet> bullets = bullets(400);
+        Player player = new Player(0, Constants.GROUND_Y);
+        NarrowPhase narrowPhase = new NarrowPhase();
+        try {
+            CollisionDetector.checkPlayerBulletsVsSoldiers(narrowPhase, bullets, soldiers, player);
+            assertEquals(1, narrowPhase.getParallelRuns());
+        } finally {
+            narrowPhase.shutdown();
+        }
+
+        List<Soldier> expectedSoldiers = soldiers(60);
+        List<Bullet> expectedBullets = bullets(400);
+        Player expectedPlayer = new Player(0, Constants.GROUND_Y);
+        for (Bullet bullet : expectedBullets) {
+            Soldier target = CollisionDetector.firstHit(bullet, expectedSoldiers);
+            if (target != null) {
+                bullet.rewindTo(bullet.timeOfImpact(target));
+                bullet.onHit();
+                target.hit(bullet.getDamage());
+                if (target.isDead()) {
+                    expectedPlayer.addScore(Constants.SCORE_MINION_KILL);
+                }
+            }
+        }
+
+        assertEquals(expectedPlayer.getScore(), player.getScore());
+        for (int i = 0; i < bullets.size(); i++) {
+            assertEquals(expectedBullets.get(i).hasHit(), bullets.get(i).hasHit(), "Bullet " + i);
+            assertEquals(expectedBullets.get(i).getX(), bullets.get(i).getX(), "Bullet " + i);
+        }
+        for (int i = 0; i < soldiers.size(); i++) {
+            assertEquals(expectedSoldiers.get(i).isDead(), soldiers.get(i).isDead(), "Soldier " + i);
+        }
+    }
+
+    private static List<Soldier> soldiers(int count) {
+        List<Soldier> soldiers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            soldiers.add(new Soldier(i * (Constants.SCREEN_WIDTH / (double) count), 0, new GameRandom(i)));
+        }
+        return soldiers;
+    }
+
+    /**
+     * Fast bullets after a long frame, heading both ways along the ground
+     */
+    private static List<Bullet> bullets(int count) {
+        GameRandom random = new GameRandom(48);
+        List<Bullet> bullets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Bullet bullet = new Bullet(random.nextDouble() * Constants.SCREEN_WIDTH,
+                    Constants.GROUND_Y - 10 - random.nextDouble() * 50,
+                    random.nextBoolean() ? 1 : -1, random.nextDouble() - 0.5, true);
+            bullet.update(0.1);
+            bullets.add(bullet);
+        }
+        return bullets;
+    }
+}
@@ -0,0 +1,153 @@
+package se233.contra.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.exception.GameException;
+import se233.contra.model.Soldier;
+import se233.contra.util.Constants;
+import se233.contra.view.SpriteLoader;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for binary save states
+ */
+class SaveStateTest {
+    private static final double DT = 1.0 / 60.0;
+
+    private GameController game;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        InputHandler.getInstance().reset();
+        game = new GameController(42);
+        game.startGame();
+    }
+
+    @Test
+    void testRestoreRoundTrip() {
+        tick(120);
+        SaveState saved = new SaveState();
+        saved.capture(game);
+
+        tick(60);
+        saved.restore(game);
+
+        SaveState again = new SaveState();
+        again.capture(game);
+        assertEquals(saved.getBuffer(), again.getBuffer(), "Restored world should serialize identically");
+    }
+
+    @Test
+    void testRestoredWorldReplaysIdentically() {
+        tick(30);
+        SaveState start = new SaveState();
+        start.capture(game);
+
+        tick(200);
+        SaveState expected = new SaveState();
+        expected.capture(game);
+
+        // RNG state is saved too, so the same ticks must give the same world
+        start.restore(game);
+        tick(200);
+        SaveState actual = new SaveState();
+        actual.capture(game);
+
+        assertEquals(expected.getBuffer(), actual.getBuffer());
+    }
+
+    @Test
+    void testJumpStraightToBossFight() {
+        for (int i = 0; i < 1200 && game.getCurrentState() != GameController.GameState.BOSS_FIGHT; i++) {
+            for (Soldier soldier : game.getSoldiers()) {
+                soldier.hit(1);
+            }
+            tick(1);
+        }
+        assertEquals(GameController.GameState.BOSS_FIGHT, game.getCurrentState());
+
+        SaveState bossFight = new SaveState();
+        bossFight.capture(game);
+
+        GameController fresh = new GameController(7);
+        bossFight.restore(fresh);
+
+        assertEquals(GameController.GameState.BOSS_FIGHT, fresh.getCurrentState());
+        assertNotNull(fresh.getBoss());
+        assertNotNull(fresh.getPlayer());
+        assertEquals(game.getPlayer().getScore(), fresh.getPlayer().getScore());
+    }
+
+    @Test
+    void testEntitiesLiveInOffHeapRecords() {
+        tick(90);
+        game.step(DT, PlayerInput.SHOOT, PlayerInput.NONE);
+        Soldier soldier = game.getSoldiers().get(0);
+        assertNotNull(soldier.getRecord(), "Pooled soldier is still on the heap");
+        assertNotNull(game.getPlayer().getRecord(), "Player is still on the heap");
+        assertFalse(game.getPlayer().getBullets().isEmpty());
+        assertNotNull(game.getPlayer().getBullets().get(0).getRecord(), "Player bullet is still on the heap");
+        assertTrue(game.getRecords().size() >= Constants.MINIONS_PER_WAVE + Constants.EXPLOSION_POOL_SIZE + 1);
+
+        int slot = soldier.getRecord().getSlot();
+        int allocated = game.getRecords().size();
+        SaveState saved = new SaveState();
+        saved.capture(game);
+        assertEquals(slot, soldier.getRecord().getSlot(), "Capturing must not move records");
+        assertEquals(allocated, game.getRecords().size());
+        double x = soldier.getX();
+        double vx = soldier.getVelocityX();
+
+        tick(60);
+        saved.restore(game);
+        Soldier restored = game.getSoldiers().get(0);
+        assertEquals(x, restored.getX());
+        assertEquals(vx, restored.getVelocityX());
+        assertEquals(restored.getX(), restored.getBounds().getX());
+
+        // Another world with its own pools reads the same records
+        GameController fresh = new GameController(7);
+        saved.restore(fresh);
+        assertEquals(x, fresh.getSoldiers().get(0).getX());
+        assertEquals(saved.checksum(), fresh.checksum());
+    }
+
+    @Test
+    void testArenaSlotsAreOffHeapAndIndependent() {
+        StateArena arena = new StateArena(3, Constants.SAVE_STATE_CAPACITY);
+        assertEquals(3 * Constants.SAVE_STATE_CAPACITY, arena.capacity());
+        assertTrue(arena.get(0).getBuffer().isDirect());
+
+        arena.get(0).capture(game);
+        tick(30);
+        arena.get(1).capture(game);
+        assertTrue(arena.get(2).isEmpty());
+        assertNotEquals(arena.get(0).checksum(), arena.get(1).checksum(), "Slots must not overlap");
+
+        arena.get(0).restore(game);
+        assertEquals(arena.get(0).checksum(), game.checksum());
+    }
+
+    @Test
+    void testRejectsForeignData() {
+        SaveState state = new SaveState();
+        assertThrows(GameException.class, () -> state.restore(game), "Empty slot cannot be restored");
+
+        state.load(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+        assertThrows(GameException.class, () -> state.restore(game));
+    }
+
+    private void tick(int count) {
+        for (int i = 0; i < count; i++) {
+            game.update(DT);
+        }
+    }
+}
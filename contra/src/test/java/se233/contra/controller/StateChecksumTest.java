@@ -0,0 +1,102 @@
+package se233.contra.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.model.Soldier;
+import se233.contra.view.SpriteLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-tick world checksum
+ */
+class StateChecksumTest {
+    private static final double DT = 1.0 / 60.0;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testSameInputsGiveSameChecksumEveryTick() {
+        GameController a = newGame(11);
+        GameController b = newGame(11);
+        for (int tick = 0; tick < 600; tick++) {
+            int input = input(tick);
+            a.step(DT, input, PlayerInput.NONE);
+            b.step(DT, input, PlayerInput.NONE);
+            assertEquals(a.checksum(), b.checksum(), "Worlds diverged at tick " + tick);
+        }
+    }
+
+    @Test
+    void testTinyDifferencesChangeChecksum() {
+        GameController game = newGame(3);
+        game.step(DT, PlayerInput.RIGHT, PlayerInput.NONE);
+        long before = game.checksum();
+        assertEquals(before, game.checksum(), "Checksum must not change the world");
+
+        Soldier soldier = game.getSoldiers().get(0);
+        soldier.setPosition(soldier.getX() + 1e-9, soldier.getY());
+        assertNotEquals(before, game.checksum());
+
+        assertNotEquals(newGame(3).checksum(), newGame(4).checksum(), "RNG state is part of the checksum");
+    }
+
+    @Test
+    void testChecksumFollowsSaveState() {
+        GameController game = newGame(8);
+        for (int tick = 0; tick < 100; tick++) {
+            game.step(DT, input(tick), PlayerInput.NONE);
+        }
+        SaveState saved = new SaveState();
+        saved.capture(game);
+        long expected = game.checksum();
+        assertEquals(expected, saved.checksum());
+
+        for (int tick = 0; tick < 100; tick++) {
+            game.step(DT, input(tick), PlayerInput.NONE);
+        }
+        saved.restore(game);
+        assertEquals(expected, game.checksum());
+    }
+
+    @Test
+    void testChecksumIsCheap() {
+        GameController game = newGame(21);
+        for (int tick = 0; tick < 120; tick++) {
+            game.step(DT, input(tick), PlayerInput.NONE);
+        }
+
+        // Best of several rounds keeps JIT warm-up and GC out of the number
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                sink += game.checksum();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1000);
+        }
+        assertNotEquals(0, sink);
+        assertTrue(best < 50_000, "Checksum took " + best + " ns per tick");
+    }
+
+    private static GameController newGame(long seed) {
+        GameController game = new GameController(seed);
+        game.startGame();
+        return game;
+    }
+
+    private static int input(int tick) {
+        int buttons = (tick / 45) % 2 == 0 ? PlayerInput.RIGHT : PlayerInput.LEFT;
+        if (tick % 12 == 0) buttons |= PlayerInput.SHOOT;
+        if (tick % 90 == 30) buttons |= PlayerInput.JUMP;
+        return buttons;
+    }
+}
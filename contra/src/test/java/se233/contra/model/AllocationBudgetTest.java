@@ -0,0 +1,217 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.controller.GameController;
+import se233.contra.controller.PlayerInput;
+import se233.contra.controller.SaveState;
+import se233.contra.util.Rectangle;
+import se233.contra.util.Vector2D;
+import se233.contra.view.SpriteLoader;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocation budget for the game loop.
+ * Full game ticks with bullets in flight, explosions playing and the boss
+ * firing must not allocate at all, so this test fails the build as soon as
+ * one does.
+ */
+class AllocationBudgetTest {
+    private static final double DT = 1.0 / 60.0;
+    private static final long SEED = 42;
+    private static final int WINDOW_TICKS = 90;
+    // Long enough for C2 to compile the batch kernels; the Vector API boxes
+    // every vector until then
+    private static final int WARMUP_ROUNDS = 1000;
+    private static final int ROUNDS = 5;
+    private static final int MEASURED_TICKS = 3000;
+    private static final int MAX_TICKS = 60 * 60;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private GameController game;
+    private final Vector2D scratch = new Vector2D(1, 0);
+    private final Rectangle box = new Rectangle(0, 0, 10, 10);
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore if sprites not available
+        }
+        game = new GameController(SEED);
+        game.startGame();
+    }
+
+    @AfterEach
+    void tearDown() {
+        game.shutdown();
+    }
+
+    @Test
+    void testGameTicksDoNotAllocate() {
+        assumeAllocationCounting();
+
+        // Replayable stretches of real play: both sides shooting mid-wave,
+        // the explosion after the soldier goes down, and the boss firing once
+        // its cannons are shot off. Each ends before the next kill, hit or
+        // spawn, since those are one-off events rather than steady state.
+        SaveState wave = snapshotAt(g -> g.getSoldiers().stream().anyMatch(Soldier::isDead), -WINDOW_TICKS - 2);
+        SaveState explosion = snapshotAt(g -> !g.getExplosions().isEmpty(), 0);
+        SaveState boss = snapshotAt(AllocationBudgetTest::cannonsDown, 0);
+        assertWaveWindow(wave);
+        assertExplosionWindow(explosion);
+        assertBossWindow(boss);
+
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long waveBytes = measureWindow(wave);
+            long explosionBytes = measureWindow(explosion);
+            long bossBytes = measureWindow(boss);
+            if (round < WARMUP_ROUNDS) continue;
+
+            assertEquals(0, waveBytes, "Wave ticks allocated " + waveBytes + " bytes in round " + round);
+            assertEquals(0, explosionBytes, "Explosion ticks allocated " + explosionBytes + " bytes in round " + round);
+            assertEquals(0, bossBytes, "Boss ticks allocated " + bossBytes + " bytes in round " + round);
+        }
+    }
+
+    @Test
+    void testInPlaceVectorMathDoesNotAllocate() {
+        assumeAllocationCounting();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            vectorMath();
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                vectorMath();
+            }
+            long used = threads.getCurrentThreadAllocatedBytes() - start;
+            assertEquals(0, used, "In-place Vector2D/Rectangle operations allocated in round " + round);
+        }
+        assertEquals(1.0, scratch.magnitude(), 1e-9);
+    }
+
+    /**
+     * Play from here until the event, then rewind and save the world offset
+     * ticks after it (before it, if negative)
+     */
+    private SaveState snapshotAt(Predicate<GameController> event, int offset) {
+        SaveState start = new SaveState();
+        start.capture(game);
+
+        int ticks = 0;
+        while (!event.test(game)) {
+            assertTrue(ticks < MAX_TICKS, "Game never reached the window");
+            step(ticks++);
+        }
+
+        start.restore(game);
+        // Even, so each window starts on a shot like the run that found it
+        int skip = Math.max(0, ticks + offset + 1) & ~1;
+        for (int i = 0; i < skip; i++) {
+            step(i);
+        }
+        SaveState window = new SaveState();
+        window.capture(game);
+        return window;
+    }
+
+    /**
+     * @return bytes allocated by the window's ticks
+     */
+    private long measureWindow(SaveState window) {
+        window.restore(game);
+        long start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < WINDOW_TICKS; i++) {
+            step(i);
+        }
+        return threads.getCurrentThreadAllocatedBytes() - start;
+    }
+
+    private void step(int tick) {
+        game.step(DT, tick % 2 == 0 ? PlayerInput.SHOOT : PlayerInput.NONE, PlayerInput.NONE);
+    }
+
+    /**
+     * The wave window must have both sides firing, and end before anyone dies
+     */
+    private void assertWaveWindow(SaveState window) {
+        window.restore(game);
+        int lives = game.getPlayer().getLives();
+        boolean soldierFired = false;
+        for (int i = 0; i < WINDOW_TICKS; i++) {
+            step(i);
+            for (Soldier soldier : game.getSoldiers()) {
+                soldierFired |= !soldier.getBullets().isEmpty();
+            }
+        }
+        assertTrue(soldierFired, "Wave window should have soldier bullets in flight");
+        assertFalse(game.getPlayer().getBullets().isEmpty(), "Wave window should have player bullets in flight");
+        assertTrue(game.getSoldiers().stream().noneMatch(Soldier::isDead), "Wave window should end before the soldier dies");
+        assertEquals(lives, game.getPlayer().getLives(), "Wave window should not hit the player");
+    }
+
+    /**
+     * The explosion window must play the explosion out, without spawning the
+     * next wave
+     */
+    private void assertExplosionWindow(SaveState window) {
+        window.restore(game);
+        assertFalse(game.getExplosions().isEmpty(), "Explosion window should open on an explosion");
+        int wave = game.getCurrentWave();
+        for (int i = 0; i < WINDOW_TICKS; i++) {
+            step(i);
+        }
+        assertTrue(game.getExplosions().isEmpty(), "Explosion window should play the explosion out");
+        assertEquals(wave, game.getCurrentWave(), "Explosion window should not spawn the next wave");
+        assertEquals(GameController.GameState.MINION_WAVE, game.getCurrentState());
+    }
+
+    /**
+     * The boss window must have both sides firing, without anyone getting hit
+     * or the fight ending
+     */
+    private void assertBossWindow(SaveState window) {
+        window.restore(game);
+        int lives = game.getPlayer().getLives();
+        boolean bossFired = false;
+        for (int i = 0; i < WINDOW_TICKS; i++) {
+            step(i);
+            bossFired |= !game.getBoss().getAllBullets().isEmpty();
+        }
+        assertTrue(bossFired, "Boss window should have boss bullets in flight");
+        assertFalse(game.getPlayer().getBullets().isEmpty(), "Boss window should have player bullets in flight");
+        assertEquals(lives, game.getPlayer().getLives(), "Boss window should not hit the player");
+        assertEquals(GameController.GameState.BOSS_FIGHT, game.getCurrentState());
+    }
+
+    private static boolean cannonsDown(GameController game) {
+        return game.getCurrentState() == GameController.GameState.BOSS_FIGHT
+                && !game.getBoss().getLeftCannon().isActive()
+                && !game.getBoss().getRightCannon().isActive();
+    }
+
+    private void vectorMath() {
+        scratch.rotateLocal(15).normalizeLocal().multiplyLocal(3).addLocal(1, 1).subtractLocal(scratch);
+        Player player = game.getPlayer();
+        scratch.set(player.getX() + 1, player.getY());
+        scratch.normalizeLocal();
+        box.set(player.getX(), player.getY(), 10, 10);
+        box.intersects(player.getBounds());
+    }
+
+    private void assumeAllocationCounting() {
+        org.junit.jupiter.api.Assumptions.assumeTrue(
+                threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "Per-thread allocation counting not available on this JVM");
+    }
+}
@@ -0,0 +1,135 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.util.AbstractRectangle;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.util.Rectangle;
+import se233.contra.view.SpriteLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for boss part hierarchies and their hit volumes
+ */
+class BossPartTest {
+    private static final double DT = 1.0 / 60.0;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testChildrenFollowTheirParents() {
+        Boss1Core arm = new Boss1Core(0, 0);
+        Boss1Core hand = new Boss1Core(0, 0);
+        BossPart root = BossPart.group(100, 200);
+        BossPart shoulder = root.add(new BossPart(arm, 0, 10, 20));
+        shoulder.add(new BossPart(hand, 1, 5, 5));
+        root.updateWorld();
+
+        assertEquals(110, arm.getX());
+        assertEquals(225, hand.getY());
+
+        shoulder.setLocal(30, 20);
+        root.updateWorld();
+        assertEquals(130, arm.getX());
+        assertEquals(135, hand.getX(), "Grandchild did not move with its parent");
+
+        root.setLocal(0, 0);
+        root.updateWorld();
+        assertEquals(35, hand.getX());
+        assertEquals(25, hand.getY());
+        assertEquals(hand.getX(), hand.getBounds().getX(), "Bounds are the cached world position");
+    }
+
+    @Test
+    void testBvhAgreesWithTestingEveryPart() {
+        BossPart root = BossPart.group(0, 0);
+        List<Boss1Core> parts = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            Boss1Core part = new Boss1Core(0, 0);
+            parts.add(part);
+            root.add(new BossPart(part, i, (i % 8) * 40, (i / 8) * 40));
+        }
+        BossPartBvh bvh = new BossPartBvh(root);
+        parts.get(9).setActive(false);
+        bvh.refit();
+
+        GameRandom random = new GameRandom(11);
+        for (int n = 0; n < 2000; n++) {
+            Rectangle bullet = new Rectangle(random.nextDouble() * 400 - 40, random.nextDouble() * 400 - 40,
+                    Constants.BULLET_SIZE, Constants.BULLET_SIZE);
+            int expected = BossPart.NOT_HITTABLE;
+            for (int i = 0; i < parts.size() && expected == BossPart.NOT_HITTABLE; i++) {
+                if (parts.get(i).isActive() && parts.get(i).getBounds().intersects(bullet)) {
+                    expected = i;
+                }
+            }
+            assertEquals(expected, bvh.hitTest(bullet), "Wrong part for " + bullet);
+        }
+    }
+
+    @Test
+    void testHitTestCostIsLogarithmic() {
+        BossPart root = BossPart.group(0, 0);
+        for (int i = 0; i < 64; i++) {
+            root.add(new BossPart(new Boss1Core(0, 0), i, i * 40, 0));
+        }
+        BossPartBvh bvh = new BossPartBvh(root);
+
+        long before = bvh.getBoxTests();
+        assertEquals(BossPart.NOT_HITTABLE, bvh.hitTest(new Rectangle(0, 500, 10, 10)));
+        assertEquals(1, bvh.getBoxTests() - before, "A miss should stop at the root volume");
+
+        before = bvh.getBoxTests();
+        assertEquals(37, bvh.hitTest(new Rectangle(37 * 40 + 8, 8, 10, 10)));
+        assertTrue(bvh.getBoxTests() - before <= 2 * 7, "Took " + (bvh.getBoxTests() - before) + " box tests");
+    }
+
+    @Test
+    void testBoss1PartsTakeHitsOnlyWhenTheyShould() {
+        Boss1 boss = new Boss1(Constants.BOSS1_X, Constants.BOSS1_Y);
+        Rectangle onDoor = centredOn(boss.getDoor());
+        Rectangle onLeft = centredOn(boss.getLeftCannon());
+
+        assertEquals(BossPart.NOT_HITTABLE, boss.hitTest(onDoor), "Closed door took a hit");
+        assertEquals(Boss1.PART_LEFT_CANNON, boss.hitTest(onLeft));
+        assertEquals(BossPart.NOT_HITTABLE, boss.hitTest(new Rectangle(0, 0, 10, 10)));
+
+        while (boss.getCurrentState() != Boss1.State.VULNERABLE) {
+            boss.update(DT);
+        }
+        assertEquals(Boss1.PART_DOOR, boss.hitTest(onDoor));
+
+        for (int i = 0; i < Constants.BOSS1_CANNON_HP; i++) {
+            boss.hitCannon(true, 1);
+        }
+        assertEquals(BossPart.NOT_HITTABLE, boss.hitTest(onLeft), "Destroyed cannon took a hit");
+    }
+
+    @Test
+    void testResetMovesEveryPart() {
+        Boss1 boss = new Boss1(Constants.BOSS1_X, Constants.BOSS1_Y);
+        boss.reset(100, 50);
+        assertEquals(160, boss.getDoor().getX());
+        assertEquals(240, boss.getRightCannon().getX());
+        assertEquals(230, boss.getRightCannon().getY());
+        assertEquals(220, boss.getCores().get(2).getX());
+        assertEquals(Boss1.PART_RIGHT_CANNON, boss.hitTest(centredOn(boss.getRightCannon())));
+    }
+
+    private static Rectangle centredOn(GameObject part) {
+        AbstractRectangle bounds = part.getBounds();
+        return new Rectangle(bounds.getCenterX() - 2, bounds.getCenterY() - 2, 4, 4);
+    }
+}
@@ -0,0 +1,165 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.util.Constants;
+import se233.contra.view.SpriteLoader;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for data-driven boss bullet patterns
+ */
+class BulletPatternTest {
+    private static final double DT = 1.0 / 60.0;
+    private static final double ORIGIN_X = 640;
+    private static final double ORIGIN_Y = 300;
+
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        player = new Player(100, Constants.GROUND_Y - Constants.PLAYER_HEIGHT);
+    }
+
+    @Test
+    void testRadialBurstIsEvenlySpaced() {
+        BulletPatternEngine engine = new BulletPatternEngine();
+        engine.setEnabled(engine.add(new BulletEmitter(BulletPattern.radial(8, 1.0, 100), 0, 0)), true);
+        engine.update(DT, ORIGIN_X, ORIGIN_Y, null, null);
+
+        List<Bullet> bullets = engine.getBullets();
+        assertEquals(8, bullets.size());
+        for (int i = 0; i < 8; i++) {
+            double angle = Math.atan2(bullets.get(i).getVelocityY(), bullets.get(i).getVelocityX());
+            assertEquals(Math.PI * 2 * i / 8, (angle + 2 * Math.PI) % (2 * Math.PI), 1e-9);
+            assertEquals(100, Math.hypot(bullets.get(i).getVelocityX(), bullets.get(i).getVelocityY()), 1e-9);
+        }
+    }
+
+    @Test
+    void testSpiralTurnsEveryVolley() {
+        BulletPatternEngine engine = new BulletPatternEngine();
+        engine.setEnabled(engine.add(new BulletEmitter(BulletPattern.spiral(1, 45, 0.125, 100), 0, 0)), true);
+        for (int tick = 0; tick < 64; tick++) {
+            engine.update(1.0 / 64, ORIGIN_X, ORIGIN_Y, null, null);
+        }
+
+        List<Bullet> bullets = engine.getBullets();
+        assertEquals(9, bullets.size(), "One volley per 0.125 s, the first right away");
+        for (int i = 1; i < bullets.size(); i++) {
+            double turn = Math.atan2(bullets.get(i).getVelocityY(), bullets.get(i).getVelocityX())
+                    - Math.atan2(bullets.get(i - 1).getVelocityY(), bullets.get(i - 1).getVelocityX());
+            assertEquals(Math.PI / 4, (turn + 2 * Math.PI) % (2 * Math.PI), 1e-9);
+        }
+    }
+
+    @Test
+    void testAimedFanIsCentredOnThePlayer() {
+        BulletPatternEngine engine = new BulletPatternEngine();
+        engine.setEnabled(engine.add(new BulletEmitter(BulletPattern.aimedFan(5, 40, 1.0, 100), 0, 0)), true);
+        engine.update(DT, ORIGIN_X, ORIGIN_Y, player, null);
+
+        Bullet middle = engine.getBullets().get(2);
+        double toPlayer = Math.atan2(player.getY() + Constants.PLAYER_HEIGHT / 2.0 - ORIGIN_Y,
+                player.getX() + Constants.PLAYER_WIDTH / 2.0 - ORIGIN_X);
+        double angle = Math.atan2(middle.getVelocityY(), middle.getVelocityX());
+        assertEquals(toPlayer, angle, 2 * Math.PI / BulletPattern.ANGLE_STEPS, "Fan not aimed at the player");
+
+        double edge = Math.atan2(engine.getBullets().get(0).getVelocityY(), engine.getBullets().get(0).getVelocityX());
+        assertEquals(Math.toRadians(20), Math.abs(angle - edge), 2 * Math.PI / BulletPattern.ANGLE_STEPS);
+    }
+
+    @Test
+    void testPatternDoesNotDependOnFrameRate() {
+        BulletPattern wave = BulletPattern.wave(3, 30, 180, 25, 12, 0.05, 150);
+        BulletPatternEngine smooth = new BulletPatternEngine();
+        BulletPatternEngine choppy = new BulletPatternEngine();
+        smooth.setEnabled(smooth.add(new BulletEmitter(wave, 0, 0)), true);
+        choppy.setEnabled(choppy.add(new BulletEmitter(wave, 0, 0)), true);
+
+        for (int tick = 0; tick < 128; tick++) {
+            smooth.update(1.0 / 256, ORIGIN_X, ORIGIN_Y, null, null);
+        }
+        for (int tick = 0; tick < 16; tick++) {
+            choppy.update(1.0 / 32, ORIGIN_X, ORIGIN_Y, null, null);
+        }
+
+        // Volleys that fell due between choppy ticks are placed where they would be by now
+        assertEquals(33, smooth.getFired());
+        assertEquals(smooth.getFired(), choppy.getFired());
+        int count = smooth.getBullets().size();
+        assertEquals(count, choppy.getBullets().size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(smooth.getBullets().get(i).getX(), choppy.getBullets().get(i).getX(), 1e-6);
+            assertEquals(smooth.getBullets().get(i).getY(), choppy.getBullets().get(i).getY(), 1e-6);
+        }
+    }
+
+    @Test
+    void testThousandsOfBulletsPerSecondWithoutAllocating() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        org.junit.jupiter.api.Assumptions.assumeTrue(
+                threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "Per-thread allocation counting not available on this JVM");
+
+        BulletPatternEngine engine = new BulletPatternEngine();
+        BulletPattern spiral = BulletPattern.spiral(36, 7, DT, 400);
+        assertTrue(spiral.getRate() >= 2000, "Pattern should fire thousands of bullets per second");
+        engine.setEnabled(engine.add(new BulletEmitter(spiral, 0, 0)), true);
+        engine.prewarm(4000);
+
+        // Warm up until bullets leave the screen as fast as they are fired
+        for (int tick = 0; tick < 60 * 5; tick++) {
+            engine.update(DT, ORIGIN_X, ORIGIN_Y, player, null);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5 && best > 0; round++) {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            for (int tick = 0; tick < 600; tick++) {
+                engine.update(DT, ORIGIN_X, ORIGIN_Y, player, null);
+            }
+            best = Math.min(best, threads.getCurrentThreadAllocatedBytes() - start);
+        }
+
+        assertEquals(0, best, "Steady bullet-hell ticks allocated " + best + " bytes");
+        assertEquals(4000, engine.getPoolCreated(), "Pool grew past its pre-warmed size");
+    }
+
+    @Test
+    void testStateRoundTrip() {
+        BulletPattern fan = BulletPattern.aimedFan(3, 20, 0.25, 200);
+        BulletPatternEngine engine = new BulletPatternEngine();
+        BulletPatternEngine copy = new BulletPatternEngine();
+        engine.setEnabled(engine.add(new BulletEmitter(fan, 10, 10)), true);
+        copy.add(new BulletEmitter(fan, 10, 10));
+
+        for (int tick = 0; tick < 50; tick++) {
+            engine.update(DT, ORIGIN_X, ORIGIN_Y, player, null);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        engine.writeState(buffer);
+        copy.readState(buffer.flip());
+
+        for (int tick = 0; tick < 50; tick++) {
+            engine.update(DT, ORIGIN_X, ORIGIN_Y, player, null);
+            copy.update(DT, ORIGIN_X, ORIGIN_Y, player, null);
+        }
+        assertEquals(engine.getBullets().size(), copy.getBullets().size());
+        for (int i = 0; i < engine.getBullets().size(); i++) {
+            assertEquals(engine.getBullets().get(i).getX(), copy.getBullets().get(i).getX());
+            assertEquals(engine.getBullets().get(i).getY(), copy.getBullets().get(i).getY());
+        }
+    }
+}
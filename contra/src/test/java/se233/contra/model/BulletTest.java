@@ -2,10 +2,17 @@ package se233.contra.model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import se233.contra.controller.CollisionDetector;
+import se233.contra.controller.NarrowPhase;
+import se233.contra.util.AbstractRectangle;
 import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.util.Rectangle;
 import se233.contra.util.Vector2D;
 import se233.contra.view.SpriteLoader;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -103,4 +110,47 @@ class BulletTest {
         assertTrue(rightBullet.getPosition().getX() >= initialX,
                 "Bullet fired right should move right or stay (if hit)");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFastBulletDoesNotTunnel() {
+        // 50 px in one long frame, clean over a 24 px cannon
+        Boss1Cannon cannon = new Boss1Cannon(125, 100, true);
+        bullet.update(0.1);
+
+        assertFalse(bullet.collidesWith(cannon), "Neither end of the move touches the cannon");
+        double time = bullet.timeOfImpact(cannon);
+        assertTrue(time > 0 && time < 1, "The move passes through the cannon");
+        bullet.rewindTo(time);
+        assertTrue(bullet.collidesWith(cannon), "Rewound to first contact");
+        Bullet earlier = new Bullet(bullet.getX() - 1, bullet.getY(), new Vector2D(1, 0), true);
+        assertFalse(earlier.collidesWith(cannon), "A pixel short of contact misses");
+    }
+
+    @Test
+    void testFastBulletHitsOnPixelsNotItsBox() {
+        // The 20 px box sweeps over the cannon's top edge; the 3 px sprite passes above it
+        Boss1Cannon cannon = new Boss1Cannon(125, 100, true);
+        AbstractRectangle box = cannon.getHitBox();
+        Bullet shot = new Bullet(100, box.getTop() - 10, new Vector2D(1, 0), true);
+        shot.update(0.1);
+
+        assertTrue(box.timeOfImpact(100, box.getTop() - 10, Constants.BULLET_SIZE, Constants.BULLET_SIZE, 50, 0)
+                != Rectangle.NO_IMPACT, "The plain box sweep would hit");
+        assertEquals(Rectangle.NO_IMPACT, shot.timeOfImpact(cannon));
+    }
+
+    @Test
+    void testBulletStopsAtTheFirstSoldier() {
+        Soldier far = new Soldier(140, 0, new GameRandom(1));
+        Soldier near = new Soldier(125, 0, new GameRandom(2));
+        Bullet shot = new Bullet(100, Constants.GROUND_Y - 20, 1, 0, true);
+        shot.update(0.1);
+
+        CollisionDetector.checkPlayerBulletsVsSoldiers(new NarrowPhase(), List.of(shot), List.of(far, near),
+                new Player(0, 0));
+        assertTrue(shot.hasHit());
+        assertTrue(near.isDead(), "The nearer soldier takes the hit");
+        assertFalse(far.isDead());
+        assertTrue(shot.getX() < far.getX(), "Bullet should stop where it met the nearer soldier");
+    }
+}
@@ -0,0 +1,95 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.controller.CollisionDetector;
+import se233.contra.controller.GameController;
+import se233.contra.exception.GameException;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for collision layers and the collision matrix
+ */
+class CollisionMatrixTest {
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testStandardRulesKeepFactionsApart() {
+        CollisionMatrix matrix = CollisionMatrix.standard();
+        assertTrue(matrix.collides(CollisionMatrix.PLAYER_PROJECTILE, CollisionMatrix.ENEMY));
+        assertTrue(matrix.collides(CollisionMatrix.BOSS_PART, CollisionMatrix.PLAYER_PROJECTILE));
+        assertTrue(matrix.collides(CollisionMatrix.ENEMY_PROJECTILE, CollisionMatrix.PLAYER));
+        assertFalse(matrix.collides(CollisionMatrix.ENEMY_PROJECTILE, CollisionMatrix.ENEMY));
+        assertFalse(matrix.collides(CollisionMatrix.PLAYER_PROJECTILE, CollisionMatrix.PLAYER));
+        assertFalse(matrix.collides(CollisionMatrix.PLAYER_PROJECTILE, CollisionMatrix.ENEMY_PROJECTILE));
+
+        assertTrue(CollisionMatrix.versus().collides(CollisionMatrix.PLAYER, CollisionMatrix.PLAYER_PROJECTILE));
+        matrix.deny(CollisionMatrix.ENEMY, CollisionMatrix.PLAYER_PROJECTILE);
+        assertFalse(matrix.collides(CollisionMatrix.PLAYER_PROJECTILE, CollisionMatrix.ENEMY));
+        assertThrows(GameException.class, () -> matrix.maskOf(CollisionMatrix.PLAYER | CollisionMatrix.ENEMY));
+    }
+
+    @Test
+    void testEntitiesTakeTheirLayers() {
+        Player player = new Player(100, Constants.GROUND_Y);
+        Soldier soldier = new Soldier(100, 0, new GameRandom(3));
+        Bullet playerShot = new Bullet(0, 0, 1, 0, true);
+        Bullet enemyShot = new Bullet(0, 0, 1, 0, false);
+
+        assertTrue(playerShot.canCollideWith(soldier));
+        assertFalse(enemyShot.canCollideWith(soldier), "Soldiers do not shoot each other");
+        assertTrue(enemyShot.canCollideWith(player));
+        assertFalse(playerShot.canCollideWith(player));
+
+        soldier.hit(1);
+        assertTrue(soldier.isDead());
+        assertFalse(playerShot.canCollideWith(soldier), "Dead soldiers leave their layer");
+    }
+
+    @Test
+    void testFirstHitSkipsFilteredTargets() {
+        Soldier ally = new Soldier(125, 0, new GameRandom(4));
+        Player player = new Player(140, Constants.GROUND_Y);
+        Bullet shot = new Bullet(100, Constants.GROUND_Y - 20, 1, 0, false);
+        shot.update(0.1);
+
+        // The soldier is nearer but on the shooter's side
+        List<GameObject> targets = List.of(ally, player);
+        assertSame(player, CollisionDetector.firstHit(shot, targets));
+    }
+
+    @Test
+    void testVersusRulesLetPlayersShootEachOther() {
+        Player target = new Player(100, Constants.GROUND_Y);
+        Bullet shot = new Bullet(0, 0, 1, 0, true);
+        assertFalse(shot.canCollideWith(target), "Entities start with the standard rules");
+
+        target.refreshCollisionMask(CollisionMatrix.versus());
+        assertTrue(shot.canCollideWith(target));
+
+        target.refreshCollisionMask(CollisionMatrix.standard());
+        assertFalse(shot.canCollideWith(target));
+
+        GameController controller = new GameController();
+        controller.startGame(2, true);
+        assertTrue(shot.canCollideWith(controller.getPlayer2()), "A versus game applies its own rules");
+        controller.startGame(1, false);
+        assertFalse(shot.canCollideWith(controller.getPlayer()));
+        controller.startGame(1, true);
+        assertFalse(shot.canCollideWith(controller.getPlayer()), "Versus needs two players");
+    }
+}
@@ -0,0 +1,83 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.util.Constants;
+import se233.contra.view.SpriteLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for entity pooling and reset
+ */
+class EntityPoolTest {
+    private EntityPool<Soldier> pool;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore if sprites not available
+        }
+        pool = new EntityPool<>("Soldier", () -> new Soldier(0, Constants.GROUND_Y));
+    }
+
+    @Test
+    void testPrewarmCreatesUpFront() {
+        pool.prewarm(4);
+        assertEquals(4, pool.getAvailable());
+        assertEquals(4, pool.getCreated());
+
+        pool.prewarm(2);
+        assertEquals(4, pool.getCreated(), "Pre-warming below the current size should not create more");
+    }
+
+    @Test
+    void testReleasedSoldierIsReusedAndReset() {
+        pool.prewarm(1);
+        Soldier soldier = pool.obtain();
+        soldier.reset(300, Constants.GROUND_Y);
+        soldier.hit(1);
+        assertTrue(soldier.isDead());
+
+        List<Soldier> soldiers = new ArrayList<>();
+        soldiers.add(soldier);
+        soldier.setActive(false);
+        pool.releaseInactive(soldiers);
+        assertTrue(soldiers.isEmpty(), "Inactive soldier should be removed from the live list");
+
+        Soldier reused = pool.obtain();
+        reused.reset(500, Constants.GROUND_Y);
+
+        assertSame(soldier, reused, "Pool should hand back the released instance");
+        assertEquals(1, pool.getCreated());
+        assertTrue(reused.isActive());
+        assertFalse(reused.isDead(), "Reset soldier should be alive again");
+        assertEquals(500, reused.getX(), 0.01);
+        assertEquals(Constants.GROUND_Y - Constants.SOLDIER_HEIGHT, reused.getY(), 0.01);
+    }
+
+    @Test
+    void testExhaustedPoolGrows() {
+        Soldier soldier = pool.obtain();
+        assertNotNull(soldier);
+        assertEquals(1, pool.getCreated());
+    }
+
+    @Test
+    void testBossResetRestoresParts() {
+        Boss1 boss = new Boss1(Constants.BOSS1_X, Constants.BOSS1_Y);
+        boss.hitCannon(true, Constants.BOSS1_CANNON_HP);
+        assertFalse(boss.getLeftCannon().isActive());
+
+        boss.reset(Constants.BOSS1_X, Constants.BOSS1_Y);
+
+        assertTrue(boss.getLeftCannon().isActive(), "Destroyed cannon should be rebuilt by reset");
+        assertEquals(Constants.BOSS1_DOOR_HP, boss.getHealth());
+        assertEquals(Boss1.State.IDLE, boss.getCurrentState());
+    }
+}
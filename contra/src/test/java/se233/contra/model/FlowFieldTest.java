@@ -0,0 +1,133 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for flow-field navigation over terrain
+ */
+class FlowFieldTest {
+    private static final int T = Constants.TILE_SIZE;
+
+    private static final String[] PLATFORM_LEVEL = {
+            "............",
+            "............",
+            "............",
+            "........====",
+            "............",
+            "............",
+            "............",
+            "############",
+    };
+
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        player = new Player(640, Constants.GROUND_Y);
+    }
+
+    @Test
+    void testRoutesAlongTheGroundTowardThePlayer() {
+        FlowField field = new FlowField(Terrain.parse(PLATFORM_LEVEL));
+        standOn(player, 6, 7);
+        field.update(player, null);
+
+        assertEquals(FlowField.ARRIVED, field.moveAt(cell(field, 6, 6)));
+        assertEquals(FlowField.RIGHT, field.moveAt(cell(field, 0, 6)));
+        assertEquals(FlowField.LEFT, field.moveAt(cell(field, 11, 6)));
+        assertEquals(6, field.distanceAt(cell(field, 0, 6)));
+        assertEquals(1, field.distanceAt(cell(field, 7, 6)));
+    }
+
+    @Test
+    void testJumpsOntoPlatformsAndDropsOffThem() {
+        FlowField field = new FlowField(Terrain.parse(PLATFORM_LEVEL));
+        standOn(player, 10, 3);
+        field.update(player, null);
+
+        assertEquals(FlowField.ARRIVED, field.moveAt(cell(field, 10, 2)));
+        assertTrue(FlowField.isJump(field.moveAt(cell(field, 7, 6))), "No jump up to the platform");
+        assertTrue(field.distanceAt(cell(field, 0, 6)) < Integer.MAX_VALUE);
+
+        // And back down: a player on the ground is reached by walking off the platform
+        standOn(player, 2, 7);
+        field.update(player, null);
+        assertEquals(FlowField.LEFT, field.moveAt(cell(field, 8, 2)));
+        assertTrue(field.distanceAt(cell(field, 8, 2)) > field.distanceAt(cell(field, 7, 6)));
+    }
+
+    @Test
+    void testOutOfReachHasNoRoute() {
+        FlowField field = new FlowField(Terrain.parse(
+                "............",
+                "....====....",
+                "............",
+                "............",
+                "............",
+                "............",
+                "############"));
+        standOn(player, 5, 1);
+        field.update(player, null);
+
+        assertEquals(FlowField.ARRIVED, field.moveAt(cell(field, 5, 0)));
+        assertEquals(FlowField.NONE, field.moveAt(cell(field, 5, 5)));
+        assertEquals(Integer.MAX_VALUE, field.distanceAt(cell(field, 0, 5)));
+        assertNotEquals(-1, cell(field, 0, 5));
+    }
+
+    @Test
+    void testRebuildsOnlyWhenAPlayerChangesCell() {
+        FlowField field = new FlowField(Terrain.flat());
+        field.update(player, null);
+        field.update(player, null);
+        assertEquals(1, field.getRebuilds());
+
+        player.setPosition(player.getX() + 1, player.getY());
+        field.update(player, null);
+        assertEquals(1, field.getRebuilds(), "Moving inside a cell should not re-route");
+
+        player.setPosition(player.getX() + T, player.getY());
+        field.update(player, null);
+        assertEquals(2, field.getRebuilds());
+    }
+
+    @Test
+    void testSoldiersChaseAndHoldAtRange() {
+        FlowField field = new FlowField(Terrain.flat());
+        field.update(player, null);
+        GameRandom random = new GameRandom(3);
+        Soldier left = new Soldier(20, Constants.GROUND_Y, random, field);
+        Soldier right = new Soldier(1100, Constants.GROUND_Y, random, field);
+
+        for (int tick = 0; tick < 60 * 20; tick++) {
+            left.update(1.0 / 60.0);
+            right.update(1.0 / 60.0);
+        }
+
+        double hold = (Constants.SOLDIER_ENGAGE_TILES + 1) * T;
+        assertTrue(Math.abs(right.getX() - player.getX()) <= hold, "Soldier did not close in: " + right.getX());
+        assertFalse(right.isFacingRight());
+        assertTrue(Math.abs(left.getX() - player.getX()) <= hold, "Soldier did not close in: " + left.getX());
+        assertTrue(left.isFacingRight());
+    }
+
+    private static void standOn(Player player, int column, int groundRow) {
+        double x = column * T + T / 2.0 - player.getBounds().getWidth() / 2;
+        player.setPosition(x, groundRow * T - player.getBounds().getHeight());
+    }
+
+    private static int cell(FlowField field, int column, int row) {
+        return field.cellAt(column * T + T / 2.0, (row + 1) * T);
+    }
+}
@@ -0,0 +1,157 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batched body physics against tile terrain
+ */
+class KinematicSolverTest {
+    private static final int T = Constants.TILE_SIZE;
+    private static final double DT = 1.0 / 60.0;
+
+    private static final String[] LEVEL = {
+            "............",
+            "............",
+            "..........#.",
+            "##..====..#.",
+            "..........#.",
+            "..........#.",
+            "..........#.",
+            "############",
+    };
+    private static final double GROUND = 7 * T;
+    private static final double PLATFORM = 3 * T;
+
+    private KinematicSolver solver;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        solver = new KinematicSolver(Terrain.parse(LEVEL));
+    }
+
+    @Test
+    void testJumpsUpThroughPlatformsAndLandsOnThem() {
+        Player player = new Player(0, 0);
+        player.setPosition(4 * T + 10, GROUND - Constants.PLAYER_HEIGHT);
+        jump(player);
+
+        double highest = player.getY();
+        for (int tick = 0; tick < 120; tick++) {
+            step(player);
+            highest = Math.min(highest, player.getY());
+        }
+
+        assertTrue(highest + Constants.PLAYER_HEIGHT < PLATFORM, "Platform blocked the jump from below");
+        assertTrue(player.isOnGround());
+        assertEquals(PLATFORM - Constants.PLAYER_HEIGHT, player.getY(), "Did not land on the platform");
+    }
+
+    @Test
+    void testSolidTilesStopBodiesFromEverySide() {
+        Player walker = new Player(0, 0);
+        walker.setPosition(8 * T, GROUND - Constants.PLAYER_HEIGHT);
+        for (int tick = 0; tick < 60; tick++) {
+            walker.setVelocity(Constants.PLAYER_SPEED, walker.getVelocityY());
+            step(walker);
+        }
+        assertEquals(10 * T - Constants.PLAYER_WIDTH, walker.getX(), "Walked into the wall");
+        assertTrue(walker.isOnGround());
+
+        Player jumper = new Player(0, 0);
+        jumper.setPosition(5, GROUND - Constants.PLAYER_HEIGHT);
+        jump(jumper);
+        double highest = jumper.getY();
+        for (int tick = 0; tick < 120; tick++) {
+            step(jumper);
+            highest = Math.min(highest, jumper.getY());
+        }
+        assertEquals(4 * T, highest, "Jumped into the ceiling");
+        assertEquals(GROUND - Constants.PLAYER_HEIGHT, jumper.getY());
+    }
+
+    @Test
+    void testWalksOffLedges() {
+        Player player = new Player(0, 0);
+        player.setPosition(6 * T, PLATFORM - Constants.PLAYER_HEIGHT);
+        step(player);
+        assertTrue(player.isOnGround(), "Not standing on the platform");
+
+        boolean fell = false;
+        for (int tick = 0; tick < 120; tick++) {
+            player.setVelocity(Constants.PLAYER_SPEED, player.getVelocityY());
+            step(player);
+            fell |= !player.isOnGround();
+        }
+        assertTrue(fell);
+        assertTrue(player.isOnGround());
+        assertEquals(GROUND - Constants.PLAYER_HEIGHT, player.getY());
+    }
+
+    @Test
+    void testBatchMatchesOneAtATimeAndStaysLinear() {
+        GameRandom random = new GameRandom(5);
+        List<Soldier> batched = new ArrayList<>();
+        List<Soldier> alone = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            double x = random.nextDouble() * 12 * T;
+            double y = random.nextDouble() * GROUND * 0.5;
+            double vx = random.nextDouble() * 400 - 200;
+            double vy = random.nextDouble() * 900 - 450;
+            for (List<Soldier> list : List.of(batched, alone)) {
+                Soldier soldier = new Soldier(0, 0, new GameRandom(i));
+                soldier.setPosition(x, y);
+                soldier.setVelocity(vx, vy);
+                soldier.setOnGround(false);
+                list.add(soldier);
+            }
+        }
+
+        KinematicSolver single = new KinematicSolver(solver.getTerrain());
+        int ticks = 90;
+        for (int tick = 0; tick < ticks; tick++) {
+            solver.begin();
+            for (int i = 0; i < batched.size(); i++) {
+                solver.add(batched.get(i));
+            }
+            solver.solve(DT);
+            for (int i = 0; i < alone.size(); i++) {
+                single.begin();
+                single.add(alone.get(i));
+                single.solve(DT);
+            }
+        }
+
+        for (int i = 0; i < batched.size(); i++) {
+            assertEquals(alone.get(i).getX(), batched.get(i).getX(), "Body " + i);
+            assertEquals(alone.get(i).getY(), batched.get(i).getY(), "Body " + i);
+            assertEquals(alone.get(i).isOnGround(), batched.get(i).isOnGround(), "Body " + i);
+        }
+        double perBodyTick = (double) solver.getTileLookups() / (batched.size() * ticks);
+        assertTrue(perBodyTick < 12, "Terrain cost " + perBodyTick + " lookups per body per tick");
+    }
+
+    private void jump(Player player) {
+        player.setVelocity(0, Constants.JUMP_FORCE);
+        player.setOnGround(false);
+    }
+
+    private void step(KinematicBody body) {
+        solver.begin();
+        solver.add(body);
+        solver.solve(DT);
+    }
+}
@@ -0,0 +1,171 @@
+package se233.contra.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.controller.AiScheduler;
+import se233.contra.util.Constants;
+import se233.contra.util.GameRandom;
+import se233.contra.view.SpriteLoader;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batched line-of-sight queries
+ */
+class LineOfSightTest {
+    private static final int T = Constants.TILE_SIZE;
+    private static final double DT = 1.0 / 60.0;
+
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        player = new Player(5 * T, Constants.GROUND_Y);
+    }
+
+    @Test
+    void testWallsBlockAndPlatformsDoNot() {
+        LineOfSight sight = new LineOfSight(Terrain.parse(
+                "..........",
+                "...#..=...",
+                "...#..=...",
+                "##########"));
+
+        assertFalse(sight.isClear(1.5 * T, 1.5 * T, 8.5 * T, 1.5 * T), "Ray went through a wall");
+        assertTrue(sight.isClear(4.5 * T, 1.5 * T, 8.5 * T, 2.5 * T), "Platform blocked the ray");
+        assertTrue(sight.isClear(1.5 * T, 0.5 * T, 8.5 * T, 0.5 * T));
+        // Diagonal past the top of the wall, and into the floor
+        assertTrue(sight.isClear(1.5 * T, 0.5 * T, 5.5 * T, 1.2 * T));
+        assertFalse(sight.isClear(1.5 * T, 2.5 * T, 8.5 * T, 3.5 * T));
+    }
+
+    @Test
+    void testBatchAimsAtTheVisiblePlayer() {
+        LineOfSight sight = new LineOfSight(walledLevel());
+        sight.begin();
+        int open = sight.query(sight.register(), 10 * T, Constants.GROUND_Y - 16);
+        int walled = sight.query(sight.register(), 30 * T, Constants.GROUND_Y - 16);
+        sight.resolve(player, null);
+
+        assertTrue(sight.isVisible(open));
+        assertFalse(sight.isVisible(walled));
+        assertTrue(sight.getAimX(open) < -0.99, "Should aim left along the ground");
+        assertEquals(1.0, Math.hypot(sight.getAimX(open), sight.getAimY(open)), 1e-9);
+    }
+
+    @Test
+    void testResultsAreReusedUntilSomethingMoves() {
+        LineOfSight sight = new LineOfSight(walledLevel());
+        int[] keys = new int[100];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = sight.register();
+        }
+        for (int tick = 0; tick < 10; tick++) {
+            sight.begin();
+            for (int i = 0; i < 100; i++) {
+                sight.query(keys[i], 10 * T + i, Constants.GROUND_Y - 16);
+            }
+            sight.resolve(player, null);
+        }
+        assertEquals(100, sight.getRaysCast(), "Still shooters and player should cost no new rays");
+        assertEquals(900, sight.getCacheHits());
+
+        player.setPosition(player.getX() + 1, player.getY());
+        sight.begin();
+        sight.query(keys[0], 10 * T, Constants.GROUND_Y - 16);
+        sight.resolve(player, null);
+        assertEquals(101, sight.getRaysCast());
+    }
+
+    @Test
+    void testCacheFollowsShootersAcrossChangingBatches() {
+        LineOfSight sight = new LineOfSight(walledLevel());
+        int[] keys = new int[8];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = sight.register();
+        }
+
+        // Like the AI scheduler: a different subset of shooters each tick
+        boolean[] expected = new boolean[keys.length];
+        for (int tick = 0; tick < 40; tick++) {
+            sight.begin();
+            int[] posted = new int[keys.length];
+            int count = 0;
+            for (int i = tick % 3; i < keys.length; i += 1 + tick % 2) {
+                posted[count++] = sight.query(keys[i], (4 + 4 * i) * T, Constants.GROUND_Y - 16);
+            }
+            sight.resolve(player, null);
+            for (int q = 0, i = tick % 3; q < count; q++, i += 1 + tick % 2) {
+                if (tick < 3) {
+                    expected[i] = sight.isVisible(posted[q]);
+                }
+                assertEquals(expected[i], sight.isVisible(posted[q]), "Shooter " + i + " on tick " + tick);
+            }
+        }
+        assertEquals(keys.length, sight.getRaysCast(), "Each shooter should need one ray, ever");
+    }
+
+    @Test
+    void testSoldiersHoldFireBehindWallsAndAimOtherwise() {
+        LineOfSight sight = new LineOfSight(walledLevel());
+        AiScheduler scheduler = new AiScheduler(sight);
+        // Player up on a ledge, so an aimed shot climbs
+        player.setPosition(player.getX(), Constants.GROUND_Y - 200);
+
+        GameRandom random = new GameRandom(9);
+        Soldier hidden = new Soldier(30 * T, Constants.GROUND_Y, random);
+        Soldier open = new Soldier(12 * T, Constants.GROUND_Y, random);
+        List<Soldier> soldiers = List.of(hidden, open);
+        Set<Bullet> hiddenShots = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Bullet> openShots = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int tick = 0; tick < 60 * 5; tick++) {
+            scheduler.update(soldiers, player, null, DT);
+            hidden.simulate(DT);
+            open.simulate(DT);
+            if (open.getX() > 18 * T || hidden.getX() < 22 * T) {
+                // Keep them on their own side of the wall
+                open.setPosition(12 * T, open.getY());
+                hidden.setPosition(30 * T, hidden.getY());
+            }
+            hiddenShots.addAll(hidden.getBullets());
+            openShots.addAll(open.getBullets());
+        }
+
+        assertTrue(hiddenShots.isEmpty(), "Fired through a wall");
+        assertFalse(openShots.isEmpty(), "Never fired with a clear line");
+        for (Bullet bullet : openShots) {
+            assertTrue(bullet.getVelocityY() < 0, "Shot was not aimed up at the player");
+            assertTrue(bullet.getVelocityX() < 0);
+        }
+    }
+
+    /**
+     * Flat ground with a wall at column 20 standing up from it
+     */
+    private static Terrain walledLevel() {
+        int columns = Constants.SCREEN_WIDTH / T + 1;
+        int rows = Constants.SCREEN_HEIGHT / T + 1;
+        int groundRow = (int) (Constants.GROUND_Y / T);
+        String[] layout = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int column = 0; column < columns; column++) {
+                boolean wall = column == 20 && row >= groundRow - 8;
+                line.append(row >= groundRow || wall ? '#' : '.');
+            }
+            layout[row] = line.toString();
+        }
+        return Terrain.parse(layout);
+    }
+}
@@ -0,0 +1,70 @@
+package se233.contra.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the XOR + run-length snapshot delta
+ */
+class DeltaCodecTest {
+
+    @Test
+    void testFullRoundTrip() {
+        byte[] current = sample(300, 1);
+        ByteBuffer encoded = encode(null, current);
+
+        byte[] decoded = new byte[current.length];
+        assertEquals(current.length, DeltaCodec.decode(null, 0, encoded, decoded));
+        assertArrayEquals(current, decoded);
+    }
+
+    @Test
+    void testDeltaRoundTrip() {
+        byte[] base = sample(300, 1);
+        byte[] current = base.clone();
+        current[10] ^= 0x55;
+        current[200] = 7;
+
+        ByteBuffer encoded = encode(base, current);
+        byte[] decoded = new byte[current.length];
+        assertEquals(current.length, DeltaCodec.decode(base, base.length, encoded, decoded));
+        assertArrayEquals(current, decoded);
+    }
+
+    @Test
+    void testUnchangedWorldIsTiny() {
+        byte[] base = sample(1000, 3);
+        ByteBuffer encoded = encode(base, base.clone());
+        assertTrue(encoded.remaining() < 8, "Identical snapshot encoded to " + encoded.remaining() + " bytes");
+    }
+
+    @Test
+    void testLengthChangesAgainstShorterBaseline() {
+        byte[] base = sample(50, 5);
+        byte[] current = Arrays.copyOf(base, 120);
+        current[100] = 42;
+
+        ByteBuffer encoded = encode(base, current);
+        byte[] decoded = new byte[current.length];
+        assertEquals(current.length, DeltaCodec.decode(base, base.length, encoded, decoded));
+        assertArrayEquals(current, decoded);
+    }
+
+    private static ByteBuffer encode(byte[] base, byte[] current) {
+        ByteBuffer out = ByteBuffer.allocate(current.length * 2 + 16);
+        DeltaCodec.encode(base, base == null ? 0 : base.length, current, current.length, out);
+        return out.flip();
+    }
+
+    private static byte[] sample(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,113 @@
+package se233.contra.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.controller.PlayerInput;
+import se233.contra.util.Constants;
+import se233.contra.view.SpriteLoader;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Headless server and a client in one JVM over loopback UDP
+ */
+class GameServerTest {
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+
+    private GameServer server;
+    private GameClient client;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        server = new GameServer(0, 1, 99);
+        client = new GameClient(0,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), LinkSimulator.PERFECT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void testClientMirrorsServerWorld() {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (server.getTick() < 300 || !server.isStarted()) {
+            assertTrue(System.nanoTime() < deadline, "Server did not run 300 ticks in time");
+            client.update(server.getTick() % 40 < 20 ? PlayerInput.RIGHT : PlayerInput.SHOOT);
+            server.tick();
+            LockSupport.parkNanos(100_000);
+        }
+
+        // Let the last snapshot arrive without ticking further
+        while (client.getLatestSeq() < 0 || lastSnapshotPending()) {
+            assertTrue(System.nanoTime() < deadline, "Last snapshot never arrived");
+            client.update(PlayerInput.NONE);
+            LockSupport.parkNanos(100_000);
+        }
+
+        WorldSnapshot expected = new WorldSnapshot();
+        expected.capture(server.getGame(), server.getTick());
+        WorldSnapshot actual = new WorldSnapshot();
+        // Far enough in the future that rendering catches up to the newest snapshot
+        assertTrue(client.interpolate(actual, Long.MAX_VALUE / 2));
+
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.getScore(0), actual.getScore(0));
+        assertEquals(expected.getEntityCount(), actual.getEntityCount());
+        for (int i = 0; i < expected.getEntityCount(); i++) {
+            assertEquals(expected.getClip(i), actual.getClip(i));
+            assertEquals(expected.getX(i), actual.getX(i), 0.125);
+            assertEquals(expected.getY(i), actual.getY(i), 0.125);
+        }
+    }
+
+    @Test
+    void testDeltasAreSmallerThanFullSnapshots() {
+        WorldSnapshot full = new WorldSnapshot();
+        ByteBuffer buffer = ByteBuffer.allocate(WorldSnapshot.MAX_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long fullBytes = 0;
+
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (server.getTick() < 600) {
+            assertTrue(System.nanoTime() < deadline, "Server did not run 600 ticks in time");
+            client.update(server.getTick() % 30 == 0 ? PlayerInput.SHOOT : PlayerInput.NONE);
+            server.tick();
+            if (server.isStarted() && server.getTick() % Constants.SERVER_SNAPSHOT_INTERVAL == 0) {
+                // What sending every snapshot in full would have cost
+                full.capture(server.getGame(), server.getTick());
+                buffer.clear();
+                full.write(buffer);
+                fullBytes += buffer.position();
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        client.update(PlayerInput.NONE);
+
+        long snapshots = client.getSnapshotsReceived();
+        assertTrue(snapshots > 100, "Only " + snapshots + " snapshots arrived");
+        // Packet header is magic + seq + base
+        long deltaBytes = client.getBytesReceived() - snapshots * 10;
+        assertTrue(deltaBytes < fullBytes / 2,
+                deltaBytes + " delta bytes received vs " + fullBytes + " as full snapshots");
+    }
+
+    private boolean lastSnapshotPending() {
+        int sent = server.getTick() / Constants.SERVER_SNAPSHOT_INTERVAL;
+        return client.getLatestSeq() < sent - 1;
+    }
+}
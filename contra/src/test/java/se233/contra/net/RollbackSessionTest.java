@@ -0,0 +1,164 @@
+package se233.contra.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.controller.GameController;
+import se233.contra.controller.PlayerInput;
+import se233.contra.controller.SaveState;
+import se233.contra.view.SpriteLoader;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rollback sessions talking over loopback UDP
+ */
+class RollbackSessionTest {
+    private static final long SEED = 1234;
+    private static final int TARGET_FRAME = 240;
+    private static final int MAX_ROLLBACK = 8;
+    private static final long TIMEOUT_NANOS = 20_000_000_000L;
+
+    private RollbackSession a;
+    private RollbackSession b;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (a != null) a.close();
+        if (b != null) b.close();
+    }
+
+    @Test
+    void testPeersConvergeOverLossyLink() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        GameController gameA = newGame();
+        GameController gameB = newGame();
+
+        a = new RollbackSession(gameA, 0,
+                new UdpTransport(portA, loopback(portB), new LinkSimulator(20, 0.1, 1)), MAX_ROLLBACK);
+        b = new RollbackSession(gameB, 1,
+                new UdpTransport(portB, loopback(portA), new LinkSimulator(20, 0.1, 2)), MAX_ROLLBACK);
+
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (a.getFrame() < TARGET_FRAME || b.getFrame() < TARGET_FRAME) {
+            assertTrue(System.nanoTime() < deadline, "Sessions did not reach the target frame in time");
+            step(a, inputA(a.getFrame()));
+            step(b, inputB(b.getFrame()));
+            LockSupport.parkNanos(100_000);
+        }
+
+        while (!a.isSynchronized() || !b.isSynchronized()) {
+            assertTrue(System.nanoTime() < deadline, "Sessions did not exchange their last inputs in time");
+            a.poll();
+            b.poll();
+            LockSupport.parkNanos(100_000);
+        }
+
+        SaveState stateA = new SaveState();
+        SaveState stateB = new SaveState();
+        stateA.capture(gameA);
+        stateB.capture(gameB);
+        assertEquals(stateA.getBuffer(), stateB.getBuffer(), "Both peers should end in the same world");
+
+        RollbackMetrics metrics = a.getMetrics();
+        assertTrue(metrics.getRollbacks() > 0, "Latency should have forced some rollbacks: " + metrics);
+        assertTrue(metrics.getMaxDepth() <= MAX_ROLLBACK + 1, "Rollback exceeded the window: " + metrics);
+        assertTrue(metrics.getAverageNanosPerResimulatedTick() < 2_000_000,
+                "Re-simulation too slow for " + MAX_ROLLBACK + " ticks per frame: " + metrics);
+        assertTrue(metrics.getChecksumsCompared() > 0, "Peers should compare world checksums: " + metrics);
+        assertEquals(0, metrics.getDesyncs(), "Deterministic peers must never desync: " + metrics);
+    }
+
+    @Test
+    void testDetectsDesync() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        GameController gameB = new GameController(SEED + 1);   // wrong seed: soldiers differ
+        gameB.startGame(2, false);
+
+        a = new RollbackSession(newGame(), 0,
+                new UdpTransport(portA, loopback(portB), LinkSimulator.PERFECT), MAX_ROLLBACK);
+        b = new RollbackSession(gameB, 1,
+                new UdpTransport(portB, loopback(portA), LinkSimulator.PERFECT), MAX_ROLLBACK);
+
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (a.getMetrics().getDesyncs() == 0 || b.getMetrics().getDesyncs() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Desync was never reported");
+            step(a, PlayerInput.NONE);
+            step(b, PlayerInput.NONE);
+            LockSupport.parkNanos(100_000);
+        }
+        assertTrue(a.getMetrics().getFirstDesyncFrame() <= 1, "Desync should be caught on the first ticks");
+    }
+
+    @Test
+    void testStallsWithoutRemoteInput() throws IOException {
+        int port = freePort();
+        a = new RollbackSession(newGame(), 0,
+                new UdpTransport(port, loopback(freePort()), LinkSimulator.PERFECT), MAX_ROLLBACK);
+
+        for (int i = 0; i < MAX_ROLLBACK * 3; i++) {
+            a.advance(PlayerInput.RIGHT);
+        }
+
+        assertEquals(MAX_ROLLBACK, a.getFrame(), "Should not run further ahead than the rollback window");
+        assertTrue(a.getMetrics().getStalls() > 0);
+    }
+
+    /**
+     * A peer that reached the target keeps polling so it still resends its input
+     */
+    private static void step(RollbackSession session, int input) {
+        if (session.getFrame() < TARGET_FRAME) {
+            session.advance(input);
+        } else {
+            session.poll();
+        }
+    }
+
+    private static GameController newGame() {
+        GameController game = new GameController(SEED);
+        game.startGame(2, false);
+        return game;
+    }
+
+    private static int inputA(int frame) {
+        int buttons = (frame / 30) % 2 == 0 ? PlayerInput.RIGHT : PlayerInput.LEFT;
+        if (frame % 20 < 2) buttons |= PlayerInput.SHOOT;
+        return buttons;
+    }
+
+    private static int inputB(int frame) {
+        int buttons = frame % 50 < 25 ? PlayerInput.LEFT : PlayerInput.NONE;
+        if (frame % 70 == 10) buttons |= PlayerInput.JUMP;
+        if (frame % 16 < 2) buttons |= PlayerInput.SHOOT;
+        return buttons;
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramChannel probe = DatagramChannel.open()) {
+            probe.bind(new InetSocketAddress(0));
+            return ((InetSocketAddress) probe.getLocalAddress()).getPort();
+        }
+    }
+}
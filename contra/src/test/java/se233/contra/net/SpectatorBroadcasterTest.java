@@ -0,0 +1,118 @@
+package se233.contra.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.controller.GameController;
+import se233.contra.controller.InputHandler;
+import se233.contra.view.SpriteLoader;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Spectator fan-out over loopback TCP
+ */
+class SpectatorBroadcasterTest {
+    private static final double DT = 1.0 / 60.0;
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+
+    private GameController game;
+    private SpectatorBroadcaster broadcaster;
+    private final List<SpectatorClient> spectators = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+        InputHandler.getInstance().reset();
+        game = new GameController(5);
+        game.startGame();
+    }
+
+    @AfterEach
+    void tearDown() {
+        spectators.forEach(SpectatorClient::close);
+        if (broadcaster != null) broadcaster.close();
+    }
+
+    @Test
+    void testManySpectatorsSeeTheSameWorld() {
+        broadcaster = new SpectatorBroadcaster(0);
+        game.addTickListener(broadcaster);
+        for (int i = 0; i < 100; i++) {
+            spectators.add(new SpectatorClient(loopback(broadcaster.getPort())));
+        }
+
+        for (int i = 0; i < 180; i++) {
+            game.update(DT);
+            spectators.forEach(SpectatorClient::poll);
+        }
+        assertEquals(100, broadcaster.getSubscriberCount());
+        assertEquals(180, broadcaster.getFramesPublished(), "Each tick should be encoded exactly once");
+
+        WorldSnapshot expected = new WorldSnapshot();
+        expected.capture(game, broadcaster.getFramesPublished() - 1);
+
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        for (SpectatorClient spectator : spectators) {
+            while (spectator.getLastSeq() != expected.getTick()) {
+                assertTrue(System.nanoTime() < deadline, "Spectator did not catch up");
+                spectator.poll();
+                LockSupport.parkNanos(100_000);
+            }
+            WorldSnapshot actual = spectator.getSnapshot();
+            assertEquals(expected.getState(), actual.getState());
+            assertEquals(expected.getScore(0), actual.getScore(0));
+            assertEquals(expected.getEntityCount(), actual.getEntityCount());
+            for (int i = 0; i < expected.getEntityCount(); i++) {
+                assertEquals(expected.getX(i), actual.getX(i), 0.125);
+                assertEquals(expected.getY(i), actual.getY(i), 0.125);
+            }
+        }
+    }
+
+    @Test
+    void testSlowSpectatorSkipsToKeyframe() throws IOException {
+        broadcaster = new SpectatorBroadcaster(0, 1024);
+        game.addTickListener(broadcaster);
+
+        SocketChannel channel = SocketChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, 1024);
+        channel.connect(loopback(broadcaster.getPort()));
+        SpectatorClient slow = new SpectatorClient(channel);
+        spectators.add(slow);
+
+        // Never read while the match runs: the socket fills up and frames pile up
+        for (int i = 0; i < 3000 && broadcaster.getSkips() == 0; i++) {
+            game.update(DT);
+        }
+        assertTrue(broadcaster.getSkips() > 0, "A stalled spectator should be skipped ahead");
+        assertEquals(1, broadcaster.getSubscriberCount(), "Skipping should not disconnect the spectator");
+
+        // Reading again, the spectator resynchronizes on a keyframe and follows live play
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (slow.getLastSeq() != broadcaster.getFramesPublished() - 1) {
+            assertTrue(System.nanoTime() < deadline, "Slow spectator never caught up");
+            game.update(DT);
+            slow.poll();
+            LockSupport.parkNanos(100_000);
+        }
+        assertTrue(slow.getFramesSkipped() > 0 || slow.getFramesDecoded() < broadcaster.getFramesPublished());
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+}
@@ -0,0 +1,128 @@
+package se233.contra.script;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.exception.GameException;
+import se233.contra.model.Boss1;
+import se233.contra.util.Constants;
+import se233.contra.view.SpriteLoader;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compiled boss behavior scripts
+ */
+class BossScriptTest {
+    private static final double DT = 1.0 / 60.0;
+
+    /**
+     * A minimal scripted host that logs what the script makes it do
+     */
+    static class Host {
+        enum Phase { CALM, ANGRY }
+
+        Phase phase = Phase.CALM;
+        double timer;
+        final StringBuilder log = new StringBuilder();
+
+        double getStateTimer() { return timer; }
+        private int stateIndex() { return phase.ordinal(); }
+
+        private void enterState(int index) {
+            phase = Phase.values()[index];
+            timer = 0;
+            log.append('>').append(phase);
+        }
+
+        private void taunt() { log.append('t'); }
+        private void stomp(double deltaTime) { log.append('s'); }
+
+        static MethodHandles.Lookup lookup() { return MethodHandles.lookup(); }
+
+        void tick(MethodHandle script, double deltaTime) throws Throwable {
+            timer += deltaTime;
+            script.invokeExact(this, deltaTime);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testStatementsRunInOrderAndSwitchState() throws Throwable {
+        MethodHandle script = compile(
+                "# comment line",
+                "state CALM",
+                "    do taunt   # trailing comment",
+                "    after 1.5 -> ANGRY",
+                "state ANGRY",
+                "    do stomp",
+                "    after 0.5 do taunt");
+        Host host = new Host();
+
+        host.tick(script, 1.0);
+        assertEquals("t", host.log.toString());
+        host.tick(script, 1.0);
+        assertEquals("tt>ANGRY", host.log.toString());
+        host.tick(script, 0.25);
+        host.tick(script, 0.5);
+        assertEquals("tt>ANGRYsst", host.log.toString());
+    }
+
+    @Test
+    void testTimesMayNameConstants() throws Throwable {
+        MethodHandle script = compile(
+                "state CALM",
+                "    after BOSS1_VULNERABLE_TIME -> ANGRY");
+        Host host = new Host();
+        host.tick(script, Constants.BOSS1_VULNERABLE_TIME);
+        assertEquals(Host.Phase.CALM, host.phase, "'after' means strictly longer than");
+        host.tick(script, DT);
+        assertEquals(Host.Phase.ANGRY, host.phase);
+    }
+
+    @Test
+    void testErrorsNameTheLine() {
+        GameException state = assertThrows(GameException.class, () -> compile("state CALM", "  -> FURIOUS"));
+        assertTrue(state.getMessage().contains("line 2"), state.getMessage());
+        assertThrows(GameException.class, () -> compile("state CALM", "  do dance"));
+        assertThrows(GameException.class, () -> compile("do taunt"));
+        assertThrows(GameException.class, () -> compile("state CALM", "  after soon -> ANGRY"));
+        assertThrows(GameException.class, () -> compile("state CALM", "  leap"));
+    }
+
+    @Test
+    void testBoss1FollowsItsScript() {
+        Boss1 boss = new Boss1(Constants.BOSS1_X, Constants.BOSS1_Y);
+        assertEquals(Boss1.State.IDLE, boss.getCurrentState());
+
+        double[] at = new double[Boss1.State.values().length];
+        for (int tick = 0; tick < 60 * 20; tick++) {
+            Boss1.State before = boss.getCurrentState();
+            boss.update(DT);
+            if (boss.getCurrentState() != before && at[boss.getCurrentState().ordinal()] == 0) {
+                at[boss.getCurrentState().ordinal()] = (tick + 1) * DT;
+            }
+        }
+
+        assertEquals(2.0, at[Boss1.State.ATTACKING.ordinal()], 2 * DT);
+        assertEquals(7.0, at[Boss1.State.DOOR_OPENING.ordinal()], 3 * DT);
+        assertEquals(7.0 + Constants.BOSS1_DOOR_ANIMATION_TIME, at[Boss1.State.VULNERABLE.ordinal()], 4 * DT);
+        assertEquals(7.0 + Constants.BOSS1_DOOR_ANIMATION_TIME + Constants.BOSS1_VULNERABLE_TIME,
+                at[Boss1.State.DOOR_CLOSING.ordinal()], 5 * DT);
+    }
+
+    private static MethodHandle compile(String... lines) {
+        return BossScript.compile(String.join("\n", lines), Host.lookup(),
+                Host.Phase.values());
+    }
+}
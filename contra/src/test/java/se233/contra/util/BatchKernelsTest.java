@@ -0,0 +1,163 @@
+package se233.contra.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se233.contra.model.Bullet;
+import se233.contra.view.SpriteLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bullet batch kernels, and a benchmark that only runs
+ * with -Dbenchmarks=true
+ */
+class BatchKernelsTest {
+    private static final Logger logger = LoggerFactory.getLogger(BatchKernelsTest.class);
+    private static final double DT = 1.0 / 60.0;
+    private static final int SWARM = 10_003;   // not a multiple of any vector length
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testSelectedKernelsMatchScalar() {
+        BatchKernels selected = BatchKernels.get();
+        BatchKernels scalar = BatchKernels.scalar();
+        logger.info("Selected kernels: {}", selected.getName());
+
+        double[][] a = swarm(new GameRandom(49));
+        double[][] b = swarm(new GameRandom(49));
+        for (int tick = 0; tick < 120; tick++) {
+            selected.integrate(a[0], a[1], a[2], a[3], SWARM, DT);
+            scalar.integrate(b[0], b[1], b[2], b[3], SWARM, DT);
+        }
+        assertArrayEquals(b[0], a[0], "Positions must be bit-identical");
+        assertArrayEquals(b[1], a[1]);
+
+        long[] outA = new long[(SWARM + 63) / 64];
+        long[] outB = new long[(SWARM + 63) / 64];
+        int culledA = selected.outside(a[0], a[1], SWARM, Bullet.MIN_X, Bullet.MIN_Y, Bullet.MAX_X, Bullet.MAX_Y, outA);
+        int culledB = scalar.outside(b[0], b[1], SWARM, Bullet.MIN_X, Bullet.MIN_Y, Bullet.MAX_X, Bullet.MAX_Y, outB);
+        assertEquals(culledB, culledA);
+        assertArrayEquals(outB, outA);
+        assertTrue(culledA > 0 && culledA < SWARM, "Culled " + culledA);
+
+        assertEquals(scalar.overlapping(b[0], b[1], SWARM, 20, 20, 600, 300, 680, 420),
+                selected.overlapping(a[0], a[1], SWARM, 20, 20, 600, 300, 680, 420));
+    }
+
+    @Test
+    void testKernelsAgreeWithBullets() {
+        GameRandom random = new GameRandom(50);
+        List<Bullet> bullets = new ArrayList<>();
+        double[][] state = new double[4][SWARM];
+        for (int i = 0; i < SWARM; i++) {
+            Bullet bullet = new Bullet(0, 0, 1, 0, false);
+            bullet.launch(random.nextDouble() * Constants.SCREEN_WIDTH, random.nextDouble() * Constants.SCREEN_HEIGHT,
+                    (random.nextDouble() - 0.5) * 800, (random.nextDouble() - 0.5) * 800);
+            bullets.add(bullet);
+            state[0][i] = bullet.getX();
+            state[1][i] = bullet.getY();
+            state[2][i] = bullet.getVelocityX();
+            state[3][i] = bullet.getVelocityY();
+        }
+
+        long[] out = new long[(SWARM + 63) / 64];
+        BatchKernels kernels = BatchKernels.get();
+        kernels.integrate(state[0], state[1], state[2], state[3], SWARM, 0.1);
+        kernels.outside(state[0], state[1], SWARM, Bullet.MIN_X, Bullet.MIN_Y, Bullet.MAX_X, Bullet.MAX_Y, out);
+        Rectangle box = new Rectangle(600, 300, 80, 120);
+        int near = 0;
+        for (int i = 0; i < SWARM; i++) {
+            Bullet bullet = bullets.get(i);
+            bullet.update(0.1);
+            assertEquals(bullet.getX(), state[0][i], "Bullet " + i);
+            assertEquals(bullet.getY(), state[1][i]);
+            assertEquals(!bullet.isActive(), (out[i >> 6] & (1L << (i & 63))) != 0, "Bullet " + i + " culling");
+            near += box.intersects(bullet.getBounds()) ? 1 : 0;
+        }
+        assertEquals(near, kernels.overlapping(state[0], state[1], SWARM, Constants.BULLET_SIZE,
+                Constants.BULLET_SIZE, box.getLeft(), box.getTop(), box.getRight(), box.getBottom()));
+    }
+
+    /**
+     * Wall-clock comparison, so opt-in: timings depend on the machine and its load
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void testKernelsBeatPerObjectUpdates() {
+        GameRandom random = new GameRandom(51);
+        double[][] state = swarm(random);
+        List<Bullet> bullets = new ArrayList<>();
+        for (int i = 0; i < SWARM; i++) {
+            Bullet bullet = new Bullet(0, 0, 1, 0, false);
+            bullet.launch(state[0][i], state[1][i], state[2][i], state[3][i]);
+            bullets.add(bullet);
+        }
+        Rectangle box = new Rectangle(600, 300, 80, 120);
+        long[] out = new long[(SWARM + 63) / 64];
+        BatchKernels kernels = BatchKernels.get();
+
+        // Best of several rounds keeps JIT warm-up and GC out of the numbers.
+        // Each step moves, culls and box-tests the whole swarm; moving back
+        // and forth keeps it on screen.
+        long perObject = Long.MAX_VALUE;
+        long batched = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < 15; round++) {
+            long start = System.nanoTime();
+            for (int step = 0; step < 20; step++) {
+                double dt = step % 2 == 0 ? DT : -DT;
+                for (int i = 0; i < SWARM; i++) {
+                    Bullet bullet = bullets.get(i);
+                    bullet.update(dt);
+                    bullet.setActive(true);
+                    sink += box.intersects(bullet.getBounds()) ? 1 : 0;
+                }
+            }
+            perObject = Math.min(perObject, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int step = 0; step < 20; step++) {
+                double dt = step % 2 == 0 ? DT : -DT;
+                kernels.integrate(state[0], state[1], state[2], state[3], SWARM, dt);
+                sink += kernels.outside(state[0], state[1], SWARM,
+                        Bullet.MIN_X, Bullet.MIN_Y, Bullet.MAX_X, Bullet.MAX_Y, out);
+                sink += kernels.overlapping(state[0], state[1], SWARM, Constants.BULLET_SIZE, Constants.BULLET_SIZE,
+                        box.getLeft(), box.getTop(), box.getRight(), box.getBottom());
+            }
+            batched = Math.min(batched, System.nanoTime() - start);
+        }
+        assertNotEquals(0, sink);
+        logger.info("{} bullets, 20 steps: per-object {} us, {} kernels {} us ({}x)", SWARM,
+                perObject / 1000, kernels.getName(), batched / 1000,
+                String.format("%.1f", (double) perObject / batched));
+        assertTrue(batched < perObject, "Kernels took " + batched + " ns, per-object " + perObject + " ns");
+    }
+
+    /**
+     * x, y, vx, vy of a swarm spread over the screen and a little beyond
+     */
+    private static double[][] swarm(GameRandom random) {
+        double[][] state = new double[4][SWARM];
+        for (int i = 0; i < SWARM; i++) {
+            state[0][i] = random.nextDouble() * (Constants.SCREEN_WIDTH + 200) - 100;
+            state[1][i] = random.nextDouble() * (Constants.SCREEN_HEIGHT + 200) - 100;
+            state[2][i] = (random.nextDouble() - 0.5) * 600;
+            state[3][i] = (random.nextDouble() - 0.5) * 600;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,126 @@
+package se233.contra.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se233.contra.view.SpriteLoader;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for alpha collision masks
+ */
+class CollisionMaskTest {
+    private static final int SOLID = 0xFF000000;
+
+    @BeforeEach
+    void setUp() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    void testMaskIsTrimmedToSolidPixels() {
+        int[] argb = new int[10 * 8];
+        for (int y = 5; y < 7; y++) {
+            for (int x = 4; x < 7; x++) {
+                argb[y * 10 + x] = SOLID;
+            }
+        }
+        argb[0] = 0x40FFFFFF;   // faint, below the threshold
+        CollisionMask mask = CollisionMask.fromArgb(argb, 10, 8, Constants.MASK_ALPHA_THRESHOLD);
+
+        assertEquals(4, mask.getOffsetX());
+        assertEquals(5, mask.getOffsetY());
+        assertEquals(3, mask.getWidth());
+        assertEquals(2, mask.getHeight());
+        assertTrue(mask.isSolid(6, 6));
+        assertFalse(mask.isSolid(0, 0));
+
+        CollisionMask empty = CollisionMask.fromArgb(new int[16], 4, 4, Constants.MASK_ALPHA_THRESHOLD);
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.overlaps(0, 0, mask, 0, 0));
+    }
+
+    @Test
+    void testOverlapAgreesWithCheckingEveryPixel() {
+        GameRandom random = new GameRandom(45);
+        for (int n = 0; n < 300; n++) {
+            CollisionMask a = randomMask(random);
+            CollisionMask b = randomMask(random);
+            double bx = nextInt(random, 300) - 150 + random.nextDouble();
+            double by = nextInt(random, 40) - 20;
+            assertEquals(overlapsPixelByPixel(a, b, (int) Math.floor(bx), (int) by),
+                    a.overlaps(0, 0, b, bx, by), "Masks disagree at " + bx + ", " + by);
+        }
+    }
+
+    @Test
+    void testMirrorFlipsWithinTheFrame() {
+        GameRandom random = new GameRandom(7);
+        CollisionMask mask = randomMask(random);
+        CollisionMask mirror = mask.mirrored();
+        for (int y = 0; y < 24; y++) {
+            for (int x = 0; x < 140; x++) {
+                assertEquals(mask.isSolid(x, y), mirror.isSolid(139 - x, y), "Pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void testBoxOverlapIsNotEnough() {
+        // A 3x3 shot in the corner of a 20x20 frame, beside a solid block
+        int[] shot = new int[20 * 20];
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 3; x++) {
+                shot[y * 20 + x] = SOLID;
+            }
+        }
+        int[] block = new int[16 * 16];
+        Arrays.fill(block, SOLID);
+        CollisionMask shotMask = CollisionMask.fromArgb(shot, 20, 20, Constants.MASK_ALPHA_THRESHOLD);
+        CollisionMask blockMask = CollisionMask.fromArgb(block, 16, 16, Constants.MASK_ALPHA_THRESHOLD);
+
+        assertTrue(new Rectangle(0, 0, 20, 20).intersects(new Rectangle(10, 10, 16, 16)));
+        assertFalse(shotMask.overlaps(0, 0, blockMask, 10, 10), "Only the frames overlap");
+        assertTrue(shotMask.overlaps(8, 8, blockMask, 10, 10));
+    }
+
+    /**
+     * A 140x24 frame (three words per row) with a random solid blob
+     */
+    private static CollisionMask randomMask(GameRandom random) {
+        int[] argb = new int[140 * 24];
+        int x0 = nextInt(random, 100);
+        int y0 = nextInt(random, 20);
+        int x1 = x0 + 1 + nextInt(random, 140 - x0);
+        int y1 = y0 + 1 + nextInt(random, 24 - y0);
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                if (nextInt(random, 3) == 0) {
+                    argb[y * 140 + x] = SOLID;
+                }
+            }
+        }
+        return CollisionMask.fromArgb(argb, 140, 24, Constants.MASK_ALPHA_THRESHOLD);
+    }
+
+    private static int nextInt(GameRandom random, int bound) {
+        return (int) (random.nextDouble() * bound);
+    }
+
+    private static boolean overlapsPixelByPixel(CollisionMask a, CollisionMask b, int bx, int by) {
+        for (int y = 0; y < 24; y++) {
+            for (int x = 0; x < 140; x++) {
+                if (a.isSolid(x, y) && b.isSolid(x - bx, y - by)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package se233.contra.view;
+
+import org.junit.jupiter.api.Test;
+import se233.contra.util.CollisionMask;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for shared animation clip timing
+ */
+class AnimationClipTest {
+
+    @Test
+    void testLoopingClipWrapsAround() {
+        AnimationClip clip = AnimationClip.PLAYER_RUN;
+        double duration = clip.getFrameDuration();
+
+        assertEquals(0, clip.frameIndex(0));
+        assertEquals(1, clip.frameIndex(duration * 1.5));
+        assertEquals(0, clip.frameIndex(duration * clip.getFrameCount()),
+                "Looping clip should wrap back to the first frame");
+        assertFalse(clip.isFinished(duration * 100), "Looping clip never finishes");
+    }
+
+    @Test
+    void testOneShotClipHoldsLastFrame() {
+        AnimationClip clip = AnimationClip.EXPLOSION;
+        double total = clip.getFrameDuration() * clip.getFrameCount();
+
+        assertFalse(clip.isFinished(total * 0.5));
+        assertTrue(clip.isFinished(total));
+        assertEquals(clip.getFrameCount() - 1, clip.frameIndex(total * 10),
+                "Finished clip should stay on its last frame");
+    }
+
+    @Test
+    void testFramesAreShared() {
+        try {
+            SpriteLoader.initialize();
+        } catch (Exception e) {
+            // Ignore if sprites not available
+        }
+
+        assertSame(AnimationClip.SOLDIER_RUN.frameAt(0), AnimationClip.SOLDIER_RUN.frameAt(0),
+                "Every entity should draw the same frame instance");
+    }
+
+    @Test
+    void testMasksDoNotNeedTheView() {
+        // No SpriteLoader.initialize(): masks come from the sheets' pixels directly
+        CollisionMask shot = AnimationClip.BULLET.maskAt(0, false);
+        CollisionMask cannon = AnimationClip.BOSS1_CANNON.maskAt(0, false);
+
+        assertNotNull(shot);
+        assertFalse(shot.isEmpty(), "Bullet sprite has solid pixels");
+        assertTrue(cannon.getWidth() <= 24 && cannon.getHeight() <= 16, "Mask is trimmed to the frame");
+        assertEquals(24 - cannon.getOffsetX() - cannon.getWidth(),
+                AnimationClip.BOSS1_CANNON.maskAt(0, true).getOffsetX(), "Mirrored mask flips the trim");
+    }
+}